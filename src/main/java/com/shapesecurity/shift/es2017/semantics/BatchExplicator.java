@@ -0,0 +1,76 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.data.Either;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.ast.Program;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+// Explicates many programs concurrently.
+// Each call to Explicator.deriveSemantics builds its own analysis tables and shares no mutable state with other calls, so distinct programs
+// (or the same program, which is only read) may be explicated on any number of threads at once. The resulting Semantics are independent of each other.
+public final class BatchExplicator {
+	private BatchExplicator() {
+	}
+
+	// Results are in the order of `programs`. A program which fails to explicate gives its exception in place of a result and does not affect the others.
+	@Nonnull
+	public static ImmutableList<Either<Throwable, Semantics>> deriveSemantics(@Nonnull Iterable<? extends Program> programs, @Nonnull Executor executor) {
+		ArrayList<CompletableFuture<Either<Throwable, Semantics>>> futures = new ArrayList<>();
+		for (Program program : programs) {
+			futures.add(CompletableFuture.supplyAsync(() -> explicateIsolated(program), executor));
+		}
+		ImmutableList<Either<Throwable, Semantics>> results = ImmutableList.empty();
+		for (int i = futures.size() - 1; i >= 0; --i) {
+			results = results.cons(futures.get(i).join());
+		}
+		return results;
+	}
+
+	// Runs each program on its own virtual thread where the JVM supports them (JDK 21+), and on the common pool otherwise.
+	@Nonnull
+	public static ImmutableList<Either<Throwable, Semantics>> deriveSemanticsOnVirtualThreads(@Nonnull Iterable<? extends Program> programs) {
+		Maybe<ExecutorService> virtual = newVirtualThreadPerTaskExecutor();
+		if (virtual.isNothing()) {
+			return deriveSemantics(programs, ForkJoinPool.commonPool());
+		}
+		ExecutorService executor = virtual.fromJust();
+		try {
+			return deriveSemantics(programs, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// Executors.newVirtualThreadPerTaskExecutor, looked up reflectively since this library targets Java 8.
+	@Nonnull
+	public static Maybe<ExecutorService> newVirtualThreadPerTaskExecutor() {
+		try {
+			return Maybe.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			return Maybe.empty();
+		}
+	}
+
+	@Nonnull
+	private static Either<Throwable, Semantics> explicateIsolated(@Nonnull Program program) {
+		try {
+			return Either.right(Explicator.deriveSemantics(program));
+		} catch (StackOverflowError e) {
+			// deeply nested programs should not take down the rest of the batch
+			return Either.left(e);
+		} catch (VirtualMachineError e) {
+			throw e;
+		} catch (Throwable e) {
+			return Either.left(e);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+// Receives the timing and size of each phase of explication, and of the passes run over its result, e.g. to export them as metrics.
+// Listeners are called on the thread running the phase, once the phase completes. Sizes are only computed when a listener is given,
+// since each takes a traversal of the tree or graph.
+@FunctionalInterface
+public interface ExplicationListener {
+	void phaseCompleted(@Nonnull PhaseReport report);
+
+	enum Phase {
+		// ScopeAnalyzer.analyze
+		SCOPE_ANALYSIS,
+		// PreAnalysisReducer, which does the work of FinallyJumpReducer and FindWithsReducer in a single traversal, and building the tables the
+		// explicator looks scopes, with statements and references up in
+		PRE_ANALYSIS,
+		// building the graph from the AST
+		EXPLICATION,
+		// ConstantFolder.reduce
+		CONSTANT_FOLDING,
+		// BlockSquasher.reduce
+		BLOCK_SQUASHING,
+		// DeadCodeEliminator.reduce
+		DEAD_CODE_ELIMINATION,
+		// TemporaryCoalescer.reduce
+		TEMPORARY_COALESCING,
+		// CopyPropagator.reduce
+		COPY_PROPAGATION
+	}
+
+	// Counts which do not apply to the phase are zero.
+	final class PhaseReport {
+		@Nonnull
+		public final Phase phase;
+		// as given by System.nanoTime
+		public final long startNanos;
+		public final long endNanos;
+		// nodes in the AST being analyzed or explicated
+		public final int astNodes;
+		// nodes in the graph produced by the phase, as counted by NodeCounter
+		public final int asgNodes;
+		// distinct temporary variables in the graph produced by the phase
+		public final int temporaries;
+		// temporary variables created by the phase, including those which do not survive to its result (e.g. inside functions whose bodies
+		// are deferred, or which are later merged)
+		public final int temporariesCreated;
+
+		public PhaseReport(@Nonnull Phase phase, long startNanos, long endNanos, int astNodes, int asgNodes, int temporaries, int temporariesCreated) {
+			this.phase = phase;
+			this.startNanos = startNanos;
+			this.endNanos = endNanos;
+			this.astNodes = astNodes;
+			this.asgNodes = asgNodes;
+			this.temporaries = temporaries;
+			this.temporariesCreated = temporariesCreated;
+		}
+
+		// Reports a phase which produces `result` without creating temporaries, counting its nodes and temporaries.
+		@Nonnull
+		public static PhaseReport forGraph(@Nonnull Phase phase, long startNanos, long endNanos, int astNodes, @Nonnull Node result) {
+			return forGraph(phase, startNanos, endNanos, astNodes, 0, result);
+		}
+
+		// Reports a phase which produces `result`, having created `temporariesCreated` temporaries, counting its nodes and temporaries.
+		@Nonnull
+		public static PhaseReport forGraph(@Nonnull Phase phase, long startNanos, long endNanos, int astNodes, int temporariesCreated, @Nonnull Node result) {
+			int asgNodes = 0;
+			Set<Variable> temporaries = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Node node : GetDescendents.getDescendants(result)) {
+				++asgNodes;
+				if (node instanceof TemporaryReference) {
+					temporaries.add(((TemporaryReference) node).variable);
+				}
+			}
+			return new PhaseReport(phase, startNanos, endNanos, astNodes, asgNodes, temporaries.size(), temporariesCreated);
+		}
+
+		public long durationNanos() {
+			return this.endNanos - this.startNanos;
+		}
+
+		@Override
+		public String toString() {
+			return this.phase + ": " + this.durationNanos() + "ns, AST nodes: " + this.astNodes + ", ASG nodes: " + this.asgNodes + ", temporaries: " + this.temporaries + ", temporaries created: " + this.temporariesCreated;
+		}
+	}
+}
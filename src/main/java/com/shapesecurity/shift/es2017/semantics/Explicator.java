@@ -22,6 +22,8 @@ import com.shapesecurity.functional.data.*;
 import com.shapesecurity.shift.es2017.ast.*;
 import com.shapesecurity.shift.es2017.ast.operators.UpdateOperator;
 import com.shapesecurity.shift.es2017.ast.Module;
+import com.shapesecurity.shift.es2017.reducer.MonoidalReducer;
+import com.shapesecurity.shift.es2017.reducer.WrappedReducer;
 import com.shapesecurity.shift.es2017.scope.*;
 import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.BinaryOperation;
 import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.BinaryOperator;
@@ -37,14 +39,11 @@ import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.Halt;
 import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
 import com.shapesecurity.shift.es2017.semantics.asg.Keys;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyObject;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralInfinity;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
 import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
@@ -52,11 +51,11 @@ import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberDefinition;
 import com.shapesecurity.shift.es2017.semantics.asg.New;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeInterner;
 import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
 import com.shapesecurity.shift.es2017.semantics.asg.Return;
 import com.shapesecurity.shift.es2017.semantics.asg.ReturnAfterFinallies;
 import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
-import com.shapesecurity.shift.es2017.semantics.asg.This;
 import com.shapesecurity.shift.es2017.semantics.asg.Throw;
 import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
 import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
@@ -82,16 +81,21 @@ import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
 import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
 import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
 import com.shapesecurity.shift.es2017.semantics.ast.ThisOrArgumentsOrTryCatchFinallyChecker;
-import com.shapesecurity.shift.es2017.semantics.visitor.FinallyJumpReducer;
-import com.shapesecurity.shift.es2017.semantics.visitor.FindWithsReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.PreAnalysisReducer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+// The static deriveSemantics methods are safe to call from multiple threads at once: each call creates its own Explicator and only reads the given AST.
+// An Explicator instance itself is not thread-safe. See BatchExplicator for explicating many programs concurrently.
 public class Explicator {
 	@Nonnull
 	final GlobalScope scope;
@@ -118,28 +122,116 @@ public class Explicator {
 	@Nonnull
 	final MultiHashTable<FunctionBody, WithStatement> withStatementsInFunctions;
 	@Nonnull
+	final IdentityHashMap<VariableReference, Pair<Variable, Reference>> referenceIndex;
+	@Nonnull
 	final F<ImmutableList<Directive>, Boolean> isCandidateForInlining;
 	final Supplier<NodeWithValue> getDirectEval;
+	// when present, sibling function declarations are explicated concurrently on this pool
+	@Nullable
+	final ForkJoinPool pool;
+	// when set, function bodies are explicated on first access rather than up front
+	final boolean deferBodies;
+	// the lock of every deferred function of the program, held while explicating its body, since that writes to the results (e.g. functionScopes)
+	// shared by the whole program; it is the functionScopes map of the program, so that readers of Semantics.functionScopes can hold it too
+	@Nonnull
+	final Object deferredBodyLock;
+	// when present, told about the time and size of each phase
+	@Nullable
+	final ExplicationListener listener;
+	// the size of the AST, only counted when there is a listener
+	private final int astNodes;
+	// shares recurring leaves, such as LiteralString("length"), across the whole program
+	@Nonnull
+	final NodeInterner interner;
+	// the temporaries created by every body explicated so far, including those of forks and deferred bodies
+	@Nonnull
+	final AtomicInteger temporariesCreated;
 
 	Explicator(@Nonnull Program program, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval) {
+		this(program, isCandidateForInlining, getDirectEval, null, false);
+	}
+
+	Explicator(@Nonnull Program program, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval, @Nullable ForkJoinPool pool) {
+		this(program, isCandidateForInlining, getDirectEval, pool, false);
+	}
+
+	Explicator(
+		@Nonnull Program program, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval,
+		@Nullable ForkJoinPool pool, boolean deferBodies
+	) {
+		this(program, isCandidateForInlining, getDirectEval, pool, deferBodies, null);
+	}
+
+	Explicator(
+		@Nonnull Program program, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval,
+		@Nullable ForkJoinPool pool, boolean deferBodies, @Nullable ExplicationListener listener
+	) {
+		this.listener = listener;
+		this.astNodes = listener == null ? 0 : countNodes(program);
+		long start = System.nanoTime();
 		if (program instanceof Script) {
 			Script script = (Script) program;
 			this.program = Either.left(script);
 			this.scope = ScopeAnalyzer.analyze(script);
-			this.jumpMap = FinallyJumpReducer.analyze(script);
 		} else {
 			Module module = (Module) program;
 			this.program = Either.right(module);
 			this.scope = ScopeAnalyzer.analyze(module);
-			this.jumpMap = FinallyJumpReducer.analyze(module);
 		}
+		long scopeAnalyzed = System.nanoTime();
+		PreAnalysisReducer.Result preAnalysis = PreAnalysisReducer.analyze(program);
+		this.jumpMap = preAnalysis.jumpMap;
 		this.scopeLookup = new ScopeLookup(this.scope);
 		this.functionScopes = new IdentityHashMap<>();
-		this.withReferences = findWithReferences(this.scope);
+		this.withReferences = findWithReferences(preAnalysis.withStatements, this.scopeLookup);
 		this.withObjects = new IdentityHashMap<>();
-		this.withStatementsInFunctions = FindWithsReducer.reduce(program).right;
+		this.withStatementsInFunctions = preAnalysis.withStatementsInFunctions;
+		this.referenceIndex = new IdentityHashMap<>();
+		indexReferences(this.scope);
+		if (listener != null) {
+			listener.phaseCompleted(new ExplicationListener.PhaseReport(ExplicationListener.Phase.SCOPE_ANALYSIS, start, scopeAnalyzed, this.astNodes, 0, 0, 0));
+			listener.phaseCompleted(new ExplicationListener.PhaseReport(ExplicationListener.Phase.PRE_ANALYSIS, scopeAnalyzed, System.nanoTime(), this.astNodes, 0, 0, 0));
+		}
 		this.isCandidateForInlining = isCandidateForInlining;
 		this.getDirectEval = getDirectEval;
+		this.pool = pool;
+		this.deferBodies = deferBodies;
+		this.deferredBodyLock = this.functionScopes;
+		this.interner = new NodeInterner();
+		this.temporariesCreated = new AtomicInteger();
+	}
+
+	// Used for explicating a function body in parallel with its siblings, or later on when it is deferred. Shares the read-only analysis results
+	// with `parent`; the per-function state starts fresh, and the with-statement temporaries visible at this point are copied.
+	// If `shareResults` is set, results such as functionScopes are written directly to those of `parent` rather than being collected for `join`.
+	Explicator(@Nonnull Explicator parent, boolean shareResults) {
+		this.program = parent.program;
+		this.scope = parent.scope;
+		this.jumpMap = parent.jumpMap;
+		this.scopeLookup = parent.scopeLookup;
+		this.targets = parent.targets;
+		this.oldStates = parent.oldStates;
+		this.functionScopes = shareResults ? parent.functionScopes : new IdentityHashMap<>();
+		this.withReferences = parent.withReferences;
+		this.withObjects = new IdentityHashMap<>(parent.withObjects);
+		this.withStatementsInFunctions = parent.withStatementsInFunctions;
+		this.referenceIndex = parent.referenceIndex;
+		this.isCandidateForInlining = parent.isCandidateForInlining;
+		this.getDirectEval = parent.getDirectEval;
+		this.pool = parent.pool;
+		this.deferBodies = parent.deferBodies;
+		this.deferredBodyLock = parent.deferredBodyLock;
+		this.listener = null;
+		this.astNodes = 0;
+		this.interner = parent.interner;
+		this.temporariesCreated = parent.temporariesCreated;
+	}
+
+	private static int countNodes(@Nonnull Program program) {
+		return com.shapesecurity.shift.es2017.reducer.Director.reduceProgram(
+			new WrappedReducer<>((node, count) -> count + 1, new MonoidalReducer<>(Monoid.INTEGER_ADDITIVE)),
+			program
+		);
 	}
 
 	@Nonnull
@@ -152,6 +244,49 @@ public class Explicator {
 		return deriveSemanticsHelper(program, new Explicator(program, list -> false, () -> Halt.INSTANCE));
 	}
 
+	// Reports the time and size of scope analysis, pre-analysis and explication to `listener` as each completes.
+	@Nonnull
+	public static Semantics deriveSemantics(
+		@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval,
+		@Nonnull ExplicationListener listener
+	) {
+		return deriveSemanticsHelper(script, new Explicator(script, isCandidateForInlining, getDirectEval, null, false, listener));
+	}
+
+	@Nonnull
+	public static Semantics deriveSemantics(@Nonnull Program program, @Nonnull ExplicationListener listener) {
+		return deriveSemanticsHelper(program, new Explicator(program, list -> false, () -> Halt.INSTANCE, null, false, listener));
+	}
+
+	// Explicates sibling function declarations concurrently on the given pool. The result is equal to that of the sequential version.
+	// `getDirectEval` may be called from several threads at once.
+	@Nonnull
+	public static Semantics deriveSemantics(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval, @Nonnull ForkJoinPool pool) {
+		Explicator exp = new Explicator(script, isCandidateForInlining, getDirectEval, pool);
+		return pool.invoke(ForkJoinTask.adapt(() -> deriveSemanticsHelper(script, exp)));
+	}
+
+	@Nonnull
+	public static Semantics deriveSemantics(@Nonnull Program program, @Nonnull ForkJoinPool pool) {
+		Explicator exp = new Explicator(program, list -> false, () -> Halt.INSTANCE, pool);
+		return pool.invoke(ForkJoinTask.adapt(() -> deriveSemanticsHelper(program, exp)));
+	}
+
+	// Function bodies are explicated the first time they (or the locals of their function) are asked for, through LiteralFunction.body or
+	// LiteralFunction.locals. The result is otherwise equal to that of deriveSemantics. The returned Semantics keeps the AST and analysis tables
+	// reachable until every body has been explicated, and functionScopes only includes functions whose enclosing body has been explicated.
+	// Bodies may be asked for from several threads at once; explication of deferred bodies from the same program is serialized, holding the lock of
+	// Semantics.functionScopes.
+	@Nonnull
+	public static Semantics deriveSemanticsDeferringBodies(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval) {
+		return deriveSemanticsHelper(script, new Explicator(script, isCandidateForInlining, getDirectEval, null, true));
+	}
+
+	@Nonnull
+	public static Semantics deriveSemanticsDeferringBodies(@Nonnull Program program) {
+		return deriveSemanticsHelper(program, new Explicator(program, list -> false, () -> Halt.INSTANCE, null, true));
+	}
+
 	@Nonnull
 	private static Semantics deriveSemanticsHelper(@Nonnull Program program, @Nonnull Explicator exp) {
 		com.shapesecurity.shift.es2017.semantics.asg.Node result = exp.explicate();
@@ -172,24 +307,45 @@ public class Explicator {
 	}
 
 	com.shapesecurity.shift.es2017.semantics.asg.Node explicate() {
-		return this.program.either(
+		long start = System.nanoTime();
+		com.shapesecurity.shift.es2017.semantics.asg.Node result = this.program.either(
 			script -> explicateBody(script.statements, isStrict(script.directives)),
 			module -> explicateBody(module.items.map(i -> (Statement) i), true)
 		);
+		this.temporariesCreated.addAndGet(this.currentState.getTemporariesCreated());
+		if (this.listener != null) {
+			this.listener.phaseCompleted(ExplicationListener.PhaseReport.forGraph(
+				ExplicationListener.Phase.EXPLICATION, start, System.nanoTime(), this.astNodes, this.temporariesCreated.get(), result
+			));
+		}
+		return result;
 	}
 
-	private static MultiHashTable<Reference, WithStatement> findWithReferences(Scope scope) {
-		MultiHashTable<Reference, WithStatement> table = MultiHashTable.emptyUsingIdentity();
-		if (scope.type == Scope.Type.With) {
-			table = scope.through.foldLeft(
-					(acc, p) -> p.right.foldLeft(
-							(innerAcc, r) -> innerAcc.put(r, (WithStatement) scope.astNode),
-							acc
-					),
-					table
-			);
+	// Maps each reference to the with statements it passes through, outermost first.
+	// `withStatements` has inner statements before the statements containing them, so consing gives that order.
+	private static MultiHashTable<Reference, WithStatement> findWithReferences(ImmutableList<WithStatement> withStatements, ScopeLookup scopeLookup) {
+		return withStatements.foldLeft(
+			(table, withStatement) -> scopeLookup.findScopeFor(withStatement).fromJust().through.foldLeft(
+				(acc, p) -> p.right.foldLeft(
+					(innerAcc, r) -> innerAcc.put(r, withStatement),
+					acc
+				),
+				table
+			),
+			MultiHashTable.emptyUsingIdentity()
+		);
+	}
+
+	private void indexReferences(Scope scope) {
+		for (Variable variable : scope.variables()) {
+			for (Reference reference : variable.references) {
+				// a node can be referenced by more than one variable (e.g. annex B function declarations); keep the one scopeLookup resolves it to
+				if (lookupReferencedVariable(reference.node).map(v -> v == variable).orJust(false)) {
+					this.referenceIndex.put(reference.node, Pair.of(variable, reference));
+				}
+			}
 		}
-		return scope.children.foldLeft((acc, s) -> acc.merge(findWithReferences(s)), table);
+		scope.children.forEach(this::indexReferences);
 	}
 
 	ImmutableList<Variable> simpleParamsHelper(@Nonnull FormalParameters params) {
@@ -215,7 +371,7 @@ public class Explicator {
 				if (strict || variable.declarations.maybeHead()
 					.fromJust().kind == Declaration.Kind.Const) { // writing to const variables is always a TypeError, even in strict mode: https://github.com/tc39/test262/pull/430#issuecomment-139423863
 					return new BlockWithValue(
-						ImmutableList.of(rhs, new Throw(new New(new GlobalReference("TypeError"), ImmutableList.empty()))),
+						ImmutableList.of(rhs, new Throw(new New(this.interner.globalReference("TypeError"), ImmutableList.empty()))),
 						// TODO throw an actual TypeError, not whatever the global TypeError value happens to be at the moment (it is writable)
 						LiteralUndefined.INSTANCE
 					);
@@ -259,7 +415,7 @@ public class Explicator {
 	Either<GlobalReference, LocalReference> refHelper(AssignmentTargetIdentifier assignmentTargetIdentifier) {
 		Variable variable = scopeLookup.findVariableReferencedBy(assignmentTargetIdentifier);
 		return scopeLookup.isGlobal(variable) ?
-				Either.left(new GlobalReference(assignmentTargetIdentifier.name)) :
+				Either.left(this.interner.globalReference(assignmentTargetIdentifier.name)) :
 				Either.right(new LocalReference(variable));
 	}
 
@@ -267,45 +423,82 @@ public class Explicator {
 	Either<GlobalReference, LocalReference> refHelper(BindingIdentifier bindingIdentifier) {
 		Variable variable = scopeLookup.findVariableReferencedBy(bindingIdentifier).fromJust();
 		return scopeLookup.isGlobal(variable) ?
-			Either.left(new GlobalReference(bindingIdentifier.name)) :
+			Either.left(this.interner.globalReference(bindingIdentifier.name)) :
 			Either.right(new LocalReference(variable));
 	}
 
 	@Nonnull
 	Either<GlobalReference, LocalReference> refHelper(@Nonnull IdentifierExpression identifierExpression) {
 		return scopeLookup.isGlobal(scopeLookup.findVariableReferencedBy(identifierExpression)) ?
-			Either.left(new GlobalReference(identifierExpression.name)) :
+			Either.left(this.interner.globalReference(identifierExpression.name)) :
 			Either.right(new LocalReference(scopeLookup.findVariableReferencedBy(identifierExpression)));
 	}
 
 	@Nonnull
 	Either<GlobalReference, LocalReference> refHelper(@Nonnull Variable variable) {
 		return scopeLookup.isGlobal(variable) ?
-			Either.left(new GlobalReference(variable.name)) :
+			Either.left(this.interner.globalReference(variable.name)) :
 			Either.right(new LocalReference(variable));
 	}
 
+	// Creates the explicator used for a function body explicated in parallel or deferred; see the copy constructor for `shareResults`.
+	// Subclasses which track their own state should override this and `join`.
+	@Nonnull
+	Explicator fork(boolean shareResults) {
+		return new Explicator(this, shareResults);
+	}
+
+	// Merges the results of an explicator forked without `shareResults` back into this one, once its function has been explicated.
+	void join(@Nonnull Explicator child) {
+		this.functionScopes.putAll(child.functionScopes);
+	}
+
+	@Nonnull
+	private LiteralFunction explicateFunctionDeclaration(@Nonnull FunctionDeclaration functionDeclaration, boolean strict) {
+		Scope myScope = scopeLookup.findScopeFor(functionDeclaration).fromJust();
+		Maybe<Variable> name = Maybe.empty();
+		ImmutableList<Variable> parameters = simpleParamsHelper(functionDeclaration.params);
+		return explicateGeneralFunction(name, myScope, parameters, functionDeclaration.body, strict);
+	}
+
+	// Explicates hoisted function declarations. Function bodies do not depend on each other, so when a pool is available they are explicated concurrently
+	// by forked explicators, which are joined back in source order.
+	@Nonnull
+	private ImmutableList<LiteralFunction> explicateFunctionDeclarations(@Nonnull ImmutableList<FunctionDeclaration> functionDeclarations, boolean strict) {
+		if (this.pool == null || functionDeclarations.length < 2 || !ForkJoinTask.inForkJoinPool()) {
+			return functionDeclarations.map(f -> explicateFunctionDeclaration(f, strict));
+		}
+		ArrayList<Explicator> children = new ArrayList<>();
+		ArrayList<ForkJoinTask<LiteralFunction>> tasks = new ArrayList<>();
+		for (FunctionDeclaration functionDeclaration : functionDeclarations) {
+			Explicator child = fork(false);
+			children.add(child);
+			tasks.add(ForkJoinTask.adapt(() -> child.explicateFunctionDeclaration(functionDeclaration, strict)));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		ImmutableList<LiteralFunction> result = ImmutableList.empty();
+		for (int i = 0; i < tasks.size(); ++i) {
+			join(children.get(i));
+			result = result.cons(tasks.get(i).join());
+		}
+		return result.reverse();
+	}
+
 	// for function, block, caseblock, and script bodies, not arbitrary lists of statements. Performs hoisting.
 	// TODO ensure that function declarations in switch statements get hoisted to the top of the switch, per 13.12.6 (I think)
 	@Nonnull
 	com.shapesecurity.shift.es2017.semantics.asg.Block explicateBody(@Nonnull ImmutableList<Statement> statements, boolean strict) {
 		ImmutableList<com.shapesecurity.shift.es2017.semantics.asg.Node> res = ImmutableList.empty();
 		// hoist functions
-		for (Statement s : statements) {
-			if (s instanceof FunctionDeclaration) {
-				FunctionDeclaration functionDeclaration = (FunctionDeclaration) s;
-				Variable variable = scopeLookup.findVariablesForFuncDecl(functionDeclaration).left;
-				Either<GlobalReference, LocalReference> ref = refHelper(variable);
-
-				Scope myScope = scopeLookup.findScopeFor(functionDeclaration).fromJust();
-				Maybe<Variable> name = Maybe.empty();
-				ImmutableList<Variable> parameters = simpleParamsHelper(functionDeclaration.params);
-				res = res.cons(new VariableAssignment(
-					ref,
-					explicateGeneralFunction(name, myScope, parameters, functionDeclaration.body, strict),
-					strict
-				));
-			}
+		ImmutableList<FunctionDeclaration> functionDeclarations = statements.filter(s -> s instanceof FunctionDeclaration).map(s -> (FunctionDeclaration) s);
+		ImmutableList<LiteralFunction> functions = explicateFunctionDeclarations(functionDeclarations, strict);
+		for (Pair<FunctionDeclaration, LiteralFunction> p : functionDeclarations.zipWith(Pair::of, functions)) {
+			Variable variable = scopeLookup.findVariablesForFuncDecl(p.left).left;
+			res = res.cons(new VariableAssignment(
+				refHelper(variable),
+				p.right,
+				strict
+			));
 		}
 		// then evaluate everything
 		res = res.reverse().append(statements.map(s -> explicateStatement(s, strict)));
@@ -328,13 +521,6 @@ public class Explicator {
 			}
 		}
 		strict = strict || isStrict(functionBody.directives);
-		PerFunctionState oldState = currentState;
-		currentState = new PerFunctionState();
-		this.oldStates = this.oldStates.cons(currentState);
-		com.shapesecurity.shift.es2017.semantics.asg.Block body = explicateBody(functionBody.statements, strict);
-		this.oldStates = this.oldStates.maybeTail().fromJust();
-		ImmutableList<Variable> locals = currentState.getAdditionalVariables().append(functionVariablesHelper(scope)); // todo concatlists, I guess
-		currentState = oldState;
 		// TODO capture may have duplicate entries: `function g(x){function h(){x+x}}`
 		ImmutableList<Variable> capturedNormalVariables = scope.through.entries()
 			.flatMap(p -> p.right.map(r -> {
@@ -356,11 +542,50 @@ public class Explicator {
 
 		ImmutableList<Variable> captured = capturedNormalVariables.append(capturedTemporariesForWiths);
 
-		LiteralFunction out = new LiteralFunction(name, arguments, parameters, locals, captured, body, strict);
+		Maybe<LiteralFunction> reused = reuseFunction(name, scope, parameters, captured, functionBody, strict);
+		LiteralFunction out;
+		if (reused.isJust()) {
+			out = reused.fromJust();
+		} else if (this.deferBodies) {
+			Explicator deferred = fork(true);
+			Scope functionScope = scope;
+			boolean bodyIsStrict = strict;
+			out = new LiteralFunction(
+				name, arguments, parameters, captured, () -> deferred.explicateFunctionBody(functionScope, functionBody, bodyIsStrict), strict,
+				this.deferredBodyLock
+			);
+		} else {
+			Pair<com.shapesecurity.shift.es2017.semantics.asg.Block, ImmutableList<Variable>> body = explicateFunctionBody(scope, functionBody, strict);
+			out = new LiteralFunction(name, arguments, parameters, body.right, captured, body.left, strict);
+		}
 		this.functionScopes.put(out, scope);
 		return out;
 	}
 
+	// Allows a subclass to supply a previously explicated function in place of explicating `functionBody` again.
+	// `scope` is the function's own scope, and the other arguments are as they would be passed to the LiteralFunction.
+	@Nonnull
+	Maybe<LiteralFunction> reuseFunction(
+		@Nonnull Maybe<Variable> name, @Nonnull Scope scope, @Nonnull ImmutableList<Variable> parameters, @Nonnull ImmutableList<Variable> captured,
+		@Nonnull FunctionBody functionBody, boolean strict
+	) {
+		return Maybe.empty();
+	}
+
+	// Returns the body and locals of a function.
+	@Nonnull
+	Pair<com.shapesecurity.shift.es2017.semantics.asg.Block, ImmutableList<Variable>> explicateFunctionBody(@Nonnull Scope scope, @Nonnull FunctionBody functionBody, boolean strict) {
+		PerFunctionState oldState = currentState;
+		currentState = new PerFunctionState();
+		this.oldStates = this.oldStates.cons(currentState);
+		com.shapesecurity.shift.es2017.semantics.asg.Block body = explicateBody(functionBody.statements, strict);
+		this.oldStates = this.oldStates.maybeTail().fromJust();
+		ImmutableList<Variable> locals = currentState.getAdditionalVariables().append(functionVariablesHelper(scope)); // todo concatlists, I guess
+		this.temporariesCreated.addAndGet(currentState.getTemporariesCreated());
+		currentState = oldState;
+		return Pair.of(body, locals);
+	}
+
 	@Nonnull
 	private com.shapesecurity.shift.es2017.semantics.asg.Node makeForInUpdate(@Nonnull VariableDeclarationAssignmentTarget lhs, LocalReference keys, LocalReference counter, boolean strict) {
 		NodeWithValue rhs = new MemberAccess(keys, counter);
@@ -473,14 +698,14 @@ public class Explicator {
 						NodeWithValue nullTest = new Logic(Logic.Operator.And, new Equality(Equality.Operator.StrictNeq, object, LiteralNull.INSTANCE), new Equality(Equality.Operator.StrictNeq, object, LiteralUndefined.INSTANCE));
 						NodeWithValue coercion = new VariableAssignment(object, new TypeCoercionObject(object), false);
 						NodeWithValue keyAssign = new VariableAssignment(keys, new Keys(object), false);
-						NodeWithValue indexAssign = new VariableAssignment(counter, new LiteralNumber(0), false);
+						NodeWithValue indexAssign = new VariableAssignment(counter, this.interner.literalNumber(0), false);
 						Loop loop = new Loop(
 							new com.shapesecurity.shift.es2017.semantics.asg.Block(ImmutableList.of(
 								new IfElse(
 									new RelationalComparison(
 										RelationalComparison.Operator.LessThan,
 										counter,
-										new MemberAccess(keys, new LiteralString("length"))
+										new MemberAccess(keys, this.interner.literalString("length"))
 									),
 									new com.shapesecurity.shift.es2017.semantics.asg.Block(com.shapesecurity.shift.es2017.semantics.asg.Void.INSTANCE),
 									new com.shapesecurity.shift.es2017.semantics.asg.Block(breakNode)
@@ -496,7 +721,7 @@ public class Explicator {
 								innerTarget,
 								new VariableAssignment(
 									counter,
-									new FloatMath(FloatMath.Operator.Plus, counter, new LiteralNumber(1)),
+									new FloatMath(FloatMath.Operator.Plus, counter, this.interner.literalNumber(1)),
 									false
 								)
 							))
@@ -715,7 +940,7 @@ public class Explicator {
 			StaticMemberAssignmentTarget staticMemberAssignmentTarget = (StaticMemberAssignmentTarget) lhs;
 			return new MemberAssignment(
 					explicateExpressionSuper(staticMemberAssignmentTarget.object, strict),
-					new LiteralString(staticMemberAssignmentTarget.property),
+					this.interner.literalString(staticMemberAssignmentTarget.property),
 					rhs,
 					strict
 			);
@@ -767,8 +992,8 @@ public class Explicator {
 					arr -> new BlockWithValue(ImmutableList.cons(
 						new MemberAssignment(
 							arr,
-							new LiteralString("length"),
-							new LiteralNumber(arrayExpression.elements.length),
+							this.interner.literalString("length"),
+							this.interner.literalNumber(arrayExpression.elements.length),
 							false
 						),
 						arrayExpression.elements.mapWithIndex((ind, p) -> p.maybe(
@@ -822,7 +1047,7 @@ public class Explicator {
 			if (c.callee instanceof MemberExpression) {
 				MemberExpression memberExpression = (MemberExpression) c.callee;
 				NodeWithValue field = memberExpression instanceof StaticMemberExpression
-						? new LiteralString(((StaticMemberExpression) memberExpression).property)
+						? this.interner.literalString(((StaticMemberExpression) memberExpression).property)
 						: explicateExpressionReturningValue(
 							((ComputedMemberExpression) memberExpression).expression,
 							strict
@@ -862,24 +1087,24 @@ public class Explicator {
 			StaticMemberExpression staticMemberExpression = (StaticMemberExpression) expression;
 			return new MemberAccess(
 				explicateExpressionSuper(staticMemberExpression.object, strict),
-				new LiteralString(staticMemberExpression.property)
+				this.interner.literalString(staticMemberExpression.property)
 			);
 		} else if (expression instanceof IdentifierExpression) {
 			IdentifierExpression identifierExpression = (IdentifierExpression) expression;
 			return wrapVariableReadForWith(identifierExpression);
 		} else if (expression instanceof LiteralBooleanExpression) {
-			return new LiteralBoolean(((LiteralBooleanExpression) expression).value);
+			return this.interner.literalBoolean(((LiteralBooleanExpression) expression).value);
 		} else if (expression instanceof LiteralInfinityExpression) {
 			return LiteralInfinity.INSTANCE;
 		} else if (expression instanceof LiteralNumericExpression) {
-			return new LiteralNumber(((LiteralNumericExpression) expression).value);
+			return this.interner.literalNumber(((LiteralNumericExpression) expression).value);
 		} else if (expression instanceof LiteralNullExpression) {
 			return LiteralNull.INSTANCE;
 		} else if (expression instanceof LiteralRegExpExpression) {
 			LiteralRegExpExpression literalRegExpExpression = (LiteralRegExpExpression) expression;
 			return new LiteralRegExp(literalRegExpExpression.pattern, literalRegExpExpression.global, literalRegExpExpression.ignoreCase, literalRegExpExpression.multiLine, literalRegExpExpression.sticky, literalRegExpExpression.unicode);
 		} else if (expression instanceof LiteralStringExpression) {
-			return new LiteralString(((LiteralStringExpression) expression).value);
+			return this.interner.literalString(((LiteralStringExpression) expression).value);
 		} else if (expression instanceof ObjectExpression) { // TODO this would be faster/better as Object.defineProperties (all at once, instead of one at a time), probably
 			ObjectExpression objectExpression = (ObjectExpression) expression;
 			if (objectExpression.properties.isEmpty()) {
@@ -899,7 +1124,7 @@ public class Explicator {
 			NodeWithValue callee = explicateExpressionSuper(c.callee, strict);
 			return new New(callee, arguments);
 		} else if (expression instanceof ThisExpression) {
-			return new This(strict && this.oldStates.length > 0); // oldStates.length > 0 iff we are within a function. global-code `this` is the same in non-strict mode as strict.
+			return this.interner._this(strict && this.oldStates.length > 0); // oldStates.length > 0 iff we are within a function. global-code `this` is the same in non-strict mode as strict.
 		} else if (expression instanceof UnaryExpression) {
 			return explicateUnaryExpression((UnaryExpression) expression, strict);
 		} else if (expression instanceof UpdateExpression) {
@@ -912,7 +1137,7 @@ public class Explicator {
 					Function<NodeWithValue, NodeWithValue> makeRhs = ref -> new FloatMath(
 							updateExpression.operator == UpdateOperator.Increment ? FloatMath.Operator.Plus : FloatMath.Operator.Minus,
 							ref,
-							new LiteralNumber(1)
+							this.interner.literalNumber(1)
 					);
 					NodeWithValue assignment = variableAssignmentHelper(
 						binding,
@@ -936,7 +1161,7 @@ public class Explicator {
 				} else if (updateExpression.operand instanceof StaticMemberAssignmentTarget) {
 					StaticMemberAssignmentTarget staticMemberAssignmentTarget = (StaticMemberAssignmentTarget) updateExpression.operand;
 					object = explicateExpressionSuper(staticMemberAssignmentTarget.object, strict);
-					field = new LiteralString(staticMemberAssignmentTarget.property);
+					field = this.interner.literalString(staticMemberAssignmentTarget.property);
 				} else {
 					throw new RuntimeException("Not reached:" + updateExpression.operand.getClass().getSimpleName());
 				}
@@ -961,7 +1186,7 @@ public class Explicator {
 												new FloatMath(
 													updateExpression.operator == UpdateOperator.Increment ? FloatMath.Operator.Plus : FloatMath.Operator.Minus,
 													oldVal,
-													new LiteralNumber(1)
+													this.interner.literalNumber(1)
 												),
 												strict
 											)),
@@ -974,7 +1199,7 @@ public class Explicator {
 										new FloatMath(
 											updateExpression.operator == UpdateOperator.Increment ? FloatMath.Operator.Plus : FloatMath.Operator.Minus,
 											new TypeCoercionNumber(new MemberAccess(objectRef, prop)),
-											new LiteralNumber(1)
+											this.interner.literalNumber(1)
 										),
 										strict
 									)
@@ -1059,14 +1284,14 @@ public class Explicator {
 					StaticMemberExpression staticMemberExpression = (StaticMemberExpression) unaryExpression.operand;
 					return new DeleteProperty(
 						explicateExpressionSuper(staticMemberExpression.object, strict),
-						new LiteralString(staticMemberExpression.property),
+						this.interner.literalString(staticMemberExpression.property),
 						strict
 					);
 				} else {
 					// Deleting anything other than a reference simply evaluates the thing and returns true (for some reason).
 					return new BlockWithValue(
 						new com.shapesecurity.shift.es2017.semantics.asg.Block(explicateExpressionDiscardingValue(unaryExpression.operand, strict)),
-						new LiteralBoolean(true)
+						this.interner.literalBoolean(true)
 					);
 				}
 			case Typeof:
@@ -1324,7 +1549,7 @@ public class Explicator {
 			} else if (compoundAssignmentExpression.binding instanceof StaticMemberAssignmentTarget) {
 				StaticMemberAssignmentTarget staticMemberAssignmentTarget = (StaticMemberAssignmentTarget) compoundAssignmentExpression.binding;
 				object = explicateExpressionSuper(staticMemberAssignmentTarget.object, strict);
-				field = new LiteralString(staticMemberAssignmentTarget.property);
+				field = this.interner.literalString(staticMemberAssignmentTarget.property);
 				value = explicateExpressionReturningValue(compoundAssignmentExpression.expression, strict);
 			} else {
 				throw new RuntimeException("Not reached: " + compoundAssignmentExpression.binding.getClass().getSimpleName());
@@ -1412,7 +1637,7 @@ public class Explicator {
 			// TODO not a part of ES5
 			return explicateExpressionReturningValue(((ComputedPropertyName) propertyName).expression, strict);
 		} else if (propertyName instanceof StaticPropertyName) {
-			return new LiteralString(((StaticPropertyName) propertyName).value);
+			return this.interner.literalString(((StaticPropertyName) propertyName).value);
 		}
 		throw new RuntimeException("Not reached");
 	}
@@ -1424,7 +1649,7 @@ public class Explicator {
 		if (spreadElementExpression instanceof Expression) {
 			return new MemberDefinition(
 				arr,
-				new LiteralNumber(index),
+				this.interner.literalNumber(index),
 				explicateExpressionReturningValue((Expression) spreadElementExpression, strict)
 			); // TODO could be non-strict assignment always
 		}
@@ -1434,14 +1659,14 @@ public class Explicator {
 	@Nonnull
 	NodeWithValue makeTemporary(@Nonnull F<LocalReference, NodeWithValue> withTemporary) {
 		LocalReference ref = new TemporaryReference();
-		this.currentState.addVariable(ref.variable);
+		this.currentState.addTemporary(ref.variable);
 		return withTemporary.apply(ref);
 	}
 
 	@Nonnull
 	com.shapesecurity.shift.es2017.semantics.asg.Node makeUnvaluedTemporary(@Nonnull F<LocalReference, com.shapesecurity.shift.es2017.semantics.asg.Node> withTemporary) { // TODO would be nice to join this with the above
 		LocalReference ref = new TemporaryReference();
-		this.currentState.addVariable(ref.variable);
+		this.currentState.addTemporary(ref.variable);
 		return withTemporary.apply(ref);
 	}
 
@@ -1488,15 +1713,20 @@ public class Explicator {
 	}
 
 	@Nonnull
-	private Pair<Variable, Reference> findScopeInfo(VariableReference node) {
+	private Maybe<Variable> lookupReferencedVariable(VariableReference node) {
 		// TODO: improve the scopeLookup interface, 'cause this is dumb
-		Variable var = node instanceof AssignmentTargetIdentifier
-			? scopeLookup.findVariableReferencedBy((AssignmentTargetIdentifier) node)
+		return node instanceof AssignmentTargetIdentifier
+			? Maybe.fromNullable(scopeLookup.findVariableReferencedBy((AssignmentTargetIdentifier) node))
 			: node instanceof BindingIdentifier
-			? scopeLookup.findVariableReferencedBy((BindingIdentifier) node).fromJust()
-			: scopeLookup.findVariableReferencedBy((IdentifierExpression) node);
-		Reference ref = var.references.find(r -> r.node == node).fromJust();
-		return Pair.of(var, ref);
+			? scopeLookup.findVariableReferencedBy((BindingIdentifier) node)
+			: Maybe.fromNullable(scopeLookup.findVariableReferencedBy((IdentifierExpression) node));
+	}
+
+	@Nonnull
+	private Pair<Variable, Reference> findScopeInfo(VariableReference node) {
+		Pair<Variable, Reference> info = this.referenceIndex.get(node);
+		assert info != null;
+		return info;
 	}
 
 	@Nonnull
@@ -1507,7 +1737,7 @@ public class Explicator {
 			info.right,
 			obj -> new MemberAccess(
 				obj,
-				new LiteralString(info.left.name)
+				this.interner.literalString(info.left.name)
 			),
 			Either.extract(refHelper(info.left))
 		);
@@ -1521,8 +1751,8 @@ public class Explicator {
 			info.right,
 			obj -> new MemberAssignment(
 				obj,
-				new LiteralString(info.left.name),
-				rhsIfInObject.apply(new MemberAccess(obj, new LiteralString(info.left.name))),
+				this.interner.literalString(info.left.name),
+				rhsIfInObject.apply(new MemberAccess(obj, this.interner.literalString(info.left.name))),
 				strict
 			),
 			assignmentIfNotInObject
@@ -1537,7 +1767,7 @@ public class Explicator {
 			info.right,
 			obj -> new MemberCall(
 				obj,
-				new LiteralString(info.left.name),
+				this.interner.literalString(info.left.name),
 				arguments
 			),
 			new Call(Either.extract(refHelper(info.left)), arguments)
@@ -1552,10 +1782,10 @@ public class Explicator {
 			info.right,
 			obj -> new DeleteProperty(
 				obj,
-				new LiteralString(info.left.name),
+				this.interner.literalString(info.left.name),
 				false // `delete x` is a syntax error in strict code, so this must be sloppy
 			),
-			scopeLookup.isGlobal(info.left) ? new DeleteGlobalProperty(binding.name) : new LiteralBoolean(false) // non-global variables cannot be deleted, absent direct eval
+			scopeLookup.isGlobal(info.left) ? new DeleteGlobalProperty(binding.name) : this.interner.literalBoolean(false) // non-global variables cannot be deleted, absent direct eval
 		);
 	}
 
@@ -1579,18 +1809,18 @@ public class Explicator {
 		Function<NodeWithValue, NodeWithValue> makeRhs = oldVal -> new FloatMath(
 			operator == UpdateOperator.Increment ? FloatMath.Operator.Plus : FloatMath.Operator.Minus,
 			oldVal,
-			new LiteralNumber(1)
+			this.interner.literalNumber(1)
 		);
 
 		return wrapForWith(
 			info.left.name,
 			info.right,
 			obj -> letWithValue(
-				new TypeCoercionNumber(new MemberAccess(obj, new LiteralString(info.left.name))),
+				new TypeCoercionNumber(new MemberAccess(obj, this.interner.literalString(info.left.name))),
 				oldVal -> new BlockWithValue(
 					new com.shapesecurity.shift.es2017.semantics.asg.Block(new MemberAssignment(
 						obj,
-						new LiteralString(info.left.name),
+						this.interner.literalString(info.left.name),
 						makeRhs.apply(oldVal),
 						strict
 					)),
@@ -1640,7 +1870,7 @@ public class Explicator {
 			(v, with) -> {
 				LocalReference obj = withObjects.get(with);
 				return makeConditional(
-					new In(new LiteralString(propertyName), obj),
+					new In(this.interner.literalString(propertyName), obj),
 					withAction.apply(obj),
 					v
 				);
@@ -5,31 +5,90 @@ import com.shapesecurity.functional.Pair;
 import com.shapesecurity.functional.data.ImmutableList;
 import com.shapesecurity.functional.data.Maybe;
 import com.shapesecurity.shift.es2017.ast.Directive;
+import com.shapesecurity.shift.es2017.ast.Function;
 import com.shapesecurity.shift.es2017.ast.FunctionBody;
+import com.shapesecurity.shift.es2017.ast.MethodDefinition;
 import com.shapesecurity.shift.es2017.ast.Script;
+import com.shapesecurity.shift.es2017.ast.Statement;
 import com.shapesecurity.shift.es2017.scope.Scope;
 import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
 import com.shapesecurity.shift.es2017.semantics.asg.Halt;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
 import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeAdaptingReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.ReconstructingReducer;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Supplier;
 
 public class ExplicatorWithLocation {
 	private static class Implementation extends Explicator {
 		@NotNull
-		final WeakHashMap<LiteralFunction, FunctionBody> locations = new WeakHashMap<>();
+		final WeakHashMap<LiteralFunction, FunctionBody> locations;
+		// when present, functions from this earlier explication are reused where possible
+		@Nullable
+		final Previous previous;
 
 		Implementation(@Nonnull Script script) {
 			super(script, list -> false, () -> Halt.INSTANCE);
+			this.locations = new WeakHashMap<>();
+			this.previous = null;
 		}
 
 		Implementation(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval) {
 			super(script, isCandidateForInlining, getDirectEval);
+			this.locations = new WeakHashMap<>();
+			this.previous = null;
+		}
+
+		Implementation(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval, @Nonnull ForkJoinPool pool) {
+			super(script, isCandidateForInlining, getDirectEval, pool);
+			this.locations = new WeakHashMap<>();
+			this.previous = null;
+		}
+
+		Implementation(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval, @Nonnull ExplicationListener listener) {
+			super(script, isCandidateForInlining, getDirectEval, null, false, listener);
+			this.locations = new WeakHashMap<>();
+			this.previous = null;
+		}
+
+		Implementation(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval, @Nonnull Previous previous) {
+			super(script, isCandidateForInlining, getDirectEval);
+			this.locations = new WeakHashMap<>();
+			this.previous = previous;
+		}
+
+		private Implementation(@Nonnull Implementation parent, boolean shareResults) {
+			super(parent, shareResults);
+			this.locations = shareResults ? parent.locations : new WeakHashMap<>();
+			this.previous = parent.previous;
+		}
+
+		@Override
+		@Nonnull
+		Explicator fork(boolean shareResults) {
+			return new Implementation(this, shareResults);
+		}
+
+		@Override
+		void join(@Nonnull Explicator child) {
+			super.join(child);
+			this.locations.putAll(((Implementation) child).locations);
 		}
 
 		@Override
@@ -42,6 +101,201 @@ public class ExplicatorWithLocation {
 			this.locations.put(result, functionBody);
 			return result;
 		}
+
+		// A function can be reused when its body, parameter names, name and strictness are unchanged, and the variables it captures (including the
+		// temporaries of enclosing with statements) correspond one-to-one to those it captured before, by name and in order of reference: the body
+		// then resolves every identifier as it did before. A function capturing nothing is reused as it is, since it only refers to variables of
+		// its own, so it does not matter that they come from the earlier scope analysis; otherwise the references to captured variables are
+		// replaced with references to the new ones, which takes a walk of the function but not another explication.
+		@Override
+		@Nonnull
+		Maybe<LiteralFunction> reuseFunction(
+			@Nonnull Maybe<Variable> name, @Nonnull Scope scope, @Nonnull ImmutableList<Variable> parameters, @Nonnull ImmutableList<Variable> captured,
+			@Nonnull FunctionBody functionBody, boolean strict
+		) {
+			if (this.previous == null) {
+				return Maybe.empty();
+			}
+			Maybe<Pair<LiteralFunction, Scope>> match = this.previous.claim(functionBody, old ->
+				old.isStrict == strict &&
+					names(old.name).equals(names(name)) &&
+					names(old.parameters).equals(names(parameters)) &&
+					correspondence(old.captured, captured) != null
+			);
+			if (match.isNothing()) {
+				return Maybe.empty();
+			}
+			LiteralFunction reused = match.fromJust().left;
+			IdentityHashMap<Variable, Variable> renaming = correspondence(reused.captured, captured);
+			IdentityHashMap<LiteralFunction, LiteralFunction> rebuilt = new IdentityHashMap<>();
+			if (!renaming.isEmpty()) {
+				reused = (LiteralFunction) new Director<>(new NodeAdaptingReducer(new CapturedRenamer(renaming, rebuilt))).reduceNode(reused);
+			}
+			// the scopes of the nested functions correspond one-to-one, since their source is unchanged
+			IdentityHashMap<com.shapesecurity.shift.es2017.ast.Node, Scope> newScopes = new IdentityHashMap<>();
+			matchScopes(match.fromJust().right, scope, newScopes);
+			for (Map.Entry<com.shapesecurity.shift.es2017.ast.Node, Scope> entry : newScopes.entrySet()) {
+				LiteralFunction nested = this.previous.functionsByAstNode.get(entry.getKey());
+				if (nested != null) {
+					nested = rebuilt.getOrDefault(nested, nested);
+					this.functionScopes.put(nested, entry.getValue());
+					this.locations.put(nested, bodyOf(entry.getValue().astNode));
+				}
+			}
+			return Maybe.of(reused);
+		}
+
+		// The earlier captured variables paired with the current ones, omitting those which are the same; or null if they do not correspond.
+		@Nullable
+		private static IdentityHashMap<Variable, Variable> correspondence(@Nonnull ImmutableList<Variable> old, @Nonnull ImmutableList<Variable> captured) {
+			if (old.length != captured.length) {
+				return null;
+			}
+			IdentityHashMap<Variable, Variable> renaming = new IdentityHashMap<>();
+			IdentityHashMap<Variable, Variable> inverse = new IdentityHashMap<>();
+			for (Pair<Variable, Variable> pair : old.zipWith(Pair::of, captured)) {
+				Variable previous = renaming.putIfAbsent(pair.left, pair.right);
+				Variable previousInverse = inverse.putIfAbsent(pair.right, pair.left);
+				if (!pair.left.name.equals(pair.right.name) || previous != null && previous != pair.right || previousInverse != null && previousInverse != pair.left) {
+					return null;
+				}
+			}
+			renaming.entrySet().removeIf(entry -> entry.getKey() == entry.getValue());
+			return renaming;
+		}
+
+		private static void matchScopes(@Nonnull Scope old, @Nonnull Scope updated, @Nonnull IdentityHashMap<com.shapesecurity.shift.es2017.ast.Node, Scope> newScopes) {
+			if (old.type == Scope.Type.Function && (old.astNode instanceof Function || old.astNode instanceof MethodDefinition)) {
+				newScopes.put(old.astNode, updated);
+			}
+			ImmutableList<Pair<Scope, Scope>> children = old.children.zipWith(Pair::of, updated.children);
+			for (Pair<Scope, Scope> pair : children) {
+				matchScopes(pair.left, pair.right, newScopes);
+			}
+		}
+
+		@Nonnull
+		private static FunctionBody bodyOf(@Nonnull com.shapesecurity.shift.es2017.ast.Node function) {
+			return function instanceof Function ? ((Function) function).body : ((MethodDefinition) function).body;
+		}
+
+		@Nonnull
+		private static ImmutableList<String> names(@Nonnull ImmutableList<Variable> variables) {
+			return variables.map(v -> v.name);
+		}
+
+		@Nonnull
+		private static Maybe<String> names(@Nonnull Maybe<Variable> variable) {
+			return variable.map(v -> v.name);
+		}
+	}
+
+	// Replaces references to the captured variables of a reused function with references to the variables they now resolve to, noting which
+	// functions it rebuilds.
+	private static final class CapturedRenamer extends ReconstructingReducer {
+		@Nonnull
+		private final IdentityHashMap<Variable, Variable> renaming;
+		@Nonnull
+		private final IdentityHashMap<LiteralFunction, LiteralFunction> rebuilt;
+		@Nonnull
+		private final IdentityHashMap<Variable, TemporaryReference> references = new IdentityHashMap<>();
+
+		CapturedRenamer(@Nonnull IdentityHashMap<Variable, Variable> renaming, @Nonnull IdentityHashMap<LiteralFunction, LiteralFunction> rebuilt) {
+			super();
+			this.renaming = renaming;
+			this.rebuilt = rebuilt;
+		}
+
+		@Nonnull
+		@Override
+		public NodeWithValue reduceLiteralFunction(@Nonnull LiteralFunction literalFunction, @Nonnull Block body) {
+			Maybe<Variable> name = literalFunction.name.map(this::rename);
+			ImmutableList<Variable> captured = literalFunction.captured.map(this::rename);
+			if (body == literalFunction.body() && name.equals(literalFunction.name) && captured.equals(literalFunction.captured)) {
+				return literalFunction;
+			}
+			LiteralFunction result = new LiteralFunction(
+				name,
+				literalFunction.arguments,
+				literalFunction.parameters,
+				literalFunction.locals(),
+				captured,
+				body,
+				literalFunction.isStrict
+			);
+			this.rebuilt.put(literalFunction, result);
+			return result;
+		}
+
+		@Nonnull
+		@Override
+		public LocalReference reduceTemporaryReference(@Nonnull TemporaryReference ref) {
+			Variable renamed = this.renaming.get(ref.variable);
+			return renamed == null ? ref : this.references.computeIfAbsent(renamed, TemporaryReference::new);
+		}
+
+		@Nonnull
+		@Override
+		public LocalReference reduceLocalReference(@Nonnull LocalReference ref) {
+			if (ref instanceof TemporaryReference) {
+				return this.reduceTemporaryReference((TemporaryReference) ref);
+			}
+			Variable renamed = this.renaming.get(ref.variable);
+			return renamed == null ? ref : new LocalReference(renamed);
+		}
+
+		@Nonnull
+		private Variable rename(@Nonnull Variable variable) {
+			return this.renaming.getOrDefault(variable, variable);
+		}
+	}
+
+	// The functions of an earlier explication, indexed for reuse. Each function is reused at most once.
+	private static final class Previous {
+		// candidates bucketed by a shallow hash of their body; FunctionBody.hashCode would traverse the entire body
+		@Nonnull
+		private final HashMap<Integer, ArrayList<Pair<FunctionBody, LiteralFunction>>> functionsByBody = new HashMap<>();
+		@Nonnull
+		final IdentityHashMap<com.shapesecurity.shift.es2017.ast.Node, LiteralFunction> functionsByAstNode = new IdentityHashMap<>();
+		@Nonnull
+		private final IdentityHashMap<LiteralFunction, Scope> functionScopes;
+
+		Previous(@Nonnull Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> previous) {
+			this.functionScopes = previous.left.functionScopes;
+			for (Map.Entry<LiteralFunction, FunctionBody> entry : previous.right.entrySet()) {
+				if (this.functionScopes.containsKey(entry.getKey())) {
+					this.functionsByBody.computeIfAbsent(shallowHash(entry.getValue()), k -> new ArrayList<>()).add(Pair.of(entry.getValue(), entry.getKey()));
+				}
+			}
+			for (Map.Entry<LiteralFunction, Scope> entry : this.functionScopes.entrySet()) {
+				this.functionsByAstNode.put(entry.getValue().astNode, entry.getKey());
+			}
+		}
+
+		// Finds and removes a function whose body is equal to `body` and which satisfies `isCompatible`, returning it with its old scope.
+		@Nonnull
+		synchronized Maybe<Pair<LiteralFunction, Scope>> claim(@Nonnull FunctionBody body, @Nonnull F<LiteralFunction, Boolean> isCompatible) {
+			ArrayList<Pair<FunctionBody, LiteralFunction>> candidates = this.functionsByBody.get(shallowHash(body));
+			if (candidates == null) {
+				return Maybe.empty();
+			}
+			for (int i = 0; i < candidates.size(); ++i) {
+				Pair<FunctionBody, LiteralFunction> candidate = candidates.get(i);
+				if (isCompatible.apply(candidate.right) && candidate.left.equals(body)) {
+					candidates.remove(i);
+					return Maybe.of(Pair.of(candidate.right, this.functionScopes.get(candidate.right)));
+				}
+			}
+			return Maybe.empty();
+		}
+
+		private static int shallowHash(@Nonnull FunctionBody body) {
+			int hash = body.directives.length;
+			for (Statement statement : body.statements) {
+				hash = 31 * hash + statement.getClass().hashCode();
+			}
+			return hash;
+		}
 	}
 
 	@Nonnull
@@ -54,6 +308,47 @@ public class ExplicatorWithLocation {
 		return deriveSemanticsWithLocationHelper(script, new Implementation(script, isCandidateForInlining, getDirectEval));
 	}
 
+	// See Explicator.deriveSemantics(Script, F, Supplier, ExplicationListener).
+	@Nonnull
+	public static Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> deriveSemanticsWithLocation(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval, @Nonnull ExplicationListener listener) {
+		return deriveSemanticsWithLocationHelper(script, new Implementation(script, isCandidateForInlining, getDirectEval, listener));
+	}
+
+	@Nonnull
+	public static Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> deriveSemanticsWithLocation(@Nonnull Script script, @Nonnull ForkJoinPool pool) {
+		return deriveSemanticsWithLocation(script, list -> false, () -> Halt.INSTANCE, pool);
+	}
+
+	// See Explicator.deriveSemantics(Script, F, Supplier, ForkJoinPool).
+	@Nonnull
+	public static Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> deriveSemanticsWithLocation(@Nonnull Script script, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval, @Nonnull ForkJoinPool pool) {
+		Implementation exp = new Implementation(script, isCandidateForInlining, getDirectEval, pool);
+		return pool.invoke(ForkJoinTask.adapt(() -> deriveSemanticsWithLocationHelper(script, exp)));
+	}
+
+	// Explicates `script`, reusing the functions of `previous` (an earlier result of deriveSemanticsWithLocation, e.g. for an earlier version of
+	// the same script) whose source is unchanged and whose captured variables correspond to those they capture now. Reused functions keep their
+	// own Variables from the earlier explication, including their references and declarations into the earlier AST, but are otherwise as if
+	// explicated from `script`: they refer to the captured variables of `script`, and functionScopes and the location map refer to `script`.
+	// Every function of `previous` is reused at most once.
+	// Parsing and scope analysis still cover the whole script, as does the explicator's pre-pass; only explication of unchanged functions is
+	// skipped, so the cost still grows with the size of the script rather than with the size of the edit.
+	@Nonnull
+	public static Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> rederiveSemanticsWithLocation(
+		@Nonnull Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> previous, @Nonnull Script script
+	) {
+		return rederiveSemanticsWithLocation(previous, script, list -> false, () -> Halt.INSTANCE);
+	}
+
+	// `isCandidateForInlining` and `getDirectEval` should be those used for `previous`.
+	@Nonnull
+	public static Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> rederiveSemanticsWithLocation(
+		@Nonnull Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> previous, @Nonnull Script script,
+		@Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, Supplier<NodeWithValue> getDirectEval
+	) {
+		return deriveSemanticsWithLocationHelper(script, new Implementation(script, isCandidateForInlining, getDirectEval, new Previous(previous)));
+	}
+
 	@Nonnull
 	private static Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> deriveSemanticsWithLocationHelper(@Nonnull Script script, @Nonnull Implementation exp) {
 		Node result = exp.explicate();
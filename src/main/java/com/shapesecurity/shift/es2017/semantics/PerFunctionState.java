@@ -9,6 +9,7 @@ import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 public class PerFunctionState {
 	private ImmutableList<Variable> additionalVariables;
 	private ImmutableList<InlineFunctionState> inlineFunctionStates;
+	private int temporariesCreated;
 
 	public PerFunctionState() {
 		additionalVariables = ImmutableList.empty();
@@ -19,13 +20,23 @@ public class PerFunctionState {
 		additionalVariables = additionalVariables.cons(variable);
 	}
 
+	public void addTemporary(Variable variable) {
+		this.addVariable(variable);
+		++temporariesCreated;
+	}
+
+	// the number of temporaries added with addTemporary, including the return variables of inlined functions
+	public int getTemporariesCreated() {
+		return temporariesCreated;
+	}
+
 	public ImmutableList<Variable> getAdditionalVariables() {
 		return additionalVariables;
 	}
 
 	public InlineFunctionState enterInlineFunction(LocalReference returnVar, BreakTarget endOfFunction) {
 		InlineFunctionState state = new InlineFunctionState(returnVar, endOfFunction);
-		this.addVariable(state.getReturnVar().variable);
+		this.addTemporary(state.getReturnVar().variable);
 		inlineFunctionStates = inlineFunctionStates.cons(state);
 		return state;
 	}
@@ -39,8 +39,14 @@ public class Semantics {
 	public final ImmutableList<String> scriptVarDecls;
 	@Nonnull
 	public final ScopeLookup scopeLookup;
+	// Safe for any number of concurrent readers, since it is complete before the Semantics is built and then left alone, with one exception: the
+	// Semantics from Explicator.deriveSemanticsDeferringBodies gains the functions of each body as the body is explicated, which happens while
+	// holding the lock of this map, so readers which may race with that must hold it as well. That is the only lock LiteralFunction.body() and
+	// locals() take for these functions, so readers holding it may force bodies too. No one else may modify it, as a Semantics may be shared
+	// (e.g. by SemanticsCache); transformations pass it on unchanged.
 	@Nonnull
 	public final IdentityHashMap<LiteralFunction, Scope> functionScopes;
+	private int hash;
 
 	public Semantics(@Nonnull Node node, @Nonnull ImmutableList<Variable> locals, @Nonnull ImmutableList<String> scriptVarDecls, @Nonnull ScopeLookup scopeLookup, @Nonnull IdentityHashMap<LiteralFunction, Scope> functionScopes) {
 		this.node = node;
@@ -59,8 +65,13 @@ public class Semantics {
 		return EqualityChecker.nodesAreEqual(this.node, ((Semantics) other).node);
 	}
 
+	// EqualityChecker.structuralHash of node, computed on first use. As for String.hashCode, threads racing to compute it store the same value.
 	@Override
 	public int hashCode() {
-		throw new UnsupportedOperationException("hashCode is not implemented on Semantics");
+		int hash = this.hash;
+		if (hash == 0) {
+			this.hash = hash = EqualityChecker.structuralHash(this.node);
+		}
+		return hash;
 	}
 }
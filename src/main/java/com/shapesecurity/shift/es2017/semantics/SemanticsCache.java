@@ -0,0 +1,225 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.ast.Directive;
+import com.shapesecurity.shift.es2017.parser.JsError;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.Halt;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeCounter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// A cache in front of parsing and explication, keyed by a SHA-256 hash of the source text together with the goal (script or module) and the
+// explication options. Options are compared by identity, so callers passing their own options should reuse the same instances.
+// The cache is bounded either by entry count or by estimated size, evicting the least recently used entries first.
+//
+// The cache is safe for concurrent use. Explication happens outside the lock, so two threads missing on the same source at once may both explicate it;
+// only one result is kept, and both callers receive it.
+// Cached Semantics are handed out to every caller asking for the same source and must be treated as read-only. Transformations which build new graphs,
+// such as ConstantFolder.reduce, are fine; mutating a graph in place (e.g. reassigning LocalReference.variable) or Semantics.functionScopes is not.
+// Their functions are explicated eagerly, so nothing in them changes once they are cached and any number of threads may read them without locking.
+public final class SemanticsCache {
+	// rough average retained size of an ASG node, including the lists holding it
+	public static final long ESTIMATED_BYTES_PER_NODE = 48;
+
+	@Nonnull
+	public static final F<ImmutableList<Directive>, Boolean> NO_INLINING = list -> false;
+	@Nonnull
+	public static final Supplier<NodeWithValue> HALT_ON_DIRECT_EVAL = () -> Halt.INSTANCE;
+
+	private final long maxEntries;
+	private final long maxEstimatedBytes;
+
+	@Nonnull
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long estimatedBytes = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	private SemanticsCache(long maxEntries, long maxEstimatedBytes) {
+		this.maxEntries = maxEntries;
+		this.maxEstimatedBytes = maxEstimatedBytes;
+	}
+
+	@Nonnull
+	public static SemanticsCache boundedByEntries(long maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+		return new SemanticsCache(maxEntries, Long.MAX_VALUE);
+	}
+
+	// Bounds the sum of estimateBytes over the cached entries. Results larger than the bound on their own are returned but not cached.
+	@Nonnull
+	public static SemanticsCache boundedByEstimatedBytes(long maxEstimatedBytes) {
+		if (maxEstimatedBytes < 1) {
+			throw new IllegalArgumentException("maxEstimatedBytes must be positive");
+		}
+		return new SemanticsCache(Long.MAX_VALUE, maxEstimatedBytes);
+	}
+
+	public static long estimateBytes(@Nonnull Semantics semantics) {
+		return NodeCounter.count(semantics.node) * ESTIMATED_BYTES_PER_NODE;
+	}
+
+	@Nonnull
+	public Semantics deriveScriptSemantics(@Nonnull String source) throws JsError {
+		return this.deriveScriptSemantics(source, NO_INLINING, HALT_ON_DIRECT_EVAL);
+	}
+
+	@Nonnull
+	public Semantics deriveScriptSemantics(
+		@Nonnull String source, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, @Nonnull Supplier<NodeWithValue> getDirectEval
+	) throws JsError {
+		Key key = new Key(source, false, isCandidateForInlining, getDirectEval);
+		Semantics cached = this.lookup(key);
+		if (cached != null) {
+			return cached;
+		}
+		return this.insert(key, Explicator.deriveSemantics(Parser.parseScript(source), isCandidateForInlining, getDirectEval));
+	}
+
+	@Nonnull
+	public Semantics deriveModuleSemantics(@Nonnull String source) throws JsError {
+		Key key = new Key(source, true, NO_INLINING, HALT_ON_DIRECT_EVAL);
+		Semantics cached = this.lookup(key);
+		if (cached != null) {
+			return cached;
+		}
+		return this.insert(key, Explicator.deriveSemantics(Parser.parseModule(source)));
+	}
+
+	@Nonnull
+	public synchronized Stats stats() {
+		return new Stats(this.hits, this.misses, this.evictions, this.entries.size(), this.estimatedBytes);
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+		this.estimatedBytes = 0;
+	}
+
+	@Nullable
+	private synchronized Semantics lookup(@Nonnull Key key) {
+		Entry entry = this.entries.get(key);
+		if (entry == null) {
+			++this.misses;
+			return null;
+		}
+		++this.hits;
+		return entry.semantics;
+	}
+
+	@Nonnull
+	private Semantics insert(@Nonnull Key key, @Nonnull Semantics semantics) {
+		long bytes = estimateBytes(semantics);
+		synchronized (this) {
+			Entry existing = this.entries.get(key);
+			if (existing != null) {
+				return existing.semantics;
+			}
+			if (bytes > this.maxEstimatedBytes) {
+				return semantics;
+			}
+			this.entries.put(key, new Entry(semantics, bytes));
+			this.estimatedBytes += bytes;
+			Iterator<Map.Entry<Key, Entry>> eldest = this.entries.entrySet().iterator();
+			while (this.entries.size() > this.maxEntries || this.estimatedBytes > this.maxEstimatedBytes) {
+				Entry evicted = eldest.next().getValue();
+				eldest.remove();
+				this.estimatedBytes -= evicted.estimatedBytes;
+				++this.evictions;
+			}
+			return semantics;
+		}
+	}
+
+	public static final class Stats {
+		public final long hits;
+		public final long misses;
+		public final long evictions;
+		public final long entries;
+		public final long estimatedBytes;
+
+		Stats(long hits, long misses, long evictions, long entries, long estimatedBytes) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.entries = entries;
+			this.estimatedBytes = estimatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return "hits: " + this.hits + ", misses: " + this.misses + ", evictions: " + this.evictions + ", entries: " + this.entries + ", estimated bytes: " + this.estimatedBytes;
+		}
+	}
+
+	private static final class Entry {
+		@Nonnull
+		final Semantics semantics;
+		final long estimatedBytes;
+
+		Entry(@Nonnull Semantics semantics, long estimatedBytes) {
+			this.semantics = semantics;
+			this.estimatedBytes = estimatedBytes;
+		}
+	}
+
+	private static final class Key {
+		@Nonnull
+		private final byte[] sourceHash;
+		private final boolean isModule;
+		@Nonnull
+		private final F<ImmutableList<Directive>, Boolean> isCandidateForInlining;
+		@Nonnull
+		private final Supplier<NodeWithValue> getDirectEval;
+		private final int hashCode;
+
+		Key(@Nonnull String source, boolean isModule, @Nonnull F<ImmutableList<Directive>, Boolean> isCandidateForInlining, @Nonnull Supplier<NodeWithValue> getDirectEval) {
+			this.sourceHash = sha256(source);
+			this.isModule = isModule;
+			this.isCandidateForInlining = isCandidateForInlining;
+			this.getDirectEval = getDirectEval;
+			this.hashCode = Arrays.hashCode(this.sourceHash);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return this.isModule == key.isModule &&
+				this.isCandidateForInlining == key.isCandidateForInlining &&
+				this.getDirectEval == key.getDirectEval &&
+				Arrays.equals(this.sourceHash, key.sourceHash);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Nonnull
+		private static byte[] sha256(@Nonnull String source) {
+			try {
+				return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is required to be supported by every Java platform", e);
+			}
+		}
+	}
+}
@@ -60,4 +60,10 @@ public class Equality extends BinaryOperation {
 			this.name = name;
 		}
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.EQUALITY;
+	}
 }
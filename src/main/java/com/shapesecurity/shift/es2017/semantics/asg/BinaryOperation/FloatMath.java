@@ -62,4 +62,10 @@ public class FloatMath extends BinaryOperation {
 			this.name = name;
 		}
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.FLOAT_MATH;
+	}
 }
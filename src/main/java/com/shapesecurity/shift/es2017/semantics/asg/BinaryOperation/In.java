@@ -45,4 +45,10 @@ public class In extends BinaryOperation {
 		this.left = left;
 		this.right = right;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.IN;
+	}
 }
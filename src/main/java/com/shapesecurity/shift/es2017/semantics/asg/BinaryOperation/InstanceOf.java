@@ -44,4 +44,10 @@ public class InstanceOf extends BinaryOperation {
 		this.left = left;
 		this.right = right;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.INSTANCE_OF;
+	}
 }
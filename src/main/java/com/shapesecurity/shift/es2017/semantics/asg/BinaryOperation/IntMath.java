@@ -62,4 +62,10 @@ public class IntMath extends BinaryOperation {
 			this.name = name;
 		}
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.INT_MATH;
+	}
 }
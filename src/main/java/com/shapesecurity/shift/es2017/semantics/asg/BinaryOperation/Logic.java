@@ -61,4 +61,9 @@ public class Logic extends BinaryOperation {
 		}
 	}
 
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LOGIC;
+	}
 }
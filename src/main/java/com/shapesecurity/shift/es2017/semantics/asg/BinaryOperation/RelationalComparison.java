@@ -62,5 +62,10 @@ public class RelationalComparison extends BinaryOperation {
 			this.name = name;
 		}
 	}
-}
 
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.RELATIONAL_COMPARISON;
+	}
+}
@@ -63,4 +63,10 @@ public class Block implements Node {
 			}
 		});
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.BLOCK;
+	}
 }
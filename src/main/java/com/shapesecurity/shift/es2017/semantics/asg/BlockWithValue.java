@@ -36,4 +36,10 @@ public class BlockWithValue implements NodeWithValue {
 		this.head = new Block(children);
 		this.result = result;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.BLOCK_WITH_VALUE;
+	}
 }
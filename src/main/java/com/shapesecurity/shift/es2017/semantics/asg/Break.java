@@ -39,4 +39,10 @@ public class Break implements Node {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof Break && this.broken.equals(((Break) node).broken);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.BREAK;
+	}
 }
@@ -27,4 +27,10 @@ public class BreakTarget implements Node { // no-op. target of a break.
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node == this;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.BREAK_TARGET;
+	}
 }
@@ -32,4 +32,10 @@ public class Call implements NodeWithValue {
 		this.callee = callee;
 		this.arguments = arguments;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.CALL;
+	}
 }
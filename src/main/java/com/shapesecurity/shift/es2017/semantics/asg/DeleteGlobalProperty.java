@@ -32,4 +32,10 @@ public class DeleteGlobalProperty implements NodeWithValue {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof DeleteGlobalProperty && this.which.equals(((DeleteGlobalProperty) node).which);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.DELETE_GLOBAL_PROPERTY;
+	}
 }
@@ -37,4 +37,10 @@ public class DeleteProperty implements NodeWithValue {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof DeleteProperty && this.strict == ((DeleteProperty) node).strict;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.DELETE_PROPERTY;
+	}
 }
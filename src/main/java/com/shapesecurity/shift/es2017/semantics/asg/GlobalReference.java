@@ -32,4 +32,10 @@ public class GlobalReference implements NodeWithValue {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof GlobalReference && this.name.equals(((GlobalReference) node).name);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.GLOBAL_REFERENCE;
+	}
 }
@@ -27,5 +27,9 @@ public class Halt implements NodeWithValue {
 	private Halt() {
 	}
 
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.HALT;
+	}
 }
-
@@ -33,4 +33,10 @@ public class IfElse implements Node {
 		this.consequent = consequent;
 		this.alternate = alternate;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.IF_ELSE;
+	}
 }
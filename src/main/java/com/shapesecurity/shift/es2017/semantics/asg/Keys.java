@@ -27,4 +27,10 @@ public class Keys implements NodeWithValue {
 	public Keys(@Nonnull NodeWithValue object) {
 		_object = object;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.KEYS;
+	}
 }
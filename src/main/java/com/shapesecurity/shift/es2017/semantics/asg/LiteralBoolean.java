@@ -31,4 +31,10 @@ public class LiteralBoolean implements Literal {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof LiteralBoolean && this.value == ((LiteralBoolean) node).value;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_BOOLEAN;
+	}
 }
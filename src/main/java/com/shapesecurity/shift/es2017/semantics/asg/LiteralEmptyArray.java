@@ -25,4 +25,10 @@ public class LiteralEmptyArray implements Literal {
 
 	private LiteralEmptyArray() {
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_EMPTY_ARRAY;
+	}
 }
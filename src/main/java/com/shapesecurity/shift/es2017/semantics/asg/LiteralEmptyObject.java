@@ -25,4 +25,10 @@ public class LiteralEmptyObject implements Literal {
 
 	private LiteralEmptyObject() {
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_EMPTY_OBJECT;
+	}
 }
@@ -16,11 +16,14 @@
 
 package com.shapesecurity.shift.es2017.semantics.asg;
 
+import com.shapesecurity.functional.Pair;
 import com.shapesecurity.functional.data.ImmutableList;
 import com.shapesecurity.functional.data.Maybe;
 import com.shapesecurity.shift.es2017.scope.Variable;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Supplier;
 
 public class LiteralFunction implements Literal {
 	@Nonnull
@@ -29,16 +32,29 @@ public class LiteralFunction implements Literal {
 	public final Maybe<Variable> arguments;
 	@Nonnull
 	public final ImmutableList<Variable> parameters;
-	@Nonnull
-	public final ImmutableList<Variable> locals;
-
-
 	@Nonnull
 	public final ImmutableList<Variable> captured;
 	@Nonnull
-	public final Block body;
-	@Nonnull
 	public final boolean isStrict;
+	// The body and locals of a function built with them, as before bodies could be deferred; null for a deferred function, even once its body
+	// has been explicated.
+	@Deprecated
+	@Nullable
+	public final Block body;
+	@Deprecated
+	@Nullable
+	public final ImmutableList<Variable> locals;
+
+	// `explicatedLocals` is only read after reading `explicatedBody`, and written before it, so the volatile write of `explicatedBody` publishes
+	// both.
+	@Nullable
+	private volatile Block explicatedBody;
+	private ImmutableList<Variable> explicatedLocals;
+	@Nullable
+	private Supplier<Pair<Block, ImmutableList<Variable>>> deferredBody;
+	// held while calling `deferredBody`; null for a function built with its body
+	@Nullable
+	private final Object lock;
 
 	public LiteralFunction(
 		@Nonnull Maybe<Variable> name, @Nonnull Maybe<Variable> arguments, @Nonnull ImmutableList<Variable> parameters, @Nonnull ImmutableList<Variable> locals,
@@ -47,10 +63,60 @@ public class LiteralFunction implements Literal {
 		this.name = name;
 		this.arguments = arguments;
 		this.parameters = parameters;
-		this.locals = locals;
+		this.locals = this.explicatedLocals = locals;
+		this.captured = captured;
+		this.body = this.explicatedBody = body;
+		this.isStrict = isStrict;
+		this.lock = null;
+	}
+
+	// A function whose body, together with its locals (which include the temporaries introduced while explicating the body), is produced by
+	// `deferredBody` the first time either is asked for. `deferredBody` is called at most once, even when several threads ask at once, and only
+	// while holding `lock`, which is the only lock body() takes. Functions whose bodies depend on each other (e.g. because producing one body
+	// builds or forces others) should share one lock, and `deferredBody` should not take any other lock which may be held by callers of body();
+	// then there is only one lock to order and forcing bodies cannot deadlock.
+	public LiteralFunction(
+		@Nonnull Maybe<Variable> name, @Nonnull Maybe<Variable> arguments, @Nonnull ImmutableList<Variable> parameters,
+		@Nonnull ImmutableList<Variable> captured, @Nonnull Supplier<Pair<Block, ImmutableList<Variable>>> deferredBody, boolean isStrict,
+		@Nonnull Object lock
+	) {
+		this.name = name;
+		this.arguments = arguments;
+		this.parameters = parameters;
 		this.captured = captured;
-		this.body = body;
+		this.deferredBody = deferredBody;
+		this.lock = lock;
 		this.isStrict = isStrict;
+		this.body = null;
+		this.locals = null;
+	}
+
+	@Nonnull
+	public Block body() {
+		Block body = this.explicatedBody;
+		if (body == null) {
+			synchronized (this.lock) {
+				body = this.explicatedBody;
+				if (body == null) {
+					Pair<Block, ImmutableList<Variable>> result = this.deferredBody.get();
+					this.explicatedLocals = result.right;
+					this.explicatedBody = body = result.left;
+					this.deferredBody = null;
+				}
+			}
+		}
+		return body;
+	}
+
+	@Nonnull
+	public ImmutableList<Variable> locals() {
+		this.body();
+		return this.explicatedLocals;
+	}
+
+	// false only for a deferred function whose body has not yet been asked for
+	public boolean isBodyExplicated() {
+		return this.explicatedBody != null;
 	}
 
 	@Override
@@ -59,8 +125,14 @@ public class LiteralFunction implements Literal {
 			this.name.equals(((LiteralFunction) node).name) &&
 			this.arguments.equals(((LiteralFunction) node).arguments) &&
 			this.parameters.equals(((LiteralFunction) node).parameters) &&
-			this.locals.equals(((LiteralFunction) node).locals) &&
+			this.locals().equals(((LiteralFunction) node).locals()) &&
 			this.captured.equals(((LiteralFunction) node).captured) &&
 			this.isStrict == ((LiteralFunction) node).isStrict;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_FUNCTION;
+	}
 }
@@ -25,4 +25,10 @@ public class LiteralInfinity implements Literal {
 
 	private LiteralInfinity() {
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_INFINITY;
+	}
 }
@@ -26,5 +26,9 @@ public class LiteralNull implements Literal {
 	private LiteralNull() {
 	}
 
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_NULL;
+	}
 }
-
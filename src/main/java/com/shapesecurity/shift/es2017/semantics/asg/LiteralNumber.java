@@ -29,6 +29,13 @@ public class LiteralNumber implements Node, Literal {
 
 	@Override
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
-		return node instanceof LiteralNumber && this.value == ((LiteralNumber) node).value;
+		// the same number: NaN is NaN, and 0 is not -0, which e.g. 1 / x tells apart
+		return node instanceof LiteralNumber && Double.compare(this.value, ((LiteralNumber) node).value) == 0;
+	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_NUMBER;
 	}
 }
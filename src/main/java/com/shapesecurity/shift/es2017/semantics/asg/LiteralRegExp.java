@@ -43,8 +43,14 @@ public class LiteralRegExp implements Literal {
 			this.pattern.equals(((LiteralRegExp) node).pattern) &&
 			this.global == ((LiteralRegExp) node).global &&
 			this.ignoreCase == ((LiteralRegExp) node).ignoreCase &&
-			this.multiLine == ((LiteralRegExp) node).ignoreCase &&
+			this.multiLine == ((LiteralRegExp) node).multiLine &&
 			this.sticky == ((LiteralRegExp) node).sticky &&
 			this.unicode == ((LiteralRegExp) node).unicode;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_REG_EXP;
+	}
 }
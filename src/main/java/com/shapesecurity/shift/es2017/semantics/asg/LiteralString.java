@@ -31,4 +31,10 @@ public class LiteralString implements Literal {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof LiteralString && this.value.equals(((LiteralString) node).value);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_STRING;
+	}
 }
@@ -31,4 +31,10 @@ public class LiteralSymbol implements Literal {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof LiteralSymbol && this.description.equals(((LiteralSymbol) node).description);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_SYMBOL;
+	}
 }
@@ -25,4 +25,10 @@ public class LiteralUndefined implements Literal {
 
 	private LiteralUndefined() {
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LITERAL_UNDEFINED;
+	}
 }
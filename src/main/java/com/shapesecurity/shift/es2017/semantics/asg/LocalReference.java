@@ -31,6 +31,12 @@ public class LocalReference implements NodeWithValue {
 
 	@Override
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
-		return node.getClass() == LocalReference.class && this.variable.equals(((LocalReference) node).variable);
+		return node.getClass() == this.getClass() && this.variable.equals(((LocalReference) node).variable);
+	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LOCAL_REFERENCE;
 	}
 }
@@ -26,4 +26,10 @@ public class Loop implements Node {
 	public Loop(@Nonnull Block block) {
 		this.block = block;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.LOOP;
+	}
 }
@@ -30,4 +30,10 @@ public class MemberAccess implements NodeWithValue {
 		this.object = object;
 		this.fieldExpression = fieldExpression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.MEMBER_ACCESS;
+	}
 }
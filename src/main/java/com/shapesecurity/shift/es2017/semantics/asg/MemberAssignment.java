@@ -52,4 +52,10 @@ public class MemberAssignment implements NodeWithValue {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof MemberAssignment && this.strict == ((MemberAssignment) node).strict;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.MEMBER_ASSIGNMENT;
+	}
 }
@@ -28,6 +28,12 @@ public interface MemberAssignmentProperty extends Node {
 		public StaticValue(@Nonnull NodeWithValue value) {
 			this.value = value;
 		}
+
+		@Nonnull
+		@Override
+		public Kind kind() {
+			return Kind.STATIC_VALUE;
+		}
 	}
 
 	class Getter implements MemberAssignmentProperty {
@@ -37,6 +43,12 @@ public interface MemberAssignmentProperty extends Node {
 		public Getter(@Nonnull LiteralFunction value) {
 			this.value = value;
 		}
+
+		@Nonnull
+		@Override
+		public Kind kind() {
+			return Kind.GETTER;
+		}
 	}
 
 	class Setter implements MemberAssignmentProperty {
@@ -46,5 +58,11 @@ public interface MemberAssignmentProperty extends Node {
 		public Setter(@Nonnull LiteralFunction value) {
 			this.value = value;
 		}
+
+		@Nonnull
+		@Override
+		public Kind kind() {
+			return Kind.SETTER;
+		}
 	}
 }
@@ -20,5 +20,9 @@ public class MemberCall implements NodeWithValue {
 		this.arguments = arguments;
 	}
 
-
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.MEMBER_CALL;
+	}
 }
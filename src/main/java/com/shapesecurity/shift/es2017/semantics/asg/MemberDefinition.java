@@ -48,4 +48,10 @@ public class MemberDefinition implements Node {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof MemberDefinition && this.property.getClass() == ((MemberDefinition) node).property.getClass();
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.MEMBER_DEFINITION;
+	}
 }
@@ -31,4 +31,10 @@ public class New implements NodeWithValue {
 		this.callee = callee;
 		this.arguments = arguments;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.NEW;
+	}
 }
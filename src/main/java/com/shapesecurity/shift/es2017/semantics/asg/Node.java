@@ -16,9 +16,137 @@
 
 package com.shapesecurity.shift.es2017.semantics.asg;
 
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.In;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.InstanceOf;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Negation;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Typeof;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public interface Node {
+	// One constant per concrete node class, for dispatching with a switch rather than a chain of instanceof checks.
+	// A subclass of a node class must return the kind of the class it extends, unless it is given its own constant (as TemporaryReference is).
+	enum Kind {
+		BLOCK(Block.class),
+		BLOCK_WITH_VALUE(BlockWithValue.class),
+		BREAK(Break.class),
+		BREAK_TARGET(BreakTarget.class),
+		CALL(Call.class),
+		DELETE_GLOBAL_PROPERTY(DeleteGlobalProperty.class),
+		DELETE_PROPERTY(DeleteProperty.class),
+		GLOBAL_REFERENCE(GlobalReference.class),
+		HALT(Halt.class),
+		IF_ELSE(IfElse.class),
+		KEYS(Keys.class),
+		LITERAL_BOOLEAN(LiteralBoolean.class),
+		LITERAL_EMPTY_ARRAY(LiteralEmptyArray.class),
+		LITERAL_EMPTY_OBJECT(LiteralEmptyObject.class),
+		LITERAL_FUNCTION(LiteralFunction.class),
+		LITERAL_INFINITY(LiteralInfinity.class),
+		LITERAL_NULL(LiteralNull.class),
+		LITERAL_NUMBER(LiteralNumber.class),
+		LITERAL_REG_EXP(LiteralRegExp.class),
+		LITERAL_STRING(LiteralString.class),
+		LITERAL_SYMBOL(LiteralSymbol.class),
+		LITERAL_UNDEFINED(LiteralUndefined.class),
+		LOCAL_REFERENCE(LocalReference.class),
+		TEMPORARY_REFERENCE(TemporaryReference.class),
+		LOOP(Loop.class),
+		MEMBER_ACCESS(MemberAccess.class),
+		MEMBER_ASSIGNMENT(MemberAssignment.class),
+		STATIC_VALUE(MemberAssignmentProperty.StaticValue.class),
+		GETTER(MemberAssignmentProperty.Getter.class),
+		SETTER(MemberAssignmentProperty.Setter.class),
+		MEMBER_CALL(MemberCall.class),
+		MEMBER_DEFINITION(MemberDefinition.class),
+		NEW(New.class),
+		REQUIRE_OBJECT_COERCIBLE(RequireObjectCoercible.class),
+		RETURN(Return.class),
+		RETURN_AFTER_FINALLIES(ReturnAfterFinallies.class),
+		SWITCH_STATEMENT(SwitchStatement.class),
+		THIS(This.class),
+		THROW(Throw.class),
+		TRY_CATCH(TryCatch.class),
+		TRY_FINALLY(TryFinally.class),
+		TYPE_COERCION_NUMBER(TypeCoercionNumber.class),
+		TYPE_COERCION_OBJECT(TypeCoercionObject.class),
+		TYPE_COERCION_STRING(TypeCoercionString.class),
+		TYPEOF_GLOBAL(TypeofGlobal.class),
+		VARIABLE_ASSIGNMENT(VariableAssignment.class),
+		VOID(Void.class),
+		EQUALITY(Equality.class),
+		FLOAT_MATH(FloatMath.class),
+		IN(In.class),
+		INSTANCE_OF(InstanceOf.class),
+		INT_MATH(IntMath.class),
+		LOGIC(Logic.class),
+		RELATIONAL_COMPARISON(RelationalComparison.class),
+		BITWISE_NOT(BitwiseNot.class),
+		NEGATION(Negation.class),
+		NOT(Not.class),
+		TYPEOF(Typeof.class),
+		VOID_OP(VoidOp.class),
+		// a node class from outside this library which extends none of the above; the visitors reject it, as their instanceof chains did
+		OTHER(Node.class);
+
+		// Looked up by class rather than by calling kind(): with dozens of implementations kind() is a megamorphic interface call, which costs
+		// more than the instanceof checks it replaces. The table is open-addressed on the classes' identity hash codes; ClassValue would also do,
+		// but its lookup is several times as long.
+		private static final int TABLE_MASK = 127;
+		@Nonnull
+		private static final Class<?>[] TABLE_CLASSES = new Class<?>[TABLE_MASK + 1];
+		@Nonnull
+		private static final Kind[] TABLE_KINDS = new Kind[TABLE_MASK + 1];
+
+		static {
+			for (Kind kind : Kind.values()) {
+				int i = kind.type.hashCode() & TABLE_MASK;
+				while (TABLE_CLASSES[i] != null) {
+					i = (i + 1) & TABLE_MASK;
+				}
+				TABLE_CLASSES[i] = kind.type;
+				TABLE_KINDS[i] = kind;
+			}
+		}
+
+		// the class this kind was introduced for; subclasses of it may share the kind
+		@Nonnull
+		public final Class<? extends Node> type;
+
+		Kind(@Nonnull Class<? extends Node> type) {
+			this.type = type;
+		}
+
+		// Equivalent to node.kind(), but faster.
+		@Nonnull
+		public static Kind of(@Nonnull Node node) {
+			Class<?> type = node.getClass();
+			int i = type.hashCode() & TABLE_MASK;
+			Class<?> found;
+			while ((found = TABLE_CLASSES[i]) != null) {
+				if (found == type) {
+					return TABLE_KINDS[i];
+				}
+				i = (i + 1) & TABLE_MASK;
+			}
+			return node.kind();
+		}
+	}
+
+	// Every node class here overrides this; the default keeps implementations from outside this library compiling.
+	@Nonnull
+	default Kind kind() {
+		return Kind.OTHER;
+	}
 
 	default boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node.getClass() == this.getClass();
@@ -0,0 +1,61 @@
+package com.shapesecurity.shift.es2017.semantics.asg;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hands out one instance for each distinct value of the immutable leaves which recur most in explicated code, such as LiteralString("length") in
+// every for-in loop or GlobalReference("TypeError"). Each Explicator run has one, shared by the functions it explicates in parallel or defers,
+// so it is thread-safe; it lives as long as the explicator (or reducer) using it, not with the graphs it builds.
+// Numbers are keyed by their bits, so 0 and -0 stay distinct.
+public final class NodeInterner {
+	@Nonnull
+	private static final LiteralBoolean TRUE = new LiteralBoolean(true);
+	@Nonnull
+	private static final LiteralBoolean FALSE = new LiteralBoolean(false);
+	@Nonnull
+	private static final This THIS_STRICT = new This(true);
+	@Nonnull
+	private static final This THIS_SLOPPY = new This(false);
+
+	@Nonnull
+	private final ConcurrentHashMap<String, LiteralString> strings = new ConcurrentHashMap<>();
+	@Nonnull
+	private final ConcurrentHashMap<Double, LiteralNumber> numbers = new ConcurrentHashMap<>();
+	@Nonnull
+	private final ConcurrentHashMap<String, GlobalReference> globalReferences = new ConcurrentHashMap<>();
+
+	@Nonnull
+	public LiteralString literalString(@Nonnull String value) {
+		// get first: computeIfAbsent locks even when the key is present
+		LiteralString node = this.strings.get(value);
+		return node == null ? this.strings.computeIfAbsent(value, LiteralString::new) : node;
+	}
+
+	@Nonnull
+	public LiteralNumber literalNumber(double value) {
+		Double key = value;
+		LiteralNumber node = this.numbers.get(key);
+		return node == null ? this.numbers.computeIfAbsent(key, LiteralNumber::new) : node;
+	}
+
+	@Nonnull
+	public GlobalReference globalReference(@Nonnull String name) {
+		GlobalReference node = this.globalReferences.get(name);
+		return node == null ? this.globalReferences.computeIfAbsent(name, GlobalReference::new) : node;
+	}
+
+	@Nonnull
+	public LiteralBoolean literalBoolean(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	@Nonnull
+	public This _this(boolean strict) {
+		return strict ? THIS_STRICT : THIS_SLOPPY;
+	}
+
+	// the number of distinct strings, numbers and global references handed out
+	public int size() {
+		return this.strings.size() + this.numbers.size() + this.globalReferences.size();
+	}
+}
@@ -26,4 +26,10 @@ public class RequireObjectCoercible implements NodeWithValue {
 	public RequireObjectCoercible(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.REQUIRE_OBJECT_COERCIBLE;
+	}
 }
@@ -37,4 +37,10 @@ public class Return implements Node {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof Return && this.expression.isJust() == ((Return) node).expression.isJust();
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.RETURN;
+	}
 }
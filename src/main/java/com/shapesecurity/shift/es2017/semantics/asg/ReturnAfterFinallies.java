@@ -25,6 +25,9 @@ public class ReturnAfterFinallies implements Node {
 			&& this.broken.equals(((ReturnAfterFinallies) node).broken);
 	}
 
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.RETURN_AFTER_FINALLIES;
+	}
 }
-
-
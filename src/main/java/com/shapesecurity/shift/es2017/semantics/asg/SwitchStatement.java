@@ -43,4 +43,10 @@ public class SwitchStatement implements Node {
 		this.defaultCase = defaultCase;
 		this.postDefaultCases = postDefaultCases;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.SWITCH_STATEMENT;
+	}
 }
@@ -34,4 +34,10 @@ public class TemporaryReference extends LocalReference {
 	public TemporaryReference(@Nonnull Variable variable) {
 		super(variable);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TEMPORARY_REFERENCE;
+	}
 }
@@ -30,4 +30,10 @@ public class This implements NodeWithValue {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof This && this.strict == ((This) node).strict;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.THIS;
+	}
 }
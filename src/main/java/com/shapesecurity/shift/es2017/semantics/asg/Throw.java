@@ -26,4 +26,10 @@ public class Throw implements Node {
 	public Throw(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.THROW;
+	}
 }
@@ -37,4 +37,10 @@ public class TryCatch implements Node {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof TryCatch && this.catchBody.left.equals(((TryCatch) node).catchBody.left);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TRY_CATCH;
+	}
 }
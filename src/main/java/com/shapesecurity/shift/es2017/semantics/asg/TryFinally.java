@@ -30,4 +30,10 @@ public class TryFinally implements Node {
 		this.tryBody = tryBody;
 		this.finallyBody = finallyBody;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TRY_FINALLY;
+	}
 }
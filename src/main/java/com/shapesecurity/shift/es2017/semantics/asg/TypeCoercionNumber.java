@@ -26,4 +26,10 @@ public class TypeCoercionNumber implements NodeWithValue {
 	public TypeCoercionNumber(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TYPE_COERCION_NUMBER;
+	}
 }
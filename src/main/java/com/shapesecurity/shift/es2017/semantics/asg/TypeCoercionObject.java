@@ -26,4 +26,10 @@ public class TypeCoercionObject implements NodeWithValue {
 	public TypeCoercionObject(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TYPE_COERCION_OBJECT;
+	}
 }
@@ -26,4 +26,10 @@ public class TypeCoercionString implements NodeWithValue {
 	public TypeCoercionString(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TYPE_COERCION_STRING;
+	}
 }
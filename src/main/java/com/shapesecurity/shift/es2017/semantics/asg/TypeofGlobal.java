@@ -31,4 +31,10 @@ public class TypeofGlobal implements NodeWithValue {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof TypeofGlobal && this.which.equals(((TypeofGlobal) node).which);
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TYPEOF_GLOBAL;
+	}
 }
@@ -34,4 +34,10 @@ public class BitwiseNot extends UnaryOperation {
 	public BitwiseNot(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.BITWISE_NOT;
+	}
 }
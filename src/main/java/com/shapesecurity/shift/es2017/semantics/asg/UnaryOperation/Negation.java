@@ -34,4 +34,10 @@ public class Negation extends UnaryOperation {
 	public Negation(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.NEGATION;
+	}
 }
@@ -34,4 +34,10 @@ public class Not extends UnaryOperation {
 	public Not(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.NOT;
+	}
 }
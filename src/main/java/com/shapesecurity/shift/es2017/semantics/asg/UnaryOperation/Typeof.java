@@ -34,4 +34,10 @@ public class Typeof extends UnaryOperation {
 	public Typeof(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.TYPEOF;
+	}
 }
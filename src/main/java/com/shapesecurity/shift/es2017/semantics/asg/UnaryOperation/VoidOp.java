@@ -34,4 +34,10 @@ public class VoidOp extends UnaryOperation {
 	public VoidOp(@Nonnull NodeWithValue expression) {
 		this.expression = expression;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.VOID_OP;
+	}
 }
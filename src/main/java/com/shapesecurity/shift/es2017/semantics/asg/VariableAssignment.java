@@ -53,4 +53,10 @@ public class VariableAssignment implements NodeWithValue {
 	public boolean equalsIgnoringChildren(@Nonnull Node node) {
 		return node instanceof VariableAssignment && this.strict == ((VariableAssignment) node).strict;
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.VARIABLE_ASSIGNMENT;
+	}
 }
@@ -25,4 +25,10 @@ public class Void implements Node {
 
 	private Void() {
 	}
+
+	@Nonnull
+	@Override
+	public Kind kind() {
+		return Kind.VOID;
+	}
 }
@@ -1,6 +1,7 @@
 package com.shapesecurity.shift.es2017.semantics.asgvisitor;
 
 import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.semantics.ExplicationListener;
 import com.shapesecurity.shift.es2017.semantics.Semantics;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
 import com.shapesecurity.shift.es2017.semantics.visitor.Director;
@@ -31,11 +32,22 @@ public class BlockSquasher extends ReconstructingReducer {
 		);
 	}
 
+	// Reports the time taken and the size of the result to `listener`.
+	public static Semantics reduce(@Nonnull Semantics semantics, @Nonnull ExplicationListener listener) {
+		long start = System.nanoTime();
+		Semantics result = reduce(semantics);
+		listener.phaseCompleted(ExplicationListener.PhaseReport.forGraph(ExplicationListener.Phase.BLOCK_SQUASHING, start, System.nanoTime(), 0, result.node));
+		return result;
+	}
+
 
 	@Nonnull
 	@Override
 	public Block reduceBlock(@Nonnull Block block, @Nonnull ImmutableList<Node> children) {
-		return new Block(children.flatMap(node -> {
+		if (!children.exists(node -> node instanceof Block)) {
+			return super.reduceBlock(block, children);
+		}
+		return super.reduceBlock(block, children.flatMap(node -> {
 			if (node instanceof Block) {
 				return ((Block) node).children;
 			} else {
@@ -0,0 +1,141 @@
+package com.shapesecurity.shift.es2017.semantics.asgvisitor;
+
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.semantics.ExplicationListener;
+import com.shapesecurity.shift.es2017.semantics.Semantics;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.Literal;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
+import com.shapesecurity.shift.es2017.semantics.asg.Void;
+import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeAdaptingReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.Query;
+import com.shapesecurity.shift.es2017.semantics.visitor.ReconstructingReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.Reducer;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+// Removes the statements of a block which control cannot reach: those after a break, return, throw or loop, or after a statement every path
+// through which ends in one, up to the next break target some break still jumps to. Break targets nothing jumps to any longer, and statements
+// which do nothing (see Block.isNoOp), are removed too.
+// Blocks are reduced before their parents, and a break always lies within the block holding its target, so each block is rewritten knowing
+// which of its targets the breaks that survived below it still use.
+public class DeadCodeEliminator extends ReconstructingReducer {
+
+	public static Reducer<Node> create() {
+		return new NodeAdaptingReducer(new DeadCodeEliminator());
+	}
+
+	protected DeadCodeEliminator() {
+		super();
+	}
+
+	public static Semantics reduce(@Nonnull Semantics semantics) {
+		return new Semantics(
+			new Director<>(DeadCodeEliminator.create()).reduceNode(semantics.node),
+			semantics.locals,
+			semantics.scriptVarDecls,
+			semantics.scopeLookup,
+			semantics.functionScopes
+		);
+	}
+
+	// Reports the time taken and the size of the result to `listener`.
+	public static Semantics reduce(@Nonnull Semantics semantics, @Nonnull ExplicationListener listener) {
+		long start = System.nanoTime();
+		Semantics result = reduce(semantics);
+		listener.phaseCompleted(ExplicationListener.PhaseReport.forGraph(ExplicationListener.Phase.DEAD_CODE_ELIMINATION, start, System.nanoTime(), 0, result.node));
+		return result;
+	}
+
+	@Nonnull
+	@Override
+	public Block reduceBlock(@Nonnull Block block, @Nonnull ImmutableList<Node> children) {
+		List<Node> original = new ArrayList<>(children.length);
+		for (Node child : children) {
+			original.add(child);
+		}
+		List<Node> kept = new ArrayList<>(original.size());
+		boolean reachable = true;
+		for (int i = 0; i < original.size(); ++i) {
+			Node child = original.get(i);
+			if (child instanceof BreakTarget) {
+				if (isTargeted((BreakTarget) child, kept, original.subList(i + 1, original.size()))) {
+					kept.add(child);
+					reachable = true;
+				}
+			} else if (reachable && !isNoOp(child)) {
+				kept.add(child);
+				reachable = !completesAbruptly(child);
+			}
+		}
+		if (kept.size() == original.size()) {
+			return super.reduceBlock(block, children);
+		}
+		return new Block(ImmutableList.from(kept), block.directives);
+	}
+
+	// Breaks only jump forwards, but those after the target are looked at too, so that one which did not would be left alone.
+	private static boolean isTargeted(@Nonnull BreakTarget target, @Nonnull List<Node> before, @Nonnull List<Node> after) {
+		for (Node node : before) {
+			if (Query.exists(node, n -> n instanceof Break && ((Break) n).target == target, Query.OUTSIDE_FUNCTIONS)) {
+				return true;
+			}
+		}
+		for (Node node : after) {
+			if (Query.exists(node, n -> n instanceof Break && ((Break) n).target == target, Query.OUTSIDE_FUNCTIONS)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isNoOp(@Nonnull Node node) {
+		return node instanceof Void || node instanceof Literal || node instanceof LocalReference || node instanceof Block && ((Block) node).isNoOp();
+	}
+
+	// Whether control never reaches the end of `node`. The blocks in it have already been reduced, so one ends abruptly exactly when its last
+	// statement does: anything after a jump that no target follows is gone.
+	static boolean completesAbruptly(@Nonnull Node node) {
+		switch (Node.Kind.of(node)) {
+			case BREAK:
+			case RETURN:
+			case RETURN_AFTER_FINALLIES:
+			case THROW:
+			// a loop is only left by breaking out of it
+			case LOOP:
+				return true;
+			case BLOCK:
+				return ((Block) node).children.maybeLast().maybe(false, DeadCodeEliminator::completesAbruptly);
+			case IF_ELSE: {
+				IfElse ifElse = (IfElse) node;
+				return completesAbruptly(ifElse.consequent) && completesAbruptly(ifElse.alternate);
+			}
+			case TRY_CATCH: {
+				TryCatch tryCatch = (TryCatch) node;
+				return completesAbruptly(tryCatch.tryBody) && completesAbruptly(tryCatch.catchBody.right);
+			}
+			case TRY_FINALLY: {
+				// after the finally block, an abrupt completion of the try block carries on
+				TryFinally tryFinally = (TryFinally) node;
+				return completesAbruptly(tryFinally.tryBody) || completesAbruptly(tryFinally.finallyBody);
+			}
+			case SWITCH_STATEMENT: {
+				// every case falls through to the last one, and with no default the (empty) default case is last
+				SwitchStatement switchStatement = (SwitchStatement) node;
+				return completesAbruptly(switchStatement.postDefaultCases.maybeLast().maybe(switchStatement.defaultCase, pair -> pair.right));
+			}
+			default:
+				return false;
+		}
+	}
+}
@@ -96,43 +96,46 @@ public class Dottifier {
 
 	@Nonnull
 	private String label(@Nonnull Node node) {
-		if (node instanceof Equality) {
-			return "Equality\\nOperator: " + sanitize(((Equality) node).operator.name);
-		} else if (node instanceof FloatMath) {
-			return "FloatMath\\nOperator: " + sanitize(((FloatMath) node).operator.name);
-		} else if (node instanceof IntMath) {
-			return "IntMath\\nOperator: " + sanitize(((IntMath) node).operator.name);
-		} else if (node instanceof Logic) {
-			return "Logic\\nOperator: " + sanitize(((Logic) node).operator.name);
-		} else if (node instanceof RelationalComparison) {
-			return "RelationalComparison\\nOperator: " + sanitize(((RelationalComparison) node).operator.name);
-		} else if (node instanceof DeleteGlobalProperty) {
-			return "DeleteGlobalProperty\\nValue: " + ((DeleteGlobalProperty) node).which;
-		} else if (node instanceof DeleteProperty) {
-			return "DeleteProperty\\nStrict: " + ((DeleteProperty) node).strict;
-		} else if (node instanceof GlobalReference) {
-			return "GlobalReference\\nName: " + ((GlobalReference) node).name;
-		} else if (node instanceof LiteralBoolean) {
-			return "LiteralBoolean\\nValue: " + ((LiteralBoolean) node).value;
-		} else if (node instanceof LiteralFunction) {
-			return "LiteralFunction\\nStrict: " + ((LiteralFunction) node).isStrict;
-		} else if (node instanceof LiteralNumber) {
-			return "LiteralNumber\\nValue: " + ((LiteralNumber) node).value;
-		} else if (node instanceof LiteralString) {
-			return "LiteralString\\nValue: " + sanitize(((LiteralString) node).value);
-		} else if (node instanceof LiteralRegExp) {
-			LiteralRegExp literalRegExp = (LiteralRegExp) node;
-			return "LiteralRegExp\\nPattern: " + sanitize(literalRegExp.pattern) + "\\nFlags: " + (literalRegExp.global ? "g" : "") + (literalRegExp.ignoreCase ? "i" : "") + (literalRegExp.multiLine ? "m" : "") + (literalRegExp.unicode ? "u" : "") + (literalRegExp.sticky ? "y" : "");
-		} else if (node instanceof MemberAssignment) {
-			return "MemberAssignment\\nStrict: " + ((MemberAssignment) node).strict;
-		} else if (node instanceof This) {
-			return "This\\nStrict: " + ((This) node).strict;
-		} else if (node instanceof TypeofGlobal) {
-			return "TypeofGlobal\\nName: " + ((TypeofGlobal) node).which;
-		} else if (node instanceof VariableAssignment) {
-			return "VariableAssignment\\nStrict: " + ((VariableAssignment) node).strict;
+		switch (Node.Kind.of(node)) {
+			case EQUALITY:
+				return "Equality\\nOperator: " + sanitize(((Equality) node).operator.name);
+			case FLOAT_MATH:
+				return "FloatMath\\nOperator: " + sanitize(((FloatMath) node).operator.name);
+			case INT_MATH:
+				return "IntMath\\nOperator: " + sanitize(((IntMath) node).operator.name);
+			case LOGIC:
+				return "Logic\\nOperator: " + sanitize(((Logic) node).operator.name);
+			case RELATIONAL_COMPARISON:
+				return "RelationalComparison\\nOperator: " + sanitize(((RelationalComparison) node).operator.name);
+			case DELETE_GLOBAL_PROPERTY:
+				return "DeleteGlobalProperty\\nValue: " + ((DeleteGlobalProperty) node).which;
+			case DELETE_PROPERTY:
+				return "DeleteProperty\\nStrict: " + ((DeleteProperty) node).strict;
+			case GLOBAL_REFERENCE:
+				return "GlobalReference\\nName: " + ((GlobalReference) node).name;
+			case LITERAL_BOOLEAN:
+				return "LiteralBoolean\\nValue: " + ((LiteralBoolean) node).value;
+			case LITERAL_FUNCTION:
+				return "LiteralFunction\\nStrict: " + ((LiteralFunction) node).isStrict;
+			case LITERAL_NUMBER:
+				return "LiteralNumber\\nValue: " + ((LiteralNumber) node).value;
+			case LITERAL_STRING:
+				return "LiteralString\\nValue: " + sanitize(((LiteralString) node).value);
+			case LITERAL_REG_EXP: {
+				LiteralRegExp literalRegExp = (LiteralRegExp) node;
+				return "LiteralRegExp\\nPattern: " + sanitize(literalRegExp.pattern) + "\\nFlags: " + (literalRegExp.global ? "g" : "") + (literalRegExp.ignoreCase ? "i" : "") + (literalRegExp.multiLine ? "m" : "") + (literalRegExp.unicode ? "u" : "") + (literalRegExp.sticky ? "y" : "");
+			}
+			case MEMBER_ASSIGNMENT:
+				return "MemberAssignment\\nStrict: " + ((MemberAssignment) node).strict;
+			case THIS:
+				return "This\\nStrict: " + ((This) node).strict;
+			case TYPEOF_GLOBAL:
+				return "TypeofGlobal\\nName: " + ((TypeofGlobal) node).which;
+			case VARIABLE_ASSIGNMENT:
+				return "VariableAssignment\\nStrict: " + ((VariableAssignment) node).strict;
+			default:
+				return node.getClass().getSimpleName();
 		}
-		return node.getClass().getSimpleName();
 	}
 
 	@Nonnull
@@ -291,96 +294,107 @@ public class Dottifier {
 		}
 		visited.put(node, Unit.unit);
 
-		if (node instanceof BinaryOperation) {
-			return reduceBinaryOperation((BinaryOperation) node);
-		} else if (node instanceof UnaryOperation) {
-			return reduceUnaryOperation((UnaryOperation) node);
-		} else if (node instanceof Block) {
-			return reduceBlock((Block) node);
-		} else if (node instanceof BlockWithValue) {
-			return reduceBlockWithValue((BlockWithValue) node);
-		} else if (node instanceof Break) {
-			return reduceBreak((Break) node);
-		} else if (node instanceof BreakTarget) {
-			return reduceBreakTarget((BreakTarget) node);
-		} else if (node instanceof Call) {
-			return reduceCall((Call) node);
-		} else if (node instanceof DeleteGlobalProperty) {
-			return reduceDeleteGlobalProperty((DeleteGlobalProperty) node);
-		} else if (node instanceof DeleteProperty) {
-			return reduceDeleteProperty((DeleteProperty) node);
-		} else if (node instanceof GlobalReference) {
-			return reduceGlobalReference((GlobalReference) node);
-		} else if (node instanceof Halt) {
-			return reduceHalt((Halt) node);
-		} else if (node instanceof IfElse) {
-			return reduceIfElse((IfElse) node);
-		} else if (node instanceof Keys) {
-			return reduceKeys((Keys) node);
-		} else if (node instanceof Literal) {
-			if (node instanceof LiteralBoolean) {
+		switch (Node.Kind.of(node)) {
+			case EQUALITY:
+			case FLOAT_MATH:
+			case IN:
+			case INSTANCE_OF:
+			case INT_MATH:
+			case LOGIC:
+			case RELATIONAL_COMPARISON:
+				return reduceBinaryOperation((BinaryOperation) node);
+			case BITWISE_NOT:
+			case NEGATION:
+			case NOT:
+			case TYPEOF:
+			case VOID_OP:
+				return reduceUnaryOperation((UnaryOperation) node);
+			case BLOCK:
+				return reduceBlock((Block) node);
+			case BLOCK_WITH_VALUE:
+				return reduceBlockWithValue((BlockWithValue) node);
+			case BREAK:
+				return reduceBreak((Break) node);
+			case BREAK_TARGET:
+				return reduceBreakTarget((BreakTarget) node);
+			case CALL:
+				return reduceCall((Call) node);
+			case DELETE_GLOBAL_PROPERTY:
+				return reduceDeleteGlobalProperty((DeleteGlobalProperty) node);
+			case DELETE_PROPERTY:
+				return reduceDeleteProperty((DeleteProperty) node);
+			case GLOBAL_REFERENCE:
+				return reduceGlobalReference((GlobalReference) node);
+			case HALT:
+				return reduceHalt((Halt) node);
+			case IF_ELSE:
+				return reduceIfElse((IfElse) node);
+			case KEYS:
+				return reduceKeys((Keys) node);
+			case LITERAL_BOOLEAN:
 				return reduceLiteralBoolean((LiteralBoolean) node);
-			} else if (node instanceof LiteralEmptyArray) {
+			case LITERAL_EMPTY_ARRAY:
 				return reduceLiteralEmptyArray((LiteralEmptyArray) node);
-			} else if (node instanceof LiteralEmptyObject) {
+			case LITERAL_EMPTY_OBJECT:
 				return reduceLiteralEmptyObject((LiteralEmptyObject) node);
-			} else if (node instanceof LiteralFunction) {
+			case LITERAL_FUNCTION:
 				return reduceLiteralFunction((LiteralFunction) node);
-			} else if (node instanceof LiteralInfinity) {
+			case LITERAL_INFINITY:
 				return reduceLiteralInfinity((LiteralInfinity) node);
-			} else if (node instanceof LiteralNull) {
+			case LITERAL_NULL:
 				return reduceLiteralNull((LiteralNull) node);
-			} else if (node instanceof LiteralNumber) {
+			case LITERAL_NUMBER:
 				return reduceLiteralNumber((LiteralNumber) node);
-			} else if (node instanceof LiteralRegExp) {
+			case LITERAL_REG_EXP:
 				return reduceLiteralRegExp((LiteralRegExp) node);
-			} else if (node instanceof LiteralString) {
+			case LITERAL_STRING:
 				return reduceLiteralString((LiteralString) node);
-			} else if (node instanceof LiteralUndefined) {
+			case LITERAL_UNDEFINED:
 				return reduceLiteralUndefined((LiteralUndefined) node);
-			}
-		} else if (node instanceof LocalReference) {
-			return reduceLocalReference((LocalReference) node);
-		} else if (node instanceof Loop) {
-			return reduceLoop((Loop) node);
-		} else if (node instanceof MemberAccess) {
-			return reduceMemberAccess((MemberAccess) node);
-		} else if (node instanceof MemberAssignment) {
-			return reduceMemberAssignment((MemberAssignment) node);
-		} else if (node instanceof MemberCall) {
-			return reduceMemberCall((MemberCall) node);
-		} else if (node instanceof MemberDefinition) {
-			return reduceMemberDefinition((MemberDefinition) node);
-		} else if (node instanceof New) {
-			return reduceNew((New) node);
-		} else if (node instanceof RequireObjectCoercible) {
-			return reduceRequireObjectCoercible((RequireObjectCoercible) node);
-		} else if (node instanceof Return) {
-			return reduceReturn((Return) node);
-		} else if (node instanceof SwitchStatement) {
-			return reduceSwitchStatement((SwitchStatement) node);
-		} else if (node instanceof This) {
-			return reduceThis((This) node);
-		} else if (node instanceof Throw) {
-			return reduceThrow((Throw) node);
-		} else if (node instanceof TryCatch) {
-			return reduceTryCatch((TryCatch) node);
-		} else if (node instanceof TryFinally) {
-			return reduceTryFinally((TryFinally) node);
-		} else if (node instanceof TypeCoercionNumber) {
-			return reduceTypeCoercionNumber((TypeCoercionNumber) node);
-		} else if (node instanceof TypeCoercionObject) {
-			return reduceTypeCoercionObject((TypeCoercionObject) node);
-		} else if (node instanceof TypeCoercionString) {
-			return reduceTypeCoercionString((TypeCoercionString) node);
-		} else if (node instanceof TypeofGlobal) {
-			return reduceTypeofGlobal((TypeofGlobal) node);
-		} else if (node instanceof VariableAssignment) {
-			return reduceVariableAssignment((VariableAssignment) node);
-		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Void) {
-			return reduceVoid((com.shapesecurity.shift.es2017.semantics.asg.Void) node);
+			case LOCAL_REFERENCE:
+			case TEMPORARY_REFERENCE:
+				return reduceLocalReference((LocalReference) node);
+			case LOOP:
+				return reduceLoop((Loop) node);
+			case MEMBER_ACCESS:
+				return reduceMemberAccess((MemberAccess) node);
+			case MEMBER_ASSIGNMENT:
+				return reduceMemberAssignment((MemberAssignment) node);
+			case MEMBER_CALL:
+				return reduceMemberCall((MemberCall) node);
+			case MEMBER_DEFINITION:
+				return reduceMemberDefinition((MemberDefinition) node);
+			case NEW:
+				return reduceNew((New) node);
+			case REQUIRE_OBJECT_COERCIBLE:
+				return reduceRequireObjectCoercible((RequireObjectCoercible) node);
+			case RETURN:
+				return reduceReturn((Return) node);
+			case SWITCH_STATEMENT:
+				return reduceSwitchStatement((SwitchStatement) node);
+			case THIS:
+				return reduceThis((This) node);
+			case THROW:
+				return reduceThrow((Throw) node);
+			case TRY_CATCH:
+				return reduceTryCatch((TryCatch) node);
+			case TRY_FINALLY:
+				return reduceTryFinally((TryFinally) node);
+			case TYPE_COERCION_NUMBER:
+				return reduceTypeCoercionNumber((TypeCoercionNumber) node);
+			case TYPE_COERCION_OBJECT:
+				return reduceTypeCoercionObject((TypeCoercionObject) node);
+			case TYPE_COERCION_STRING:
+				return reduceTypeCoercionString((TypeCoercionString) node);
+			case TYPEOF_GLOBAL:
+				return reduceTypeofGlobal((TypeofGlobal) node);
+			case VARIABLE_ASSIGNMENT:
+				return reduceVariableAssignment((VariableAssignment) node);
+			case VOID:
+				return reduceVoid((com.shapesecurity.shift.es2017.semantics.asg.Void) node);
+			default:
+				throw new UnsupportedOperationException("Unimplemented: " + node.getClass().getSimpleName());
 		}
-		throw new UnsupportedOperationException("Unimplemented: " + node.getClass().getSimpleName());
 	}
 
 	@Nonnull
@@ -654,7 +668,7 @@ public class Dottifier {
 				.append(indent())
 				.append("label=\"");
 		first = true;
-		for (Variable variable : node.locals) {
+		for (Variable variable : node.locals()) {
 			if (!first) {
 				out.append(" | ");
 			} else {
@@ -695,16 +709,16 @@ public class Dottifier {
 
 
 		// body
-		assert !declared.containsKey(node.body);
-		out.append(ensureDeclared(node.body));
+		assert !declared.containsKey(node.body());
+		out.append(ensureDeclared(node.body()));
 
 		--indentationLevel;
 		out.append(indent())
 				.append("}\n"); // end rank=same
 		++indentationLevel;
-		out.append(reduce(node.body));
+		out.append(reduce(node.body()));
 		after.append(lhs)
-				.append(name(node.body))
+				.append(name(node.body()))
 				.append(" [label=\"body\"];\n");
 		--indentationLevel;
 
@@ -812,17 +826,21 @@ public class Dottifier {
 				.append(" [label=\"fieldExpression\"];\n");
 		Node prop;
 		String propLabel;
-		if (node.property instanceof MemberAssignmentProperty.Getter) {
-			prop = ((MemberAssignmentProperty.Getter) node.property).value;
-			propLabel = "getter";
-		} else if (node.property instanceof MemberAssignmentProperty.Setter) {
-			prop = ((MemberAssignmentProperty.Setter) node.property).value;
-			propLabel = "setter";
-		} else if (node.property instanceof MemberAssignmentProperty.StaticValue) {
-			prop = ((MemberAssignmentProperty.StaticValue) node.property).value;
-			propLabel = "value";
-		} else {
-			throw new UnsupportedOperationException("Unknown MemberAssignmentProperty class: " + node.property.getClass().getSimpleName());
+		switch (Node.Kind.of(node.property)) {
+			case GETTER:
+				prop = ((MemberAssignmentProperty.Getter) node.property).value;
+				propLabel = "getter";
+				break;
+			case SETTER:
+				prop = ((MemberAssignmentProperty.Setter) node.property).value;
+				propLabel = "setter";
+				break;
+			case STATIC_VALUE:
+				prop = ((MemberAssignmentProperty.StaticValue) node.property).value;
+				propLabel = "value";
+				break;
+			default:
+				throw new UnsupportedOperationException("Unknown MemberAssignmentProperty class: " + node.property.getClass().getSimpleName());
 		}
 		out.append(reduce(prop));
 		after.append(lhs)
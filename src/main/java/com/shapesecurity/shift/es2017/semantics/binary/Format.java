@@ -0,0 +1,89 @@
+package com.shapesecurity.shift.es2017.semantics.binary;
+
+// Layout shared by SemanticsWriter and SemanticsReader. Bump VERSION whenever the encoding of anything below changes.
+//
+// A serialized Semantics is MAGIC (4 bytes), VERSION (varint), the root node, Semantics.locals and Semantics.scriptVarDecls.
+// Nodes are written in pre-order: a tag byte, the node's own data, then its children. Every node other than the singletons is numbered in the order
+// its encoding completes (i.e. post-order), and a later occurrence of the same node is written as REF followed by that number. This preserves sharing,
+// including the edge from a Break to its BreakTarget, whichever of the two is reached first.
+// Strings and Variables are written as a varint index into a table built as the stream is read: an index equal to the current size of the table
+// introduces a new entry, whose contents follow immediately (a string's length and UTF-16 code units; a variable's name).
+// Lists are a varint length followed by their elements; Maybes are a presence byte followed by the value if present; enums are their ordinal as a byte.
+final class Format {
+	static final int MAGIC = 0x53415347; // "SASG"
+	static final int VERSION = 1;
+
+	static final byte REF = 0;
+
+	static final byte BLOCK = 1;
+	static final byte BLOCK_WITH_VALUE = 2;
+	static final byte BREAK = 3;
+	static final byte BREAK_TARGET = 4;
+	static final byte CALL = 5;
+	static final byte DELETE_GLOBAL_PROPERTY = 6;
+	static final byte DELETE_PROPERTY = 7;
+	static final byte GLOBAL_REFERENCE = 8;
+	static final byte HALT = 9;
+	static final byte IF_ELSE = 10;
+	static final byte KEYS = 11;
+	static final byte LITERAL_TRUE = 12;
+	static final byte LITERAL_FALSE = 13;
+	static final byte LITERAL_EMPTY_ARRAY = 14;
+	static final byte LITERAL_EMPTY_OBJECT = 15;
+	static final byte LITERAL_FUNCTION = 16;
+	static final byte LITERAL_INFINITY = 17;
+	static final byte LITERAL_NULL = 18;
+	static final byte LITERAL_NUMBER = 19;
+	static final byte LITERAL_SMALL_INTEGER = 20;
+	static final byte LITERAL_REGEXP = 21;
+	static final byte LITERAL_STRING = 22;
+	static final byte LITERAL_SYMBOL = 23;
+	static final byte LITERAL_UNDEFINED = 24;
+	static final byte LOCAL_REFERENCE = 25;
+	static final byte TEMPORARY_REFERENCE = 26;
+	static final byte LOOP = 27;
+	static final byte MEMBER_ACCESS = 28;
+	static final byte MEMBER_ASSIGNMENT = 29;
+	static final byte STATIC_VALUE = 30;
+	static final byte GETTER = 31;
+	static final byte SETTER = 32;
+	static final byte MEMBER_CALL = 33;
+	static final byte MEMBER_DEFINITION = 34;
+	static final byte NEW = 35;
+	static final byte REQUIRE_OBJECT_COERCIBLE = 36;
+	static final byte RETURN = 37;
+	static final byte RETURN_AFTER_FINALLIES = 38;
+	static final byte SWITCH_STATEMENT = 39;
+	static final byte THIS = 40;
+	static final byte THROW = 41;
+	static final byte TRY_CATCH = 42;
+	static final byte TRY_FINALLY = 43;
+	static final byte TYPE_COERCION_NUMBER = 44;
+	static final byte TYPE_COERCION_OBJECT = 45;
+	static final byte TYPE_COERCION_STRING = 46;
+	static final byte TYPEOF_GLOBAL = 47;
+	static final byte VARIABLE_ASSIGNMENT = 48;
+	static final byte VOID = 49;
+	static final byte EQUALITY = 50;
+	static final byte FLOAT_MATH = 51;
+	static final byte IN = 52;
+	static final byte INSTANCE_OF = 53;
+	static final byte INT_MATH = 54;
+	static final byte LOGIC = 55;
+	static final byte RELATIONAL_COMPARISON = 56;
+	static final byte BITWISE_NOT = 57;
+	static final byte NEGATION = 58;
+	static final byte NOT = 59;
+	static final byte TYPEOF = 60;
+	static final byte VOID_OP = 61;
+
+	// bits of the flags byte following LITERAL_REGEXP
+	static final int REGEXP_GLOBAL = 1;
+	static final int REGEXP_IGNORE_CASE = 1 << 1;
+	static final int REGEXP_MULTILINE = 1 << 2;
+	static final int REGEXP_STICKY = 1 << 3;
+	static final int REGEXP_UNICODE = 1 << 4;
+
+	private Format() {
+	}
+}
@@ -0,0 +1,522 @@
+package com.shapesecurity.shift.es2017.semantics.binary;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.ast.Directive;
+import com.shapesecurity.shift.es2017.ast.Script;
+import com.shapesecurity.shift.es2017.scope.ScopeAnalyzer;
+import com.shapesecurity.shift.es2017.scope.ScopeLookup;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.BrokenThrough;
+import com.shapesecurity.shift.es2017.semantics.Semantics;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.In;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.InstanceOf;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.Call;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteGlobalProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Halt;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.Keys;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyArray;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyObject;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralInfinity;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralSymbol;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Loop;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberDefinition;
+import com.shapesecurity.shift.es2017.semantics.asg.New;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible;
+import com.shapesecurity.shift.es2017.semantics.asg.Return;
+import com.shapesecurity.shift.es2017.semantics.asg.ReturnAfterFinallies;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.asg.This;
+import com.shapesecurity.shift.es2017.semantics.asg.Throw;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Negation;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Typeof;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.Void;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+// Reads a Semantics written by SemanticsWriter.
+// The result has the same graph as the one written, including shared nodes, Variable identity and Break targets. Since the AST is not available,
+// its scopeLookup is that of an empty script, its functionScopes are empty, and each Variable has a name but no references or declarations.
+// Malformed input results in an IllegalArgumentException, and truncated input in a BufferUnderflowException.
+public final class SemanticsReader {
+	@Nonnull
+	private static final ScopeLookup EMPTY_SCOPE_LOOKUP = new ScopeLookup(ScopeAnalyzer.analyze(new Script(ImmutableList.empty(), ImmutableList.empty())));
+	@Nonnull
+	private static final BrokenThrough[] BROKEN_THROUGH = BrokenThrough.values();
+
+	@Nonnull
+	private final ByteBuffer buffer;
+	@Nonnull
+	private final ArrayList<Node> nodes = new ArrayList<>();
+	@Nonnull
+	private final ArrayList<Variable> variables = new ArrayList<>();
+	@Nonnull
+	private final ArrayList<String> strings = new ArrayList<>();
+
+	private SemanticsReader(@Nonnull ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	// Reads from the buffer's position, advancing it past the serialized form.
+	@Nonnull
+	public static Semantics read(@Nonnull ByteBuffer buffer) {
+		return new SemanticsReader(buffer).semantics();
+	}
+
+	@Nonnull
+	private Semantics semantics() {
+		if (this.buffer.getInt() != Format.MAGIC) {
+			throw new IllegalArgumentException("Not a serialized Semantics");
+		}
+		int version = this.varint();
+		if (version != Format.VERSION) {
+			throw new IllegalArgumentException("Unsupported format version " + version + ", expected " + Format.VERSION);
+		}
+		Node node = this.node();
+		ImmutableList<Variable> locals = this.variables();
+		int scriptVarDeclCount = this.varint();
+		ArrayList<String> scriptVarDecls = new ArrayList<>(scriptVarDeclCount);
+		for (int i = 0; i < scriptVarDeclCount; ++i) {
+			scriptVarDecls.add(this.string());
+		}
+		return new Semantics(node, locals, ImmutableList.from(scriptVarDecls), EMPTY_SCOPE_LOOKUP, new IdentityHashMap<>());
+	}
+
+	@Nonnull
+	private Node node() {
+		byte tag = this.buffer.get();
+		Node node;
+		switch (tag) {
+			case Format.REF:
+				int index = this.varint();
+				if (index >= this.nodes.size()) {
+					throw new IllegalArgumentException("Reference to unknown node " + index);
+				}
+				return this.nodes.get(index);
+			case Format.HALT:
+				return Halt.INSTANCE;
+			case Format.LITERAL_EMPTY_ARRAY:
+				return LiteralEmptyArray.INSTANCE;
+			case Format.LITERAL_EMPTY_OBJECT:
+				return LiteralEmptyObject.INSTANCE;
+			case Format.LITERAL_INFINITY:
+				return LiteralInfinity.INSTANCE;
+			case Format.LITERAL_NULL:
+				return LiteralNull.INSTANCE;
+			case Format.LITERAL_UNDEFINED:
+				return LiteralUndefined.INSTANCE;
+			case Format.VOID:
+				return Void.INSTANCE;
+			case Format.BLOCK: {
+				int directiveCount = this.varint();
+				ArrayList<Directive> directives = new ArrayList<>(directiveCount);
+				for (int i = 0; i < directiveCount; ++i) {
+					directives.add(new Directive(this.string()));
+				}
+				node = new Block(this.nodes(Node.class), ImmutableList.from(directives));
+				break;
+			}
+			case Format.BLOCK_WITH_VALUE: {
+				Block head = this.node(Block.class);
+				node = new BlockWithValue(head, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.BREAK: {
+				ImmutableList<BrokenThrough> broken = this.broken();
+				node = new Break(this.node(BreakTarget.class), broken);
+				break;
+			}
+			case Format.BREAK_TARGET:
+				node = new BreakTarget();
+				break;
+			case Format.CALL: {
+				NodeWithValue callee = this.node(NodeWithValue.class);
+				node = new Call(callee, this.nodes(NodeWithValue.class));
+				break;
+			}
+			case Format.DELETE_GLOBAL_PROPERTY:
+				node = new DeleteGlobalProperty(this.string());
+				break;
+			case Format.DELETE_PROPERTY: {
+				boolean strict = this.bool();
+				NodeWithValue object = this.node(NodeWithValue.class);
+				node = new DeleteProperty(object, this.node(NodeWithValue.class), strict);
+				break;
+			}
+			case Format.GLOBAL_REFERENCE:
+				node = new GlobalReference(this.string());
+				break;
+			case Format.IF_ELSE: {
+				NodeWithValue test = this.node(NodeWithValue.class);
+				Block consequent = this.node(Block.class);
+				node = new IfElse(test, consequent, this.node(Block.class));
+				break;
+			}
+			case Format.KEYS:
+				node = new Keys(this.node(NodeWithValue.class));
+				break;
+			case Format.LITERAL_TRUE:
+				node = new LiteralBoolean(true);
+				break;
+			case Format.LITERAL_FALSE:
+				node = new LiteralBoolean(false);
+				break;
+			case Format.LITERAL_FUNCTION: {
+				boolean isStrict = this.bool();
+				Maybe<Variable> name = this.maybeVariable();
+				Maybe<Variable> arguments = this.maybeVariable();
+				ImmutableList<Variable> parameters = this.variables();
+				ImmutableList<Variable> locals = this.variables();
+				ImmutableList<Variable> captured = this.variables();
+				node = new LiteralFunction(name, arguments, parameters, locals, captured, this.node(Block.class), isStrict);
+				break;
+			}
+			case Format.LITERAL_NUMBER:
+				node = new LiteralNumber(this.buffer.getDouble());
+				break;
+			case Format.LITERAL_SMALL_INTEGER:
+				node = new LiteralNumber(this.varint());
+				break;
+			case Format.LITERAL_REGEXP: {
+				String pattern = this.string();
+				int flags = this.buffer.get();
+				node = new LiteralRegExp(
+					pattern,
+					(flags & Format.REGEXP_GLOBAL) != 0,
+					(flags & Format.REGEXP_IGNORE_CASE) != 0,
+					(flags & Format.REGEXP_MULTILINE) != 0,
+					(flags & Format.REGEXP_STICKY) != 0,
+					(flags & Format.REGEXP_UNICODE) != 0
+				);
+				break;
+			}
+			case Format.LITERAL_STRING:
+				node = new LiteralString(this.string());
+				break;
+			case Format.LITERAL_SYMBOL:
+				node = new LiteralSymbol(this.string());
+				break;
+			case Format.LOCAL_REFERENCE:
+				node = new LocalReference(this.variable());
+				break;
+			case Format.TEMPORARY_REFERENCE:
+				node = new TemporaryReference(this.variable());
+				break;
+			case Format.LOOP:
+				node = new Loop(this.node(Block.class));
+				break;
+			case Format.MEMBER_ACCESS: {
+				NodeWithValue object = this.node(NodeWithValue.class);
+				node = new MemberAccess(object, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.MEMBER_ASSIGNMENT: {
+				boolean strict = this.bool();
+				NodeWithValue object = this.node(NodeWithValue.class);
+				NodeWithValue fieldExpression = this.node(NodeWithValue.class);
+				node = new MemberAssignment(object, fieldExpression, this.node(MemberAssignmentProperty.StaticValue.class), strict);
+				break;
+			}
+			case Format.STATIC_VALUE:
+				node = new MemberAssignmentProperty.StaticValue(this.node(NodeWithValue.class));
+				break;
+			case Format.GETTER:
+				node = new MemberAssignmentProperty.Getter(this.node(LiteralFunction.class));
+				break;
+			case Format.SETTER:
+				node = new MemberAssignmentProperty.Setter(this.node(LiteralFunction.class));
+				break;
+			case Format.MEMBER_CALL: {
+				NodeWithValue object = this.node(NodeWithValue.class);
+				NodeWithValue fieldExpression = this.node(NodeWithValue.class);
+				node = new MemberCall(object, fieldExpression, this.nodes(NodeWithValue.class));
+				break;
+			}
+			case Format.MEMBER_DEFINITION: {
+				NodeWithValue object = this.node(NodeWithValue.class);
+				NodeWithValue fieldExpression = this.node(NodeWithValue.class);
+				node = new MemberDefinition(object, fieldExpression, this.node(MemberAssignmentProperty.class));
+				break;
+			}
+			case Format.NEW: {
+				NodeWithValue callee = this.node(NodeWithValue.class);
+				node = new New(callee, this.nodes(NodeWithValue.class));
+				break;
+			}
+			case Format.REQUIRE_OBJECT_COERCIBLE:
+				node = new RequireObjectCoercible(this.node(NodeWithValue.class));
+				break;
+			case Format.RETURN:
+				node = new Return(this.bool() ? Maybe.of(this.node(NodeWithValue.class)) : Maybe.empty());
+				break;
+			case Format.RETURN_AFTER_FINALLIES: {
+				ImmutableList<BrokenThrough> broken = this.broken();
+				Maybe<LocalReference> savedValue = this.bool() ? Maybe.of(this.node(LocalReference.class)) : Maybe.empty();
+				node = new ReturnAfterFinallies(savedValue, broken);
+				break;
+			}
+			case Format.SWITCH_STATEMENT: {
+				LocalReference discriminant = this.node(LocalReference.class);
+				ImmutableList<Pair<NodeWithValue, Block>> preDefaultCases = this.cases();
+				Block defaultCase = this.node(Block.class);
+				node = new SwitchStatement(discriminant, preDefaultCases, defaultCase, this.cases());
+				break;
+			}
+			case Format.THIS:
+				node = new This(this.bool());
+				break;
+			case Format.THROW:
+				node = new Throw(this.node(NodeWithValue.class));
+				break;
+			case Format.TRY_CATCH: {
+				Block tryBody = this.node(Block.class);
+				Variable binding = this.variable();
+				node = new TryCatch(tryBody, Pair.of(binding, this.node(Block.class)));
+				break;
+			}
+			case Format.TRY_FINALLY: {
+				Block tryBody = this.node(Block.class);
+				node = new TryFinally(tryBody, this.node(Block.class));
+				break;
+			}
+			case Format.TYPE_COERCION_NUMBER:
+				node = new TypeCoercionNumber(this.node(NodeWithValue.class));
+				break;
+			case Format.TYPE_COERCION_OBJECT:
+				node = new TypeCoercionObject(this.node(NodeWithValue.class));
+				break;
+			case Format.TYPE_COERCION_STRING:
+				node = new TypeCoercionString(this.node(NodeWithValue.class));
+				break;
+			case Format.TYPEOF_GLOBAL:
+				node = new TypeofGlobal(this.string());
+				break;
+			case Format.VARIABLE_ASSIGNMENT: {
+				boolean strict = this.bool();
+				Node ref = this.node();
+				NodeWithValue value = this.node(NodeWithValue.class);
+				if (ref instanceof GlobalReference) {
+					node = new VariableAssignment((GlobalReference) ref, value, strict);
+				} else if (ref instanceof LocalReference) {
+					node = new VariableAssignment((LocalReference) ref, value, strict);
+				} else {
+					throw new IllegalArgumentException("Expected GlobalReference or LocalReference, found " + ref.getClass().getSimpleName());
+				}
+				break;
+			}
+			case Format.EQUALITY: {
+				Equality.Operator operator = this.operator(Equality.Operator.values());
+				NodeWithValue left = this.node(NodeWithValue.class);
+				node = new Equality(operator, left, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.FLOAT_MATH: {
+				FloatMath.Operator operator = this.operator(FloatMath.Operator.values());
+				NodeWithValue left = this.node(NodeWithValue.class);
+				node = new FloatMath(operator, left, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.INT_MATH: {
+				IntMath.Operator operator = this.operator(IntMath.Operator.values());
+				NodeWithValue left = this.node(NodeWithValue.class);
+				node = new IntMath(operator, left, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.LOGIC: {
+				Logic.Operator operator = this.operator(Logic.Operator.values());
+				NodeWithValue left = this.node(NodeWithValue.class);
+				node = new Logic(operator, left, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.RELATIONAL_COMPARISON: {
+				RelationalComparison.Operator operator = this.operator(RelationalComparison.Operator.values());
+				NodeWithValue left = this.node(NodeWithValue.class);
+				node = new RelationalComparison(operator, left, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.IN: {
+				NodeWithValue left = this.node(NodeWithValue.class);
+				node = new In(left, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.INSTANCE_OF: {
+				NodeWithValue left = this.node(NodeWithValue.class);
+				node = new InstanceOf(left, this.node(NodeWithValue.class));
+				break;
+			}
+			case Format.BITWISE_NOT:
+				node = new BitwiseNot(this.node(NodeWithValue.class));
+				break;
+			case Format.NEGATION:
+				node = new Negation(this.node(NodeWithValue.class));
+				break;
+			case Format.NOT:
+				node = new Not(this.node(NodeWithValue.class));
+				break;
+			case Format.TYPEOF:
+				node = new Typeof(this.node(NodeWithValue.class));
+				break;
+			case Format.VOID_OP:
+				node = new VoidOp(this.node(NodeWithValue.class));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown node tag " + tag);
+		}
+		this.nodes.add(node);
+		return node;
+	}
+
+	@Nonnull
+	private <T> T node(@Nonnull Class<T> type) {
+		Node node = this.node();
+		if (!type.isInstance(node)) {
+			throw new IllegalArgumentException("Expected " + type.getSimpleName() + ", found " + node.getClass().getSimpleName());
+		}
+		return type.cast(node);
+	}
+
+	@Nonnull
+	private <T> ImmutableList<T> nodes(@Nonnull Class<T> type) {
+		int count = this.varint();
+		ArrayList<T> nodes = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			nodes.add(this.node(type));
+		}
+		return ImmutableList.from(nodes);
+	}
+
+	@Nonnull
+	private ImmutableList<Pair<NodeWithValue, Block>> cases() {
+		int count = this.varint();
+		ArrayList<Pair<NodeWithValue, Block>> cases = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			NodeWithValue test = this.node(NodeWithValue.class);
+			cases.add(Pair.of(test, this.node(Block.class)));
+		}
+		return ImmutableList.from(cases);
+	}
+
+	@Nonnull
+	private ImmutableList<BrokenThrough> broken() {
+		int count = this.varint();
+		ArrayList<BrokenThrough> broken = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			broken.add(this.operator(BROKEN_THROUGH));
+		}
+		return ImmutableList.from(broken);
+	}
+
+	@Nonnull
+	private <T extends Enum<T>> T operator(@Nonnull T[] values) {
+		int ordinal = this.buffer.get();
+		if (ordinal < 0 || ordinal >= values.length) {
+			throw new IllegalArgumentException("Unknown " + values.getClass().getComponentType().getSimpleName() + " " + ordinal);
+		}
+		return values[ordinal];
+	}
+
+	@Nonnull
+	private Variable variable() {
+		int index = this.varint();
+		if (index < this.variables.size()) {
+			return this.variables.get(index);
+		}
+		if (index > this.variables.size()) {
+			throw new IllegalArgumentException("Reference to unknown variable " + index);
+		}
+		Variable variable = new Variable(this.string(), ImmutableList.empty(), ImmutableList.empty());
+		this.variables.add(variable);
+		return variable;
+	}
+
+	@Nonnull
+	private Maybe<Variable> maybeVariable() {
+		return this.bool() ? Maybe.of(this.variable()) : Maybe.empty();
+	}
+
+	@Nonnull
+	private ImmutableList<Variable> variables() {
+		int count = this.varint();
+		ArrayList<Variable> variables = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			variables.add(this.variable());
+		}
+		return ImmutableList.from(variables);
+	}
+
+	@Nonnull
+	private String string() {
+		int index = this.varint();
+		if (index < this.strings.size()) {
+			return this.strings.get(index);
+		}
+		if (index > this.strings.size()) {
+			throw new IllegalArgumentException("Reference to unknown string " + index);
+		}
+		int length = this.varint();
+		char[] chars = new char[length];
+		for (int i = 0; i < length; ++i) {
+			chars[i] = (char) this.varint();
+		}
+		String string = new String(chars);
+		this.strings.add(string);
+		return string;
+	}
+
+	private boolean bool() {
+		return this.buffer.get() != 0;
+	}
+
+	private int varint() {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = this.buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+}
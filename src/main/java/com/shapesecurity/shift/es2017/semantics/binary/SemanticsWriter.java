@@ -0,0 +1,484 @@
+package com.shapesecurity.shift.es2017.semantics.binary;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.ast.Directive;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.BrokenThrough;
+import com.shapesecurity.shift.es2017.semantics.Semantics;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.BinaryOperation;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.In;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.InstanceOf;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.Call;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteGlobalProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Halt;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.Keys;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyArray;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyObject;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralInfinity;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralSymbol;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Loop;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberDefinition;
+import com.shapesecurity.shift.es2017.semantics.asg.New;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible;
+import com.shapesecurity.shift.es2017.semantics.asg.Return;
+import com.shapesecurity.shift.es2017.semantics.asg.ReturnAfterFinallies;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.asg.This;
+import com.shapesecurity.shift.es2017.semantics.asg.Throw;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Negation;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Typeof;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.UnaryOperation;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.Void;
+
+import javax.annotation.Nonnull;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+// Serializes a Semantics in the format described in Format, to be read back by SemanticsReader.
+// Only the ASG, Semantics.locals and Semantics.scriptVarDecls are written. Semantics.scopeLookup and Semantics.functionScopes describe the AST
+// the graph was derived from and are not written, nor are the references and declarations of each Variable.
+public final class SemanticsWriter {
+	private static final int INITIAL_CAPACITY = 1 << 12;
+	private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+
+	@Nonnull
+	private ByteBuffer buffer;
+	private final boolean growable;
+	@Nonnull
+	private final IdentityHashMap<Node, Integer> nodes = new IdentityHashMap<>();
+	@Nonnull
+	private final IdentityHashMap<Variable, Integer> variables = new IdentityHashMap<>();
+	@Nonnull
+	private final HashMap<String, Integer> strings = new HashMap<>();
+
+	private SemanticsWriter(@Nonnull ByteBuffer buffer, boolean growable) {
+		this.buffer = buffer;
+		this.growable = growable;
+	}
+
+	// Returns a new buffer holding exactly the serialized form, positioned at its start.
+	@Nonnull
+	public static ByteBuffer write(@Nonnull Semantics semantics) {
+		SemanticsWriter writer = new SemanticsWriter(ByteBuffer.allocate(INITIAL_CAPACITY), true);
+		writer.semantics(semantics);
+		ByteBuffer result = writer.buffer;
+		result.flip();
+		return result;
+	}
+
+	// Writes at the buffer's position, advancing it. Throws BufferOverflowException if the buffer does not have enough room.
+	public static void write(@Nonnull Semantics semantics, @Nonnull ByteBuffer buffer) {
+		new SemanticsWriter(buffer, false).semantics(semantics);
+	}
+
+	private void semantics(@Nonnull Semantics semantics) {
+		this.ensureRemaining(4);
+		this.buffer.putInt(Format.MAGIC);
+		this.varint(Format.VERSION);
+		this.node(semantics.node);
+		this.variables(semantics.locals);
+		this.varint(semantics.scriptVarDecls.length);
+		for (String name : semantics.scriptVarDecls) {
+			this.string(name);
+		}
+	}
+
+	private void node(@Nonnull Node node) {
+		Integer index = this.nodes.get(node);
+		if (index != null) {
+			this.tag(Format.REF);
+			this.varint(index);
+			return;
+		}
+		if (node instanceof Block) {
+			Block block = (Block) node;
+			this.tag(Format.BLOCK);
+			this.varint(block.directives.length);
+			for (Directive directive : block.directives) {
+				this.string(directive.rawValue);
+			}
+			this.nodes(block.children);
+		} else if (node instanceof BlockWithValue) {
+			this.tag(Format.BLOCK_WITH_VALUE);
+			this.node(((BlockWithValue) node).head);
+			this.node(((BlockWithValue) node).result);
+		} else if (node instanceof Break) {
+			this.tag(Format.BREAK);
+			this.broken(((Break) node).broken);
+			this.node(((Break) node).target);
+		} else if (node instanceof BreakTarget) {
+			this.tag(Format.BREAK_TARGET);
+		} else if (node instanceof Call) {
+			this.tag(Format.CALL);
+			this.node(((Call) node).callee);
+			this.nodes(((Call) node).arguments);
+		} else if (node instanceof DeleteGlobalProperty) {
+			this.tag(Format.DELETE_GLOBAL_PROPERTY);
+			this.string(((DeleteGlobalProperty) node).which);
+		} else if (node instanceof DeleteProperty) {
+			this.tag(Format.DELETE_PROPERTY);
+			this.bool(((DeleteProperty) node).strict);
+			this.node(((DeleteProperty) node).object);
+			this.node(((DeleteProperty) node).fieldExpression);
+		} else if (node instanceof GlobalReference) {
+			this.tag(Format.GLOBAL_REFERENCE);
+			this.string(((GlobalReference) node).name);
+		} else if (node instanceof Halt) {
+			this.tag(Format.HALT);
+			return;
+		} else if (node instanceof IfElse) {
+			this.tag(Format.IF_ELSE);
+			this.node(((IfElse) node).test);
+			this.node(((IfElse) node).consequent);
+			this.node(((IfElse) node).alternate);
+		} else if (node instanceof Keys) {
+			this.tag(Format.KEYS);
+			this.node(((Keys) node)._object);
+		} else if (node instanceof LiteralBoolean) {
+			this.tag(((LiteralBoolean) node).value ? Format.LITERAL_TRUE : Format.LITERAL_FALSE);
+		} else if (node instanceof LiteralEmptyArray) {
+			this.tag(Format.LITERAL_EMPTY_ARRAY);
+			return;
+		} else if (node instanceof LiteralEmptyObject) {
+			this.tag(Format.LITERAL_EMPTY_OBJECT);
+			return;
+		} else if (node instanceof LiteralFunction) {
+			LiteralFunction function = (LiteralFunction) node;
+			this.tag(Format.LITERAL_FUNCTION);
+			this.bool(function.isStrict);
+			this.variable(function.name);
+			this.variable(function.arguments);
+			this.variables(function.parameters);
+			this.variables(function.locals());
+			this.variables(function.captured);
+			this.node(function.body());
+		} else if (node instanceof LiteralInfinity) {
+			this.tag(Format.LITERAL_INFINITY);
+			return;
+		} else if (node instanceof LiteralNull) {
+			this.tag(Format.LITERAL_NULL);
+			return;
+		} else if (node instanceof LiteralNumber) {
+			double value = ((LiteralNumber) node).value;
+			if (isSmallInteger(value)) {
+				this.tag(Format.LITERAL_SMALL_INTEGER);
+				this.varint((int) value);
+			} else {
+				this.tag(Format.LITERAL_NUMBER);
+				this.ensureRemaining(8);
+				this.buffer.putDouble(value);
+			}
+		} else if (node instanceof LiteralRegExp) {
+			LiteralRegExp regExp = (LiteralRegExp) node;
+			this.tag(Format.LITERAL_REGEXP);
+			this.string(regExp.pattern);
+			this.tag((byte) ((regExp.global ? Format.REGEXP_GLOBAL : 0) |
+				(regExp.ignoreCase ? Format.REGEXP_IGNORE_CASE : 0) |
+				(regExp.multiLine ? Format.REGEXP_MULTILINE : 0) |
+				(regExp.sticky ? Format.REGEXP_STICKY : 0) |
+				(regExp.unicode ? Format.REGEXP_UNICODE : 0)));
+		} else if (node instanceof LiteralString) {
+			this.tag(Format.LITERAL_STRING);
+			this.string(((LiteralString) node).value);
+		} else if (node instanceof LiteralSymbol) {
+			this.tag(Format.LITERAL_SYMBOL);
+			this.string(((LiteralSymbol) node).description);
+		} else if (node instanceof LiteralUndefined) {
+			this.tag(Format.LITERAL_UNDEFINED);
+			return;
+		} else if (node instanceof TemporaryReference) {
+			this.tag(Format.TEMPORARY_REFERENCE);
+			this.variable(((TemporaryReference) node).variable);
+		} else if (node instanceof LocalReference) {
+			this.tag(Format.LOCAL_REFERENCE);
+			this.variable(((LocalReference) node).variable);
+		} else if (node instanceof Loop) {
+			this.tag(Format.LOOP);
+			this.node(((Loop) node).block);
+		} else if (node instanceof MemberAccess) {
+			this.tag(Format.MEMBER_ACCESS);
+			this.node(((MemberAccess) node).object);
+			this.node(((MemberAccess) node).fieldExpression);
+		} else if (node instanceof MemberAssignment) {
+			this.tag(Format.MEMBER_ASSIGNMENT);
+			this.bool(((MemberAssignment) node).strict);
+			this.node(((MemberAssignment) node).object);
+			this.node(((MemberAssignment) node).fieldExpression);
+			this.node(((MemberAssignment) node).property);
+		} else if (node instanceof MemberAssignmentProperty.StaticValue) {
+			this.tag(Format.STATIC_VALUE);
+			this.node(((MemberAssignmentProperty.StaticValue) node).value);
+		} else if (node instanceof MemberAssignmentProperty.Getter) {
+			this.tag(Format.GETTER);
+			this.node(((MemberAssignmentProperty.Getter) node).value);
+		} else if (node instanceof MemberAssignmentProperty.Setter) {
+			this.tag(Format.SETTER);
+			this.node(((MemberAssignmentProperty.Setter) node).value);
+		} else if (node instanceof MemberCall) {
+			this.tag(Format.MEMBER_CALL);
+			this.node(((MemberCall) node).object);
+			this.node(((MemberCall) node).fieldExpression);
+			this.nodes(((MemberCall) node).arguments);
+		} else if (node instanceof MemberDefinition) {
+			this.tag(Format.MEMBER_DEFINITION);
+			this.node(((MemberDefinition) node).object);
+			this.node(((MemberDefinition) node).fieldExpression);
+			this.node(((MemberDefinition) node).property);
+		} else if (node instanceof New) {
+			this.tag(Format.NEW);
+			this.node(((New) node).callee);
+			this.nodes(((New) node).arguments);
+		} else if (node instanceof RequireObjectCoercible) {
+			this.tag(Format.REQUIRE_OBJECT_COERCIBLE);
+			this.node(((RequireObjectCoercible) node).expression);
+		} else if (node instanceof Return) {
+			Maybe<NodeWithValue> expression = ((Return) node).expression;
+			this.tag(Format.RETURN);
+			this.bool(expression.isJust());
+			if (expression.isJust()) {
+				this.node(expression.fromJust());
+			}
+		} else if (node instanceof ReturnAfterFinallies) {
+			Maybe<LocalReference> savedValue = ((ReturnAfterFinallies) node).savedValue;
+			this.tag(Format.RETURN_AFTER_FINALLIES);
+			this.broken(((ReturnAfterFinallies) node).broken);
+			this.bool(savedValue.isJust());
+			if (savedValue.isJust()) {
+				this.node(savedValue.fromJust());
+			}
+		} else if (node instanceof SwitchStatement) {
+			SwitchStatement switchStatement = (SwitchStatement) node;
+			this.tag(Format.SWITCH_STATEMENT);
+			this.node(switchStatement.discriminant);
+			this.cases(switchStatement.preDefaultCases);
+			this.node(switchStatement.defaultCase);
+			this.cases(switchStatement.postDefaultCases);
+		} else if (node instanceof This) {
+			this.tag(Format.THIS);
+			this.bool(((This) node).strict);
+		} else if (node instanceof Throw) {
+			this.tag(Format.THROW);
+			this.node(((Throw) node).expression);
+		} else if (node instanceof TryCatch) {
+			this.tag(Format.TRY_CATCH);
+			this.node(((TryCatch) node).tryBody);
+			this.variable(((TryCatch) node).catchBody.left);
+			this.node(((TryCatch) node).catchBody.right);
+		} else if (node instanceof TryFinally) {
+			this.tag(Format.TRY_FINALLY);
+			this.node(((TryFinally) node).tryBody);
+			this.node(((TryFinally) node).finallyBody);
+		} else if (node instanceof TypeCoercionNumber) {
+			this.tag(Format.TYPE_COERCION_NUMBER);
+			this.node(((TypeCoercionNumber) node).expression);
+		} else if (node instanceof TypeCoercionObject) {
+			this.tag(Format.TYPE_COERCION_OBJECT);
+			this.node(((TypeCoercionObject) node).expression);
+		} else if (node instanceof TypeCoercionString) {
+			this.tag(Format.TYPE_COERCION_STRING);
+			this.node(((TypeCoercionString) node).expression);
+		} else if (node instanceof TypeofGlobal) {
+			this.tag(Format.TYPEOF_GLOBAL);
+			this.string(((TypeofGlobal) node).which);
+		} else if (node instanceof VariableAssignment) {
+			VariableAssignment assignment = (VariableAssignment) node;
+			this.tag(Format.VARIABLE_ASSIGNMENT);
+			this.bool(assignment.strict);
+			this.node(assignment.ref.either(ref -> ref, ref -> ref));
+			this.node(assignment.value);
+		} else if (node instanceof Void) {
+			this.tag(Format.VOID);
+			return;
+		} else if (node instanceof BinaryOperation) {
+			this.binaryOperation((BinaryOperation) node);
+		} else if (node instanceof UnaryOperation) {
+			this.unaryOperation((UnaryOperation) node);
+		} else {
+			throw new IllegalArgumentException("Node not implemented: " + node.getClass().getSimpleName());
+		}
+		this.nodes.put(node, this.nodes.size());
+	}
+
+	private void binaryOperation(@Nonnull BinaryOperation node) {
+		if (node instanceof Equality) {
+			this.tag(Format.EQUALITY);
+			this.tag((byte) ((Equality) node).operator.ordinal());
+		} else if (node instanceof FloatMath) {
+			this.tag(Format.FLOAT_MATH);
+			this.tag((byte) ((FloatMath) node).operator.ordinal());
+		} else if (node instanceof IntMath) {
+			this.tag(Format.INT_MATH);
+			this.tag((byte) ((IntMath) node).operator.ordinal());
+		} else if (node instanceof Logic) {
+			this.tag(Format.LOGIC);
+			this.tag((byte) ((Logic) node).operator.ordinal());
+		} else if (node instanceof RelationalComparison) {
+			this.tag(Format.RELATIONAL_COMPARISON);
+			this.tag((byte) ((RelationalComparison) node).operator.ordinal());
+		} else if (node instanceof In) {
+			this.tag(Format.IN);
+		} else if (node instanceof InstanceOf) {
+			this.tag(Format.INSTANCE_OF);
+		} else {
+			throw new IllegalArgumentException("Node not implemented: " + node.getClass().getSimpleName());
+		}
+		this.node(node.left());
+		this.node(node.right());
+	}
+
+	private void unaryOperation(@Nonnull UnaryOperation node) {
+		if (node instanceof BitwiseNot) {
+			this.tag(Format.BITWISE_NOT);
+		} else if (node instanceof Negation) {
+			this.tag(Format.NEGATION);
+		} else if (node instanceof Not) {
+			this.tag(Format.NOT);
+		} else if (node instanceof Typeof) {
+			this.tag(Format.TYPEOF);
+		} else if (node instanceof VoidOp) {
+			this.tag(Format.VOID_OP);
+		} else {
+			throw new IllegalArgumentException("Node not implemented: " + node.getClass().getSimpleName());
+		}
+		this.node(node.expression());
+	}
+
+	private void nodes(@Nonnull ImmutableList<? extends Node> nodes) {
+		this.varint(nodes.length);
+		for (Node node : nodes) {
+			this.node(node);
+		}
+	}
+
+	private void cases(@Nonnull ImmutableList<Pair<NodeWithValue, Block>> cases) {
+		this.varint(cases.length);
+		for (Pair<NodeWithValue, Block> pair : cases) {
+			this.node(pair.left);
+			this.node(pair.right);
+		}
+	}
+
+	private void broken(@Nonnull ImmutableList<BrokenThrough> broken) {
+		this.varint(broken.length);
+		for (BrokenThrough brokenThrough : broken) {
+			this.tag((byte) brokenThrough.ordinal());
+		}
+	}
+
+	private void variable(@Nonnull Variable variable) {
+		Integer index = this.variables.get(variable);
+		if (index != null) {
+			this.varint(index);
+			return;
+		}
+		this.varint(this.variables.size());
+		this.variables.put(variable, this.variables.size());
+		this.string(variable.name);
+	}
+
+	private void variable(@Nonnull Maybe<Variable> variable) {
+		this.bool(variable.isJust());
+		if (variable.isJust()) {
+			this.variable(variable.fromJust());
+		}
+	}
+
+	private void variables(@Nonnull ImmutableList<Variable> variables) {
+		this.varint(variables.length);
+		for (Variable variable : variables) {
+			this.variable(variable);
+		}
+	}
+
+	// Strings are written as UTF-16 code units rather than UTF-8, so that unpaired surrogates survive.
+	private void string(@Nonnull String string) {
+		Integer index = this.strings.get(string);
+		if (index != null) {
+			this.varint(index);
+			return;
+		}
+		this.varint(this.strings.size());
+		this.strings.put(string, this.strings.size());
+		this.varint(string.length());
+		for (int i = 0; i < string.length(); ++i) {
+			this.varint(string.charAt(i));
+		}
+	}
+
+	private void bool(boolean value) {
+		this.tag((byte) (value ? 1 : 0));
+	}
+
+	private void tag(byte tag) {
+		this.ensureRemaining(1);
+		this.buffer.put(tag);
+	}
+
+	// unsigned LEB128
+	private void varint(int value) {
+		this.ensureRemaining(value >>> 7 == 0 ? 1 : value >>> 14 == 0 ? 2 : value >>> 21 == 0 ? 3 : value >>> 28 == 0 ? 4 : 5);
+		while ((value & ~0x7F) != 0) {
+			this.buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		this.buffer.put((byte) value);
+	}
+
+	private void ensureRemaining(int bytes) {
+		if (this.buffer.remaining() >= bytes) {
+			return;
+		}
+		if (!this.growable) {
+			throw new BufferOverflowException();
+		}
+		ByteBuffer grown = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + bytes));
+		this.buffer.flip();
+		grown.put(this.buffer);
+		this.buffer = grown;
+	}
+
+	private static boolean isSmallInteger(double value) {
+		return value >= 0 && value <= Integer.MAX_VALUE && value == Math.rint(value) && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS;
+	}
+}
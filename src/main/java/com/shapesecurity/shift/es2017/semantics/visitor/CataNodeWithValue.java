@@ -28,12 +28,15 @@ import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
 import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
 import com.shapesecurity.shift.es2017.semantics.asg.New;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
 import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
 import com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible;
 import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
 import com.shapesecurity.shift.es2017.semantics.asg.This;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
 import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
@@ -48,89 +51,95 @@ import javax.annotation.Nonnull;
 public class CataNodeWithValue {
 	@Nonnull
 	static <T> T cata(@Nonnull FAlgebraNodeWithValue<T> fAlgebra, @Nonnull NodeWithValue node) {
-		if (node instanceof BlockWithValue) {
-			return fAlgebra.apply(((BlockWithValue) node));
-		} else if (node instanceof Call) {
-			return fAlgebra.apply((Call) node);
-		} else if (node instanceof DeleteGlobalProperty) {
-			return fAlgebra.apply(((DeleteGlobalProperty) node));
-		} else if (node instanceof DeleteProperty) {
-			return fAlgebra.apply(((DeleteProperty) node));
-		} else if (node instanceof GlobalReference) {
-			return fAlgebra.apply(((GlobalReference) node));
-		} else if (node instanceof Halt) {
-			return fAlgebra.apply(((Halt) node));
-		} else if (node instanceof Keys) {
-			return fAlgebra.apply(((Keys) node));
-		} else if (node instanceof LiteralBoolean) {
-			return fAlgebra.apply(((LiteralBoolean) node));
-		} else if (node instanceof LiteralEmptyArray) {
-			return fAlgebra.apply(((LiteralEmptyArray) node));
-		} else if (node instanceof LiteralEmptyObject) {
-			return fAlgebra.apply(((LiteralEmptyObject) node));
-		} else if (node instanceof LiteralFunction) {
-			return fAlgebra.apply(((LiteralFunction) node));
-		} else if (node instanceof LiteralInfinity) {
-			return fAlgebra.apply(((LiteralInfinity) node));
-		} else if (node instanceof LiteralNull) {
-			return fAlgebra.apply(((LiteralNull) node));
-		} else if (node instanceof LiteralNumber) {
-			return fAlgebra.apply(((LiteralNumber) node));
-		} else if (node instanceof LiteralRegExp) {
-			return fAlgebra.apply(((LiteralRegExp) node));
-		} else if (node instanceof LiteralString) {
-			return fAlgebra.apply(((LiteralString) node));
-		} else if (node instanceof LiteralSymbol) {
-			return fAlgebra.apply(((LiteralSymbol) node));
-		} else if (node instanceof LiteralUndefined) {
-			return fAlgebra.apply(((LiteralUndefined) node));
-		} else if (node instanceof TemporaryReference) {
-			return fAlgebra.apply(((TemporaryReference) node));
-		} else if (node instanceof LocalReference) {
-			return fAlgebra.apply(((LocalReference) node));
-		} else if (node instanceof MemberAccess) {
-			return fAlgebra.apply(((MemberAccess) node));
-		} else if (node instanceof MemberAssignment) {
-			return fAlgebra.apply(((MemberAssignment) node));
-		} else if (node instanceof New) {
-			return fAlgebra.apply(((New) node));
-		} else if (node instanceof RequireObjectCoercible) {
-			return fAlgebra.apply(((RequireObjectCoercible) node));
-		} else if (node instanceof This) {
-			return fAlgebra.apply(((This) node));
-		} else if (node instanceof TypeCoercionNumber) {
-			return fAlgebra.apply(((TypeCoercionNumber) node));
-		} else if (node instanceof TypeCoercionString) {
-			return fAlgebra.apply(((TypeCoercionString) node));
-		} else if (node instanceof TypeofGlobal) {
-			return fAlgebra.apply(((TypeofGlobal) node));
-		} else if (node instanceof VariableAssignment) {
-			return fAlgebra.apply(((VariableAssignment) node));
-		} else if (node instanceof Equality) {
-			return fAlgebra.apply(((Equality) node));
-		} else if (node instanceof FloatMath) {
-			return fAlgebra.apply(((FloatMath) node));
-		} else if (node instanceof In) {
-			return fAlgebra.apply(((In) node));
-		} else if (node instanceof InstanceOf) {
-			return fAlgebra.apply(((InstanceOf) node));
-		} else if (node instanceof IntMath) {
-			return fAlgebra.apply(((IntMath) node));
-		} else if (node instanceof Logic) {
-			return fAlgebra.apply(((Logic) node));
-		} else if (node instanceof RelationalComparison) {
-			return fAlgebra.apply(((RelationalComparison) node));
-		} else if (node instanceof BitwiseNot) {
-			return fAlgebra.apply(((BitwiseNot) node));
-		} else if (node instanceof Negation) {
-			return fAlgebra.apply(((Negation) node));
-		} else if (node instanceof Not) {
-			return fAlgebra.apply(((Not) node));
-		} else if (node instanceof Typeof) {
-			return fAlgebra.apply(((Typeof) node));
-		} else if (node instanceof VoidOp) {
-			return fAlgebra.apply(((VoidOp) node));
+		switch (Node.Kind.of(node)) {
+			case BLOCK_WITH_VALUE:
+				return fAlgebra.apply(((BlockWithValue) node));
+			case CALL:
+				return fAlgebra.apply((Call) node);
+			case DELETE_GLOBAL_PROPERTY:
+				return fAlgebra.apply(((DeleteGlobalProperty) node));
+			case DELETE_PROPERTY:
+				return fAlgebra.apply(((DeleteProperty) node));
+			case GLOBAL_REFERENCE:
+				return fAlgebra.apply(((GlobalReference) node));
+			case HALT:
+				return fAlgebra.apply(((Halt) node));
+			case KEYS:
+				return fAlgebra.apply(((Keys) node));
+			case LITERAL_BOOLEAN:
+				return fAlgebra.apply(((LiteralBoolean) node));
+			case LITERAL_EMPTY_ARRAY:
+				return fAlgebra.apply(((LiteralEmptyArray) node));
+			case LITERAL_EMPTY_OBJECT:
+				return fAlgebra.apply(((LiteralEmptyObject) node));
+			case LITERAL_FUNCTION:
+				return fAlgebra.apply(((LiteralFunction) node));
+			case LITERAL_INFINITY:
+				return fAlgebra.apply(((LiteralInfinity) node));
+			case LITERAL_NULL:
+				return fAlgebra.apply(((LiteralNull) node));
+			case LITERAL_NUMBER:
+				return fAlgebra.apply(((LiteralNumber) node));
+			case LITERAL_REG_EXP:
+				return fAlgebra.apply(((LiteralRegExp) node));
+			case LITERAL_STRING:
+				return fAlgebra.apply(((LiteralString) node));
+			case LITERAL_SYMBOL:
+				return fAlgebra.apply(((LiteralSymbol) node));
+			case LITERAL_UNDEFINED:
+				return fAlgebra.apply(((LiteralUndefined) node));
+			case TEMPORARY_REFERENCE:
+				return fAlgebra.apply(((TemporaryReference) node));
+			case LOCAL_REFERENCE:
+				return fAlgebra.apply(((LocalReference) node));
+			case MEMBER_ACCESS:
+				return fAlgebra.apply(((MemberAccess) node));
+			case MEMBER_ASSIGNMENT:
+				return fAlgebra.apply(((MemberAssignment) node));
+			case MEMBER_CALL:
+				return fAlgebra.apply(((MemberCall) node));
+			case NEW:
+				return fAlgebra.apply(((New) node));
+			case REQUIRE_OBJECT_COERCIBLE:
+				return fAlgebra.apply(((RequireObjectCoercible) node));
+			case THIS:
+				return fAlgebra.apply(((This) node));
+			case TYPE_COERCION_NUMBER:
+				return fAlgebra.apply(((TypeCoercionNumber) node));
+			case TYPE_COERCION_OBJECT:
+				return fAlgebra.apply(((TypeCoercionObject) node));
+			case TYPE_COERCION_STRING:
+				return fAlgebra.apply(((TypeCoercionString) node));
+			case TYPEOF_GLOBAL:
+				return fAlgebra.apply(((TypeofGlobal) node));
+			case VARIABLE_ASSIGNMENT:
+				return fAlgebra.apply(((VariableAssignment) node));
+			case EQUALITY:
+				return fAlgebra.apply(((Equality) node));
+			case FLOAT_MATH:
+				return fAlgebra.apply(((FloatMath) node));
+			case IN:
+				return fAlgebra.apply(((In) node));
+			case INSTANCE_OF:
+				return fAlgebra.apply(((InstanceOf) node));
+			case INT_MATH:
+				return fAlgebra.apply(((IntMath) node));
+			case LOGIC:
+				return fAlgebra.apply(((Logic) node));
+			case RELATIONAL_COMPARISON:
+				return fAlgebra.apply(((RelationalComparison) node));
+			case BITWISE_NOT:
+				return fAlgebra.apply(((BitwiseNot) node));
+			case NEGATION:
+				return fAlgebra.apply(((Negation) node));
+			case NOT:
+				return fAlgebra.apply(((Not) node));
+			case TYPEOF:
+				return fAlgebra.apply(((Typeof) node));
+			case VOID_OP:
+				return fAlgebra.apply(((VoidOp) node));
+			default:
+				throw new RuntimeException("Not reached.");
 		}
-		throw new RuntimeException("Not reached.");
 	}
 }
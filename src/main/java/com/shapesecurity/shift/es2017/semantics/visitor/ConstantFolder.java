@@ -2,12 +2,19 @@ package com.shapesecurity.shift.es2017.semantics.visitor;
 
 import com.shapesecurity.functional.data.ImmutableList;
 import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.semantics.ExplicationListener;
 import com.shapesecurity.shift.es2017.semantics.Semantics;
 import com.shapesecurity.shift.es2017.semantics.asg.*;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality;
 import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
 import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath;
 import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Negation;
 import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Typeof;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
 
 import javax.annotation.Nonnull;
 
@@ -16,6 +23,7 @@ import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations
 import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.ToString;
 import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.ToUint32;
 import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.Type;
+import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.Typeof;
 
 public class ConstantFolder extends ReconstructingReducer {
 
@@ -37,14 +45,22 @@ public class ConstantFolder extends ReconstructingReducer {
 		);
 	}
 
+	// Reports the time taken and the size of the result to `listener`.
+	public static Semantics reduce(@Nonnull Semantics semantics, @Nonnull ExplicationListener listener) {
+		long start = System.nanoTime();
+		Semantics result = reduce(semantics);
+		listener.phaseCompleted(ExplicationListener.PhaseReport.forGraph(ExplicationListener.Phase.CONSTANT_FOLDING, start, System.nanoTime(), 0, result.node));
+		return result;
+	}
+
 	@Nonnull
 	@Override
 	public NodeWithValue reduceNot(@Nonnull Not not, @Nonnull NodeWithValue expression) {
 		if (expression instanceof LiteralNumber) {
 			LiteralNumber n = (LiteralNumber) expression;
-			return new LiteralBoolean(n.value == 0);
+			return this.interner.literalBoolean(n.value == 0 || Double.isNaN(n.value));
 		} else if (expression instanceof LiteralBoolean) {
-			return new LiteralBoolean(!((LiteralBoolean) expression).value);
+			return this.interner.literalBoolean(!((LiteralBoolean) expression).value);
 		} else if (expression instanceof Not) {
 			Not subNot = (Not) expression;
 			if (subNot.expression instanceof Not) {
@@ -65,18 +81,37 @@ public class ConstantFolder extends ReconstructingReducer {
 	@Nonnull
 	@Override
 	public NodeWithValue reduceFloatMath(@Nonnull FloatMath floatMath, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		if (floatMath.operator == FloatMath.Operator.Plus) {
-			if (Type(left).maybe(false, x -> x == Type.String) || Type(right).maybe(false, x -> x == Type.String)) {
-				Maybe<LiteralString> lstr = ToString(left);
-				Maybe<LiteralString> rstr = ToString(right);
-				return lstr.<NodeWithValue>flatMap(l -> rstr.map(r -> new LiteralString(l.value + r.value))).orJustLazy(() -> new FloatMath(floatMath.operator, left, right));
-			} else {
-				Maybe<LiteralNumber> lnum = ToNumber(left);
-				Maybe<LiteralNumber> rnum = ToNumber(right);
-				return lnum.<NodeWithValue>flatMap(l -> rnum.map(r -> new LiteralNumber(l.value + r.value))).orJustLazy(() -> new FloatMath(floatMath.operator, left, right));
-			}
+		if (floatMath.operator == FloatMath.Operator.Plus && (Type(left).maybe(false, x -> x == Type.String) || Type(right).maybe(false, x -> x == Type.String))) {
+			Maybe<LiteralString> lstr = ToString(left);
+			Maybe<LiteralString> rstr = ToString(right);
+			return lstr.<NodeWithValue>flatMap(l -> rstr.map(r -> this.interner.literalString(l.value + r.value))).orJustLazy(() -> super.reduceFloatMath(floatMath, left, right));
+		}
+		Maybe<LiteralNumber> lnum = ToNumber(left);
+		Maybe<LiteralNumber> rnum = ToNumber(right);
+		return lnum
+				.<NodeWithValue>flatMap(l -> rnum.map(r -> this.interner.literalNumber(floatMath(floatMath.operator, l.value, r.value))))
+				.orJustLazy(() -> super.reduceFloatMath(floatMath, left, right));
+	}
+
+	// Java's double arithmetic is IEEE 754, as ECMAScript's is; % truncates, as ECMAScript's does.
+	private static double floatMath(@Nonnull FloatMath.Operator operator, double a, double b) {
+		switch (operator) {
+			case Plus:
+				return a + b;
+			case Minus:
+				return a - b;
+			case Mul:
+				return a * b;
+			case Div:
+				return a / b;
+			case Rem:
+				return a % b;
+			case Exp:
+				// including NaN for a NaN exponent and for 1 or -1 ** Infinity or -Infinity; StrictMath, so that the result does not depend on the platform
+				return StrictMath.pow(a, b);
+			default:
+				throw new RuntimeException("Not reached");
 		}
-		return super.reduceFloatMath(floatMath, left, right);
 	}
 
 	@Nonnull
@@ -88,31 +123,103 @@ public class ConstantFolder extends ReconstructingReducer {
 				Maybe<Long> rnum = ToUint32(right);
 				Maybe<Integer> shiftCount = rnum.map(numberLiteral -> (int) (numberLiteral & 0x1F));
 				return lnum
-						.<NodeWithValue>flatMap(a -> shiftCount.map(b -> new LiteralNumber(a << b)))
-						.orJustLazy(() -> new IntMath(intMath.operator, left, right));
+						.<NodeWithValue>flatMap(a -> shiftCount.map(b -> this.interner.literalNumber(a << b)))
+						.orJustLazy(() -> super.reduceIntMath(intMath, left, right));
 			}
 			case RightShift: {
 				Maybe<Integer> lnum = ToInt32(left);
 				Maybe<Long> rnum = ToUint32(right);
 				Maybe<Integer> shiftCount = rnum.map(numberLiteral -> (int) (numberLiteral & 0x1F));
 				return lnum
-						.<NodeWithValue>flatMap(a -> shiftCount.map(b -> new LiteralNumber(a >> b)))
-						.orJustLazy(() -> new IntMath(intMath.operator, left, right));
+						.<NodeWithValue>flatMap(a -> shiftCount.map(b -> this.interner.literalNumber(a >> b)))
+						.orJustLazy(() -> super.reduceIntMath(intMath, left, right));
 			}
 			case UnsignedRightShift: {
 				Maybe<Long> lnum = ToUint32(left);
 				Maybe<Long> rnum = ToUint32(right);
 				Maybe<Integer> shiftCount = rnum.map(numberLiteral -> (int) (numberLiteral & 0x1F));
 				return lnum
-						.<NodeWithValue>flatMap(a -> shiftCount.map(b -> new LiteralNumber(a >>> b)))
-						.orJustLazy(() -> new IntMath(intMath.operator, left, right));
-				// TODO BitwiseAnd, BitwiseOr, BitwiseXor
+						.<NodeWithValue>flatMap(a -> shiftCount.map(b -> this.interner.literalNumber(a >>> b)))
+						.orJustLazy(() -> super.reduceIntMath(intMath, left, right));
+			}
+			case BitwiseAnd: {
+				Maybe<Integer> lnum = ToInt32(left);
+				Maybe<Integer> rnum = ToInt32(right);
+				return lnum
+						.<NodeWithValue>flatMap(a -> rnum.map(b -> this.interner.literalNumber(a & b)))
+						.orJustLazy(() -> super.reduceIntMath(intMath, left, right));
+			}
+			case BitwiseOr: {
+				Maybe<Integer> lnum = ToInt32(left);
+				Maybe<Integer> rnum = ToInt32(right);
+				return lnum
+						.<NodeWithValue>flatMap(a -> rnum.map(b -> this.interner.literalNumber(a | b)))
+						.orJustLazy(() -> super.reduceIntMath(intMath, left, right));
+			}
+			case BitwiseXor: {
+				Maybe<Integer> lnum = ToInt32(left);
+				Maybe<Integer> rnum = ToInt32(right);
+				return lnum
+						.<NodeWithValue>flatMap(a -> rnum.map(b -> this.interner.literalNumber(a ^ b)))
+						.orJustLazy(() -> super.reduceIntMath(intMath, left, right));
 			}
 			default:
 				return super.reduceIntMath(intMath, left, right);
 		}
 	}
 
+	@Nonnull
+	@Override
+	public NodeWithValue reduceBitwiseNot(@Nonnull BitwiseNot bitwiseNot, @Nonnull NodeWithValue expression) {
+		return ToInt32(expression).<NodeWithValue>map(x -> this.interner.literalNumber(~x)).orJustLazy(() -> super.reduceBitwiseNot(bitwiseNot, expression));
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceNegation(@Nonnull Negation negation, @Nonnull NodeWithValue expression) {
+		return ToNumber(expression).<NodeWithValue>map(x -> this.interner.literalNumber(-x.value)).orJustLazy(() -> super.reduceNegation(negation, expression));
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceTypeCoercionNumber(@Nonnull TypeCoercionNumber typeCoercionNumber, @Nonnull NodeWithValue expression) {
+		return ToNumber(expression).<NodeWithValue>map(x -> this.interner.literalNumber(x.value)).orJustLazy(() -> super.reduceTypeCoercionNumber(typeCoercionNumber, expression));
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceTypeCoercionString(@Nonnull TypeCoercionString typeCoercionString, @Nonnull NodeWithValue expression) {
+		return ToString(expression).<NodeWithValue>map(x -> this.interner.literalString(x.value)).orJustLazy(() -> super.reduceTypeCoercionString(typeCoercionString, expression));
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceTypeof(@Nonnull Typeof typeOf, @Nonnull NodeWithValue expression) {
+		return Typeof(expression).<NodeWithValue>map(this.interner::literalString).orJustLazy(() -> super.reduceTypeof(typeOf, expression));
+	}
+
+	// `void 0` is how minified code writes undefined
+	@Nonnull
+	@Override
+	public NodeWithValue reduceVoidOp(@Nonnull VoidOp voidOp, @Nonnull NodeWithValue expression) {
+		return Type(expression).isJust() ? LiteralUndefined.INSTANCE : super.reduceVoidOp(voidOp, expression);
+	}
+
+	// The value of a comparison is its truthiness, which is known when both sides are literals.
+	@Nonnull
+	@Override
+	public NodeWithValue reduceEquality(@Nonnull Equality equality, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
+		NodeWithValue reduced = super.reduceEquality(equality, left, right);
+		return Truthiness.truthiness(reduced).<NodeWithValue>map(this.interner::literalBoolean).orJust(reduced);
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceRelationalComparison(@Nonnull RelationalComparison relationalComparison, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
+		NodeWithValue reduced = super.reduceRelationalComparison(relationalComparison, left, right);
+		return Truthiness.truthiness(reduced).<NodeWithValue>map(this.interner::literalBoolean).orJust(reduced);
+	}
+
 	@Nonnull
 	@Override
 	public NodeWithValue reduceLogic(@Nonnull Logic expression, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
@@ -0,0 +1,697 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Loop;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// The basic blocks of one function body (or script) and the edges between them, with its dominator and post-dominator trees.
+// A block lists the nodes it evaluates in evaluation order, each after its operands; a branch (IfElse, Logic or SwitchStatement) or jump
+// (Break, Return, ReturnAfterFinallies or Throw) ends one. Blocks, BlockWithValues, Loops and BreakTargets only shape the edges, and nested
+// functions are single nodes, not looked into.
+// Every block within a try block has an exceptional edge to its catch or finally block, and a throw outside any has one to the exit. Each finally
+// block appears once: it is entered from the end of its try block, from the blocks which may throw in it and from the jumps which leave it, and
+// it leaves for the code after the statement, for the targets of those jumps (or the next finally block they leave) and, exceptionally, for
+// the enclosing handler. So paths through a finally block are not told apart.
+// Block 0 is the entry and block 1 the (empty) exit, which returns and uncaught throws lead to. Blocks control cannot reach are left out.
+// Everything is kept in arrays of ints, edges and tree children in compressed rows, so graphs are cheap to build for many functions.
+public final class ControlFlowGraph {
+	public static final int ENTRY = 0;
+	public static final int EXIT = 1;
+
+	@Nonnull
+	private final Node[] nodes;
+	// block b holds nodes[nodeStart[b]] up to nodes[nodeStart[b + 1]]; successors and predecessors likewise
+	@Nonnull
+	private final int[] nodeStart;
+	@Nonnull
+	private final int[] successorStart;
+	@Nonnull
+	private final int[] successors;
+	// indexed as successors are
+	@Nonnull
+	private final BitSet exceptionalSuccessors;
+	@Nonnull
+	private final int[] predecessorStart;
+	@Nonnull
+	private final int[] predecessors;
+	@Nonnull
+	private final BitSet exceptionalPredecessors;
+	@Nonnull
+	private final Tree dominators;
+	@Nonnull
+	private final Tree postDominators;
+
+	private ControlFlowGraph(
+		@Nonnull Node[] nodes, @Nonnull int[] nodeStart, @Nonnull int[] successorStart, @Nonnull int[] successors, @Nonnull BitSet exceptionalSuccessors,
+		@Nonnull int[] predecessorStart, @Nonnull int[] predecessors, @Nonnull BitSet exceptionalPredecessors
+	) {
+		this.nodes = nodes;
+		this.nodeStart = nodeStart;
+		this.successorStart = successorStart;
+		this.successors = successors;
+		this.exceptionalSuccessors = exceptionalSuccessors;
+		this.predecessorStart = predecessorStart;
+		this.predecessors = predecessors;
+		this.exceptionalPredecessors = exceptionalPredecessors;
+		this.dominators = new Tree(ENTRY, successorStart, successors, predecessorStart, predecessors);
+		this.postDominators = new Tree(EXIT, predecessorStart, predecessors, successorStart, successors);
+	}
+
+	@Nonnull
+	public static ControlFlowGraph of(@Nonnull LiteralFunction function) {
+		return of(function.body());
+	}
+
+	// The graph of a script or function body.
+	@Nonnull
+	public static ControlFlowGraph of(@Nonnull Node body) {
+		return new Builder().build(body);
+	}
+
+	public int blockCount() {
+		return this.nodeStart.length - 1;
+	}
+
+	public int nodeCount(int block) {
+		return this.nodeStart[block + 1] - this.nodeStart[block];
+	}
+
+	@Nonnull
+	public Node node(int block, int index) {
+		return this.nodes[this.nodeStart[block] + index];
+	}
+
+	// The first block evaluating `node`, or -1. Looks through every block.
+	public int blockOf(@Nonnull Node node) {
+		for (int i = 0; i < this.nodes.length; ++i) {
+			if (this.nodes[i] == node) {
+				int block = Arrays.binarySearch(this.nodeStart, i);
+				if (block < 0) {
+					return -block - 2;
+				}
+				// skip the empty blocks starting at the same place
+				while (this.nodeStart[block + 1] == i) {
+					++block;
+				}
+				return block;
+			}
+		}
+		return -1;
+	}
+
+	public int successorCount(int block) {
+		return this.successorStart[block + 1] - this.successorStart[block];
+	}
+
+	public int successor(int block, int index) {
+		return this.successors[this.successorStart[block] + index];
+	}
+
+	// whether control passes along the edge only when something is thrown
+	public boolean isExceptionalSuccessor(int block, int index) {
+		return this.exceptionalSuccessors.get(this.successorStart[block] + index);
+	}
+
+	public int predecessorCount(int block) {
+		return this.predecessorStart[block + 1] - this.predecessorStart[block];
+	}
+
+	public int predecessor(int block, int index) {
+		return this.predecessors[this.predecessorStart[block] + index];
+	}
+
+	public boolean isExceptionalPredecessor(int block, int index) {
+		return this.exceptionalPredecessors.get(this.predecessorStart[block] + index);
+	}
+
+	// -1 for the entry
+	public int immediateDominator(int block) {
+		return this.dominators.parent[block];
+	}
+
+	// Whether every path from the entry to `block` passes through `dominator`; a block dominates itself.
+	public boolean dominates(int dominator, int block) {
+		return this.dominators.isAncestor(dominator, block);
+	}
+
+	// -1 for the exit, and for blocks from which it cannot be reached, such as those in a loop nothing breaks out of.
+	public int immediatePostDominator(int block) {
+		return this.postDominators.parent[block];
+	}
+
+	// Whether every path from `block` to the exit passes through `postDominator`; false when there is none.
+	public boolean postDominates(int postDominator, int block) {
+		return this.postDominators.isAncestor(postDominator, block);
+	}
+
+	// A dominator tree, found by Cooper, Harvey and Kennedy's iterative algorithm over the edges `forwards` from `root`, and numbered in
+	// pre-order so that ancestry is a comparison of numbers.
+	private static final class Tree {
+		@Nonnull
+		final int[] parent;
+		// pre-order number, and the greatest among the descendants; -1 when `root` does not reach the block
+		@Nonnull
+		private final int[] first;
+		@Nonnull
+		private final int[] last;
+
+		Tree(int root, @Nonnull int[] forwardStart, @Nonnull int[] forwards, @Nonnull int[] backwardStart, @Nonnull int[] backwards) {
+			int n = forwardStart.length - 1;
+			// reverse post-order, by a depth-first search on an explicit stack of blocks and how many of their edges have been followed
+			int[] order = new int[n];
+			int[] orderIndex = new int[n];
+			Arrays.fill(orderIndex, -1);
+			int[] stack = new int[n];
+			int[] followed = new int[n];
+			boolean[] seen = new boolean[n];
+			int count = 0;
+			int top = 0;
+			stack[0] = root;
+			seen[root] = true;
+			while (top >= 0) {
+				int block = stack[top];
+				if (forwardStart[block] + followed[block] < forwardStart[block + 1]) {
+					int next = forwards[forwardStart[block] + followed[block]++];
+					if (!seen[next]) {
+						seen[next] = true;
+						stack[++top] = next;
+					}
+				} else {
+					order[count++] = block;
+					--top;
+				}
+			}
+			for (int i = 0; i < count / 2; ++i) {
+				int swap = order[i];
+				order[i] = order[count - 1 - i];
+				order[count - 1 - i] = swap;
+			}
+			for (int i = 0; i < count; ++i) {
+				orderIndex[order[i]] = i;
+			}
+
+			int[] idom = new int[n];
+			Arrays.fill(idom, -1);
+			idom[root] = root;
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (int i = 1; i < count; ++i) {
+					int block = order[i];
+					int dominator = -1;
+					for (int j = backwardStart[block]; j < backwardStart[block + 1]; ++j) {
+						int previous = backwards[j];
+						if (idom[previous] < 0) {
+							continue;
+						}
+						dominator = dominator < 0 ? previous : intersect(idom, orderIndex, previous, dominator);
+					}
+					if (dominator != idom[block]) {
+						idom[block] = dominator;
+						changed = true;
+					}
+				}
+			}
+			idom[root] = -1;
+			this.parent = idom;
+
+			// children in compressed rows, then pre-order numbers
+			int[] childStart = new int[n + 1];
+			for (int block = 0; block < n; ++block) {
+				if (idom[block] >= 0) {
+					++childStart[idom[block] + 1];
+				}
+			}
+			for (int block = 0; block < n; ++block) {
+				childStart[block + 1] += childStart[block];
+			}
+			int[] children = new int[childStart[n]];
+			int[] filled = new int[n];
+			for (int block = 0; block < n; ++block) {
+				if (idom[block] >= 0) {
+					children[childStart[idom[block]] + filled[idom[block]]++] = block;
+				}
+			}
+			this.first = new int[n];
+			this.last = new int[n];
+			Arrays.fill(this.first, -1);
+			Arrays.fill(this.last, -1);
+			Arrays.fill(followed, 0);
+			int number = 0;
+			top = 0;
+			stack[0] = root;
+			this.first[root] = number++;
+			while (top >= 0) {
+				int block = stack[top];
+				if (childStart[block] + followed[block] < childStart[block + 1]) {
+					int child = children[childStart[block] + followed[block]++];
+					this.first[child] = number++;
+					stack[++top] = child;
+				} else {
+					this.last[block] = number - 1;
+					--top;
+				}
+			}
+		}
+
+		private static int intersect(@Nonnull int[] idom, @Nonnull int[] orderIndex, int a, int b) {
+			while (a != b) {
+				while (orderIndex[a] > orderIndex[b]) {
+					a = idom[a];
+				}
+				while (orderIndex[b] > orderIndex[a]) {
+					b = idom[b];
+				}
+			}
+			return a;
+		}
+
+		boolean isAncestor(int ancestor, int block) {
+			return this.first[block] >= 0 && this.first[ancestor] >= 0 && this.first[ancestor] <= this.first[block] && this.first[block] <= this.last[ancestor];
+		}
+	}
+
+	// A try block with a finally block, while the try block is being walked.
+	private static final class Finally {
+		final int entry;
+		// where control goes after the finally block, for the jumps leaving the try block
+		@Nonnull
+		final Set<Integer> continuations = new LinkedHashSet<>();
+
+		Finally(int entry) {
+			this.entry = entry;
+		}
+	}
+
+	// Walks the body in evaluation order, like Director but with explicit control flow. Each block is entered (made current) exactly once, in
+	// the context of the handlers around it, and liveness is tracked as it goes so that no edges leave code control cannot reach.
+	private static final class Builder {
+		@Nonnull
+		private final List<Node> nodes = new ArrayList<>();
+		// per block, the range of `nodes` it holds
+		@Nonnull
+		private int[] nodesFrom = new int[16];
+		@Nonnull
+		private int[] nodesTo = new int[16];
+		// whether some edge from a reachable block leads to the block
+		@Nonnull
+		private boolean[] live = new boolean[16];
+		private int blocks = 0;
+		@Nonnull
+		private int[] edgeFrom = new int[16];
+		@Nonnull
+		private int[] edgeTo = new int[16];
+		@Nonnull
+		private final BitSet exceptional = new BitSet();
+		private int edges = 0;
+		// the innermost last
+		@Nonnull
+		private final List<Integer> handlers = new ArrayList<>();
+		@Nonnull
+		private final List<Finally> finallies = new ArrayList<>();
+		// the number of finallies around each break target, and the block it starts
+		@Nonnull
+		private final IdentityHashMap<BreakTarget, Integer> targetDepths = new IdentityHashMap<>();
+		@Nonnull
+		private final IdentityHashMap<BreakTarget, Integer> targetBlocks = new IdentityHashMap<>();
+		private int current;
+		private boolean reachable;
+
+		@Nonnull
+		ControlFlowGraph build(@Nonnull Node body) {
+			int entry = this.newBlock();
+			int exit = this.newBlock();
+			this.live[entry] = true;
+			this.enter(entry);
+			this.visit(body);
+			this.jump(exit);
+			this.enter(exit);
+			return this.finish();
+		}
+
+		private int newBlock() {
+			if (this.blocks == this.live.length) {
+				this.nodesFrom = Arrays.copyOf(this.nodesFrom, 2 * this.blocks);
+				this.nodesTo = Arrays.copyOf(this.nodesTo, 2 * this.blocks);
+				this.live = Arrays.copyOf(this.live, 2 * this.blocks);
+			}
+			return this.blocks++;
+		}
+
+		private void enter(int block) {
+			this.nodesTo[this.current] = this.nodes.size();
+			this.current = block;
+			this.nodesFrom[block] = this.nodes.size();
+			this.reachable = this.live[block];
+			if (!this.handlers.isEmpty()) {
+				this.edge(block, this.handlers.get(this.handlers.size() - 1), true);
+			}
+		}
+
+		private void edge(int from, int to, boolean isExceptional) {
+			if (!this.live[from]) {
+				return;
+			}
+			if (this.edges == this.edgeFrom.length) {
+				this.edgeFrom = Arrays.copyOf(this.edgeFrom, 2 * this.edges);
+				this.edgeTo = Arrays.copyOf(this.edgeTo, 2 * this.edges);
+			}
+			this.edgeFrom[this.edges] = from;
+			this.edgeTo[this.edges] = to;
+			this.exceptional.set(this.edges, isExceptional);
+			++this.edges;
+			this.live[to] = true;
+		}
+
+		// from the end of the current block
+		private void jump(int to) {
+			if (this.reachable) {
+				this.edge(this.current, to, false);
+			}
+		}
+
+		// after a jump, what follows until the next block something jumps to is unreachable
+		private void abrupt() {
+			this.enter(this.newBlock());
+		}
+
+		// Jumps to `destination`, by way of the finally blocks of the try blocks the jump leaves: those entered since `depth` of them were.
+		private void leave(int destination, int depth) {
+			if (!this.reachable) {
+				return;
+			}
+			if (this.finallies.size() == depth) {
+				this.jump(destination);
+				return;
+			}
+			this.jump(this.finallies.get(this.finallies.size() - 1).entry);
+			for (int i = this.finallies.size() - 1; i >= depth; --i) {
+				this.finallies.get(i).continuations.add(i > depth ? this.finallies.get(i - 1).entry : destination);
+			}
+		}
+
+		private int targetBlock(@Nonnull BreakTarget target) {
+			Integer block = this.targetBlocks.get(target);
+			if (block == null) {
+				block = this.newBlock();
+				this.targetBlocks.put(target, block);
+			}
+			return block;
+		}
+
+		private void visit(@Nonnull Node node) {
+			Node.Kind kind = Node.Kind.of(node);
+			switch (kind) {
+				case BLOCK:
+					// targets follow the breaks to them, within the blocks around them
+					for (Node child : ((Block) node).children) {
+						if (child instanceof BreakTarget) {
+							this.targetDepths.put((BreakTarget) child, this.finallies.size());
+						}
+					}
+					for (Node child : ((Block) node).children) {
+						this.visit(child);
+					}
+					return;
+				case BLOCK_WITH_VALUE:
+					this.visit(((BlockWithValue) node).head);
+					this.visit(((BlockWithValue) node).result);
+					return;
+				case BREAK_TARGET: {
+					int block = this.targetBlock((BreakTarget) node);
+					this.jump(block);
+					this.enter(block);
+					return;
+				}
+				case BREAK: {
+					BreakTarget target = ((Break) node).target;
+					this.nodes.add(node);
+					// a break whose target is not around it cannot be followed, as happens only in graphs not from Explicator
+					Integer depth = this.targetDepths.get(target);
+					if (depth != null) {
+						this.leave(this.targetBlock(target), depth);
+					}
+					this.abrupt();
+					return;
+				}
+				case RETURN:
+				case RETURN_AFTER_FINALLIES:
+					for (Node child : IterativeDirector.children(node, kind)) {
+						this.visit(child);
+					}
+					this.nodes.add(node);
+					this.leave(EXIT, 0);
+					this.abrupt();
+					return;
+				case THROW:
+					this.visit(IterativeDirector.children(node, kind)[0]);
+					this.nodes.add(node);
+					// within a try block, the block already has its exceptional edge
+					if (this.handlers.isEmpty() && this.reachable) {
+						this.edge(this.current, EXIT, true);
+					}
+					this.abrupt();
+					return;
+				case IF_ELSE: {
+					IfElse ifElse = (IfElse) node;
+					this.visit(ifElse.test);
+					this.nodes.add(node);
+					int consequent = this.newBlock();
+					int alternate = this.newBlock();
+					int join = this.newBlock();
+					this.jump(consequent);
+					this.jump(alternate);
+					this.enter(consequent);
+					this.visit(ifElse.consequent);
+					this.jump(join);
+					this.enter(alternate);
+					this.visit(ifElse.alternate);
+					this.jump(join);
+					this.enter(join);
+					return;
+				}
+				case LOGIC: {
+					Logic logic = (Logic) node;
+					this.visit(logic.left);
+					this.nodes.add(node);
+					int right = this.newBlock();
+					int join = this.newBlock();
+					this.jump(right);
+					this.jump(join);
+					this.enter(right);
+					this.visit(logic.right);
+					this.jump(join);
+					this.enter(join);
+					return;
+				}
+				case LOOP: {
+					int header = this.newBlock();
+					this.jump(header);
+					this.enter(header);
+					this.visit(((Loop) node).block);
+					this.jump(header);
+					// a loop is only left by breaking out of it
+					this.abrupt();
+					return;
+				}
+				case SWITCH_STATEMENT: {
+					SwitchStatement switchStatement = (SwitchStatement) node;
+					this.nodes.add(switchStatement.discriminant);
+					this.nodes.add(node);
+					int cases = switchStatement.preDefaultCases.length + 1 + switchStatement.postDefaultCases.length;
+					int[] entries = new int[cases];
+					for (int i = 0; i < cases; ++i) {
+						entries[i] = this.newBlock();
+					}
+					int defaultIndex = switchStatement.preDefaultCases.length;
+					int join = this.newBlock();
+					// the tests in order, each jumping to its case when it matches, then the default
+					int i = 0;
+					for (Pair<NodeWithValue, Block> pair : switchStatement.preDefaultCases) {
+						this.test(pair.left, entries[i++]);
+					}
+					i = defaultIndex + 1;
+					for (Pair<NodeWithValue, Block> pair : switchStatement.postDefaultCases) {
+						this.test(pair.left, entries[i++]);
+					}
+					this.jump(entries[defaultIndex]);
+					// the cases in order, each falling through to the next
+					i = 0;
+					for (Pair<NodeWithValue, Block> pair : switchStatement.preDefaultCases) {
+						this.enter(entries[i++]);
+						this.visit(pair.right);
+						this.jump(entries[i]);
+					}
+					this.enter(entries[i++]);
+					this.visit(switchStatement.defaultCase);
+					this.jump(i < cases ? entries[i] : join);
+					for (Pair<NodeWithValue, Block> pair : switchStatement.postDefaultCases) {
+						this.enter(entries[i++]);
+						this.visit(pair.right);
+						this.jump(i < cases ? entries[i] : join);
+					}
+					this.enter(join);
+					return;
+				}
+				case TRY_CATCH: {
+					TryCatch tryCatch = (TryCatch) node;
+					int handler = this.newBlock();
+					int body = this.newBlock();
+					int join = this.newBlock();
+					this.jump(body);
+					this.handlers.add(handler);
+					this.enter(body);
+					this.visit(tryCatch.tryBody);
+					this.jump(join);
+					this.handlers.remove(this.handlers.size() - 1);
+					this.enter(handler);
+					this.visit(tryCatch.catchBody.right);
+					this.jump(join);
+					this.enter(join);
+					return;
+				}
+				case TRY_FINALLY: {
+					TryFinally tryFinally = (TryFinally) node;
+					Finally context = new Finally(this.newBlock());
+					int body = this.newBlock();
+					this.jump(body);
+					this.handlers.add(context.entry);
+					this.finallies.add(context);
+					this.enter(body);
+					this.visit(tryFinally.tryBody);
+					boolean completes = this.reachable;
+					this.jump(context.entry);
+					this.handlers.remove(this.handlers.size() - 1);
+					this.finallies.remove(this.finallies.size() - 1);
+					this.enter(context.entry);
+					this.visit(tryFinally.finallyBody);
+					for (int continuation : context.continuations) {
+						this.jump(continuation);
+					}
+					// rethrowing what was thrown in the try block; within an enclosing try block, the block already has its exceptional edge
+					if (this.handlers.isEmpty() && this.reachable) {
+						this.edge(this.current, EXIT, true);
+					}
+					if (completes) {
+						int after = this.newBlock();
+						this.jump(after);
+						this.enter(after);
+					} else {
+						this.abrupt();
+					}
+					return;
+				}
+				case VARIABLE_ASSIGNMENT: {
+					// a local is not evaluated before it is assigned
+					VariableAssignment assignment = (VariableAssignment) node;
+					if (assignment.ref.isLeft()) {
+						this.visit(assignment.ref.left().fromJust());
+					}
+					this.visit(assignment.value);
+					this.nodes.add(node);
+					return;
+				}
+				case LITERAL_FUNCTION:
+					this.nodes.add(node);
+					return;
+				default:
+					for (Node child : IterativeDirector.children(node, kind)) {
+						this.visit(child);
+					}
+					this.nodes.add(node);
+			}
+		}
+
+		// evaluates `test`, going on to `match` when it holds and to a new block otherwise
+		private void test(@Nonnull NodeWithValue test, int match) {
+			this.visit(test);
+			int next = this.newBlock();
+			this.jump(match);
+			this.jump(next);
+			this.enter(next);
+		}
+
+		// Numbers the blocks reachable from the entry in the order they were made, the entry and exit first, and lays everything out in rows.
+		@Nonnull
+		private ControlFlowGraph finish() {
+			this.nodesTo[this.current] = this.nodes.size();
+			int[] number = new int[this.blocks];
+			int count = 0;
+			for (int block = 0; block < this.blocks; ++block) {
+				number[block] = this.live[block] || block == EXIT ? count++ : -1;
+			}
+
+			int[] nodeStart = new int[count + 1];
+			for (int block = 0; block < this.blocks; ++block) {
+				if (number[block] >= 0) {
+					nodeStart[number[block] + 1] = this.nodesTo[block] - this.nodesFrom[block];
+				}
+			}
+			for (int i = 0; i < count; ++i) {
+				nodeStart[i + 1] += nodeStart[i];
+			}
+			Node[] nodes = new Node[nodeStart[count]];
+			for (int block = 0; block < this.blocks; ++block) {
+				if (number[block] >= 0) {
+					for (int i = this.nodesFrom[block], j = nodeStart[number[block]]; i < this.nodesTo[block]; ++i, ++j) {
+						nodes[j] = this.nodes.get(i);
+					}
+				}
+			}
+
+			int[] from = new int[this.edges];
+			int[] to = new int[this.edges];
+			for (int i = 0; i < this.edges; ++i) {
+				from[i] = number[this.edgeFrom[i]];
+				to[i] = number[this.edgeTo[i]];
+			}
+			int[] successorStart = new int[count + 1];
+			int[] successors = new int[this.edges];
+			BitSet exceptionalSuccessors = new BitSet();
+			layOut(from, to, this.exceptional, successorStart, successors, exceptionalSuccessors);
+			int[] predecessorStart = new int[count + 1];
+			int[] predecessors = new int[this.edges];
+			BitSet exceptionalPredecessors = new BitSet();
+			layOut(to, from, this.exceptional, predecessorStart, predecessors, exceptionalPredecessors);
+			return new ControlFlowGraph(nodes, nodeStart, successorStart, successors, exceptionalSuccessors, predecessorStart, predecessors, exceptionalPredecessors);
+		}
+
+		// a counting sort of the edges by `from`, keeping their order otherwise
+		private static void layOut(@Nonnull int[] from, @Nonnull int[] to, @Nonnull BitSet exceptional, @Nonnull int[] start, @Nonnull int[] ends, @Nonnull BitSet endsExceptional) {
+			int count = start.length - 1;
+			for (int edge : from) {
+				++start[edge + 1];
+			}
+			for (int i = 0; i < count; ++i) {
+				start[i + 1] += start[i];
+			}
+			int[] filled = new int[count];
+			for (int i = 0; i < from.length; ++i) {
+				int index = start[from[i]] + filled[from[i]]++;
+				ends[index] = to[i];
+				endsExceptional.set(index, exceptional.get(i));
+			}
+		}
+	}
+}
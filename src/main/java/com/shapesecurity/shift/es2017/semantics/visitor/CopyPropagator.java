@@ -0,0 +1,304 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.ExplicationListener;
+import com.shapesecurity.shift.es2017.semantics.Semantics;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+// Replaces a temporary which is written once and read once with the value written to it, when the read is the very next thing evaluated after
+// the write, e.g. the `tmp = <expr>; use(tmp)` left by Explicator.let and letWithValue. The assignment goes, and so does the temporary, from
+// LiteralFunction.locals and Semantics.locals.
+// The read must be reached from the statement after the assignment by way of the operands each node evaluates first, without entering a loop,
+// a try block or a branch: the value is then evaluated at the same point as before, just no longer stored and loaded.
+public class CopyPropagator extends ReconstructingReducer {
+	// temporaries written once and read once, in the function they belong to, where the read may take any value
+	@Nonnull
+	private final Set<Variable> candidates;
+	@Nonnull
+	private final Set<Variable> propagated = Collections.newSetFromMap(new IdentityHashMap<>());
+	// rebuilds the nodes on the way down to a read
+	@Nonnull
+	private final Reducer<Node> rebuilder = ReconstructingReducer.create();
+
+	protected CopyPropagator(@Nonnull Set<Variable> candidates) {
+		super();
+		this.candidates = candidates;
+	}
+
+	public static Semantics reduce(@Nonnull Semantics semantics) {
+		Set<Variable> candidates = candidates(semantics.node);
+		if (candidates.isEmpty()) {
+			return semantics;
+		}
+		CopyPropagator propagator = new CopyPropagator(candidates);
+		Node node = new Director<>(new NodeAdaptingReducer(propagator)).reduceNode(semantics.node);
+		return new Semantics(
+			node,
+			semantics.locals.filter(variable -> !propagator.propagated.contains(variable)),
+			semantics.scriptVarDecls,
+			semantics.scopeLookup,
+			semantics.functionScopes
+		);
+	}
+
+	// Reports the time taken and the size of the result to `listener`.
+	public static Semantics reduce(@Nonnull Semantics semantics, @Nonnull ExplicationListener listener) {
+		long start = System.nanoTime();
+		Semantics result = reduce(semantics);
+		listener.phaseCompleted(ExplicationListener.PhaseReport.forGraph(ExplicationListener.Phase.COPY_PROPAGATION, start, System.nanoTime(), 0, result.node));
+		return result;
+	}
+
+	@Nonnull
+	@Override
+	public Block reduceBlock(@Nonnull Block block, @Nonnull ImmutableList<Node> children) {
+		List<Node> kept = new ArrayList<>(children.length);
+		boolean changed = false;
+		for (Node child : children) {
+			Node node = child;
+			// the statement the value moves into may itself be an assignment whose read is in the next one
+			while (!kept.isEmpty()) {
+				Node replaced = this.propagate(kept.get(kept.size() - 1), node);
+				if (replaced == null) {
+					break;
+				}
+				kept.remove(kept.size() - 1);
+				node = replaced;
+				changed = true;
+			}
+			kept.add(node);
+		}
+		if (!changed) {
+			return super.reduceBlock(block, children);
+		}
+		return new Block(ImmutableList.from(kept), block.directives);
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceBlockWithValue(@Nonnull BlockWithValue blockWithValue, @Nonnull Block block, @Nonnull NodeWithValue result) {
+		List<Node> head = new ArrayList<>(block.children.length);
+		for (Node child : block.children) {
+			head.add(child);
+		}
+		boolean changed = false;
+		while (!head.isEmpty()) {
+			Node replaced = this.propagate(head.get(head.size() - 1), result);
+			if (replaced == null) {
+				break;
+			}
+			head.remove(head.size() - 1);
+			result = (NodeWithValue) replaced;
+			changed = true;
+		}
+		if (!changed) {
+			return super.reduceBlockWithValue(blockWithValue, block, result);
+		}
+		return head.isEmpty() ? result : new BlockWithValue(new Block(ImmutableList.from(head), block.directives), result);
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceLiteralFunction(@Nonnull LiteralFunction literalFunction, @Nonnull Block body) {
+		ImmutableList<Variable> locals = literalFunction.locals().filter(variable -> !this.propagated.contains(variable));
+		if (body == literalFunction.body() && locals.length == literalFunction.locals().length) {
+			return literalFunction;
+		}
+		return new LiteralFunction(
+			literalFunction.name,
+			literalFunction.arguments,
+			literalFunction.parameters,
+			locals,
+			literalFunction.captured,
+			body,
+			literalFunction.isStrict
+		);
+	}
+
+	// `next` with the value `previous` assigns to a temporary in place of the read of it, if `previous` is such an assignment and the read
+	// comes first in `next`.
+	@Nullable
+	private Node propagate(@Nonnull Node previous, @Nonnull Node next) {
+		if (!(previous instanceof VariableAssignment)) {
+			return null;
+		}
+		VariableAssignment assignment = (VariableAssignment) previous;
+		if (!assignment.ref.isRight() || !(assignment.ref.right().fromJust() instanceof TemporaryReference)) {
+			return null;
+		}
+		Variable variable = assignment.ref.right().fromJust().variable;
+		if (!this.candidates.contains(variable)) {
+			return null;
+		}
+		Node replaced = this.substitute(next, variable, assignment.value);
+		if (replaced != null) {
+			this.propagated.add(variable);
+		}
+		return replaced;
+	}
+
+	@Nullable
+	private Node substitute(@Nonnull Node node, @Nonnull Variable variable, @Nonnull NodeWithValue value) {
+		Node.Kind kind = Node.Kind.of(node);
+		if (kind == Node.Kind.TEMPORARY_REFERENCE) {
+			return ((TemporaryReference) node).variable == variable ? value : null;
+		}
+		Node[] children = IterativeDirector.children(node, kind);
+		int end = unconditionallyEvaluated(node, kind, children.length);
+		for (int i = kind == Node.Kind.VARIABLE_ASSIGNMENT ? 1 : 0; i < end; ++i) {
+			Node replaced = this.substitute(children[i], variable, value);
+			if (replaced != null) {
+				children[i] = replaced;
+				return IterativeDirector.reduce(this.rebuilder, node, kind, children);
+			}
+			if (!isInert(children[i], value)) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	// How many of its children `node` evaluates, in order, before doing anything of its own; for an assignment to a local, the first of these
+	// is the binding, which is not evaluated. A branch, a loop or a try block ends the count, as may then evaluate its children more than
+	// once, or not at all, or catch what they throw.
+	private static int unconditionallyEvaluated(@Nonnull Node node, @Nonnull Node.Kind kind, int children) {
+		switch (kind) {
+			case VARIABLE_ASSIGNMENT:
+				// a global is looked up before the value is evaluated
+				return ((VariableAssignment) node).ref.isRight() ? children : 0;
+			case IF_ELSE:
+			case LOGIC:
+				return 1;
+			case BLOCK:
+			case BLOCK_WITH_VALUE:
+			case RETURN:
+			case CALL:
+			case MEMBER_CALL:
+			case NEW:
+			case NOT:
+			case NEGATION:
+			case TYPEOF:
+			case BITWISE_NOT:
+			case VOID_OP:
+			case FLOAT_MATH:
+			case INT_MATH:
+			case INSTANCE_OF:
+			case EQUALITY:
+			case IN:
+			case RELATIONAL_COMPARISON:
+			case REQUIRE_OBJECT_COERCIBLE:
+			case TYPE_COERCION_STRING:
+			case TYPE_COERCION_NUMBER:
+			case TYPE_COERCION_OBJECT:
+			case KEYS:
+			case DELETE_PROPERTY:
+			case MEMBER_ACCESS:
+			case MEMBER_ASSIGNMENT:
+			case THROW:
+				return children;
+			case MEMBER_DEFINITION:
+				// the property is defined along with the member
+				return 2;
+			default:
+				return 0;
+		}
+	}
+
+	// Whether `node` can be evaluated after `value` rather than before it with the same result and no difference to `value`: a constant, or a
+	// temporary `value` does not assign to (no function can, as temporaries are never captured).
+	private static boolean isInert(@Nonnull Node node, @Nonnull NodeWithValue value) {
+		switch (Node.Kind.of(node)) {
+			case LITERAL_UNDEFINED:
+			case LITERAL_NULL:
+			case LITERAL_BOOLEAN:
+			case LITERAL_NUMBER:
+			case LITERAL_STRING:
+			case LITERAL_INFINITY:
+			case LITERAL_EMPTY_ARRAY:
+			case LITERAL_EMPTY_OBJECT:
+			case THIS:
+				return true;
+			case TEMPORARY_REFERENCE: {
+				Variable variable = ((TemporaryReference) node).variable;
+				return !Query.exists(
+					value,
+					n -> n instanceof VariableAssignment && ((VariableAssignment) n).ref.either(global -> false, local -> local.variable == variable),
+					Query.OUTSIDE_FUNCTIONS
+				);
+			}
+			default:
+				return false;
+		}
+	}
+
+	// The temporaries written and read exactly once, both in the function (or script) they belong to. Reads where only a reference can go,
+	// such as the discriminant of a switch, rule a temporary out.
+	@Nonnull
+	private static Set<Variable> candidates(@Nonnull Node root) {
+		IdentityHashMap<Variable, int[]> uses = new IdentityHashMap<>();
+		Set<Variable> excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+		countUses(root, 0, uses, excluded);
+		Set<LiteralFunction> functions = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Node node : GetDescendents.getDescendants(root)) {
+			if (node instanceof LiteralFunction && functions.add((LiteralFunction) node)) {
+				countUses(((LiteralFunction) node).body(), functions.size(), uses, excluded);
+			}
+		}
+		Set<Variable> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+		uses.forEach((variable, counts) -> {
+			if (counts[0] == 1 && counts[1] == 1 && !excluded.contains(variable)) {
+				candidates.add(variable);
+			}
+		});
+		return candidates;
+	}
+
+	// Counts the reads and writes of each temporary in `body`, not looking into the functions within it; uses[v] is {reads, writes, function}.
+	private static void countUses(@Nonnull Node body, int function, @Nonnull IdentityHashMap<Variable, int[]> uses, @Nonnull Set<Variable> excluded) {
+		ArrayDeque<Node> stack = new ArrayDeque<>();
+		stack.push(body);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			Node.Kind kind = Node.Kind.of(node);
+			if (kind == Node.Kind.LITERAL_FUNCTION) {
+				continue;
+			}
+			Node[] children = IterativeDirector.children(node, kind);
+			for (int i = 0; i < children.length; ++i) {
+				Node child = children[i];
+				if (!(child instanceof TemporaryReference)) {
+					stack.push(child);
+					continue;
+				}
+				Variable variable = ((TemporaryReference) child).variable;
+				int[] counts = uses.computeIfAbsent(variable, v -> new int[]{ 0, 0, function });
+				if (counts[2] != function) {
+					excluded.add(variable);
+				}
+				if (kind == Node.Kind.VARIABLE_ASSIGNMENT && i == 0) {
+					++counts[1];
+				} else if (IterativeDirector.childKind(kind, child, i) == Node.Kind.TEMPORARY_REFERENCE) {
+					++counts[0];
+				} else {
+					excluded.add(variable);
+				}
+			}
+		}
+	}
+}
@@ -64,22 +64,47 @@ import com.shapesecurity.shift.es2017.semantics.asg.Void;
 
 import javax.annotation.Nonnull;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.function.Supplier;
 
 public final class Director<State> {
 
+	// Which nodes have their state remembered, so that a node reachable along several paths is only reduced once.
+	public enum Memoization {
+		// Every node. Correct for any graph.
+		ALL_NODES,
+		// Only nodes which Explicator shares between several parents: BreakTargets, LocalReferences (including TemporaryReferences) and the
+		// singleton leaves, such as LiteralUndefined.INSTANCE. Any other node is reduced once for each path reaching it, so this gives the same
+		// results as ALL_NODES only for graphs in which no other node has several parents. That holds for graphs produced by Explicator and by
+		// the reducers in this library. Saves a map entry for every other node.
+		// The strings, numbers and global references shared by NodeInterner are leaves too, but are left out of the map to keep it small: they are
+		// reduced again for each path, which gives the same state for reducers which do not depend on the path, as those in this library.
+		SHARED_NODES
+	}
+
 	@Nonnull
 	private final Reducer<State> reducer;
 	@Nonnull
-	private final Map<Node, State> newNodes = new HashMap<>();
+	private final Memoization memoization;
+	@Nonnull
+	private final Map<Node, State> newNodes;
 
 	public Director(@Nonnull Reducer<State> reducer) {
+		this(reducer, Memoization.ALL_NODES);
+	}
+
+	public Director(@Nonnull Reducer<State> reducer, @Nonnull Memoization memoization) {
 		this.reducer = reducer;
+		this.memoization = memoization;
+		this.newNodes = memoization == Memoization.ALL_NODES ? new HashMap<>() : new IdentityHashMap<>();
 	}
 
 	@Nonnull
 	private State visitNode(@Nonnull Node old, @Nonnull Supplier<State> creator) {
+		if (this.memoization == Memoization.SHARED_NODES && !isShareable(old)) {
+			return reducer.reduceAll(old, creator.get());
+		}
 		if (newNodes.containsKey(old)) {
 			return newNodes.get(old);
 		}
@@ -88,6 +113,27 @@ public final class Director<State> {
 		return state;
 	}
 
+	static boolean isShareable(@Nonnull Node node) {
+		return node instanceof BreakTarget ||
+			node instanceof LocalReference ||
+			node instanceof LiteralUndefined ||
+			node instanceof LiteralNull ||
+			node instanceof LiteralEmptyArray ||
+			node instanceof LiteralEmptyObject ||
+			node instanceof LiteralInfinity ||
+			node instanceof Void ||
+			node instanceof Halt;
+	}
+
+	// Takes `state` as the result of reducing `node`, so that neither the node nor anything reached only through it is visited, e.g. to leave a
+	// function whose body is known not to need rewriting as it is. Only nodes remembered under the memoization in use can be assumed.
+	public void assume(@Nonnull Node node, @Nonnull State state) {
+		if (this.memoization == Memoization.SHARED_NODES && !isShareable(node)) {
+			throw new IllegalArgumentException("Only shareable nodes are remembered under SHARED_NODES");
+		}
+		this.newNodes.put(node, state);
+	}
+
 	@Nonnull
 	public State reduceBlock(@Nonnull Block block) {
 		return visitNode(block, () -> reducer.reduceBlock(block, block.children.map(this::reduceNode)));
@@ -114,94 +160,8 @@ public final class Director<State> {
 
 	@Nonnull
 	public State reduceNodeWithValue(@Nonnull NodeWithValue expression) {
-		if (expression instanceof Call) {
-			return reduceCall((Call) expression);
-		} else if (expression instanceof BlockWithValue) {
-			return reduceBlockWithValue((BlockWithValue) expression);
-		} else if (expression instanceof FloatMath) {
-			return reduceFloatMath((FloatMath) expression);
-		} else if (expression instanceof IntMath) {
-			return reduceIntMath((IntMath) expression);
-		} else if (expression instanceof GlobalReference) {
-			return reduceGlobalReference((GlobalReference) expression);
-		} else if (expression instanceof LiteralNumber) {
-			return reduceLiteralNumber((LiteralNumber) expression);
-		} else if (expression instanceof LiteralBoolean) {
-			return reduceLiteralBoolean((LiteralBoolean) expression);
-		} else if (expression instanceof LiteralString) {
-			return reduceLiteralString((LiteralString) expression);
-		} else if (expression instanceof LiteralNull) {
-			return reduceLiteralNull((LiteralNull) expression);
-		} else if (expression instanceof LiteralFunction) {
-			return reduceLiteralFunction((LiteralFunction) expression);
-		} else if (expression instanceof LiteralEmptyObject) {
-			return reduceLiteralEmptyObject((LiteralEmptyObject) expression);
-		} else if (expression instanceof LiteralEmptyArray) {
-			return reduceLiteralEmptyArray((LiteralEmptyArray) expression);
-		} else if (expression instanceof LiteralRegExp) {
-			return reduceLiteralRegExp((LiteralRegExp) expression);
-		} else if (expression instanceof LiteralInfinity) {
-			return reduceLiteralInfinity((LiteralInfinity) expression);
-		} else if (expression instanceof LiteralSymbol) {
-			return reduceLiteralSymbol((LiteralSymbol) expression);
-		} else if (expression instanceof LiteralUndefined) {
-			return reduceLiteralUndefined((LiteralUndefined) expression);
-		} else if (expression instanceof TemporaryReference) {
-			return reduceTemporaryReference((TemporaryReference) expression);
-		} else if (expression instanceof LocalReference) {
-			return reduceLocalReference((LocalReference) expression);
-		} else if (expression instanceof MemberAccess) {
-			return reduceMemberAccess((MemberAccess) expression);
-		} else if (expression instanceof MemberAssignment) {
-			return reduceMemberAssignment((MemberAssignment) expression);
-		} else if (expression instanceof RelationalComparison) {
-			return reduceRelationalComparison((RelationalComparison) expression);
-		} else if (expression instanceof VariableAssignment) {
-			return reduceVariableAssignment((VariableAssignment) expression);
-		} else if (expression instanceof MemberCall) {
-			return reduceMemberCall((MemberCall) expression);
-		} else if (expression instanceof Not) {
-			return reduceNot((Not) expression);
-		} else if (expression instanceof InstanceOf) {
-			return reduceInstanceOf((InstanceOf) expression);
-		} else if (expression instanceof Negation) {
-			return reduceNegation((Negation) expression);
-		} else if (expression instanceof Equality) {
-			return reduceEquality((Equality) expression);
-		} else if (expression instanceof New) {
-			return reduceNew((New) expression);
-		} else if (expression instanceof This) {
-			return reduceThis((This) expression);
-		} else if (expression instanceof Halt) {
-			return reduceHalt((Halt) expression);
-		} else if (expression instanceof RequireObjectCoercible) {
-			return reduceRequireObjectCoercible((RequireObjectCoercible) expression);
-		} else if (expression instanceof TypeCoercionString) {
-			return reduceTypeCoercionString((TypeCoercionString) expression);
-		} else if (expression instanceof TypeCoercionNumber) {
-			return reduceTypeCoercionNumber((TypeCoercionNumber) expression);
-		} else if (expression instanceof TypeCoercionObject) {
-			return reduceTypeCoercionObject((TypeCoercionObject) expression);
-		} else if (expression instanceof Keys) {
-			return reduceKeys((Keys) expression);
-		} else if (expression instanceof TypeofGlobal) {
-			return reduceTypeofGlobal((TypeofGlobal) expression);
-		} else if (expression instanceof VoidOp) {
-			return reduceVoidOp((VoidOp) expression);
-		} else if (expression instanceof DeleteGlobalProperty) {
-			return reduceDeleteGlobalProperty((DeleteGlobalProperty) expression);
-		} else if (expression instanceof Logic) {
-			return reduceLogic((Logic) expression);
-		} else if (expression instanceof In) {
-			return reduceIn((In) expression);
-		} else if (expression instanceof DeleteProperty) {
-			return reduceDeleteProperty((DeleteProperty) expression);
-		} else if (expression instanceof Typeof) {
-			return reduceTypeof((Typeof) expression);
-		} else if (expression instanceof BitwiseNot) {
-			return reduceBitwiseNot((BitwiseNot) expression);
-		}
-		throw new RuntimeException("Expression not implemented: " + expression.getClass().getSimpleName());
+		// a single switch over every kind, so that a node is only looked up once
+		return reduceNode(expression);
 	}
 
 	@Nonnull
@@ -236,7 +196,7 @@ public final class Director<State> {
 
 	@Nonnull
 	public State reduceLiteralFunction(@Nonnull LiteralFunction literalFunction) {
-		return visitNode(literalFunction, () -> reducer.reduceLiteralFunction(literalFunction, this.reduceBlock(literalFunction.body)));
+		return visitNode(literalFunction, () -> reducer.reduceLiteralFunction(literalFunction, this.reduceBlock(literalFunction.body())));
 	}
 
 	@Nonnull
@@ -416,36 +376,122 @@ public final class Director<State> {
 
 	@Nonnull
 	public State reduceNode(@Nonnull Node node) {
-		if (node instanceof NodeWithValue) {
-			return reduceNodeWithValue((NodeWithValue) node);
-		} else if (node instanceof Block) {
-			return reduceBlock((Block) node);
-		} else if (node instanceof BreakTarget) {
-			return reduceBreakTarget((BreakTarget) node);
-		} else if (node instanceof Break) {
-			return reduceBreak((Break) node);
-		} else if (node instanceof IfElse) {
-			return reduceIfElse((IfElse) node);
-		} else if (node instanceof Loop) {
-			return reduceLoop((Loop) node);
-		} else if (node instanceof Void) {
-			return reduceVoid((Void) node);
-		} else if (node instanceof Throw) {
-			return reduceThrow((Throw) node);
-		} else if (node instanceof MemberDefinition) {
-			return reduceMemberDefinition((MemberDefinition) node);
-		} else if (node instanceof TryCatch) {
-			return reduceTryCatch((TryCatch) node);
-		} else if (node instanceof TryFinally) {
-			return reduceTryFinally((TryFinally) node);
-		} else if (node instanceof SwitchStatement) {
-			return reduceSwitchStatement((SwitchStatement) node);
-		} else if (node instanceof Return) {
-			return reduceReturn((Return) node);
-		} else if (node instanceof ReturnAfterFinallies) {
-			return reduceReturnAfterFinallies((ReturnAfterFinallies) node);
+		switch (Node.Kind.of(node)) {
+			case CALL:
+				return reduceCall((Call) node);
+			case BLOCK_WITH_VALUE:
+				return reduceBlockWithValue((BlockWithValue) node);
+			case FLOAT_MATH:
+				return reduceFloatMath((FloatMath) node);
+			case INT_MATH:
+				return reduceIntMath((IntMath) node);
+			case GLOBAL_REFERENCE:
+				return reduceGlobalReference((GlobalReference) node);
+			case LITERAL_NUMBER:
+				return reduceLiteralNumber((LiteralNumber) node);
+			case LITERAL_BOOLEAN:
+				return reduceLiteralBoolean((LiteralBoolean) node);
+			case LITERAL_STRING:
+				return reduceLiteralString((LiteralString) node);
+			case LITERAL_NULL:
+				return reduceLiteralNull((LiteralNull) node);
+			case LITERAL_FUNCTION:
+				return reduceLiteralFunction((LiteralFunction) node);
+			case LITERAL_EMPTY_OBJECT:
+				return reduceLiteralEmptyObject((LiteralEmptyObject) node);
+			case LITERAL_EMPTY_ARRAY:
+				return reduceLiteralEmptyArray((LiteralEmptyArray) node);
+			case LITERAL_REG_EXP:
+				return reduceLiteralRegExp((LiteralRegExp) node);
+			case LITERAL_INFINITY:
+				return reduceLiteralInfinity((LiteralInfinity) node);
+			case LITERAL_SYMBOL:
+				return reduceLiteralSymbol((LiteralSymbol) node);
+			case LITERAL_UNDEFINED:
+				return reduceLiteralUndefined((LiteralUndefined) node);
+			case TEMPORARY_REFERENCE:
+				return reduceTemporaryReference((TemporaryReference) node);
+			case LOCAL_REFERENCE:
+				return reduceLocalReference((LocalReference) node);
+			case MEMBER_ACCESS:
+				return reduceMemberAccess((MemberAccess) node);
+			case MEMBER_ASSIGNMENT:
+				return reduceMemberAssignment((MemberAssignment) node);
+			case RELATIONAL_COMPARISON:
+				return reduceRelationalComparison((RelationalComparison) node);
+			case VARIABLE_ASSIGNMENT:
+				return reduceVariableAssignment((VariableAssignment) node);
+			case MEMBER_CALL:
+				return reduceMemberCall((MemberCall) node);
+			case NOT:
+				return reduceNot((Not) node);
+			case INSTANCE_OF:
+				return reduceInstanceOf((InstanceOf) node);
+			case NEGATION:
+				return reduceNegation((Negation) node);
+			case EQUALITY:
+				return reduceEquality((Equality) node);
+			case NEW:
+				return reduceNew((New) node);
+			case THIS:
+				return reduceThis((This) node);
+			case HALT:
+				return reduceHalt((Halt) node);
+			case REQUIRE_OBJECT_COERCIBLE:
+				return reduceRequireObjectCoercible((RequireObjectCoercible) node);
+			case TYPE_COERCION_STRING:
+				return reduceTypeCoercionString((TypeCoercionString) node);
+			case TYPE_COERCION_NUMBER:
+				return reduceTypeCoercionNumber((TypeCoercionNumber) node);
+			case TYPE_COERCION_OBJECT:
+				return reduceTypeCoercionObject((TypeCoercionObject) node);
+			case KEYS:
+				return reduceKeys((Keys) node);
+			case TYPEOF_GLOBAL:
+				return reduceTypeofGlobal((TypeofGlobal) node);
+			case VOID_OP:
+				return reduceVoidOp((VoidOp) node);
+			case DELETE_GLOBAL_PROPERTY:
+				return reduceDeleteGlobalProperty((DeleteGlobalProperty) node);
+			case LOGIC:
+				return reduceLogic((Logic) node);
+			case IN:
+				return reduceIn((In) node);
+			case DELETE_PROPERTY:
+				return reduceDeleteProperty((DeleteProperty) node);
+			case TYPEOF:
+				return reduceTypeof((Typeof) node);
+			case BITWISE_NOT:
+				return reduceBitwiseNot((BitwiseNot) node);
+			case BLOCK:
+				return reduceBlock((Block) node);
+			case BREAK_TARGET:
+				return reduceBreakTarget((BreakTarget) node);
+			case BREAK:
+				return reduceBreak((Break) node);
+			case IF_ELSE:
+				return reduceIfElse((IfElse) node);
+			case LOOP:
+				return reduceLoop((Loop) node);
+			case VOID:
+				return reduceVoid((Void) node);
+			case THROW:
+				return reduceThrow((Throw) node);
+			case MEMBER_DEFINITION:
+				return reduceMemberDefinition((MemberDefinition) node);
+			case TRY_CATCH:
+				return reduceTryCatch((TryCatch) node);
+			case TRY_FINALLY:
+				return reduceTryFinally((TryFinally) node);
+			case SWITCH_STATEMENT:
+				return reduceSwitchStatement((SwitchStatement) node);
+			case RETURN:
+				return reduceReturn((Return) node);
+			case RETURN_AFTER_FINALLIES:
+				return reduceReturnAfterFinallies((ReturnAfterFinallies) node);
+			default:
+				throw new RuntimeException("Node not implemented: " + node.getClass().getSimpleName());
 		}
-		throw new RuntimeException("Node not implemented: " + node.getClass().getSimpleName());
 	}
 
 	@Nonnull
@@ -475,14 +521,16 @@ public final class Director<State> {
 
 	@Nonnull
 	public State reduceMemberAssignmentProperty(@Nonnull MemberAssignmentProperty property) {
-		if (property instanceof MemberAssignmentProperty.StaticValue) {
-			return reduceStaticValue((MemberAssignmentProperty.StaticValue) property);
-		} else if (property instanceof MemberAssignmentProperty.Getter) {
-			return reduceGetter((MemberAssignmentProperty.Getter) property);
-		} else if (property instanceof MemberAssignmentProperty.Setter) {
-			return reduceSetter((MemberAssignmentProperty.Setter) property);
+		switch (Node.Kind.of(property)) {
+			case STATIC_VALUE:
+				return reduceStaticValue((MemberAssignmentProperty.StaticValue) property);
+			case GETTER:
+				return reduceGetter((MemberAssignmentProperty.Getter) property);
+			case SETTER:
+				return reduceSetter((MemberAssignmentProperty.Setter) property);
+			default:
+				throw new RuntimeException("MemberAssignmentProperty not implemented: " + property.getClass().getSimpleName());
 		}
-		throw new RuntimeException("MemberAssignmentProperty not implemented: " + property.getClass().getSimpleName());
 	}
 
 	@Nonnull
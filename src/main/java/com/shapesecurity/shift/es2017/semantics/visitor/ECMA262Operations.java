@@ -2,82 +2,100 @@ package com.shapesecurity.shift.es2017.semantics.visitor;
 
 import com.shapesecurity.functional.data.Maybe;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyArray;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyObject;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralInfinity;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralSymbol;
-import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
 import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
 
 import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.regex.Pattern;
 
 public final class ECMA262Operations {
 
 	private static final long TWO_TO_32 = 4294967296L;
 	private static final long TWO_TO_31 = 2147483648L;
+	// integers up to this print as themselves
+	private static final double TWO_TO_53 = 9007199254740992.0;
+	// StrUnsignedDecimalLiteral, with its sign; Double.parseDouble reads all of these the same way ECMAScript does
+	private static final Pattern STR_DECIMAL_LITERAL = Pattern.compile("[+-]?(?:Infinity|(?:[0-9]+(?:\\.[0-9]*)?|\\.[0-9]+)(?:[eE][+-]?[0-9]+)?)");
+	private static final Pattern BINARY_INTEGER_LITERAL = Pattern.compile("0[bB][01]+");
+	private static final Pattern OCTAL_INTEGER_LITERAL = Pattern.compile("0[oO][0-7]+");
+	private static final Pattern HEX_INTEGER_LITERAL = Pattern.compile("0[xX][0-9a-fA-F]+");
 
 	private ECMA262Operations() {
 	}
 
 	public static Maybe<Type> Type(@Nonnull NodeWithValue node) {
-		if (node instanceof LiteralUndefined) {
-			return Maybe.of(Type.Undefined);
-		} else if (node instanceof LiteralNull) {
-			return Maybe.of(Type.Null);
-		} else if (node instanceof LiteralBoolean) {
-			return Maybe.of(Type.Boolean);
-		} else if (node instanceof LiteralString) {
-			return Maybe.of(Type.String);
-		} else if (node instanceof LiteralSymbol) {
-			return Maybe.of(Type.Symbol);
-		} else if (node instanceof LiteralNumber || node instanceof LiteralInfinity) {
-			return Maybe.of(Type.Number);
-		} else if (node instanceof LiteralEmptyObject || node instanceof LiteralEmptyArray || node instanceof LiteralFunction || node instanceof LiteralRegExp) {
-			return Maybe.of(Type.Object);
-		}
-		return Maybe.empty();
+		switch (Node.Kind.of(node)) {
+			case LITERAL_UNDEFINED:
+				return Maybe.of(Type.Undefined);
+			case LITERAL_NULL:
+				return Maybe.of(Type.Null);
+			case LITERAL_BOOLEAN:
+				return Maybe.of(Type.Boolean);
+			case LITERAL_STRING:
+				return Maybe.of(Type.String);
+			case LITERAL_SYMBOL:
+				return Maybe.of(Type.Symbol);
+			case LITERAL_NUMBER:
+			case LITERAL_INFINITY:
+				return Maybe.of(Type.Number);
+			case LITERAL_EMPTY_OBJECT:
+			case LITERAL_EMPTY_ARRAY:
+			case LITERAL_FUNCTION:
+			case LITERAL_REG_EXP:
+				return Maybe.of(Type.Object);
+			default:
+				return Maybe.empty();
+		}
 	}
 
 	public static Maybe<LiteralString> ToString(@Nonnull NodeWithValue node) {
-		if (node instanceof LiteralUndefined) {
-			return Maybe.of(new LiteralString("undefined"));
-		} else if (node instanceof LiteralNull) {
-			return Maybe.of(new LiteralString("null"));
-		} else if (node instanceof LiteralBoolean) {
-			return Maybe.of(new LiteralString(((LiteralBoolean) node).value ? "true" : "false"));
-		} else if (node instanceof LiteralNumber) {
-			return Maybe.of(new LiteralString(Double.toString(((LiteralNumber) node).value)));
-		} else if (node instanceof LiteralString) {
-			return Maybe.of((LiteralString) node);
-		} else if (node instanceof LiteralSymbol) {
-			// throw a TypeError
-			return Maybe.empty();
+		switch (Node.Kind.of(node)) {
+			case LITERAL_UNDEFINED:
+				return Maybe.of(new LiteralString("undefined"));
+			case LITERAL_NULL:
+				return Maybe.of(new LiteralString("null"));
+			case LITERAL_BOOLEAN:
+				return Maybe.of(new LiteralString(((LiteralBoolean) node).value ? "true" : "false"));
+			case LITERAL_NUMBER:
+				return Maybe.of(new LiteralString(NumberToString(((LiteralNumber) node).value)));
+			case LITERAL_INFINITY:
+				return Maybe.of(new LiteralString("Infinity"));
+			case LITERAL_STRING:
+				return Maybe.of((LiteralString) node);
+			case LITERAL_SYMBOL:
+				// throw a TypeError
+				return Maybe.empty();
+			default:
+				return Maybe.empty();
 		}
-		return Maybe.empty();
 	}
 
 	public static Maybe<LiteralNumber> ToNumber(@Nonnull NodeWithValue node) {
-		if (node instanceof LiteralUndefined) {
-			return Maybe.of(new LiteralNumber(Double.NaN));
-		} else if (node instanceof LiteralNull) {
-			return Maybe.of(new LiteralNumber(0));
-		} else if (node instanceof LiteralBoolean) {
-			return Maybe.of(new LiteralNumber(((LiteralBoolean) node).value ? 1 : 0));
-		} else if (node instanceof LiteralNumber) {
-			return Maybe.of((LiteralNumber) node);
-		} else if (node instanceof LiteralString) {
-			return Maybe.of(new LiteralNumber(Double.parseDouble(((LiteralString) node).value)));
-		} else if (node instanceof LiteralSymbol) {
-
-			// throw a TypeError
-			return Maybe.empty();
+		switch (Node.Kind.of(node)) {
+			case LITERAL_UNDEFINED:
+				return Maybe.of(new LiteralNumber(Double.NaN));
+			case LITERAL_NULL:
+				return Maybe.of(new LiteralNumber(0));
+			case LITERAL_BOOLEAN:
+				return Maybe.of(new LiteralNumber(((LiteralBoolean) node).value ? 1 : 0));
+			case LITERAL_NUMBER:
+				return Maybe.of((LiteralNumber) node);
+			case LITERAL_INFINITY:
+				return Maybe.of(new LiteralNumber(Double.POSITIVE_INFINITY));
+			case LITERAL_STRING:
+				return Maybe.of(new LiteralNumber(StringToNumber(((LiteralString) node).value)));
+			case LITERAL_SYMBOL:
+				// throw a TypeError
+				return Maybe.empty();
+			default:
+				return Maybe.empty();
 		}
-		return Maybe.empty();
 	}
 
 	public static Maybe<Integer> ToInt32(@Nonnull NodeWithValue node) {
@@ -97,17 +115,218 @@ public final class ECMA262Operations {
 				return 0L;
 			} else {
 				long truncated = (long) (Math.floor(Math.abs(number)) % TWO_TO_32);
-				if (number < 0) truncated = TWO_TO_32 - truncated;
+				if (number < 0) truncated = (TWO_TO_32 - truncated) % TWO_TO_32;
 				return truncated;
 			}
 		});
 	}
 
+	// 7.1.12.1 NumberToString
+	@Nonnull
+	public static String NumberToString(double m) {
+		if (Double.isNaN(m)) {
+			return "NaN";
+		} else if (m == 0) {
+			return "0";
+		} else if (m < 0) {
+			return "-" + NumberToString(-m);
+		} else if (Double.isInfinite(m)) {
+			return "Infinity";
+		} else if (m <= TWO_TO_53 && m == Math.floor(m)) {
+			return Long.toString((long) m);
+		}
+		// the fewest digits which read back as m: rounding its exact value to ever more digits finds them, and the closest of them when several
+		// would do
+		BigDecimal exact = new BigDecimal(m);
+		BigDecimal shortest = exact;
+		for (int precision = 1; precision < 17; ++precision) {
+			BigDecimal rounded = exact.round(new MathContext(precision, RoundingMode.HALF_EVEN));
+			if (rounded.doubleValue() == m) {
+				shortest = rounded;
+				break;
+			}
+		}
+		if (shortest == exact) {
+			shortest = exact.round(new MathContext(17, RoundingMode.HALF_EVEN));
+		}
+		shortest = shortest.stripTrailingZeros();
+		// m is digits * 10^(n - k)
+		String digits = shortest.unscaledValue().toString();
+		int k = digits.length();
+		int n = k - shortest.scale();
+		StringBuilder result = new StringBuilder();
+		if (k <= n && n <= 21) {
+			result.append(digits);
+			for (int i = k; i < n; ++i) {
+				result.append('0');
+			}
+		} else if (0 < n && n <= 21) {
+			result.append(digits, 0, n).append('.').append(digits, n, k);
+		} else if (-6 < n && n <= 0) {
+			result.append("0.");
+			for (int i = n; i < 0; ++i) {
+				result.append('0');
+			}
+			result.append(digits);
+		} else {
+			result.append(digits.charAt(0));
+			if (k > 1) {
+				result.append('.').append(digits, 1, k);
+			}
+			result.append('e').append(n - 1 < 0 ? '-' : '+').append(Math.abs(n - 1));
+		}
+		return result.toString();
+	}
+
+	// 7.1.3.1 ToNumber Applied to the String Type
+	public static double StringToNumber(@Nonnull String string) {
+		int start = 0;
+		int end = string.length();
+		while (start < end && isWhiteSpaceOrLineTerminator(string.charAt(start))) {
+			++start;
+		}
+		while (end > start && isWhiteSpaceOrLineTerminator(string.charAt(end - 1))) {
+			--end;
+		}
+		String literal = string.substring(start, end);
+		if (literal.isEmpty()) {
+			return 0;
+		} else if (STR_DECIMAL_LITERAL.matcher(literal).matches()) {
+			return Double.parseDouble(literal);
+		} else if (BINARY_INTEGER_LITERAL.matcher(literal).matches()) {
+			return new BigInteger(literal.substring(2), 2).doubleValue();
+		} else if (OCTAL_INTEGER_LITERAL.matcher(literal).matches()) {
+			return new BigInteger(literal.substring(2), 8).doubleValue();
+		} else if (HEX_INTEGER_LITERAL.matcher(literal).matches()) {
+			return new BigInteger(literal.substring(2), 16).doubleValue();
+		}
+		return Double.NaN;
+	}
+
+	// WhiteSpace and LineTerminator, with the Zs characters listed rather than left to the Unicode version of the JDK
+	private static boolean isWhiteSpaceOrLineTerminator(char c) {
+		switch (c) {
+			case '\t':
+			case '\u000B':
+			case '\f':
+			case ' ':
+			case '\u00A0':
+			case '\uFEFF':
+			case '\n':
+			case '\r':
+			case '\u2028':
+			case '\u2029':
+			case '\u1680':
+			case '\u202F':
+			case '\u205F':
+			case '\u3000':
+				return true;
+			default:
+				return c >= '\u2000' && c <= '\u200A';
+		}
+	}
+
+	// 7.2.14 Strict Equality Comparison, where the answer does not depend on anything but the nodes themselves. Every evaluation of an object
+	// literal makes a new object, so two of them are never the same; symbols are left alone.
+	@Nonnull
+	public static Maybe<Boolean> StrictEqualityComparison(@Nonnull NodeWithValue x, @Nonnull NodeWithValue y) {
+		Maybe<Type> maybeTypeX = Type(x);
+		Maybe<Type> maybeTypeY = Type(y);
+		if (maybeTypeX.isNothing() || maybeTypeY.isNothing()) {
+			return Maybe.empty();
+		}
+		Type typeX = maybeTypeX.fromJust();
+		if (typeX != maybeTypeY.fromJust()) {
+			return Maybe.of(false);
+		}
+		switch (typeX) {
+			case Undefined:
+			case Null:
+				return Maybe.of(true);
+			case Number:
+				// NaN is not equal to itself, and 0 is equal to -0, as with Java's ==
+				return Maybe.of(ToNumber(x).fromJust().value == ToNumber(y).fromJust().value);
+			case String:
+				return Maybe.of(((LiteralString) x).value.equals(((LiteralString) y).value));
+			case Boolean:
+				return Maybe.of(((LiteralBoolean) x).value == ((LiteralBoolean) y).value);
+			case Object:
+				return Maybe.of(false);
+			default:
+				return Maybe.empty();
+		}
+	}
+
+	// 7.2.13 Abstract Equality Comparison, without the cases which call ToPrimitive on an object, and so may run user code.
+	@Nonnull
+	public static Maybe<Boolean> AbstractEqualityComparison(@Nonnull NodeWithValue x, @Nonnull NodeWithValue y) {
+		Maybe<Type> maybeTypeX = Type(x);
+		Maybe<Type> maybeTypeY = Type(y);
+		if (maybeTypeX.isNothing() || maybeTypeY.isNothing()) {
+			return Maybe.empty();
+		}
+		Type typeX = maybeTypeX.fromJust();
+		Type typeY = maybeTypeY.fromJust();
+		if (typeX == typeY) {
+			return StrictEqualityComparison(x, y);
+		} else if (isNullOrUndefined(typeX) || isNullOrUndefined(typeY)) {
+			return Maybe.of(isNullOrUndefined(typeX) && isNullOrUndefined(typeY));
+		} else if (typeX == Type.Number && typeY == Type.String || typeX == Type.String && typeY == Type.Number) {
+			return Maybe.of(ToNumber(x).fromJust().value == ToNumber(y).fromJust().value);
+		} else if (typeX == Type.Boolean) {
+			return AbstractEqualityComparison(ToNumber(x).fromJust(), y);
+		} else if (typeY == Type.Boolean) {
+			return AbstractEqualityComparison(x, ToNumber(y).fromJust());
+		} else if (typeX == Type.Object || typeY == Type.Object) {
+			return Maybe.empty();
+		}
+		// a symbol and a number or string
+		return Maybe.of(false);
+	}
+
+	private static boolean isNullOrUndefined(@Nonnull Type type) {
+		return type == Type.Null || type == Type.Undefined;
+	}
+
+	// The result of the typeof operator, for literals.
+	@Nonnull
+	public static Maybe<String> Typeof(@Nonnull NodeWithValue node) {
+		switch (Node.Kind.of(node)) {
+			case LITERAL_UNDEFINED:
+				return Maybe.of("undefined");
+			case LITERAL_NULL:
+			case LITERAL_EMPTY_OBJECT:
+			case LITERAL_EMPTY_ARRAY:
+			case LITERAL_REG_EXP:
+				return Maybe.of("object");
+			case LITERAL_BOOLEAN:
+				return Maybe.of("boolean");
+			case LITERAL_NUMBER:
+			case LITERAL_INFINITY:
+				return Maybe.of("number");
+			case LITERAL_STRING:
+				return Maybe.of("string");
+			case LITERAL_SYMBOL:
+				return Maybe.of("symbol");
+			case LITERAL_FUNCTION:
+				return Maybe.of("function");
+			default:
+				return Maybe.empty();
+		}
+	}
+
 	public static Maybe<NodeWithValue> ToPrimitive(@Nonnull NodeWithValue node) {
-		if (node instanceof LiteralUndefined || node instanceof LiteralNull || node instanceof LiteralBoolean || node instanceof LiteralNumber || node instanceof LiteralString || node instanceof LiteralSymbol) {
-			return Maybe.of(node);
+		switch (Node.Kind.of(node)) {
+			case LITERAL_UNDEFINED:
+			case LITERAL_NULL:
+			case LITERAL_BOOLEAN:
+			case LITERAL_NUMBER:
+			case LITERAL_STRING:
+			case LITERAL_SYMBOL:
+				return Maybe.of(node);
+			default:
+				return Maybe.empty();
 		}
-		return Maybe.empty();
 	}
 
 	public enum Type {
@@ -1,37 +1,117 @@
 package com.shapesecurity.shift.es2017.semantics.visitor;
 
-import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteGlobalProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralSymbol;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
 
 import javax.annotation.Nonnull;
-import java.util.Iterator;
+import java.util.Arrays;
 
+// Both walk the graphs in pre-order on an explicit stack, without listing their nodes first. A node reached along several paths is compared or
+// hashed once for each, as GetDescendents lists it.
 public final class EqualityChecker {
 
 	private EqualityChecker() {
 
 	}
 
+	// Compares the graphs in lockstep, returning as soon as two nodes differ. Identical subgraphs are not walked.
+	// Numbers are equal when they are the same value, as LiteralNumber.equalsIgnoringChildren has it: NaN is equal to NaN, and 0 is not equal to
+	// -0, since code such as 1 / x tells them apart.
 	public static boolean nodesAreEqual(@Nonnull Node node1, @Nonnull Node node2) {
-		if (node1 == node2) {
-			return true;
-		}
-		if (!node1.equalsIgnoringChildren(node2)) {
-			return false;
-		}
-		ImmutableList<Node> nodeList1 = GetDescendents.getDescendants(node1);
-		ImmutableList<Node> nodeList2 = GetDescendents.getDescendants(node2);
-		if (nodeList1.length != nodeList2.length) {
-			return false;
-		}
-		Iterator<Node> node1Iterator = nodeList1.iterator();
-		Iterator<Node> node2Iterator = nodeList2.iterator();
-		while (node1Iterator.hasNext() && node2Iterator.hasNext()) {
-			if (!node1Iterator.next().equalsIgnoringChildren(node2Iterator.next())) {
+		// pairs of nodes still to compare
+		Node[] stack = new Node[64];
+		int size = 0;
+		stack[size++] = node1;
+		stack[size++] = node2;
+		while (size > 0) {
+			Node right = stack[--size];
+			Node left = stack[--size];
+			if (left == right) {
+				continue;
+			}
+			if (!left.equalsIgnoringChildren(right)) {
 				return false;
 			}
+			Node[] leftChildren = IterativeDirector.children(left, Node.Kind.of(left));
+			Node[] rightChildren = IterativeDirector.children(right, Node.Kind.of(right));
+			if (leftChildren.length != rightChildren.length) {
+				return false;
+			}
+			if (size + 2 * leftChildren.length > stack.length) {
+				stack = Arrays.copyOf(stack, Math.max(2 * stack.length, size + 2 * leftChildren.length));
+			}
+			for (int i = leftChildren.length - 1; i >= 0; --i) {
+				stack[size++] = leftChildren[i];
+				stack[size++] = rightChildren[i];
+			}
+		}
+		return true;
+	}
+
+	// A hash of the graph consistent with nodesAreEqual: equal graphs have equal hashes. It takes a walk of the whole graph, so callers using it as
+	// a key should keep it, as Semantics.hashCode does.
+	public static int structuralHash(@Nonnull Node node) {
+		int hash = 1;
+		Node[] stack = new Node[64];
+		int size = 0;
+		stack[size++] = node;
+		while (size > 0) {
+			Node next = stack[--size];
+			Node.Kind kind = Node.Kind.of(next);
+			Node[] children = IterativeDirector.children(next, kind);
+			hash = 31 * (31 * hash + hashIgnoringChildren(next, kind)) + children.length;
+			if (size + children.length > stack.length) {
+				stack = Arrays.copyOf(stack, Math.max(2 * stack.length, size + children.length));
+			}
+			for (int i = children.length - 1; i >= 0; --i) {
+				stack[size++] = children[i];
+			}
+		}
+		return hash;
+	}
+
+	// Consistent with Node.equalsIgnoringChildren, which never holds between nodes of different kinds. Only the cheaper of the fields it compares
+	// are hashed.
+	private static int hashIgnoringChildren(@Nonnull Node node, @Nonnull Node.Kind kind) {
+		int hash = 31 * kind.ordinal();
+		switch (kind) {
+			case BREAK_TARGET:
+				// equal only to itself
+				return hash + System.identityHashCode(node);
+			case DELETE_GLOBAL_PROPERTY:
+				return hash + ((DeleteGlobalProperty) node).which.hashCode();
+			case GLOBAL_REFERENCE:
+				return hash + ((GlobalReference) node).name.hashCode();
+			case LITERAL_BOOLEAN:
+				return hash + Boolean.hashCode(((LiteralBoolean) node).value);
+			case LITERAL_FUNCTION:
+				return hash + ((LiteralFunction) node).parameters.length;
+			case LITERAL_NUMBER:
+				return hash + Double.hashCode(((LiteralNumber) node).value);
+			case LITERAL_REG_EXP:
+				return hash + ((LiteralRegExp) node).pattern.hashCode();
+			case LITERAL_STRING:
+				return hash + ((LiteralString) node).value.hashCode();
+			case LITERAL_SYMBOL:
+				return hash + ((LiteralSymbol) node).description.hashCode();
+			case LOCAL_REFERENCE:
+			case TEMPORARY_REFERENCE:
+				// variables are equal only to themselves, and so have the same name
+				return hash + ((LocalReference) node).variable.name.hashCode();
+			case TYPEOF_GLOBAL:
+				return hash + ((TypeofGlobal) node).which.hashCode();
+			default:
+				return hash;
 		}
-		return !node1Iterator.hasNext() && !node2Iterator.hasNext();
 	}
 
 }
@@ -28,11 +28,13 @@ import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
 import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
 import com.shapesecurity.shift.es2017.semantics.asg.New;
 import com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible;
 import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
 import com.shapesecurity.shift.es2017.semantics.asg.This;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
 import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
@@ -105,6 +107,13 @@ public interface FAlgebraNodeWithValue<T> {
 	@Nonnull
 	T apply(MemberAssignment memberAssignment);
 
+	// defaults, so that implementations written before CataNodeWithValue dispatched these still compile; they throw, naming the node type and
+	// the implementation which does not handle it
+	@Nonnull
+	default T apply(MemberCall memberCall) {
+		throw new UnsupportedOperationException("apply(MemberCall) not implemented by " + getClass().getName());
+	}
+
 	@Nonnull
 	T apply(New new_);
 
@@ -123,6 +132,12 @@ public interface FAlgebraNodeWithValue<T> {
 	@Nonnull
 	T apply(TypeCoercionNumber typeCoercionNumber);
 
+	// as for MemberCall
+	@Nonnull
+	default T apply(TypeCoercionObject typeCoercionObject) {
+		throw new UnsupportedOperationException("apply(TypeCoercionObject) not implemented by " + getClass().getName());
+	}
+
 	@Nonnull
 	T apply(TypeCoercionString typeCoercionString);
 
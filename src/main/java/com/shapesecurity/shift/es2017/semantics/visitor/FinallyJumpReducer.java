@@ -38,7 +38,7 @@ public class FinallyJumpReducer extends MonoidalReducer<FinallyJumpReducer.State
 	public static final FinallyJumpReducer INSTANCE = new FinallyJumpReducer();
 
 	private FinallyJumpReducer() {
-		super(new StateMonoid());
+		super(StateMonoid.INSTANCE);
 	}
 
 	@Nonnull
@@ -370,7 +370,9 @@ public class FinallyJumpReducer extends MonoidalReducer<FinallyJumpReducer.State
 		}
 	}
 
-	private static final class StateMonoid implements Monoid<State> {
+	static final class StateMonoid implements Monoid<State> {
+		static final StateMonoid INSTANCE = new StateMonoid();
+
 		@Override
 		@Nonnull
 		public State identity() {
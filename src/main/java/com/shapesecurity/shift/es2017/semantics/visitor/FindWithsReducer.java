@@ -16,7 +16,7 @@ import javax.annotation.Nonnull;
 public class FindWithsReducer extends MonoidalReducer<Pair<ConcatList<WithStatement>, MultiHashTable<FunctionBody, WithStatement>>> {
 	// Gives a map from function bodies to the WithStatements they contain.
 	// Would need to be changed slightly for ES6, where you can have with statements in parameter lists (ugh), but that doesn't come up here.
-	private static class StateMonoid implements Monoid<Pair<ConcatList<WithStatement>, MultiHashTable<FunctionBody, WithStatement>>> {
+	static class StateMonoid implements Monoid<Pair<ConcatList<WithStatement>, MultiHashTable<FunctionBody, WithStatement>>> {
 		// TODO: it would be better to use the FreePairingMonoid, but shape-functional-java doesn't provide an implementation for MultiHashTableIdentityMergeMonoid
 		static StateMonoid INSTANCE = new StateMonoid();
 
@@ -33,7 +33,7 @@ public class FindWithsReducer extends MonoidalReducer<Pair<ConcatList<WithStatem
 		}
 	}
 
-	private static FindWithsReducer INSTANCE = new FindWithsReducer();
+	static final FindWithsReducer INSTANCE = new FindWithsReducer();
 	private FindWithsReducer() {
 		super(StateMonoid.INSTANCE);
 	}
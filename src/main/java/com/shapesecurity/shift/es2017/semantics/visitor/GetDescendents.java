@@ -14,6 +14,15 @@ public final class GetDescendents extends MonoidalReducer<ConcatList<Node>> {
 		return new Director<>(new GetDescendents()).reduceNode(node).toList();
 	}
 
+	public static ImmutableList<Node> getDescendants(@Nonnull Node node, @Nonnull Director.Memoization memoization) {
+		return new Director<>(new GetDescendents(), memoization).reduceNode(node).toList();
+	}
+
+	// Lists in the same order as getDescendants, working on the common ForkJoinPool.
+	public static ImmutableList<Node> getDescendantsInParallel(@Nonnull Node node) {
+		return new ParallelDirector<>(new GetDescendents()).reduceNode(node).toList();
+	}
+
 	private GetDescendents() {
 		super(new Monoid.ConcatListAppend<>());
 	}
@@ -0,0 +1,470 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.BinaryOperation;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.In;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.InstanceOf;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.Call;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteGlobalProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Halt;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.Keys;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyArray;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyObject;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralInfinity;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralSymbol;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Loop;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberDefinition;
+import com.shapesecurity.shift.es2017.semantics.asg.New;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible;
+import com.shapesecurity.shift.es2017.semantics.asg.Return;
+import com.shapesecurity.shift.es2017.semantics.asg.ReturnAfterFinallies;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.asg.This;
+import com.shapesecurity.shift.es2017.semantics.asg.Throw;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Negation;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Typeof;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.UnaryOperation;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.Void;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Drives a Reducer over a graph exactly as Director does, calling the reducer's methods in the same order with the same arguments, but keeping its
+// work on an explicit stack rather than the call stack. Minified code produces very deep graphs (e.g. a long chain of `+` or of nested
+// conditionals), which overflow the default thread stack under Director; this runs them in constant stack depth, at some cost in speed.
+public final class IterativeDirector<State> {
+	@Nonnull
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	@Nonnull
+	private final Reducer<State> reducer;
+	@Nonnull
+	private final Director.Memoization memoization;
+	@Nonnull
+	private final Map<Node, State> newNodes;
+
+	public IterativeDirector(@Nonnull Reducer<State> reducer) {
+		this(reducer, Director.Memoization.ALL_NODES);
+	}
+
+	public IterativeDirector(@Nonnull Reducer<State> reducer, @Nonnull Director.Memoization memoization) {
+		this.reducer = reducer;
+		this.memoization = memoization;
+		this.newNodes = memoization == Director.Memoization.ALL_NODES ? new HashMap<>() : new IdentityHashMap<>();
+	}
+
+	@Nonnull
+	public State reduceNodeWithValue(@Nonnull NodeWithValue expression) {
+		return this.reduceNode(expression);
+	}
+
+	@Nonnull
+	public State reduceNode(@Nonnull Node node) {
+		ArrayDeque<Frame<State>> stack = new ArrayDeque<>();
+		// the state of the node most recently reduced, to be handed to the frame on top of the stack; null when a frame has just been pushed
+		State reduced = this.enter(node, Node.Kind.of(node), stack);
+		while (!stack.isEmpty()) {
+			Frame<State> frame = stack.peek();
+			if (reduced != null) {
+				frame.states[frame.reducedChildren++] = reduced;
+			}
+			if (frame.reducedChildren < frame.children.length) {
+				reduced = this.enter(frame.children[frame.reducedChildren], childKind(frame.kind, frame.children[frame.reducedChildren], frame.reducedChildren), stack);
+			} else {
+				stack.pop();
+				reduced = this.exit(frame.node, frame.kind, frame.states);
+			}
+		}
+		return reduced;
+	}
+
+	// Returns the state of `node` if it is remembered or has no children, and otherwise pushes a frame for it and returns null.
+	@Nullable
+	private State enter(@Nonnull Node node, @Nonnull Node.Kind kind, @Nonnull ArrayDeque<Frame<State>> stack) {
+		if (this.remembers(node) && this.newNodes.containsKey(node)) {
+			return this.newNodes.get(node);
+		}
+		Node[] children = children(node, kind);
+		if (children.length == 0) {
+			return this.exit(node, kind, newStates(0));
+		}
+		stack.push(new Frame<>(node, kind, children, newStates(children.length)));
+		return null;
+	}
+
+	@Nonnull
+	private State exit(@Nonnull Node node, @Nonnull Node.Kind kind, @Nonnull State[] states) {
+		State state = this.reducer.reduceAll(node, reduce(this.reducer, node, kind, states));
+		if (this.remembers(node)) {
+			this.newNodes.put(node, state);
+		}
+		return state;
+	}
+
+	private boolean remembers(@Nonnull Node node) {
+		return this.memoization == Director.Memoization.ALL_NODES || Director.isShareable(node);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nonnull
+	static <State> State[] newStates(int length) {
+		return (State[]) new Object[length];
+	}
+
+	// The kind Director reduces `child` as, when it is at `index` among the children of a node of kind `parentKind`: Director reduces these
+	// children with reduceLocalReference even when they are temporaries.
+	@Nonnull
+	static Node.Kind childKind(@Nonnull Node.Kind parentKind, @Nonnull Node child, int index) {
+		Node.Kind kind = Node.Kind.of(child);
+		if (kind == Node.Kind.TEMPORARY_REFERENCE && index == 0) {
+			switch (parentKind) {
+				case SWITCH_STATEMENT:
+				case RETURN_AFTER_FINALLIES:
+				case VARIABLE_ASSIGNMENT:
+					return Node.Kind.LOCAL_REFERENCE;
+				default:
+					break;
+			}
+		}
+		return kind;
+	}
+
+	// The children of `node`, in the order in which Director reduces them.
+	@Nonnull
+	static Node[] children(@Nonnull Node node, @Nonnull Node.Kind kind) {
+		switch (kind) {
+			case BLOCK:
+				return ((Block) node).children.toArray(new Node[0]);
+			case BREAK:
+				return new Node[]{ ((Break) node).target };
+			case CALL: {
+				Call call = (Call) node;
+				return prepend(call.arguments, call.callee);
+			}
+			case LITERAL_FUNCTION:
+				return new Node[]{ ((LiteralFunction) node).body() };
+			case RETURN:
+				return ((Return) node).expression.map(expression -> new Node[]{ expression }).orJust(NO_CHILDREN);
+			case RETURN_AFTER_FINALLIES:
+				return ((ReturnAfterFinallies) node).savedValue.map(savedValue -> new Node[]{ savedValue }).orJust(NO_CHILDREN);
+			case MEMBER_CALL: {
+				MemberCall memberCall = (MemberCall) node;
+				return prepend(memberCall.arguments, memberCall.object, memberCall.fieldExpression);
+			}
+			case NOT:
+			case NEGATION:
+			case TYPEOF:
+			case BITWISE_NOT:
+			case VOID_OP:
+				return new Node[]{ ((UnaryOperation) node).expression() };
+			case BLOCK_WITH_VALUE:
+				return new Node[]{ ((BlockWithValue) node).head, ((BlockWithValue) node).result };
+			case FLOAT_MATH:
+			case INT_MATH:
+			case INSTANCE_OF:
+			case EQUALITY:
+			case LOGIC:
+			case IN:
+			case RELATIONAL_COMPARISON:
+				return new Node[]{ ((BinaryOperation) node).left(), ((BinaryOperation) node).right() };
+			case NEW: {
+				New _new = (New) node;
+				return prepend(_new.arguments, _new.callee);
+			}
+			case REQUIRE_OBJECT_COERCIBLE:
+				return new Node[]{ ((RequireObjectCoercible) node).expression };
+			case TYPE_COERCION_STRING:
+				return new Node[]{ ((TypeCoercionString) node).expression };
+			case TYPE_COERCION_NUMBER:
+				return new Node[]{ ((TypeCoercionNumber) node).expression };
+			case TYPE_COERCION_OBJECT:
+				return new Node[]{ ((TypeCoercionObject) node).expression };
+			case KEYS:
+				return new Node[]{ ((Keys) node)._object };
+			case DELETE_PROPERTY:
+				return new Node[]{ ((DeleteProperty) node).object, ((DeleteProperty) node).fieldExpression };
+			case MEMBER_ACCESS:
+				return new Node[]{ ((MemberAccess) node).object, ((MemberAccess) node).fieldExpression };
+			case MEMBER_ASSIGNMENT: {
+				MemberAssignment memberAssignment = (MemberAssignment) node;
+				return new Node[]{ memberAssignment.object, memberAssignment.fieldExpression, memberAssignment.property.value };
+			}
+			case THROW:
+				return new Node[]{ ((Throw) node).expression };
+			case STATIC_VALUE:
+				return new Node[]{ ((MemberAssignmentProperty.StaticValue) node).value };
+			case GETTER:
+				return new Node[]{ ((MemberAssignmentProperty.Getter) node).value };
+			case SETTER:
+				return new Node[]{ ((MemberAssignmentProperty.Setter) node).value };
+			case MEMBER_DEFINITION: {
+				MemberDefinition memberDefinition = (MemberDefinition) node;
+				return new Node[]{ memberDefinition.object, memberDefinition.fieldExpression, memberDefinition.property };
+			}
+			case TRY_CATCH:
+				return new Node[]{ ((TryCatch) node).tryBody, ((TryCatch) node).catchBody.right };
+			case TRY_FINALLY:
+				return new Node[]{ ((TryFinally) node).tryBody, ((TryFinally) node).finallyBody };
+			case SWITCH_STATEMENT: {
+				SwitchStatement switchStatement = (SwitchStatement) node;
+				Node[] children = new Node[2 + 2 * (switchStatement.preDefaultCases.length + switchStatement.postDefaultCases.length)];
+				int i = 0;
+				children[i++] = switchStatement.discriminant;
+				for (Pair<NodeWithValue, Block> pair : switchStatement.preDefaultCases) {
+					children[i++] = pair.left;
+					children[i++] = pair.right;
+				}
+				children[i++] = switchStatement.defaultCase;
+				for (Pair<NodeWithValue, Block> pair : switchStatement.postDefaultCases) {
+					children[i++] = pair.left;
+					children[i++] = pair.right;
+				}
+				return children;
+			}
+			case IF_ELSE: {
+				IfElse ifElse = (IfElse) node;
+				return new Node[]{ ifElse.test, ifElse.consequent, ifElse.alternate };
+			}
+			case LOOP:
+				return new Node[]{ ((Loop) node).block };
+			case VARIABLE_ASSIGNMENT: {
+				VariableAssignment variableAssignment = (VariableAssignment) node;
+				return new Node[]{ variableAssignment.ref.<Node>either(ref -> ref, ref -> ref), variableAssignment.value };
+			}
+			case BREAK_TARGET:
+			case LITERAL_UNDEFINED:
+			case LITERAL_SYMBOL:
+			case LITERAL_INFINITY:
+			case LITERAL_REG_EXP:
+			case LITERAL_EMPTY_ARRAY:
+			case LITERAL_EMPTY_OBJECT:
+			case LITERAL_NULL:
+			case LITERAL_STRING:
+			case LITERAL_NUMBER:
+			case LITERAL_BOOLEAN:
+			case THIS:
+			case TYPEOF_GLOBAL:
+			case DELETE_GLOBAL_PROPERTY:
+			case HALT:
+			case GLOBAL_REFERENCE:
+			case TEMPORARY_REFERENCE:
+			case LOCAL_REFERENCE:
+			case VOID:
+				return NO_CHILDREN;
+			default:
+				throw new RuntimeException("Node not implemented: " + node.getClass().getSimpleName());
+		}
+	}
+
+	@Nonnull
+	private static Node[] prepend(@Nonnull ImmutableList<? extends Node> rest, @Nonnull Node... first) {
+		Node[] children = new Node[first.length + rest.length];
+		System.arraycopy(first, 0, children, 0, first.length);
+		int i = first.length;
+		for (Node node : rest) {
+			children[i++] = node;
+		}
+		return children;
+	}
+
+	// Calls the reducer method for `node`, given the states of its children in the order produced by `children`.
+	@Nonnull
+	static <State> State reduce(@Nonnull Reducer<State> reducer, @Nonnull Node node, @Nonnull Node.Kind kind, @Nonnull State[] s) {
+		switch (kind) {
+			case BLOCK:
+				return reducer.reduceBlock((Block) node, ImmutableList.from(s));
+			case BREAK:
+				return reducer.reduceBreak((Break) node, s[0]);
+			case BREAK_TARGET:
+				return reducer.reduceBreakTarget((BreakTarget) node);
+			case CALL:
+				return reducer.reduceCall((Call) node, s[0], ImmutableList.fromBounded(s, 1, s.length));
+			case LITERAL_UNDEFINED:
+				return reducer.reduceLiteralUndefined((LiteralUndefined) node);
+			case LITERAL_SYMBOL:
+				return reducer.reduceLiteralSymbol((LiteralSymbol) node);
+			case LITERAL_INFINITY:
+				return reducer.reduceLiteralInfinity((LiteralInfinity) node);
+			case LITERAL_REG_EXP:
+				return reducer.reduceLiteralRegExp((LiteralRegExp) node);
+			case LITERAL_EMPTY_ARRAY:
+				return reducer.reduceLiteralEmptyArray((LiteralEmptyArray) node);
+			case LITERAL_EMPTY_OBJECT:
+				return reducer.reduceLiteralEmptyObject((LiteralEmptyObject) node);
+			case LITERAL_FUNCTION:
+				return reducer.reduceLiteralFunction((LiteralFunction) node, s[0]);
+			case RETURN:
+				return reducer.reduceReturn((Return) node, s.length == 0 ? Maybe.empty() : Maybe.of(s[0]));
+			case RETURN_AFTER_FINALLIES:
+				return reducer.reduceReturnAfterFinallies((ReturnAfterFinallies) node, s.length == 0 ? Maybe.empty() : Maybe.of(s[0]));
+			case LITERAL_NULL:
+				return reducer.reduceLiteralNull((LiteralNull) node);
+			case LITERAL_STRING:
+				return reducer.reduceLiteralString((LiteralString) node);
+			case LITERAL_NUMBER:
+				return reducer.reduceLiteralNumber((LiteralNumber) node);
+			case LITERAL_BOOLEAN:
+				return reducer.reduceLiteralBoolean((LiteralBoolean) node);
+			case MEMBER_CALL:
+				return reducer.reduceMemberCall((MemberCall) node, s[0], s[1], ImmutableList.fromBounded(s, 2, s.length));
+			case NOT:
+				return reducer.reduceNot((Not) node, s[0]);
+			case BLOCK_WITH_VALUE:
+				return reducer.reduceBlockWithValue((BlockWithValue) node, s[0], s[1]);
+			case FLOAT_MATH:
+				return reducer.reduceFloatMath((FloatMath) node, s[0], s[1]);
+			case INT_MATH:
+				return reducer.reduceIntMath((IntMath) node, s[0], s[1]);
+			case INSTANCE_OF:
+				return reducer.reduceInstanceOf((InstanceOf) node, s[0], s[1]);
+			case NEGATION:
+				return reducer.reduceNegation((Negation) node, s[0]);
+			case EQUALITY:
+				return reducer.reduceEquality((Equality) node, s[0], s[1]);
+			case NEW:
+				return reducer.reduceNew((New) node, s[0], ImmutableList.fromBounded(s, 1, s.length));
+			case THIS:
+				return reducer.reduceThis((This) node);
+			case REQUIRE_OBJECT_COERCIBLE:
+				return reducer.reduceRequireObjectCoercible((RequireObjectCoercible) node, s[0]);
+			case TYPE_COERCION_STRING:
+				return reducer.reduceTypeCoercionString((TypeCoercionString) node, s[0]);
+			case TYPE_COERCION_NUMBER:
+				return reducer.reduceTypeCoercionNumber((TypeCoercionNumber) node, s[0]);
+			case TYPE_COERCION_OBJECT:
+				return reducer.reduceTypeCoercionObject((TypeCoercionObject) node, s[0]);
+			case KEYS:
+				return reducer.reduceKeys((Keys) node, s[0]);
+			case TYPEOF_GLOBAL:
+				return reducer.reduceTypeofGlobal((TypeofGlobal) node);
+			case VOID_OP:
+				return reducer.reduceVoidOp((VoidOp) node, s[0]);
+			case DELETE_GLOBAL_PROPERTY:
+				return reducer.reduceDeleteGlobalProperty((DeleteGlobalProperty) node);
+			case LOGIC:
+				return reducer.reduceLogic((Logic) node, s[0], s[1]);
+			case HALT:
+				return reducer.reduceHalt((Halt) node);
+			case IN:
+				return reducer.reduceIn((In) node, s[0], s[1]);
+			case DELETE_PROPERTY:
+				return reducer.reduceDeleteProperty((DeleteProperty) node, s[0], s[1]);
+			case TYPEOF:
+				return reducer.reduceTypeof((Typeof) node, s[0]);
+			case BITWISE_NOT:
+				return reducer.reduceBitwiseNot((BitwiseNot) node, s[0]);
+			case GLOBAL_REFERENCE:
+				return reducer.reduceGlobalReference((GlobalReference) node);
+			case TEMPORARY_REFERENCE:
+				return reducer.reduceTemporaryReference((TemporaryReference) node);
+			case LOCAL_REFERENCE:
+				return reducer.reduceLocalReference((LocalReference) node);
+			case MEMBER_ACCESS:
+				return reducer.reduceMemberAccess((MemberAccess) node, s[0], s[1]);
+			case MEMBER_ASSIGNMENT:
+				return reducer.reduceMemberAssignment((MemberAssignment) node, s[0], s[1], s[2]);
+			case THROW:
+				return reducer.reduceThrow((Throw) node, s[0]);
+			case STATIC_VALUE:
+				return reducer.reduceStaticValue((MemberAssignmentProperty.StaticValue) node, s[0]);
+			case GETTER:
+				return reducer.reduceGetter((MemberAssignmentProperty.Getter) node, s[0]);
+			case SETTER:
+				return reducer.reduceSetter((MemberAssignmentProperty.Setter) node, s[0]);
+			case MEMBER_DEFINITION:
+				return reducer.reduceMemberDefinition((MemberDefinition) node, s[0], s[1], s[2]);
+			case TRY_CATCH:
+				return reducer.reduceTryCatch((TryCatch) node, s[0], s[1]);
+			case TRY_FINALLY:
+				return reducer.reduceTryFinally((TryFinally) node, s[0], s[1]);
+			case SWITCH_STATEMENT: {
+				SwitchStatement switchStatement = (SwitchStatement) node;
+				int defaultIndex = 1 + 2 * switchStatement.preDefaultCases.length;
+				return reducer.reduceSwitchStatement(switchStatement, s[0], pairs(s, 1, defaultIndex), s[defaultIndex], pairs(s, defaultIndex + 1, s.length));
+			}
+			case IF_ELSE:
+				return reducer.reduceIfElse((IfElse) node, s[0], s[1], s[2]);
+			case LOOP:
+				return reducer.reduceLoop((Loop) node, s[0]);
+			case RELATIONAL_COMPARISON:
+				return reducer.reduceRelationalComparison((RelationalComparison) node, s[0], s[1]);
+			case VARIABLE_ASSIGNMENT:
+				return reducer.reduceVariableAssignment((VariableAssignment) node, s[0], s[1]);
+			case VOID:
+				return reducer.reduceVoid((Void) node);
+			default:
+				throw new RuntimeException("Node not implemented: " + node.getClass().getSimpleName());
+		}
+	}
+
+	@Nonnull
+	private static <State> ImmutableList<Pair<State, State>> pairs(@Nonnull State[] states, int start, int end) {
+		ImmutableList<Pair<State, State>> pairs = ImmutableList.empty();
+		for (int i = end - 2; i >= start; i -= 2) {
+			pairs = pairs.cons(Pair.of(states[i], states[i + 1]));
+		}
+		return pairs;
+	}
+
+	private static final class Frame<State> {
+		@Nonnull
+		final Node node;
+		@Nonnull
+		final Node.Kind kind;
+		@Nonnull
+		final Node[] children;
+		@Nonnull
+		final State[] states;
+		int reducedChildren = 0;
+
+		Frame(@Nonnull Node node, @Nonnull Node.Kind kind, @Nonnull Node[] children, @Nonnull State[] states) {
+			this.node = node;
+			this.kind = kind;
+			this.children = children;
+			this.states = states;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.data.Monoid;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+
+import javax.annotation.Nonnull;
+
+// Counts nodes the same way GetDescendents lists them, without building the list.
+public final class NodeCounter extends MonoidalReducer<Integer> {
+	@Nonnull
+	private static final NodeCounter INSTANCE = new NodeCounter();
+
+	public static int count(@Nonnull Node node) {
+		return new Director<>(INSTANCE).reduceNode(node);
+	}
+
+	// Counts on the common ForkJoinPool, which pays off for large graphs.
+	public static int countInParallel(@Nonnull Node node) {
+		return new ParallelDirector<>(INSTANCE).reduceNode(node);
+	}
+
+	private NodeCounter() {
+		super(Monoid.INTEGER_ADDITIVE);
+	}
+
+	@Nonnull
+	@Override
+	public Integer reduceAll(@Nonnull Node node, @Nonnull Integer reduced) {
+		return reduced + 1;
+	}
+}
@@ -0,0 +1,221 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Drives a MonoidalReducer over a graph on a ForkJoinPool, giving the same result as Director. The children of a Block with at least
+// `splitThreshold` children are reduced by tasks which split the list in halves, down to runs of fewer than `splitThreshold` children which are
+// reduced one after another, and every function is reduced by a task of its own, forked before its siblings are reduced; the states of siblings
+// are then combined in order, so only the associativity of the monoid is relied on.
+// Within a task, nodes are reduced with an explicit stack, as by IterativeDirector, so deep expressions (e.g. a long chain of `+` or of nested
+// conditionals) do not overflow the default-sized stacks of the pool's threads; the call stack only grows with the nesting of functions and of
+// blocks with at least `splitThreshold` children, since joining a task may run it on the joining thread.
+// The reducer is called from several threads at once, and so must not keep any state of its own. Nodes are not memoized: one reached along several
+// paths is reduced once for each, which for the graphs produced by Explicator only repeats work on leaves (see Director.Memoization.SHARED_NODES).
+public final class ParallelDirector<State> {
+	private static final int DEFAULT_SPLIT_THRESHOLD = 8;
+
+	@Nonnull
+	private final MonoidalReducer<State> reducer;
+	@Nonnull
+	private final ForkJoinPool pool;
+	private final int splitThreshold;
+
+	public ParallelDirector(@Nonnull MonoidalReducer<State> reducer) {
+		this(reducer, ForkJoinPool.commonPool(), DEFAULT_SPLIT_THRESHOLD);
+	}
+
+	public ParallelDirector(@Nonnull MonoidalReducer<State> reducer, @Nonnull ForkJoinPool pool, int splitThreshold) {
+		if (splitThreshold < 2) {
+			throw new IllegalArgumentException("splitThreshold must be at least 2");
+		}
+		this.reducer = reducer;
+		this.pool = pool;
+		this.splitThreshold = splitThreshold;
+	}
+
+	@Nonnull
+	public State reduceNode(@Nonnull Node node) {
+		return this.pool.invoke(new NodeTask(node, Node.Kind.of(node)));
+	}
+
+	// Reduces `node` on the current thread, keeping the path from it to the node being reduced on an explicit stack as IterativeDirector does, so
+	// that deep expressions do not deepen the call stack. Functions are forked, and the children of large blocks are split among tasks, when
+	// their parent is entered; the states of the forked functions are joined when it is left.
+	@Nonnull
+	private State reduce(@Nonnull Node node, @Nonnull Node.Kind kind) {
+		ArrayDeque<Frame<State>> stack = new ArrayDeque<>();
+		// the state of the node most recently reduced, to be handed to the frame on top of the stack; null when a frame has just been pushed
+		State reduced = this.enter(node, kind, stack);
+		while (!stack.isEmpty()) {
+			Frame<State> frame = stack.peek();
+			if (reduced != null) {
+				frame.states[frame.next++] = reduced;
+			}
+			Node.Kind childKind = null;
+			while (frame.next < frame.children.length) {
+				childKind = IterativeDirector.childKind(frame.kind, frame.children[frame.next], frame.next);
+				if (childKind != Node.Kind.LITERAL_FUNCTION) {
+					break;
+				}
+				// reduced by a forked task
+				++frame.next;
+			}
+			if (frame.next < frame.children.length) {
+				reduced = this.enter(frame.children[frame.next], childKind, stack);
+			} else {
+				stack.pop();
+				joinFunctions(frame.forked, frame.states);
+				reduced = this.exit(frame.node, frame.kind, frame.states);
+			}
+		}
+		return reduced;
+	}
+
+	// Returns the state of `node` if it has no children or is a block large enough to be split, and otherwise pushes a frame for it, forking its
+	// functions, and returns null.
+	@Nullable
+	private State enter(@Nonnull Node node, @Nonnull Node.Kind kind, @Nonnull ArrayDeque<Frame<State>> stack) {
+		Node[] children = IterativeDirector.children(node, kind);
+		State[] states = IterativeDirector.newStates(children.length);
+		if (kind == Node.Kind.BLOCK && children.length >= this.splitThreshold) {
+			new ChildrenTask(kind, children, states, 0, children.length).compute();
+			return this.exit(node, kind, states);
+		}
+		if (children.length == 0) {
+			return this.exit(node, kind, states);
+		}
+		stack.push(new Frame<>(node, kind, children, states, this.forkFunctions(kind, children, 0, children.length)));
+		return null;
+	}
+
+	@Nonnull
+	private State exit(@Nonnull Node node, @Nonnull Node.Kind kind, @Nonnull State[] states) {
+		return this.reducer.reduceAll(node, IterativeDirector.reduce(this.reducer, node, kind, states));
+	}
+
+	// Reduces children `from` (inclusive) to `to` (exclusive) into `states`, forking a task for each function among them.
+	private void reduceChildren(@Nonnull Node.Kind parentKind, @Nonnull Node[] children, @Nonnull State[] states, int from, int to) {
+		List<NodeTask> forked = this.forkFunctions(parentKind, children, from, to);
+		for (int i = from; i < to; ++i) {
+			Node.Kind kind = IterativeDirector.childKind(parentKind, children[i], i);
+			if (kind != Node.Kind.LITERAL_FUNCTION) {
+				states[i] = this.reduce(children[i], kind);
+			}
+		}
+		joinFunctions(forked, states);
+	}
+
+	// Forks a task for each function among children `from` (inclusive) to `to` (exclusive); null if there are none.
+	@Nullable
+	private List<NodeTask> forkFunctions(@Nonnull Node.Kind parentKind, @Nonnull Node[] children, int from, int to) {
+		List<NodeTask> forked = null;
+		for (int i = from; i < to; ++i) {
+			Node.Kind kind = IterativeDirector.childKind(parentKind, children[i], i);
+			if (kind == Node.Kind.LITERAL_FUNCTION) {
+				if (forked == null) {
+					forked = new ArrayList<>();
+				}
+				NodeTask task = new NodeTask(children[i], kind);
+				task.index = i;
+				task.fork();
+				forked.add(task);
+			}
+		}
+		return forked;
+	}
+
+	private static <State> void joinFunctions(@Nullable List<ParallelDirector<State>.NodeTask> forked, @Nonnull State[] states) {
+		if (forked != null) {
+			for (int i = forked.size() - 1; i >= 0; --i) {
+				ParallelDirector<State>.NodeTask task = forked.get(i);
+				states[task.index] = task.join();
+			}
+		}
+	}
+
+	private static final class Frame<State> {
+		@Nonnull
+		final Node node;
+		@Nonnull
+		final Node.Kind kind;
+		@Nonnull
+		final Node[] children;
+		@Nonnull
+		final State[] states;
+		// the tasks reducing the functions among `children`, if any
+		@Nullable
+		final List<ParallelDirector<State>.NodeTask> forked;
+		// the index of the child being reduced
+		int next = 0;
+
+		Frame(@Nonnull Node node, @Nonnull Node.Kind kind, @Nonnull Node[] children, @Nonnull State[] states, @Nullable List<ParallelDirector<State>.NodeTask> forked) {
+			this.node = node;
+			this.kind = kind;
+			this.children = children;
+			this.states = states;
+			this.forked = forked;
+		}
+	}
+
+	@SuppressWarnings("serial") // never serialized
+	private final class NodeTask extends RecursiveTask<State> {
+		@Nonnull
+		private final Node node;
+		@Nonnull
+		private final Node.Kind kind;
+		// the position of `node` among its parent's children
+		private int index;
+
+		NodeTask(@Nonnull Node node, @Nonnull Node.Kind kind) {
+			this.node = node;
+			this.kind = kind;
+		}
+
+		@Override
+		protected State compute() {
+			return ParallelDirector.this.reduce(this.node, this.kind);
+		}
+	}
+
+	@SuppressWarnings("serial") // never serialized
+	private final class ChildrenTask extends RecursiveAction {
+		@Nonnull
+		private final Node.Kind parentKind;
+		@Nonnull
+		private final Node[] children;
+		@Nonnull
+		private final State[] states;
+		private final int from;
+		private final int to;
+
+		ChildrenTask(@Nonnull Node.Kind parentKind, @Nonnull Node[] children, @Nonnull State[] states, int from, int to) {
+			this.parentKind = parentKind;
+			this.children = children;
+			this.states = states;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from < ParallelDirector.this.splitThreshold) {
+				ParallelDirector.this.reduceChildren(this.parentKind, this.children, this.states, this.from, this.to);
+				return;
+			}
+			int middle = (this.from + this.to) >>> 1;
+			ChildrenTask left = new ChildrenTask(this.parentKind, this.children, this.states, this.from, middle);
+			left.fork();
+			new ChildrenTask(this.parentKind, this.children, this.states, middle, this.to).compute();
+			left.join();
+		}
+	}
+}
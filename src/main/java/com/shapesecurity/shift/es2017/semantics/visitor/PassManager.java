@@ -0,0 +1,203 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.semantics.Semantics;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Runs a list of passes, such as ConstantFolder.create() and BlockSquasher.create(), over and over until none of them changes the graph, within a
+// limit on iterations and on time.
+// The first iteration runs every pass over the whole graph. After that, only the top level of the script and the functions which were rewritten in
+// the previous iteration are visited: every other function is left as it is, without its body being traversed (or, for a deferred function,
+// explicated). This relies on the passes rewriting a function based only on what is inside it, and on them returning a node unchanged when they
+// do not rewrite it, as ReconstructingReducer does; a function rebuilt only because a function nested in it changed counts as rewritten.
+public final class PassManager {
+	@Nonnull
+	private final ImmutableList<Pass> passes;
+	private final int maxIterations;
+	private final long budgetNanos;
+
+	// Stops once `maxIterations` iterations have run, or when a pass would start more than `budgetNanos` after the first one
+	// started. The first pass always runs.
+	public PassManager(@Nonnull ImmutableList<Pass> passes, int maxIterations, long budgetNanos) {
+		if (passes.isEmpty()) {
+			throw new IllegalArgumentException("passes must not be empty");
+		}
+		if (maxIterations <= 0) {
+			throw new IllegalArgumentException("maxIterations must be positive");
+		}
+		this.passes = passes;
+		this.maxIterations = maxIterations;
+		this.budgetNanos = budgetNanos;
+	}
+
+	public PassManager(@Nonnull ImmutableList<Pass> passes) {
+		this(passes, Integer.MAX_VALUE, Long.MAX_VALUE);
+	}
+
+	public static final class Pass {
+		// used in reports
+		@Nonnull
+		public final String name;
+		@Nonnull
+		public final Reducer<Node> reducer;
+
+		public Pass(@Nonnull String name, @Nonnull Reducer<Node> reducer) {
+			this.name = name;
+			this.reducer = reducer;
+		}
+	}
+
+	// One run of one pass.
+	public static final class PassReport {
+		@Nonnull
+		public final String pass;
+		// counting from 1
+		public final int iteration;
+		// as given by System.nanoTime
+		public final long startNanos;
+		public final long endNanos;
+		// functions whose bodies the pass traversed
+		public final int functionsVisited;
+		// functions the pass rewrote, which are visited again in the next iteration
+		public final int functionsChanged;
+		// whether the pass changed anything, at the top level of the script or in a function
+		public final boolean changed;
+
+		public PassReport(@Nonnull String pass, int iteration, long startNanos, long endNanos, int functionsVisited, int functionsChanged, boolean changed) {
+			this.pass = pass;
+			this.iteration = iteration;
+			this.startNanos = startNanos;
+			this.endNanos = endNanos;
+			this.functionsVisited = functionsVisited;
+			this.functionsChanged = functionsChanged;
+			this.changed = changed;
+		}
+
+		public long durationNanos() {
+			return this.endNanos - this.startNanos;
+		}
+
+		@Override
+		public String toString() {
+			return this.pass + " (iteration " + this.iteration + "): " + this.durationNanos() + "ns, functions visited: " + this.functionsVisited +
+				", functions changed: " + this.functionsChanged + (this.changed ? "" : ", unchanged");
+		}
+	}
+
+	public static final class Result {
+		@Nonnull
+		public final Semantics semantics;
+		// in the order the passes ran
+		@Nonnull
+		public final ImmutableList<PassReport> reports;
+		// including one cut short by the time limit
+		public final int iterations;
+		// false if the limit on iterations or time was reached while passes were still changing the graph
+		public final boolean reachedFixpoint;
+
+		public Result(@Nonnull Semantics semantics, @Nonnull ImmutableList<PassReport> reports, int iterations, boolean reachedFixpoint) {
+			this.semantics = semantics;
+			this.reports = reports;
+			this.iterations = iterations;
+			this.reachedFixpoint = reachedFixpoint;
+		}
+	}
+
+	@Nonnull
+	public Result run(@Nonnull Semantics semantics) {
+		long start = System.nanoTime();
+		List<PassReport> reports = new ArrayList<>();
+		Node root = semantics.node;
+		// functions rewritten in the previous iteration; null before the first, when every function is visited
+		Set<LiteralFunction> dirty = null;
+		int iteration = 0;
+		boolean reachedFixpoint = false;
+		iterations:
+		while (iteration < this.maxIterations) {
+			++iteration;
+			Set<LiteralFunction> previouslyDirty = dirty;
+			Set<LiteralFunction> clean = newIdentitySet();
+			Set<LiteralFunction> visited = newIdentitySet();
+			walk(root, previouslyDirty == null ? f -> false : f -> !previouslyDirty.contains(f), clean, visited);
+			dirty = newIdentitySet();
+			boolean changed = false;
+			for (Pass pass : this.passes) {
+				long passStart = System.nanoTime();
+				if (!reports.isEmpty() && passStart - start > this.budgetNanos) {
+					break iterations;
+				}
+				Director<Node> director = new Director<>(pass.reducer);
+				for (LiteralFunction function : clean) {
+					director.assume(function, function);
+				}
+				Node reduced = director.reduceNode(root);
+				int functionsVisited = visited.size();
+				int functionsChanged = 0;
+				boolean passChanged = reduced != root;
+				if (passChanged) {
+					Set<LiteralFunction> reached = newIdentitySet();
+					walk(reduced, clean::contains, newIdentitySet(), reached);
+					for (LiteralFunction function : reached) {
+						if (!visited.contains(function)) {
+							dirty.add(function);
+							++functionsChanged;
+						}
+					}
+					visited = reached;
+					root = reduced;
+					changed = true;
+				}
+				reports.add(new PassReport(pass.name, iteration, passStart, System.nanoTime(), functionsVisited, functionsChanged, passChanged));
+			}
+			if (!changed) {
+				reachedFixpoint = true;
+				break;
+			}
+		}
+		return new Result(
+			new Semantics(root, semantics.locals, semantics.scriptVarDecls, semantics.scopeLookup, semantics.functionScopes),
+			ImmutableList.from(reports),
+			iteration,
+			reachedFixpoint
+		);
+	}
+
+	// Finds the functions reachable from `root` without entering a function for which `isClean` holds: those are added to `clean`, and the rest,
+	// whose bodies are walked, to `visited`.
+	private static void walk(@Nonnull Node root, @Nonnull Predicate<LiteralFunction> isClean, @Nonnull Set<LiteralFunction> clean, @Nonnull Set<LiteralFunction> visited) {
+		ArrayDeque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			Node.Kind kind = Node.Kind.of(node);
+			if (kind == Node.Kind.LITERAL_FUNCTION) {
+				LiteralFunction function = (LiteralFunction) node;
+				if (isClean.test(function)) {
+					clean.add(function);
+					continue;
+				}
+				if (!visited.add(function)) {
+					continue;
+				}
+			}
+			for (Node child : IterativeDirector.children(node, kind)) {
+				stack.push(child);
+			}
+		}
+	}
+
+	@Nonnull
+	private static Set<LiteralFunction> newIdentitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+}
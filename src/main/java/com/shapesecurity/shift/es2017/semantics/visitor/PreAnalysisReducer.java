@@ -0,0 +1,239 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.ConcatList;
+import com.shapesecurity.functional.data.HashTable;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.functional.data.Monoid;
+import com.shapesecurity.functional.data.MultiHashTable;
+import com.shapesecurity.shift.es2017.ast.*;
+import com.shapesecurity.shift.es2017.ast.Module;
+import com.shapesecurity.shift.es2017.reducer.Director;
+import com.shapesecurity.shift.es2017.reducer.MonoidalReducer;
+import com.shapesecurity.shift.es2017.semantics.BrokenThrough;
+
+import javax.annotation.Nonnull;
+
+// Runs FinallyJumpReducer and FindWithsReducer together in a single traversal of the AST.
+// Each override delegates to both component reducers, so the results are exactly those of running them separately.
+public final class PreAnalysisReducer extends MonoidalReducer<PreAnalysisReducer.State> {
+	@Nonnull
+	private static final PreAnalysisReducer INSTANCE = new PreAnalysisReducer();
+
+	@Nonnull
+	private static final FinallyJumpReducer JUMPS = FinallyJumpReducer.INSTANCE;
+
+	@Nonnull
+	private static final FindWithsReducer WITHS = FindWithsReducer.INSTANCE;
+
+	private PreAnalysisReducer() {
+		super(StateMonoid.INSTANCE);
+	}
+
+	@Nonnull
+	public static Result analyze(@Nonnull Script script) {
+		return new Result(Director.reduceScript(INSTANCE, script));
+	}
+
+	@Nonnull
+	public static Result analyze(@Nonnull Module module) {
+		return new Result(Director.reduceModule(INSTANCE, module));
+	}
+
+	@Nonnull
+	public static Result analyze(@Nonnull Program program) {
+		return new Result(Director.reduceProgram(INSTANCE, program));
+	}
+
+	public static final class Result {
+		// as given by FinallyJumpReducer.analyze
+		@Nonnull
+		public final HashTable<Node, Pair<Node, ImmutableList<BrokenThrough>>> jumpMap;
+		// every with statement in the program, inner statements before the statements containing them
+		@Nonnull
+		public final ImmutableList<WithStatement> withStatements;
+		// as given by FindWithsReducer.reduce
+		@Nonnull
+		public final MultiHashTable<FunctionBody, WithStatement> withStatementsInFunctions;
+
+		private Result(@Nonnull State state) {
+			this.jumpMap = FinallyJumpReducer.extract(state.jumps);
+			this.withStatements = state.withs.left.toList();
+			this.withStatementsInFunctions = state.withs.right;
+		}
+	}
+
+	static final class State {
+		@Nonnull
+		final FinallyJumpReducer.State jumps;
+		@Nonnull
+		final Pair<ConcatList<WithStatement>, MultiHashTable<FunctionBody, WithStatement>> withs;
+
+		State(@Nonnull FinallyJumpReducer.State jumps, @Nonnull Pair<ConcatList<WithStatement>, MultiHashTable<FunctionBody, WithStatement>> withs) {
+			this.jumps = jumps;
+			this.withs = withs;
+		}
+	}
+
+	private static final class StateMonoid implements Monoid<State> {
+		static final StateMonoid INSTANCE = new StateMonoid();
+
+		@Nonnull
+		@Override
+		public State identity() {
+			return new State(FinallyJumpReducer.StateMonoid.INSTANCE.identity(), FindWithsReducer.StateMonoid.INSTANCE.identity());
+		}
+
+		@Nonnull
+		@Override
+		public State append(@Nonnull State a, @Nonnull State b) {
+			if (a == b) {
+				return a;
+			}
+			return new State(
+				FinallyJumpReducer.StateMonoid.INSTANCE.append(a.jumps, b.jumps),
+				FindWithsReducer.StateMonoid.INSTANCE.append(a.withs, b.withs)
+			);
+		}
+	}
+
+	@Nonnull
+	private static ImmutableList<FinallyJumpReducer.State> jumps(@Nonnull ImmutableList<State> states) {
+		return states.map(s -> s.jumps);
+	}
+
+	@Nonnull
+	private static ImmutableList<Pair<ConcatList<WithStatement>, MultiHashTable<FunctionBody, WithStatement>>> withs(@Nonnull ImmutableList<State> states) {
+		return states.map(s -> s.withs);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceBreakStatement(@Nonnull BreakStatement node) {
+		return new State(JUMPS.reduceBreakStatement(node), WITHS.reduceBreakStatement(node));
+	}
+
+	@Nonnull
+	@Override
+	public State reduceContinueStatement(@Nonnull ContinueStatement node) {
+		return new State(JUMPS.reduceContinueStatement(node), WITHS.reduceContinueStatement(node));
+	}
+
+	@Nonnull
+	@Override
+	public State reduceDoWhileStatement(@Nonnull DoWhileStatement node, @Nonnull State body, @Nonnull State test) {
+		return new State(
+			JUMPS.reduceDoWhileStatement(node, body.jumps, test.jumps),
+			WITHS.reduceDoWhileStatement(node, body.withs, test.withs)
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceForInStatement(@Nonnull ForInStatement node, @Nonnull State left, @Nonnull State right, @Nonnull State body) {
+		return new State(
+			JUMPS.reduceForInStatement(node, left.jumps, right.jumps, body.jumps),
+			WITHS.reduceForInStatement(node, left.withs, right.withs, body.withs)
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceForOfStatement(@Nonnull ForOfStatement node, @Nonnull State left, @Nonnull State right, @Nonnull State body) {
+		return new State(
+			JUMPS.reduceForOfStatement(node, left.jumps, right.jumps, body.jumps),
+			WITHS.reduceForOfStatement(node, left.withs, right.withs, body.withs)
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceForStatement(@Nonnull ForStatement node, @Nonnull Maybe<State> init, @Nonnull Maybe<State> test, @Nonnull Maybe<State> update, @Nonnull State body) {
+		return new State(
+			JUMPS.reduceForStatement(node, init.map(s -> s.jumps), test.map(s -> s.jumps), update.map(s -> s.jumps), body.jumps),
+			WITHS.reduceForStatement(node, init.map(s -> s.withs), test.map(s -> s.withs), update.map(s -> s.withs), body.withs)
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceFunctionBody(@Nonnull FunctionBody node, @Nonnull ImmutableList<State> directives, @Nonnull ImmutableList<State> statements) {
+		return new State(
+			JUMPS.reduceFunctionBody(node, jumps(directives), jumps(statements)),
+			WITHS.reduceFunctionBody(node, withs(directives), withs(statements))
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceLabeledStatement(@Nonnull LabeledStatement node, @Nonnull State body) {
+		return new State(JUMPS.reduceLabeledStatement(node, body.jumps), WITHS.reduceLabeledStatement(node, body.withs));
+	}
+
+	@Nonnull
+	@Override
+	public State reduceReturnStatement(@Nonnull ReturnStatement node, @Nonnull Maybe<State> expression) {
+		return new State(
+			JUMPS.reduceReturnStatement(node, expression.map(s -> s.jumps)),
+			WITHS.reduceReturnStatement(node, expression.map(s -> s.withs))
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceSwitchStatement(@Nonnull SwitchStatement node, @Nonnull State discriminant, @Nonnull ImmutableList<State> cases) {
+		return new State(
+			JUMPS.reduceSwitchStatement(node, discriminant.jumps, jumps(cases)),
+			WITHS.reduceSwitchStatement(node, discriminant.withs, withs(cases))
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceSwitchStatementWithDefault(
+		@Nonnull SwitchStatementWithDefault node, @Nonnull State discriminant, @Nonnull ImmutableList<State> preDefaultCases,
+		@Nonnull State defaultCase, @Nonnull ImmutableList<State> postDefaultCases
+	) {
+		return new State(
+			JUMPS.reduceSwitchStatementWithDefault(node, discriminant.jumps, jumps(preDefaultCases), defaultCase.jumps, jumps(postDefaultCases)),
+			WITHS.reduceSwitchStatementWithDefault(node, discriminant.withs, withs(preDefaultCases), defaultCase.withs, withs(postDefaultCases))
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceTryCatchStatement(@Nonnull TryCatchStatement node, @Nonnull State body, @Nonnull State catchClause) {
+		return new State(
+			JUMPS.reduceTryCatchStatement(node, body.jumps, catchClause.jumps),
+			WITHS.reduceTryCatchStatement(node, body.withs, catchClause.withs)
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceTryFinallyStatement(@Nonnull TryFinallyStatement node, @Nonnull State block, @Nonnull Maybe<State> catchClause, @Nonnull State finalizer) {
+		return new State(
+			JUMPS.reduceTryFinallyStatement(node, block.jumps, catchClause.map(s -> s.jumps), finalizer.jumps),
+			WITHS.reduceTryFinallyStatement(node, block.withs, catchClause.map(s -> s.withs), finalizer.withs)
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceWhileStatement(@Nonnull WhileStatement node, @Nonnull State test, @Nonnull State body) {
+		return new State(
+			JUMPS.reduceWhileStatement(node, test.jumps, body.jumps),
+			WITHS.reduceWhileStatement(node, test.withs, body.withs)
+		);
+	}
+
+	@Nonnull
+	@Override
+	public State reduceWithStatement(@Nonnull WithStatement node, @Nonnull State object, @Nonnull State body) {
+		return new State(
+			JUMPS.reduceWithStatement(node, object.jumps, body.jumps),
+			WITHS.reduceWithStatement(node, object.withs, body.withs)
+		);
+	}
+}
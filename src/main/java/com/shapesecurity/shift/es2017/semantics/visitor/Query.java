@@ -0,0 +1,87 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.function.Predicate;
+
+// Questions about the nodes of a graph which stop looking as soon as they are answered, unlike a MonoidalReducer, which visits every node.
+// Nodes are looked at in pre-order, children in the order Director reduces them, and one reached along several paths is looked at once for each, as
+// GetDescendents lists it. `descend` decides whether to look below a node: the node itself is still looked at when it does not hold, so e.g.
+// exists(function.body(), Query.kind(Node.Kind.THIS), Query.OUTSIDE_FUNCTIONS) asks whether a function uses its own `this`.
+// Uses an explicit stack, so deep graphs are fine.
+public final class Query {
+	// look below every node
+	@Nonnull
+	public static final Predicate<Node> EVERYWHERE = node -> true;
+	// do not look into the bodies of functions
+	@Nonnull
+	public static final Predicate<Node> OUTSIDE_FUNCTIONS = node -> Node.Kind.of(node) != Node.Kind.LITERAL_FUNCTION;
+
+	private Query() {
+	}
+
+	@Nonnull
+	public static Predicate<Node> kind(@Nonnull Node.Kind kind) {
+		return node -> Node.Kind.of(node) == kind;
+	}
+
+	public static boolean exists(@Nonnull Node root, @Nonnull Predicate<Node> matches) {
+		return exists(root, matches, EVERYWHERE);
+	}
+
+	public static boolean exists(@Nonnull Node root, @Nonnull Predicate<Node> matches, @Nonnull Predicate<Node> descend) {
+		return countUpTo(root, matches, 1, descend) > 0;
+	}
+
+	// The first match in pre-order.
+	@Nonnull
+	public static Maybe<Node> find(@Nonnull Node root, @Nonnull Predicate<Node> matches) {
+		return find(root, matches, EVERYWHERE);
+	}
+
+	@Nonnull
+	public static Maybe<Node> find(@Nonnull Node root, @Nonnull Predicate<Node> matches, @Nonnull Predicate<Node> descend) {
+		ArrayDeque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			if (matches.test(node)) {
+				return Maybe.of(node);
+			}
+			pushChildren(node, descend, stack);
+		}
+		return Maybe.empty();
+	}
+
+	// The number of matches, counting no further than `limit`: e.g. countUpTo(root, matches, 2) > 1 asks whether there are several.
+	public static int countUpTo(@Nonnull Node root, @Nonnull Predicate<Node> matches, int limit) {
+		return countUpTo(root, matches, limit, EVERYWHERE);
+	}
+
+	public static int countUpTo(@Nonnull Node root, @Nonnull Predicate<Node> matches, int limit, @Nonnull Predicate<Node> descend) {
+		int count = 0;
+		ArrayDeque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (count < limit && !stack.isEmpty()) {
+			Node node = stack.pop();
+			if (matches.test(node)) {
+				++count;
+			}
+			pushChildren(node, descend, stack);
+		}
+		return count;
+	}
+
+	private static void pushChildren(@Nonnull Node node, @Nonnull Predicate<Node> descend, @Nonnull ArrayDeque<Node> stack) {
+		if (!descend.test(node)) {
+			return;
+		}
+		Node[] children = IterativeDirector.children(node, Node.Kind.of(node));
+		for (int i = children.length - 1; i >= 0; --i) {
+			stack.push(children[i]);
+		}
+	}
+}
@@ -37,15 +37,27 @@ import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
 import com.shapesecurity.shift.es2017.semantics.asg.Void;
 
 import javax.annotation.Nonnull;
+import java.util.Iterator;
 
+// Rebuilds the graph from the reduced children. A node whose reduced children are all the original children (by identity) is returned as is,
+// so a pass allocates only along the paths to what it changes, and leaves are never copied. Subclasses overriding a method and finding nothing to
+// change should defer to the method here rather than constructing a node themselves.
 public class ReconstructingReducer {
 
 	public static Reducer<Node> create() {
 		return new NodeAdaptingReducer(new ReconstructingReducer());
 	}
 
+	// for the leaves subclasses create, such as ConstantFolder's folded constants, so that equal ones are shared
+	@Nonnull
+	protected final NodeInterner interner;
+
 	protected ReconstructingReducer() {
+		this(new NodeInterner());
+	}
 
+	protected ReconstructingReducer(@Nonnull NodeInterner interner) {
+		this.interner = interner;
 	}
 
 	@Nonnull
@@ -55,17 +67,17 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public Block reduceBlock(@Nonnull Block block, @Nonnull ImmutableList<Node> children) {
-		return new Block(children);
+		return sameNodes(block.children, children) ? block : new Block(children);
 	}
 
 	@Nonnull
 	public Node reduceLoop(@Nonnull Loop loop, @Nonnull Block block) {
-		return new Loop(block);
+		return block == loop.block ? loop : new Loop(block);
 	}
 
 	@Nonnull
 	public Node reduceBreak(@Nonnull Break _break, @Nonnull BreakTarget breakTarget) {
-		return new Break(breakTarget, _break.broken);
+		return breakTarget == _break.target ? _break : new Break(breakTarget, _break.broken);
 	}
 
 	@Nonnull
@@ -75,7 +87,7 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public NodeWithValue reduceCall(@Nonnull Call call, @Nonnull NodeWithValue callee, @Nonnull ImmutableList<NodeWithValue> arguments) {
-		return new Call(callee, arguments);
+		return callee == call.callee && sameNodes(call.arguments, arguments) ? call : new Call(callee, arguments);
 	}
 
 	@Nonnull
@@ -85,7 +97,7 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public NodeWithValue reduceLiteralSymbol(@Nonnull LiteralSymbol literalSymbol) {
-		return new LiteralSymbol(literalSymbol.description);
+		return literalSymbol;
 	}
 
 	@Nonnull
@@ -95,7 +107,7 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public NodeWithValue reduceLiteralRegExp(@Nonnull LiteralRegExp literalRegExp) {
-		return new LiteralRegExp(literalRegExp.pattern, literalRegExp.global, literalRegExp.ignoreCase, literalRegExp.multiLine, literalRegExp.sticky, literalRegExp.unicode);
+		return literalRegExp;
 	}
 
 	@Nonnull
@@ -110,11 +122,14 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public NodeWithValue reduceLiteralFunction(@Nonnull LiteralFunction literalFunction, @Nonnull Block body) {
+		if (body == literalFunction.body()) {
+			return literalFunction;
+		}
 		return new LiteralFunction(
 			literalFunction.name,
 			literalFunction.arguments,
 			literalFunction.parameters,
-			literalFunction.locals,
+			literalFunction.locals(),
 			literalFunction.captured,
 			body,
 			literalFunction.isStrict
@@ -123,12 +138,12 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public Node reduceReturn(@Nonnull Return _return, @Nonnull Maybe<NodeWithValue> expression) {
-		return new Return(expression);
+		return sameNode(_return.expression, expression) ? _return : new Return(expression);
 	}
 
 	@Nonnull
 	public Node reduceReturnAfterFinallies(@Nonnull ReturnAfterFinallies returnAfterFinallies, @Nonnull Maybe<LocalReference> savedValue) {
-		return new ReturnAfterFinallies(savedValue, returnAfterFinallies.broken);
+		return sameNode(returnAfterFinallies.savedValue, savedValue) ? returnAfterFinallies : new ReturnAfterFinallies(savedValue, returnAfterFinallies.broken);
 	}
 
 	@Nonnull
@@ -138,112 +153,112 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public NodeWithValue reduceLiteralString(@Nonnull LiteralString literalString) {
-		return new LiteralString(literalString.value);
+		return literalString;
 	}
 
 	@Nonnull
 	public NodeWithValue reduceLiteralNumber(@Nonnull LiteralNumber literalNumber) {
-		return new LiteralNumber(literalNumber.value);
+		return literalNumber;
 	}
 
 	@Nonnull
 	public NodeWithValue reduceLiteralBoolean(@Nonnull LiteralBoolean literalBoolean) {
-		return new LiteralBoolean(literalBoolean.value);
+		return literalBoolean;
 	}
 
 	@Nonnull
 	public NodeWithValue reduceMemberCall(@Nonnull MemberCall memberCall, @Nonnull NodeWithValue object, @Nonnull NodeWithValue fieldExpression, @Nonnull ImmutableList<NodeWithValue> arguments) {
-		return new MemberCall(object, fieldExpression, arguments);
+		return object == memberCall.object && fieldExpression == memberCall.fieldExpression && sameNodes(memberCall.arguments, arguments) ? memberCall : new MemberCall(object, fieldExpression, arguments);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceNot(@Nonnull Not not, @Nonnull NodeWithValue expression) {
-		return new Not(expression);
+		return expression == not.expression ? not : new Not(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceBlockWithValue(@Nonnull BlockWithValue blockWithValue, @Nonnull Block block, @Nonnull NodeWithValue result) {
-		return new BlockWithValue(block, result);
+		return block == blockWithValue.head && result == blockWithValue.result ? blockWithValue : new BlockWithValue(block, result);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceFloatMath(@Nonnull FloatMath floatMath, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		return new FloatMath(floatMath.operator, left, right);
+		return left == floatMath.left && right == floatMath.right ? floatMath : new FloatMath(floatMath.operator, left, right);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceIntMath(@Nonnull IntMath intMath, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		return new IntMath(intMath.operator, left, right);
+		return left == intMath.left && right == intMath.right ? intMath : new IntMath(intMath.operator, left, right);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceInstanceOf(@Nonnull InstanceOf instanceOf, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		return new InstanceOf(left, right);
+		return left == instanceOf.left && right == instanceOf.right ? instanceOf : new InstanceOf(left, right);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceNegation(@Nonnull Negation negation, @Nonnull NodeWithValue expression) {
-		return new Negation(expression);
+		return expression == negation.expression ? negation : new Negation(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceEquality(@Nonnull Equality equality, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		return new Equality(equality.operator, left, right);
+		return left == equality.left && right == equality.right ? equality : new Equality(equality.operator, left, right);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceNew(@Nonnull New expression, @Nonnull NodeWithValue callee, @Nonnull ImmutableList<NodeWithValue> arguments) {
-		return new New(callee, arguments);
+		return callee == expression.callee && sameNodes(expression.arguments, arguments) ? expression : new New(callee, arguments);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceThis(@Nonnull This expression) {
-		return new This(expression.strict);
+		return expression;
 	}
 
 	@Nonnull
 	public NodeWithValue reduceRequireObjectCoercible(@Nonnull RequireObjectCoercible requireObjectCoercible, @Nonnull NodeWithValue expression) {
-		return new RequireObjectCoercible(expression);
+		return expression == requireObjectCoercible.expression ? requireObjectCoercible : new RequireObjectCoercible(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceTypeCoercionString(@Nonnull TypeCoercionString typeCoercionString, @Nonnull NodeWithValue expression) {
-		return new TypeCoercionString(expression);
+		return expression == typeCoercionString.expression ? typeCoercionString : new TypeCoercionString(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceTypeCoercionNumber(@Nonnull TypeCoercionNumber typeCoercionNumber, @Nonnull NodeWithValue expression) {
-		return new TypeCoercionNumber(expression);
+		return expression == typeCoercionNumber.expression ? typeCoercionNumber : new TypeCoercionNumber(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceTypeCoercionObject(@Nonnull TypeCoercionObject typeCoercionObject, @Nonnull NodeWithValue expression) {
-		return new TypeCoercionObject(expression);
+		return expression == typeCoercionObject.expression ? typeCoercionObject : new TypeCoercionObject(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceKeys(@Nonnull Keys keys, @Nonnull NodeWithValue object) {
-		return new Keys(object);
+		return object == keys._object ? keys : new Keys(object);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceTypeofGlobal(@Nonnull TypeofGlobal typeofGlobal) {
-		return new TypeofGlobal(typeofGlobal.which);
+		return typeofGlobal;
 	}
 
 	@Nonnull
 	public NodeWithValue reduceVoidOp(@Nonnull VoidOp voidOp, @Nonnull NodeWithValue expression) {
-		return new VoidOp(expression);
+		return expression == voidOp.expression ? voidOp : new VoidOp(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceDeleteGlobalProperty(@Nonnull DeleteGlobalProperty expression) {
-		return new DeleteGlobalProperty(expression.which);
+		return expression;
 	}
 
 	@Nonnull
 	public NodeWithValue reduceLogic(@Nonnull Logic expression, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		return new Logic(expression.operator, left, right);
+		return left == expression.left && right == expression.right ? expression : new Logic(expression.operator, left, right);
 	}
 
 	@Nonnull
@@ -253,103 +268,105 @@ public class ReconstructingReducer {
 
 	@Nonnull
 	public NodeWithValue reduceIn(@Nonnull In expression, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		return new In(left, right);
+		return left == expression.left && right == expression.right ? expression : new In(left, right);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceDeleteProperty(@Nonnull DeleteProperty expression, @Nonnull NodeWithValue object, @Nonnull NodeWithValue fieldExpression) {
-		return new DeleteProperty(object, fieldExpression, expression.strict);
+		return object == expression.object && fieldExpression == expression.fieldExpression ? expression : new DeleteProperty(object, fieldExpression, expression.strict);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceTypeof(@Nonnull Typeof typeOf, @Nonnull NodeWithValue expression) {
-		return new Typeof(expression);
+		return expression == typeOf.expression ? typeOf : new Typeof(expression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceBitwiseNot(@Nonnull BitwiseNot bitwiseNot, @Nonnull NodeWithValue expression) {
-		return new BitwiseNot(expression);
+		return expression == bitwiseNot.expression ? bitwiseNot : new BitwiseNot(expression);
 	}
 
 	@Nonnull
 	public GlobalReference reduceGlobalReference(@Nonnull GlobalReference ref) {
-		return new GlobalReference(ref.name);
+		return ref;
 	}
 
 	@Nonnull
 	public LocalReference reduceTemporaryReference(@Nonnull TemporaryReference ref) {
-		return new TemporaryReference(ref.variable);
+		return ref;
 	}
 
 	@Nonnull
 	public LocalReference reduceLocalReference(@Nonnull LocalReference ref) {
-		return new LocalReference(ref.variable);
+		return ref;
 	}
 
 	@Nonnull
 	public NodeWithValue reduceMemberAccess(@Nonnull MemberAccess memberAccess, @Nonnull NodeWithValue object, @Nonnull NodeWithValue fieldExpression) {
-		return new MemberAccess(object, fieldExpression);
+		return object == memberAccess.object && fieldExpression == memberAccess.fieldExpression ? memberAccess : new MemberAccess(object, fieldExpression);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceMemberAssignment(@Nonnull MemberAssignment memberAssignment, @Nonnull NodeWithValue object, @Nonnull NodeWithValue fieldExpression, @Nonnull NodeWithValue value) {
-		return new MemberAssignment(object, fieldExpression, value, memberAssignment.strict);
+		return object == memberAssignment.object && fieldExpression == memberAssignment.fieldExpression && value == memberAssignment.property.value ? memberAssignment : new MemberAssignment(object, fieldExpression, value, memberAssignment.strict);
 	}
 
 	@Nonnull
 	public Node reduceThrow(@Nonnull Throw node, @Nonnull NodeWithValue expression) {
-		return new Throw(expression);
+		return expression == node.expression ? node : new Throw(expression);
 	}
 
 	@Nonnull
 	public MemberAssignmentProperty reduceStaticValue(@Nonnull MemberAssignmentProperty.StaticValue node, @Nonnull NodeWithValue value) {
-		return new MemberAssignmentProperty.StaticValue(value);
+		return value == node.value ? node : new MemberAssignmentProperty.StaticValue(value);
 	}
 
 	@Nonnull
 	public MemberAssignmentProperty reduceGetter(@Nonnull MemberAssignmentProperty.Getter node, @Nonnull LiteralFunction value) {
-		return new MemberAssignmentProperty.Getter(value);
-
+		return value == node.value ? node : new MemberAssignmentProperty.Getter(value);
 	}
 
 	@Nonnull
 	public MemberAssignmentProperty reduceSetter(@Nonnull MemberAssignmentProperty.Setter node, @Nonnull LiteralFunction value) {
-		return new MemberAssignmentProperty.Setter(value);
+		return value == node.value ? node : new MemberAssignmentProperty.Setter(value);
 	}
 
 	@Nonnull
 	public Node reduceMemberDefinition(@Nonnull MemberDefinition node, @Nonnull NodeWithValue object, @Nonnull NodeWithValue fieldExpression, @Nonnull MemberAssignmentProperty property) {
-		return new MemberDefinition(object, fieldExpression, property);
+		return object == node.object && fieldExpression == node.fieldExpression && property == node.property ? node : new MemberDefinition(object, fieldExpression, property);
 	}
 
 	@Nonnull
 	public Node reduceTryCatch(@Nonnull TryCatch node, @Nonnull Block tryBody, @Nonnull Pair<Variable, Block> catchBody) {
-		return new TryCatch(tryBody, catchBody);
+		return tryBody == node.tryBody && catchBody.left == node.catchBody.left && catchBody.right == node.catchBody.right ? node : new TryCatch(tryBody, catchBody);
 	}
 
 	@Nonnull
 	public Node reduceTryFinally(@Nonnull TryFinally node, @Nonnull Block tryBody, @Nonnull Block finallyBody) {
-		return new TryFinally(tryBody, finallyBody);
+		return tryBody == node.tryBody && finallyBody == node.finallyBody ? node : new TryFinally(tryBody, finallyBody);
 	}
 
 	@Nonnull
 	public Node reduceSwitchStatement(@Nonnull SwitchStatement node, @Nonnull LocalReference discriminant, @Nonnull ImmutableList<Pair<NodeWithValue, Block>> preDefaultCases, @Nonnull Block defaultCase, @Nonnull ImmutableList<Pair<NodeWithValue, Block>> postDefaultCases) {
+		if (discriminant == node.discriminant && defaultCase == node.defaultCase && sameCases(node.preDefaultCases, preDefaultCases) && sameCases(node.postDefaultCases, postDefaultCases)) {
+			return node;
+		}
 		return new SwitchStatement(discriminant, preDefaultCases, defaultCase, postDefaultCases);
 	}
 
 	@Nonnull
 	public Node reduceIfElse(@Nonnull IfElse ifElse, @Nonnull NodeWithValue test, @Nonnull Block consequent, @Nonnull Block alternate) {
-		return new IfElse(test, consequent, alternate);
+		return test == ifElse.test && consequent == ifElse.consequent && alternate == ifElse.alternate ? ifElse : new IfElse(test, consequent, alternate);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceRelationalComparison(@Nonnull RelationalComparison relationalComparison, @Nonnull NodeWithValue left, @Nonnull NodeWithValue right) {
-		return new RelationalComparison(relationalComparison.operator, left, right);
+		return left == relationalComparison.left && right == relationalComparison.right ? relationalComparison : new RelationalComparison(relationalComparison.operator, left, right);
 	}
 
 	@Nonnull
 	public NodeWithValue reduceVariableAssignment(@Nonnull VariableAssignment variableAssignment, @Nonnull Either<GlobalReference, LocalReference> ref, @Nonnull NodeWithValue value) {
-		return new VariableAssignment(ref, value, variableAssignment.strict);
+		return Either.<Node, GlobalReference, LocalReference>extract(ref) == Either.<Node, GlobalReference, LocalReference>extract(variableAssignment.ref) && value == variableAssignment.value ? variableAssignment : new VariableAssignment(ref, value, variableAssignment.strict);
 	}
 
 	@Nonnull
@@ -357,4 +374,38 @@ public class ReconstructingReducer {
 		return Void.INSTANCE;
 	}
 
+	// Whether each reduced node is the original one, in which case the node holding them is returned unchanged.
+	protected static boolean sameNodes(@Nonnull ImmutableList<? extends Node> original, @Nonnull ImmutableList<? extends Node> reduced) {
+		if (original == reduced) {
+			return true;
+		}
+		if (original.length != reduced.length) {
+			return false;
+		}
+		Iterator<? extends Node> iterator = reduced.iterator();
+		for (Node node : original) {
+			if (node != iterator.next()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected static boolean sameNode(@Nonnull Maybe<? extends Node> original, @Nonnull Maybe<? extends Node> reduced) {
+		return original.toNullable() == reduced.toNullable();
+	}
+
+	private static boolean sameCases(@Nonnull ImmutableList<Pair<NodeWithValue, Block>> original, @Nonnull ImmutableList<Pair<NodeWithValue, Block>> reduced) {
+		if (original.length != reduced.length) {
+			return false;
+		}
+		Iterator<Pair<NodeWithValue, Block>> iterator = reduced.iterator();
+		for (Pair<NodeWithValue, Block> pair : original) {
+			Pair<NodeWithValue, Block> other = iterator.next();
+			if (pair.left != other.left || pair.right != other.right) {
+				return false;
+			}
+		}
+		return true;
+	}
 }
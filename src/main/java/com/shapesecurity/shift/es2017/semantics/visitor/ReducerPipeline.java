@@ -0,0 +1,499 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.semantics.Semantics;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.In;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.InstanceOf;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.Call;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteGlobalProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.DeleteProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Halt;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.Keys;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyArray;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyObject;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralInfinity;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralSymbol;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Loop;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberDefinition;
+import com.shapesecurity.shift.es2017.semantics.asg.New;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible;
+import com.shapesecurity.shift.es2017.semantics.asg.Return;
+import com.shapesecurity.shift.es2017.semantics.asg.ReturnAfterFinallies;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.asg.This;
+import com.shapesecurity.shift.es2017.semantics.asg.Throw;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Negation;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Typeof;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.Void;
+
+import javax.annotation.Nonnull;
+
+// Runs several passes, such as ConstantFolder.create() and BlockSquasher.create(), in a single traversal: each node is reduced by the first pass,
+// then the result by the second, and so on, with one memo table for the whole pipeline.
+// Later passes see a node after earlier passes rewrote it, with children which have been through the whole pipeline already. A node an earlier pass
+// creates below the one it returns (e.g. the Block ConstantFolder builds for `true && a`) is not revisited by later passes, and earlier passes see
+// children which later passes have rewritten. For passes rewriting each node based only on the node and its children, such as those above, the
+// result is as if the passes were run one after another, except for such nested new nodes.
+public final class ReducerPipeline implements Reducer<Node> {
+	@Nonnull
+	private final ImmutableList<Reducer<Node>> passes;
+
+	@SafeVarargs
+	public ReducerPipeline(@Nonnull Reducer<Node> first, @Nonnull Reducer<Node>... rest) {
+		ImmutableList<Reducer<Node>> passes = ImmutableList.empty();
+		for (int i = rest.length - 1; i >= 0; --i) {
+			passes = passes.cons(rest[i]);
+		}
+		this.passes = passes.cons(first);
+	}
+
+	@SafeVarargs
+	@Nonnull
+	public static Semantics reduce(@Nonnull Semantics semantics, @Nonnull Reducer<Node> first, @Nonnull Reducer<Node>... rest) {
+		return new Semantics(
+			new Director<>(new ReducerPipeline(first, rest)).reduceNode(semantics.node),
+			semantics.locals,
+			semantics.scriptVarDecls,
+			semantics.scopeLookup,
+			semantics.functionScopes
+		);
+	}
+
+	// `children` are the reduced children of `original`, in the order given by IterativeDirector.children.
+	@Nonnull
+	private Node pipe(@Nonnull Node original, @Nonnull Node... children) {
+		Node.Kind kind = Node.Kind.of(original);
+		Node node = original;
+		for (Reducer<Node> pass : this.passes) {
+			if (node == original) {
+				node = pass.reduceAll(original, IterativeDirector.reduce(pass, original, kind, children));
+			} else {
+				// the children of a node built by an earlier pass are already reduced
+				Node.Kind rewrittenKind = Node.Kind.of(node);
+				node = pass.reduceAll(node, IterativeDirector.reduce(pass, node, rewrittenKind, IterativeDirector.children(node, rewrittenKind)));
+			}
+		}
+		return node;
+	}
+
+	@Nonnull
+	private static Node[] prepend(@Nonnull ImmutableList<Node> rest, @Nonnull Node... first) {
+		Node[] nodes = new Node[first.length + rest.length];
+		System.arraycopy(first, 0, nodes, 0, first.length);
+		int i = first.length;
+		for (Node node : rest) {
+			nodes[i++] = node;
+		}
+		return nodes;
+	}
+
+	// Reducer.reduceAll is called by pipe on each pass's result instead, as the passes would see it if run on their own.
+	@Nonnull
+	@Override
+	public Node reduceAll(@Nonnull Node node, @Nonnull Node reduced) {
+		return reduced;
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceBlock(@Nonnull Block block, @Nonnull ImmutableList<Node> children) {
+		return this.pipe(block, prepend(children));
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLoop(@Nonnull Loop loop, @Nonnull Node block) {
+		return this.pipe(loop, block);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceBreak(@Nonnull Break _break, @Nonnull Node breakTarget) {
+		return this.pipe(_break, breakTarget);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceBreakTarget(@Nonnull BreakTarget breakTarget) {
+		return this.pipe(breakTarget);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceCall(@Nonnull Call call, @Nonnull Node callee, @Nonnull ImmutableList<Node> arguments) {
+		return this.pipe(call, prepend(arguments, callee));
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralUndefined(@Nonnull LiteralUndefined literalUndefined) {
+		return this.pipe(literalUndefined);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralSymbol(@Nonnull LiteralSymbol literalSymbol) {
+		return this.pipe(literalSymbol);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralInfinity(@Nonnull LiteralInfinity literalInfinity) {
+		return this.pipe(literalInfinity);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralRegExp(@Nonnull LiteralRegExp literalRegExp) {
+		return this.pipe(literalRegExp);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralEmptyArray(@Nonnull LiteralEmptyArray literalEmptyArray) {
+		return this.pipe(literalEmptyArray);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralEmptyObject(@Nonnull LiteralEmptyObject literalEmptyObject) {
+		return this.pipe(literalEmptyObject);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralFunction(@Nonnull LiteralFunction literalFunction, @Nonnull Node body) {
+		return this.pipe(literalFunction, body);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceReturn(@Nonnull Return _return, @Nonnull Maybe<Node> expression) {
+		return this.pipe(_return, expression.map(node -> new Node[]{ node }).orJust(new Node[0]));
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceReturnAfterFinallies(@Nonnull ReturnAfterFinallies returnAfterFinallies, @Nonnull Maybe<Node> savedValue) {
+		return this.pipe(returnAfterFinallies, savedValue.map(node -> new Node[]{ node }).orJust(new Node[0]));
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralNull(@Nonnull LiteralNull literalNull) {
+		return this.pipe(literalNull);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralString(@Nonnull LiteralString literalString) {
+		return this.pipe(literalString);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralNumber(@Nonnull LiteralNumber literalNumber) {
+		return this.pipe(literalNumber);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLiteralBoolean(@Nonnull LiteralBoolean literalBoolean) {
+		return this.pipe(literalBoolean);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceMemberCall(@Nonnull MemberCall memberCall, @Nonnull Node object, @Nonnull Node fieldExpression, @Nonnull ImmutableList<Node> arguments) {
+		return this.pipe(memberCall, prepend(arguments, object, fieldExpression));
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceNot(@Nonnull Not not, @Nonnull Node expression) {
+		return this.pipe(not, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceBlockWithValue(@Nonnull BlockWithValue blockWithValue, @Nonnull Node block, @Nonnull Node result) {
+		return this.pipe(blockWithValue, block, result);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceFloatMath(@Nonnull FloatMath floatMath, @Nonnull Node left, @Nonnull Node right) {
+		return this.pipe(floatMath, left, right);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceIntMath(@Nonnull IntMath intMath, @Nonnull Node left, @Nonnull Node right) {
+		return this.pipe(intMath, left, right);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceInstanceOf(@Nonnull InstanceOf instanceOf, @Nonnull Node left, @Nonnull Node right) {
+		return this.pipe(instanceOf, left, right);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceNegation(@Nonnull Negation negation, @Nonnull Node expression) {
+		return this.pipe(negation, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceEquality(@Nonnull Equality equality, @Nonnull Node left, @Nonnull Node right) {
+		return this.pipe(equality, left, right);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceNew(@Nonnull New expression, @Nonnull Node callee, @Nonnull ImmutableList<Node> arguments) {
+		return this.pipe(expression, prepend(arguments, callee));
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceThis(@Nonnull This expression) {
+		return this.pipe(expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceRequireObjectCoercible(@Nonnull RequireObjectCoercible requireObjectCoercible, @Nonnull Node expression) {
+		return this.pipe(requireObjectCoercible, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTypeCoercionString(@Nonnull TypeCoercionString typeCoercionString, @Nonnull Node expression) {
+		return this.pipe(typeCoercionString, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTypeCoercionNumber(@Nonnull TypeCoercionNumber typeCoercionNumber, @Nonnull Node expression) {
+		return this.pipe(typeCoercionNumber, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTypeCoercionObject(@Nonnull TypeCoercionObject typeCoercionObject, @Nonnull Node expression) {
+		return this.pipe(typeCoercionObject, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceKeys(@Nonnull Keys keys, @Nonnull Node object) {
+		return this.pipe(keys, object);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTypeofGlobal(@Nonnull TypeofGlobal typeofGlobal) {
+		return this.pipe(typeofGlobal);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceVoidOp(@Nonnull VoidOp voidOp, @Nonnull Node expression) {
+		return this.pipe(voidOp, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceDeleteGlobalProperty(@Nonnull DeleteGlobalProperty expression) {
+		return this.pipe(expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLogic(@Nonnull Logic expression, @Nonnull Node left, @Nonnull Node right) {
+		return this.pipe(expression, left, right);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceHalt(@Nonnull Halt halt) {
+		return this.pipe(halt);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceIn(@Nonnull In expression, @Nonnull Node left, @Nonnull Node right) {
+		return this.pipe(expression, left, right);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceDeleteProperty(@Nonnull DeleteProperty expression, @Nonnull Node object, @Nonnull Node fieldExpression) {
+		return this.pipe(expression, object, fieldExpression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTypeof(@Nonnull Typeof typeOf, @Nonnull Node expression) {
+		return this.pipe(typeOf, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceBitwiseNot(@Nonnull BitwiseNot bitwiseNot, @Nonnull Node expression) {
+		return this.pipe(bitwiseNot, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceGlobalReference(@Nonnull GlobalReference ref) {
+		return this.pipe(ref);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTemporaryReference(@Nonnull TemporaryReference ref) {
+		return this.pipe(ref);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceLocalReference(@Nonnull LocalReference ref) {
+		return this.pipe(ref);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceMemberAccess(@Nonnull MemberAccess memberAccess, @Nonnull Node object, @Nonnull Node fieldExpression) {
+		return this.pipe(memberAccess, object, fieldExpression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceMemberAssignment(@Nonnull MemberAssignment memberAssignment, @Nonnull Node object, @Nonnull Node fieldExpression, @Nonnull Node value) {
+		return this.pipe(memberAssignment, object, fieldExpression, value);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceThrow(@Nonnull Throw node, @Nonnull Node expression) {
+		return this.pipe(node, expression);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceStaticValue(@Nonnull MemberAssignmentProperty.StaticValue node, @Nonnull Node value) {
+		return this.pipe(node, value);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceGetter(@Nonnull MemberAssignmentProperty.Getter node, @Nonnull Node value) {
+		return this.pipe(node, value);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceSetter(@Nonnull MemberAssignmentProperty.Setter node, @Nonnull Node value) {
+		return this.pipe(node, value);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceMemberDefinition(@Nonnull MemberDefinition node, @Nonnull Node object, @Nonnull Node fieldExpression, @Nonnull Node property) {
+		return this.pipe(node, object, fieldExpression, property);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTryCatch(@Nonnull TryCatch node, @Nonnull Node tryBody, @Nonnull Node catchBlock) {
+		return this.pipe(node, tryBody, catchBlock);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceTryFinally(@Nonnull TryFinally node, @Nonnull Node tryBody, @Nonnull Node finallyBody) {
+		return this.pipe(node, tryBody, finallyBody);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceSwitchStatement(@Nonnull SwitchStatement node, @Nonnull Node discriminant, @Nonnull ImmutableList<Pair<Node, Node>> preDefaultCases, @Nonnull Node defaultCase, @Nonnull ImmutableList<Pair<Node, Node>> postDefaultCases) {
+		Node[] children = new Node[2 + 2 * (preDefaultCases.length + postDefaultCases.length)];
+		int i = 0;
+		children[i++] = discriminant;
+		for (Pair<Node, Node> pair : preDefaultCases) {
+			children[i++] = pair.left;
+			children[i++] = pair.right;
+		}
+		children[i++] = defaultCase;
+		for (Pair<Node, Node> pair : postDefaultCases) {
+			children[i++] = pair.left;
+			children[i++] = pair.right;
+		}
+		return this.pipe(node, children);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceIfElse(@Nonnull IfElse ifElse, @Nonnull Node test, @Nonnull Node consequent, @Nonnull Node alternate) {
+		return this.pipe(ifElse, test, consequent, alternate);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceRelationalComparison(@Nonnull RelationalComparison relationalComparison, @Nonnull Node left, @Nonnull Node right) {
+		return this.pipe(relationalComparison, left, right);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceVariableAssignment(@Nonnull VariableAssignment variableAssignment, @Nonnull Node ref, @Nonnull Node value) {
+		return this.pipe(variableAssignment, ref, value);
+	}
+
+	@Nonnull
+	@Override
+	public Node reduceVoid(@Nonnull Void _void) {
+		return this.pipe(_void);
+	}
+}
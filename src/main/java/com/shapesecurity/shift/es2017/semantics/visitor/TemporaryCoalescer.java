@@ -0,0 +1,371 @@
+package com.shapesecurity.shift.es2017.semantics.visitor;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.ExplicationListener;
+import com.shapesecurity.shift.es2017.semantics.Semantics;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Loop;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Puts temporaries whose lifetimes do not overlap into the same variable, so that each function (and the script) keeps as few locals as it
+// has temporaries alive at once.
+// Each function is walked in evaluation order, numbering the places its temporaries are read and written. A temporary lives from its first
+// occurrence to its last, stretched over the whole of any loop it is used in but not confined to, since the loop may run it again. Breaks and
+// the jump from the tests of a switch to its cases only go forwards, so two temporaries whose lifetimes are disjoint are never live at once.
+// That needs each temporary to be written before every read of it; one which may be read before it is written (say by a loop's next
+// iteration), or which a nested function uses, keeps its own variable.
+public class TemporaryCoalescer extends ReconstructingReducer {
+	@Nonnull
+	private final IdentityHashMap<Variable, Variable> renaming;
+	// one reference for each variable, so that references shared in the input are shared in the output
+	@Nonnull
+	private final IdentityHashMap<Variable, TemporaryReference> references = new IdentityHashMap<>();
+
+	protected TemporaryCoalescer(@Nonnull IdentityHashMap<Variable, Variable> renaming) {
+		super();
+		this.renaming = renaming;
+	}
+
+	public static Semantics reduce(@Nonnull Semantics semantics) {
+		IdentityHashMap<Variable, Variable> renaming = new IdentityHashMap<>();
+		new LiveRanges(semantics.locals).coalesce(semantics.node, renaming);
+		Set<LiteralFunction> functions = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Node node : GetDescendents.getDescendants(semantics.node)) {
+			if (node instanceof LiteralFunction && functions.add((LiteralFunction) node)) {
+				LiteralFunction function = (LiteralFunction) node;
+				new LiveRanges(function.locals()).coalesce(function.body(), renaming);
+			}
+		}
+		if (renaming.isEmpty()) {
+			return semantics;
+		}
+		return new Semantics(
+			new Director<>(new NodeAdaptingReducer(new TemporaryCoalescer(renaming))).reduceNode(semantics.node),
+			semantics.locals.filter(variable -> !renaming.containsKey(variable)),
+			semantics.scriptVarDecls,
+			semantics.scopeLookup,
+			semantics.functionScopes
+		);
+	}
+
+	// Reports the time taken and the size of the result to `listener`.
+	public static Semantics reduce(@Nonnull Semantics semantics, @Nonnull ExplicationListener listener) {
+		long start = System.nanoTime();
+		Semantics result = reduce(semantics);
+		listener.phaseCompleted(ExplicationListener.PhaseReport.forGraph(ExplicationListener.Phase.TEMPORARY_COALESCING, start, System.nanoTime(), 0, result.node));
+		return result;
+	}
+
+	@Nonnull
+	@Override
+	public NodeWithValue reduceLiteralFunction(@Nonnull LiteralFunction literalFunction, @Nonnull Block body) {
+		ImmutableList<Variable> locals = literalFunction.locals().filter(variable -> !this.renaming.containsKey(variable));
+		if (body == literalFunction.body() && locals.length == literalFunction.locals().length) {
+			return literalFunction;
+		}
+		return new LiteralFunction(
+			literalFunction.name,
+			literalFunction.arguments,
+			literalFunction.parameters,
+			locals,
+			literalFunction.captured,
+			body,
+			literalFunction.isStrict
+		);
+	}
+
+	@Nonnull
+	@Override
+	public LocalReference reduceTemporaryReference(@Nonnull TemporaryReference ref) {
+		Variable renamed = this.renaming.get(ref.variable);
+		return renamed == null ? ref : this.references.computeIfAbsent(renamed, TemporaryReference::new);
+	}
+
+	@Nonnull
+	@Override
+	public LocalReference reduceLocalReference(@Nonnull LocalReference ref) {
+		return ref instanceof TemporaryReference ? this.reduceTemporaryReference((TemporaryReference) ref) : ref;
+	}
+
+	private static final class Temporary {
+		@Nonnull
+		final Variable variable;
+		final int index;
+		int first = -1;
+		int last;
+		boolean eligible = true;
+		Variable slot;
+
+		Temporary(@Nonnull Variable variable, int index) {
+			this.variable = variable;
+			this.index = index;
+		}
+
+		void occursAt(int position) {
+			if (this.first < 0) {
+				this.first = position;
+			}
+			this.last = position;
+		}
+	}
+
+	// The lifetimes of the temporaries of one function, not counting those of the functions within it.
+	// Alongside, which temporaries have certainly been written is tracked as a BitSet of their indices, with null for code control cannot reach.
+	private static final class LiveRanges {
+		@Nonnull
+		private final Set<Variable> locals = Collections.newSetFromMap(new IdentityHashMap<>());
+		@Nonnull
+		private final IdentityHashMap<Variable, Temporary> temporaries = new IdentityHashMap<>();
+		@Nonnull
+		private final List<Temporary> inOrder = new ArrayList<>();
+		// the first and last positions within each loop
+		@Nonnull
+		private final List<int[]> loops = new ArrayList<>();
+		// what has been written at the breaks seen so far to each target
+		@Nonnull
+		private final IdentityHashMap<BreakTarget, BitSet> broken = new IdentityHashMap<>();
+		private int position = 0;
+
+		LiveRanges(@Nonnull ImmutableList<Variable> locals) {
+			for (Variable local : locals) {
+				this.locals.add(local);
+			}
+		}
+
+		void coalesce(@Nonnull Node body, @Nonnull IdentityHashMap<Variable, Variable> renaming) {
+			this.walk(body, new BitSet());
+			List<Temporary> eligible = new ArrayList<>();
+			for (Temporary temporary : this.inOrder) {
+				if (temporary.eligible) {
+					eligible.add(temporary);
+				}
+			}
+			if (eligible.size() < 2) {
+				return;
+			}
+			this.stretchOverLoops(eligible);
+			// greedy colouring of an interval graph, which is optimal when intervals are taken by their start
+			eligible.sort(Comparator.comparingInt(temporary -> temporary.first));
+			PriorityQueue<Temporary> live = new PriorityQueue<>(Comparator.comparingInt(temporary -> temporary.last));
+			ArrayDeque<Variable> free = new ArrayDeque<>();
+			for (Temporary temporary : eligible) {
+				while (!live.isEmpty() && live.peek().last < temporary.first) {
+					free.push(live.poll().slot);
+				}
+				temporary.slot = free.isEmpty() ? temporary.variable : free.pop();
+				if (temporary.slot != temporary.variable) {
+					renaming.put(temporary.variable, temporary.slot);
+				}
+				live.add(temporary);
+			}
+		}
+
+		private void stretchOverLoops(@Nonnull List<Temporary> eligible) {
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (int[] loop : this.loops) {
+					for (Temporary temporary : eligible) {
+						boolean overlaps = temporary.first <= loop[1] && temporary.last >= loop[0];
+						boolean within = temporary.first >= loop[0] && temporary.last <= loop[1];
+						boolean around = temporary.first <= loop[0] && temporary.last >= loop[1];
+						if (overlaps && !within && !around) {
+							temporary.first = Math.min(temporary.first, loop[0]);
+							temporary.last = Math.max(temporary.last, loop[1]);
+							changed = true;
+						}
+					}
+				}
+			}
+		}
+
+		@Nullable
+		private Temporary temporary(@Nonnull Node ref) {
+			if (!(ref instanceof TemporaryReference)) {
+				return null;
+			}
+			Variable variable = ((TemporaryReference) ref).variable;
+			Temporary temporary = this.temporaries.get(variable);
+			if (temporary == null && this.locals.contains(variable)) {
+				temporary = new Temporary(variable, this.inOrder.size());
+				this.temporaries.put(variable, temporary);
+				this.inOrder.add(temporary);
+			}
+			return temporary;
+		}
+
+		private void read(@Nonnull Node ref, @Nullable BitSet written) {
+			Temporary temporary = this.temporary(ref);
+			if (temporary != null) {
+				temporary.occursAt(this.position);
+				if (written != null && !written.get(temporary.index)) {
+					temporary.eligible = false;
+				}
+			}
+		}
+
+		private void write(@Nonnull Node ref, @Nullable BitSet written) {
+			Temporary temporary = this.temporary(ref);
+			if (temporary != null) {
+				temporary.occursAt(this.position);
+				if (written != null) {
+					written.set(temporary.index);
+				}
+			}
+		}
+
+		// Walks `node` with `written` holding on entry, which it may change, returning what holds on leaving it.
+		@Nullable
+		private BitSet walk(@Nonnull Node node, @Nullable BitSet written) {
+			++this.position;
+			Node.Kind kind = Node.Kind.of(node);
+			switch (kind) {
+				case TEMPORARY_REFERENCE:
+				case LOCAL_REFERENCE:
+					this.read(node, written);
+					return written;
+				case VARIABLE_ASSIGNMENT: {
+					VariableAssignment assignment = (VariableAssignment) node;
+					written = this.walk(assignment.value, written);
+					if (assignment.ref.isRight()) {
+						++this.position;
+						this.write(assignment.ref.right().fromJust(), written);
+					}
+					return written;
+				}
+				case LITERAL_FUNCTION:
+					// what a nested function uses may be read whenever it is called
+					for (Node descendant : GetDescendents.getDescendants(((LiteralFunction) node).body())) {
+						Temporary temporary = this.temporary(descendant);
+						if (temporary != null) {
+							temporary.eligible = false;
+						}
+					}
+					return written;
+				case IF_ELSE: {
+					IfElse ifElse = (IfElse) node;
+					written = this.walk(ifElse.test, written);
+					BitSet consequent = this.walk(ifElse.consequent, copy(written));
+					return intersect(consequent, this.walk(ifElse.alternate, written));
+				}
+				case LOGIC: {
+					Logic logic = (Logic) node;
+					written = this.walk(logic.left, written);
+					this.walk(logic.right, copy(written));
+					return written;
+				}
+				case LOOP: {
+					int start = this.position;
+					// later iterations start with no less written than the first
+					this.walk(((Loop) node).block, written);
+					this.loops.add(new int[]{ start, this.position });
+					return null;
+				}
+				case BREAK:
+					if (written != null) {
+						this.broken.merge(((Break) node).target, copy(written), TemporaryCoalescer::intersect);
+					}
+					return null;
+				case BREAK_TARGET:
+					return intersect(written, this.broken.remove(node));
+				case RETURN:
+				case RETURN_AFTER_FINALLIES:
+				case THROW:
+					for (Node child : IterativeDirector.children(node, kind)) {
+						written = this.walk(child, written);
+					}
+					return null;
+				case TRY_CATCH: {
+					// the catch block may be entered from anywhere in the try block, when only what was written before it is certain
+					TryCatch tryCatch = (TryCatch) node;
+					BitSet tried = this.walk(tryCatch.tryBody, copy(written));
+					return intersect(tried, this.walk(tryCatch.catchBody.right, written));
+				}
+				case TRY_FINALLY: {
+					TryFinally tryFinally = (TryFinally) node;
+					BitSet tried = this.walk(tryFinally.tryBody, copy(written));
+					BitSet finished = this.walk(tryFinally.finallyBody, written);
+					if (tried == null || finished == null) {
+						return null;
+					}
+					tried.or(finished);
+					return tried;
+				}
+				case SWITCH_STATEMENT: {
+					// the tests are evaluated, up to the first which matches, before control jumps to any case, so they are numbered first
+					// the discriminant is compared with the value of each test after it is evaluated, so it is read again after each
+					SwitchStatement switchStatement = (SwitchStatement) node;
+					this.read(switchStatement.discriminant, written);
+					for (Pair<NodeWithValue, Block> pair : switchStatement.preDefaultCases) {
+						this.walk(pair.left, copy(written));
+						++this.position;
+						this.read(switchStatement.discriminant, written);
+					}
+					for (Pair<NodeWithValue, Block> pair : switchStatement.postDefaultCases) {
+						this.walk(pair.left, copy(written));
+						++this.position;
+						this.read(switchStatement.discriminant, written);
+					}
+					BitSet fallenThrough = null;
+					for (Pair<NodeWithValue, Block> pair : switchStatement.preDefaultCases) {
+						fallenThrough = this.walk(pair.right, copy(written));
+					}
+					fallenThrough = this.walk(switchStatement.defaultCase, copy(written));
+					for (Pair<NodeWithValue, Block> pair : switchStatement.postDefaultCases) {
+						fallenThrough = this.walk(pair.right, copy(written));
+					}
+					return fallenThrough == null ? null : written;
+				}
+				default:
+					for (Node child : IterativeDirector.children(node, kind)) {
+						written = this.walk(child, written);
+					}
+					return written;
+			}
+		}
+	}
+
+	@Nullable
+	private static BitSet copy(@Nullable BitSet written) {
+		return written == null ? null : (BitSet) written.clone();
+	}
+
+	// what is written on both of two paths which meet, either of which may be unreachable
+	@Nullable
+	private static BitSet intersect(@Nullable BitSet a, @Nullable BitSet b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		a.and(b);
+		return a;
+	}
+}
@@ -29,12 +29,14 @@ import com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined;
 import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAccess;
 import com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment;
+import com.shapesecurity.shift.es2017.semantics.asg.MemberCall;
 import com.shapesecurity.shift.es2017.semantics.asg.New;
 import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
 import com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible;
 import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
 import com.shapesecurity.shift.es2017.semantics.asg.This;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
 import com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal;
 import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot;
@@ -46,6 +48,9 @@ import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
 
 import javax.annotation.Nonnull;
 
+import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.AbstractEqualityComparison;
+import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.StrictEqualityComparison;
+import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.ToNumber;
 import static com.shapesecurity.shift.es2017.semantics.visitor.ECMA262Operations.Type;
 
 
@@ -179,10 +184,17 @@ final class Truthiness implements FAlgebraNodeWithValue<Maybe<Boolean>> {
 		return Maybe.empty();
 	}
 
+	@Nonnull
+	@Override
+	public Maybe<Boolean> apply(MemberCall memberCall) {
+		return Maybe.empty();
+	}
+
 	@Nonnull
 	@Override
 	public Maybe<Boolean> apply(New new_) {
-		return Maybe.of(true);
+		// always an object, but the test cannot be dropped along with the call
+		return Maybe.empty();
 	}
 
 	@Nonnull
@@ -215,6 +227,13 @@ final class Truthiness implements FAlgebraNodeWithValue<Maybe<Boolean>> {
 		return Maybe.empty();
 	}
 
+	@Nonnull
+	@Override
+	public Maybe<Boolean> apply(TypeCoercionObject typeCoercionObject) {
+		// an object, or a TypeError which the test cannot be dropped without
+		return Maybe.empty();
+	}
+
 	@Nonnull
 	@Override
 	public Maybe<Boolean> apply(TypeCoercionString typeCoercionString) {
@@ -238,13 +257,18 @@ final class Truthiness implements FAlgebraNodeWithValue<Maybe<Boolean>> {
 	public Maybe<Boolean> apply(Equality equality) {
 		NodeWithValue left = equality.left();
 		NodeWithValue right = equality.right();
-		if (!(left instanceof LiteralNumber && Double.isNaN(((LiteralNumber) left).value)) &&
-				Type(left).map(t -> t != Type.Object).orJust(false) && left.equals(right)) {
-			Equality.Operator operator = equality.operator;
-			return Maybe.of(operator == Equality.Operator.StrictEq || operator == Equality.Operator.Eq);
+		switch (equality.operator) {
+			case Eq:
+				return AbstractEqualityComparison(left, right);
+			case Neq:
+				return AbstractEqualityComparison(left, right).map(x -> !x);
+			case StrictEq:
+				return StrictEqualityComparison(left, right);
+			case StrictNeq:
+				return StrictEqualityComparison(left, right).map(x -> !x);
+			default:
+				throw new RuntimeException("Not reached");
 		}
-		// TODO: implement non-strict equality algorithm
-		return Maybe.empty();
 	}
 
 	@Nonnull
@@ -286,7 +310,43 @@ final class Truthiness implements FAlgebraNodeWithValue<Maybe<Boolean>> {
 	@Nonnull
 	@Override
 	public Maybe<Boolean> apply(RelationalComparison relationalComparison) {
-		return Maybe.empty();
+		// objects and symbols would call ToPrimitive or throw
+		NodeWithValue left = relationalComparison.left();
+		NodeWithValue right = relationalComparison.right();
+		if (!Type(left).map(Truthiness::isComparable).orJust(false) || !Type(right).map(Truthiness::isComparable).orJust(false)) {
+			return Maybe.empty();
+		}
+		if (left instanceof LiteralString && right instanceof LiteralString) {
+			// by UTF-16 code units, as String.compareTo does
+			int comparison = ((LiteralString) left).value.compareTo(((LiteralString) right).value);
+			switch (relationalComparison.operator) {
+				case LessThan:
+					return Maybe.of(comparison < 0);
+				case LessThanEqual:
+					return Maybe.of(comparison <= 0);
+				case GreaterThan:
+					return Maybe.of(comparison > 0);
+				case GreaterThanEqual:
+					return Maybe.of(comparison >= 0);
+				default:
+					throw new RuntimeException("Not reached");
+			}
+		}
+		// Java's comparisons are false for NaN, as these are
+		double a = ToNumber(left).fromJust().value;
+		double b = ToNumber(right).fromJust().value;
+		switch (relationalComparison.operator) {
+			case LessThan:
+				return Maybe.of(a < b);
+			case LessThanEqual:
+				return Maybe.of(a <= b);
+			case GreaterThan:
+				return Maybe.of(a > b);
+			case GreaterThanEqual:
+				return Maybe.of(a >= b);
+			default:
+				throw new RuntimeException("Not reached");
+		}
 	}
 
 	@Nonnull
@@ -318,4 +378,8 @@ final class Truthiness implements FAlgebraNodeWithValue<Maybe<Boolean>> {
 	public Maybe<Boolean> apply(VoidOp voidOp) {
 		return Maybe.of(false);
 	}
+
+	private static boolean isComparable(@Nonnull Type type) {
+		return type != Type.Object && type != Type.Symbol;
+	}
 }
@@ -0,0 +1,53 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.data.Either;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.ast.Program;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchExplicatorTest {
+	@Test
+	public void testResultsInOrderWithFailuresIsolated() throws Exception {
+		ArrayList<Program> programs = new ArrayList<>();
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			programs.add(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+		}
+		programs.add(1, Parser.parseScript("class A {}"));
+		programs.add(Parser.parseModule("a = 0"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			ImmutableList<Either<Throwable, Semantics>> results = BatchExplicator.deriveSemantics(programs, executor);
+			assertEquals(programs.size(), results.length);
+			int i = 0;
+			for (Either<Throwable, Semantics> result : results) {
+				if (i == 1) {
+					assertTrue(result.isLeft());
+				} else {
+					assertTrue(result.isRight());
+					assertTrue(Util.isomorphic(Explicator.deriveSemantics(programs.get(i)), result.right().fromJust()));
+				}
+				++i;
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testVirtualThreads() throws Exception {
+		ImmutableList<Either<Throwable, Semantics>> results = BatchExplicator.deriveSemanticsOnVirtualThreads(
+			ImmutableList.of(Parser.parseScript("a = 0"), Parser.parseScript("function f(){ return 1; }"))
+		);
+		assertEquals(2, results.length);
+		assertTrue(results.foldLeft((acc, r) -> acc && r.isRight(), true));
+	}
+}
@@ -0,0 +1,333 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.shift.es2017.ast.FunctionBody;
+import com.shapesecurity.shift.es2017.ast.Module;
+import com.shapesecurity.shift.es2017.ast.Script;
+import com.shapesecurity.shift.es2017.parser.JsError;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
+import com.shapesecurity.shift.es2017.semantics.binary.SemanticsReader;
+import com.shapesecurity.shift.es2017.semantics.binary.SemanticsWriter;
+import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.IterativeDirector;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of explication over the minified bundles in src/test/resources/corpus.
+// Excluded from surefire; run with `mvn -P benchmark test-compile exec:exec`.
+// Scores are scripts/sec; the `nodes` counter gives ASG nodes/sec and the gc profiler gives allocation rate.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkTest {
+
+	@State(Scope.Benchmark)
+	public static class Corpus {
+		@Param({"underscore-1.8.3.min.js", "moment-2.10.6.min.js", "jquery-1.12.4.min.js"})
+		public String file;
+
+		String source;
+		Script script;
+		Module module;
+		Semantics semantics;
+		Node[] nodes;
+		ByteBuffer serialized;
+		long scriptNodes;
+		long moduleNodes;
+
+		@Setup
+		public void setup() throws IOException, JsError {
+			this.source = ExplicationSucceedsTest.readCorpusFile(this.file);
+			this.script = Parser.parseScript(this.source);
+			this.module = Parser.parseModule(this.source);
+			this.semantics = Explicator.deriveSemantics(this.script);
+			this.serialized = SemanticsWriter.write(this.semantics);
+			this.nodes = GetDescendents.getDescendants(this.semantics.node).toArray(new Node[0]);
+			this.scriptNodes = GetDescendents.getDescendants(Explicator.deriveSemantics(this.script).node).length;
+			this.moduleNodes = GetDescendents.getDescendants(Explicator.deriveSemantics(this.module).node).length;
+		}
+	}
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class NodeCounter {
+		public long nodes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.nodes = 0;
+		}
+	}
+
+	@Benchmark
+	public Semantics deriveSemanticsScript(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return Explicator.deriveSemantics(corpus.script);
+	}
+
+	@Benchmark
+	public Semantics deriveSemanticsModule(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.moduleNodes;
+		return Explicator.deriveSemantics(corpus.module);
+	}
+
+	// only the top-level code is explicated; the nodes counter still counts the whole graph
+	@Benchmark
+	public Semantics deriveSemanticsDeferringBodies(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return Explicator.deriveSemanticsDeferringBodies(corpus.script);
+	}
+
+	@Benchmark
+	public Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> deriveSemanticsWithLocation(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return ExplicatorWithLocation.deriveSemanticsWithLocation(corpus.script);
+	}
+
+	// loading a persisted Semantics, to compare against parsing and explicating from source
+	@Benchmark
+	public Semantics parseAndDeriveSemanticsScript(Corpus corpus, NodeCounter counter) throws JsError {
+		counter.nodes += corpus.scriptNodes;
+		return Explicator.deriveSemantics(Parser.parseScript(corpus.source));
+	}
+
+	@Benchmark
+	public Semantics readSemantics(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return SemanticsReader.read(corpus.serialized.duplicate());
+	}
+
+	@Benchmark
+	public ByteBuffer writeSemantics(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return SemanticsWriter.write(corpus.semantics);
+	}
+
+	// a pass over an existing graph, memoizing every node or only those that can be shared
+	@Benchmark
+	public Node blockSquasherMemoizingAllNodes(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return new Director<>(BlockSquasher.create(), Director.Memoization.ALL_NODES).reduceNode(corpus.semantics.node);
+	}
+
+	@Benchmark
+	public Node blockSquasherMemoizingSharedNodes(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return new Director<>(BlockSquasher.create(), Director.Memoization.SHARED_NODES).reduceNode(corpus.semantics.node);
+	}
+
+	@Benchmark
+	public Node blockSquasherIterative(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return new IterativeDirector<>(BlockSquasher.create(), Director.Memoization.SHARED_NODES).reduceNode(corpus.semantics.node);
+	}
+
+	// a MonoidalReducer, sequentially and on the common ForkJoinPool
+	@Benchmark
+	public int countNodes(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return com.shapesecurity.shift.es2017.semantics.visitor.NodeCounter.count(corpus.semantics.node);
+	}
+
+	@Benchmark
+	public int countNodesInParallel(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.scriptNodes;
+		return com.shapesecurity.shift.es2017.semantics.visitor.NodeCounter.countInParallel(corpus.semantics.node);
+	}
+
+	// dispatch alone, over every node of the graph: Node.Kind.of (as used by the visitors), calling Node.kind directly,
+	// and the chain of instanceof checks the visitors used before
+	@Benchmark
+	public int dispatchByKind(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.nodes.length;
+		int sum = 0;
+		for (Node node : corpus.nodes) {
+			sum += Node.Kind.of(node).ordinal();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int dispatchByKindMethod(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.nodes.length;
+		int sum = 0;
+		for (Node node : corpus.nodes) {
+			sum += node.kind().ordinal();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int dispatchByInstanceof(Corpus corpus, NodeCounter counter) {
+		counter.nodes += corpus.nodes.length;
+		int sum = 0;
+		for (Node node : corpus.nodes) {
+			sum += kindByInstanceof(node).ordinal();
+		}
+		return sum;
+	}
+
+	// in the order Director.reduceNode, reduceNodeWithValue and reduceMemberAssignmentProperty used to test for each class
+	@Nonnull
+	private static Node.Kind kindByInstanceof(@Nonnull Node node) {
+		if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Call) {
+			return Node.Kind.CALL;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue) {
+			return Node.Kind.BLOCK_WITH_VALUE;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath) {
+			return Node.Kind.FLOAT_MATH;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath) {
+			return Node.Kind.INT_MATH;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.GlobalReference) {
+			return Node.Kind.GLOBAL_REFERENCE;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber) {
+			return Node.Kind.LITERAL_NUMBER;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean) {
+			return Node.Kind.LITERAL_BOOLEAN;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralString) {
+			return Node.Kind.LITERAL_STRING;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralNull) {
+			return Node.Kind.LITERAL_NULL;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction) {
+			return Node.Kind.LITERAL_FUNCTION;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyObject) {
+			return Node.Kind.LITERAL_EMPTY_OBJECT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralEmptyArray) {
+			return Node.Kind.LITERAL_EMPTY_ARRAY;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp) {
+			return Node.Kind.LITERAL_REG_EXP;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralInfinity) {
+			return Node.Kind.LITERAL_INFINITY;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralSymbol) {
+			return Node.Kind.LITERAL_SYMBOL;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LiteralUndefined) {
+			return Node.Kind.LITERAL_UNDEFINED;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference) {
+			return Node.Kind.TEMPORARY_REFERENCE;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.LocalReference) {
+			return Node.Kind.LOCAL_REFERENCE;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.MemberAccess) {
+			return Node.Kind.MEMBER_ACCESS;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.MemberAssignment) {
+			return Node.Kind.MEMBER_ASSIGNMENT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison) {
+			return Node.Kind.RELATIONAL_COMPARISON;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment) {
+			return Node.Kind.VARIABLE_ASSIGNMENT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.MemberCall) {
+			return Node.Kind.MEMBER_CALL;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not) {
+			return Node.Kind.NOT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.InstanceOf) {
+			return Node.Kind.INSTANCE_OF;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Negation) {
+			return Node.Kind.NEGATION;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality) {
+			return Node.Kind.EQUALITY;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.New) {
+			return Node.Kind.NEW;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.This) {
+			return Node.Kind.THIS;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Halt) {
+			return Node.Kind.HALT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.RequireObjectCoercible) {
+			return Node.Kind.REQUIRE_OBJECT_COERCIBLE;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString) {
+			return Node.Kind.TYPE_COERCION_STRING;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionNumber) {
+			return Node.Kind.TYPE_COERCION_NUMBER;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject) {
+			return Node.Kind.TYPE_COERCION_OBJECT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Keys) {
+			return Node.Kind.KEYS;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.TypeofGlobal) {
+			return Node.Kind.TYPEOF_GLOBAL;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.VoidOp) {
+			return Node.Kind.VOID_OP;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.DeleteGlobalProperty) {
+			return Node.Kind.DELETE_GLOBAL_PROPERTY;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Logic) {
+			return Node.Kind.LOGIC;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.In) {
+			return Node.Kind.IN;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.DeleteProperty) {
+			return Node.Kind.DELETE_PROPERTY;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Typeof) {
+			return Node.Kind.TYPEOF;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.BitwiseNot) {
+			return Node.Kind.BITWISE_NOT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Block) {
+			return Node.Kind.BLOCK;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.BreakTarget) {
+			return Node.Kind.BREAK_TARGET;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Break) {
+			return Node.Kind.BREAK;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.IfElse) {
+			return Node.Kind.IF_ELSE;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Loop) {
+			return Node.Kind.LOOP;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Void) {
+			return Node.Kind.VOID;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Throw) {
+			return Node.Kind.THROW;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.MemberDefinition) {
+			return Node.Kind.MEMBER_DEFINITION;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.TryCatch) {
+			return Node.Kind.TRY_CATCH;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.TryFinally) {
+			return Node.Kind.TRY_FINALLY;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement) {
+			return Node.Kind.SWITCH_STATEMENT;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.Return) {
+			return Node.Kind.RETURN;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.ReturnAfterFinallies) {
+			return Node.Kind.RETURN_AFTER_FINALLIES;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty.StaticValue) {
+			return Node.Kind.STATIC_VALUE;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty.Getter) {
+			return Node.Kind.GETTER;
+		} else if (node instanceof com.shapesecurity.shift.es2017.semantics.asg.MemberAssignmentProperty.Setter) {
+			return Node.Kind.SETTER;
+		}
+		throw new IllegalArgumentException(node.getClass().getSimpleName());
+	}
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		Options options = new OptionsBuilder()
+			.parent(new CommandLineOptions(args))
+			.include(BenchmarkTest.class.getName())
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+}
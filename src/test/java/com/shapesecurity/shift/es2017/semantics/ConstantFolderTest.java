@@ -1,23 +1,32 @@
 package com.shapesecurity.shift.es2017.semantics;
 
+import com.shapesecurity.functional.data.ImmutableList;
 import com.shapesecurity.shift.es2017.ast.Script;
 import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.Equality;
 import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
 import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.IntMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.RelationalComparison;
 import com.shapesecurity.shift.es2017.semantics.asg.Block;
 import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
 import com.shapesecurity.shift.es2017.semantics.asg.Call;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralBoolean;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
+import com.shapesecurity.shift.es2017.semantics.asg.New;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionObject;
+import com.shapesecurity.shift.es2017.semantics.asg.TypeCoercionString;
 import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
 import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
 import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
 import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -432,7 +441,122 @@ public class ConstantFolderTest {
 			assertTrue((((Call) ((Block) reducedNode).children.maybeHead().fromJust()).arguments.maybeHead().fromJust()) instanceof LiteralNumber);
 			assertEquals(0, ((LiteralNumber) ((Call) ((Block) reducedNode).children.maybeHead().fromJust()).arguments.maybeHead().fromJust()).value, 0.0);
 		}
+		assertEquals(2, ((LiteralNumber) foldArgument("f(6 & '3')")).value, 0.0);
+		assertEquals(7, ((LiteralNumber) foldArgument("f(6 | 3)")).value, 0.0);
+		assertEquals(5, ((LiteralNumber) foldArgument("f(6 ^ 3)")).value, 0.0);
+		assertEquals(-1, ((LiteralNumber) foldArgument("f(4294967295 & -1)")).value, 0.0);
+		assertEquals(0, ((LiteralNumber) foldArgument("f(-4294967296 | 0)")).value, 0.0);
+	}
+
+	// Explicates and folds `f(<expression>)`, returning the argument.
+	private static Node foldArgument(String programText) throws Exception {
+		Semantics reducedAsg = ConstantFolder.reduce(Explicator.deriveSemantics(Parser.parseScript(programText)));
+		return ((Call) ((Block) BlockSquasher.reduce(reducedAsg).node).children.maybeHead().fromJust()).arguments.maybeHead().fromJust();
+	}
+
+	@Test
+	public void testFloatMathOperators() throws Exception {
+		assertEquals(5, ((LiteralNumber) foldArgument("f(7 - '2')")).value, 0.0);
+		assertEquals(12, ((LiteralNumber) foldArgument("f('6' * 2)")).value, 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, ((LiteralNumber) foldArgument("f(1 / 0)")).value, 0.0);
+		assertEquals(Double.NEGATIVE_INFINITY, ((LiteralNumber) foldArgument("f(1 / -0)")).value, 0.0);
+		assertEquals(-1, ((LiteralNumber) foldArgument("f(-7 % 3)")).value, 0.0);
+		assertEquals(1.5, ((LiteralNumber) foldArgument("f(5.5 % 2)")).value, 0.0);
+		assertEquals(1024, ((LiteralNumber) foldArgument("f(2 ** 10)")).value, 0.0);
+		assertTrue(Double.isNaN(((LiteralNumber) foldArgument("f(1 ** (0 / 0))")).value));
+		assertTrue(Double.isNaN(((LiteralNumber) foldArgument("f(void 0 - 1)")).value));
+		assertTrue(Double.isNaN(((LiteralNumber) foldArgument("f('1x' * 1)")).value));
+		assertEquals(1, ((LiteralNumber) foldArgument("f(null + true)")).value, 0.0);
+		// an object operand is converted by calling into it, which is not folded
+		assertTrue(foldArgument("f([] - 1)") instanceof FloatMath);
+	}
+
+	@Test
+	public void testNumberToString() throws Exception {
+		assertEquals("a2", ((LiteralString) foldArgument("f('a' + 2)")).value);
+		assertEquals("0.30000000000000004", ((LiteralString) foldArgument("f('' + (0.1 + 0.2))")).value);
+		assertEquals("1e+21", ((LiteralString) foldArgument("f('' + 1e21)")).value);
+		assertEquals("100000000000000000000", ((LiteralString) foldArgument("f('' + 1e20)")).value);
+		assertEquals("1.5e-7", ((LiteralString) foldArgument("f('' + 1.5e-7)")).value);
+		assertEquals("0.000001", ((LiteralString) foldArgument("f('' + 1e-6)")).value);
+		assertEquals("0", ((LiteralString) foldArgument("f('' + -0)")).value);
+		assertEquals("-Infinity", ((LiteralString) foldArgument("f('' + -1 / 0)")).value);
+		assertEquals("NaN", ((LiteralString) foldArgument("f('' + 0 / 0)")).value);
+	}
+
+	@Test
+	public void testUnaryOperations() throws Exception {
+		assertEquals(-6, ((LiteralNumber) foldArgument("f(~5)")).value, 0.0);
+		assertEquals(-1, ((LiteralNumber) foldArgument("f(~'0')")).value, 0.0);
+		assertEquals(-3, ((LiteralNumber) foldArgument("f(-'3')")).value, 0.0);
+		assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(((LiteralNumber) foldArgument("f(-0)")).value));
+		assertEquals(16, ((LiteralNumber) foldArgument("f(+' 0x10\\n')")).value, 0.0);
+		assertEquals(0, ((LiteralNumber) foldArgument("f(+'')")).value, 0.0);
+		assertEquals(1, ((LiteralNumber) foldArgument("f(+true)")).value, 0.0);
+		assertTrue(Double.isNaN(((LiteralNumber) foldArgument("f(+'-0x10')")).value));
+		assertTrue(((LiteralBoolean) foldArgument("f(!(0 / 0))")).value);
+		assertEquals("number", ((LiteralString) foldArgument("f(typeof 1)")).value);
+		assertEquals("object", ((LiteralString) foldArgument("f(typeof null)")).value);
+		assertEquals("object", ((LiteralString) foldArgument("f(typeof [])")).value);
+		assertEquals("function", ((LiteralString) foldArgument("f(typeof function () {})")).value);
+		assertEquals("undefined", ((LiteralString) foldArgument("f(typeof void 0)")).value);
+		assertEquals("string", ((LiteralString) foldArgument("f(typeof '')")).value);
 
-		// TODO: &, |, ^
+		Node coerced = new Director<>(ConstantFolder.create()).reduceNode(new TypeCoercionString(new LiteralNumber(1.5)));
+		assertEquals("1.5", ((LiteralString) coerced).value);
+	}
+
+	@Test
+	public void testEquality() throws Exception {
+		assertTrue(((LiteralBoolean) foldArgument("f(1 == '1')")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f(1 === '1')")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f(1 !== '1')")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f(null == void 0)")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f(null == 0)")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f(null != void 0)")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f(true == '1')")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f(0 === -0)")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f(0 / 0 == 0 / 0)")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f('0x1' == 1)")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f([] === [])")).value);
+		// comparing an object with a primitive calls into the object
+		assertTrue(foldArgument("f([] == '')") instanceof Equality);
+		assertTrue(foldArgument("f(x == 1)") instanceof Equality);
+	}
+
+	@Test
+	public void testRelationalComparison() throws Exception {
+		assertTrue(((LiteralBoolean) foldArgument("f('a' < 'b')")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f('10' < '9')")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f('10' < 9)")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f(null >= 0)")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f(1 <= 0 / 0)")).value);
+		assertFalse(((LiteralBoolean) foldArgument("f(0 / 0 >= 1)")).value);
+		assertTrue(((LiteralBoolean) foldArgument("f(-0 >= 0)")).value);
+		assertTrue(foldArgument("f([] < 1)") instanceof RelationalComparison);
+	}
+
+	@Test
+	public void testFoldedComparisonDecidesConditional() throws Exception {
+		Semantics reducedAsg = ConstantFolder.reduce(Explicator.deriveSemantics(Parser.parseScript("if ('b' > 'a' && 1 == '1') f(); else g();")));
+		Node reducedNode = BlockSquasher.reduce(reducedAsg).node;
+		assertTrue(EqualityChecker.nodesAreEqual(BlockSquasher.reduce(Explicator.deriveSemantics(Parser.parseScript("f();"))).node, reducedNode));
+	}
+
+	@Test
+	public void testKeepsConditionalWithEffectfulTest() throws Exception {
+		// ToObject throws on undefined and null, and a constructor may do anything, so neither test can go although both give objects
+		IfElse coerced = new IfElse(new TypeCoercionObject(new GlobalReference("x")), new Block(ImmutableList.empty()), new Block(ImmutableList.empty()));
+		assertTrue(new Director<>(ConstantFolder.create()).reduceNode(coerced) instanceof IfElse);
+		IfElse constructed = new IfElse(new New(new GlobalReference("X"), ImmutableList.empty()), new Block(ImmutableList.empty()), new Block(ImmutableList.empty()));
+		assertTrue(new Director<>(ConstantFolder.create()).reduceNode(constructed) instanceof IfElse);
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			ConstantFolder.reduce(asg);
+		}
 	}
 }
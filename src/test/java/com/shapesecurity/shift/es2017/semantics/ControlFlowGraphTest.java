@@ -0,0 +1,164 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.visitor.ControlFlowGraph;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.Query;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ControlFlowGraphTest {
+	@Nonnull
+	private static ControlFlowGraph graph(@Nonnull String programText) throws Exception {
+		return ControlFlowGraph.of(Explicator.deriveSemantics(Parser.parseScript(programText)).node);
+	}
+
+	// the block looking up the global `name`, or -1
+	private static int lookup(@Nonnull ControlFlowGraph graph, @Nonnull String name) {
+		for (int block = 0; block < graph.blockCount(); ++block) {
+			for (int i = 0; i < graph.nodeCount(block); ++i) {
+				Node node = graph.node(block, i);
+				if (node instanceof GlobalReference && ((GlobalReference) node).name.equals(name)) {
+					return block;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static int block(@Nonnull ControlFlowGraph graph, @Nonnull String name) {
+		int block = lookup(graph, name);
+		assertTrue("no block looks up " + name, block >= 0);
+		return block;
+	}
+
+	private static boolean hasEdge(@Nonnull ControlFlowGraph graph, int from, int to, boolean exceptional) {
+		for (int i = 0; i < graph.successorCount(from); ++i) {
+			if (graph.successor(from, i) == to && graph.isExceptionalSuccessor(from, i) == exceptional) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testConditional() throws Exception {
+		ControlFlowGraph graph = graph("a(); if (b) c(); else d(); e();");
+		int test = block(graph, "b");
+		int consequent = block(graph, "c");
+		int alternate = block(graph, "d");
+		int join = block(graph, "e");
+		assertEquals(ControlFlowGraph.ENTRY, test);
+		assertTrue(hasEdge(graph, test, consequent, false));
+		assertTrue(hasEdge(graph, test, alternate, false));
+		assertEquals(2, graph.predecessorCount(join));
+		assertEquals(test, graph.immediateDominator(join));
+		assertEquals(join, graph.immediatePostDominator(test));
+		assertTrue(graph.postDominates(ControlFlowGraph.EXIT, consequent));
+		assertFalse(graph.dominates(consequent, join));
+		assertTrue(hasEdge(graph, join, ControlFlowGraph.EXIT, false));
+	}
+
+	@Test
+	public void testLoops() throws Exception {
+		ControlFlowGraph graph = graph("while (a) { if (b) break; c(); } d();");
+		int header = block(graph, "a");
+		int after = block(graph, "d");
+		assertTrue(graph.dominates(header, block(graph, "c")));
+		assertEquals(header, graph.immediateDominator(after));
+		// the loop is left both when a is false and by the break
+		assertEquals(2, graph.predecessorCount(after));
+
+		// nothing leaves the loop, so nothing in it reaches the exit
+		ControlFlowGraph infinite = graph("for (;;) { a(); } b();");
+		assertEquals(-1, infinite.immediatePostDominator(block(infinite, "a")));
+		assertEquals(-1, infinite.immediateDominator(ControlFlowGraph.EXIT));
+		// the code after the loop is left out
+		assertEquals(-1, lookup(infinite, "b"));
+	}
+
+	@Test
+	public void testExceptions() throws Exception {
+		ControlFlowGraph graph = graph("try { a(); } catch (e) { b(); } c();");
+		int tryBlock = block(graph, "a");
+		int catchBlock = block(graph, "b");
+		assertTrue(hasEdge(graph, tryBlock, catchBlock, true));
+		assertTrue(graph.isExceptionalPredecessor(catchBlock, 0));
+		assertEquals(tryBlock, graph.immediateDominator(catchBlock));
+		assertEquals(block(graph, "c"), graph.immediatePostDominator(tryBlock));
+
+		ControlFlowGraph uncaught = graph("a(); throw b;");
+		assertTrue(hasEdge(uncaught, block(uncaught, "b"), ControlFlowGraph.EXIT, true));
+	}
+
+	@Test
+	public void testFinally() throws Exception {
+		ControlFlowGraph graph = graph("x: try { a(); if (b) break x; e(); } finally { c(); } d();");
+		int finallyBlock = block(graph, "c");
+		int after = block(graph, "d");
+		// entered from the end of the try block, from the break leaving it and exceptionally from the blocks in it
+		assertTrue(hasEdge(graph, block(graph, "a"), finallyBlock, true));
+		assertTrue(hasEdge(graph, block(graph, "e"), finallyBlock, false));
+		assertTrue(graph.predecessorCount(finallyBlock) >= 4);
+		// left for the target of the break, for the code after the statement and by rethrowing
+		assertTrue(hasEdge(graph, finallyBlock, after, false));
+		assertTrue(hasEdge(graph, finallyBlock, ControlFlowGraph.EXIT, true));
+		assertTrue(graph.postDominates(finallyBlock, block(graph, "a")));
+		assertTrue(graph.dominates(finallyBlock, after));
+
+		// a return leaves through the finally block of the function
+		LiteralFunction function = (LiteralFunction) Query.find(
+			Explicator.deriveSemantics(Parser.parseScript("f = function () { try { return a(); } finally { b(); } };")).node,
+			n -> n instanceof LiteralFunction
+		).fromJust();
+		ControlFlowGraph returning = ControlFlowGraph.of(function);
+		assertTrue(hasEdge(returning, block(returning, "b"), ControlFlowGraph.EXIT, false));
+		assertTrue(returning.dominates(block(returning, "b"), ControlFlowGraph.EXIT));
+	}
+
+	@Test
+	public void testSwitch() throws Exception {
+		ControlFlowGraph graph = graph("switch (a) { case 1: b(); case 2: c(); break; default: d(); } e();");
+		int first = block(graph, "b");
+		int second = block(graph, "c");
+		// reached by its test and by falling through
+		assertEquals(2, graph.predecessorCount(second));
+		assertTrue(hasEdge(graph, first, second, false));
+		int after = block(graph, "e");
+		assertTrue(graph.dominates(block(graph, "a"), after));
+		assertTrue(graph.postDominates(after, block(graph, "d")));
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics semantics = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			for (Node node : GetDescendents.getDescendants(semantics.node)) {
+				if (!(node instanceof LiteralFunction)) {
+					continue;
+				}
+				ControlFlowGraph graph = ControlFlowGraph.of((LiteralFunction) node);
+				for (int block = 0; block < graph.blockCount(); ++block) {
+					// every block left in is reachable, so dominated by the entry
+					assertTrue(name, graph.dominates(ControlFlowGraph.ENTRY, block) || block == ControlFlowGraph.EXIT);
+					for (int i = 0; i < graph.successorCount(block); ++i) {
+						int successor = graph.successor(block, i);
+						boolean found = false;
+						for (int j = 0; j < graph.predecessorCount(successor); ++j) {
+							found |= graph.predecessor(successor, j) == block && graph.isExceptionalPredecessor(successor, j) == graph.isExceptionalSuccessor(block, i);
+						}
+						assertTrue(name, found);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.BinaryOperation.FloatMath;
+import com.shapesecurity.shift.es2017.semantics.asg.BlockWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.Call;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.IfElse;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralString;
+import com.shapesecurity.shift.es2017.semantics.asg.Loop;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Throw;
+import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+import com.shapesecurity.shift.es2017.semantics.visitor.CopyPropagator;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeCounter;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CopyPropagatorTest {
+	@Nonnull
+	private static Semantics withTemporaries(@Nonnull Node node, @Nonnull TemporaryReference... temporaries) throws Exception {
+		Semantics empty = Explicator.deriveSemantics(Parser.parseScript(""));
+		ImmutableList<Variable> locals = ImmutableList.empty();
+		for (TemporaryReference temporary : temporaries) {
+			locals = locals.cons(temporary.variable);
+		}
+		return new Semantics(node, locals, empty.scriptVarDecls, empty.scopeLookup, empty.functionScopes);
+	}
+
+	@Nonnull
+	private static Call call(@Nonnull String name, @Nonnull NodeWithValue... arguments) {
+		return new Call(new GlobalReference(name), ImmutableList.from(arguments));
+	}
+
+	private static void assertUnchanged(@Nonnull Node node, @Nonnull TemporaryReference temporary) throws Exception {
+		Semantics semantics = withTemporaries(node, temporary);
+		Semantics propagated = CopyPropagator.reduce(semantics);
+		assertSame(semantics.node, propagated.node);
+		assertEquals(1, propagated.locals.length);
+	}
+
+	private static int temporaries(@Nonnull Semantics semantics) {
+		return ExplicationListener.PhaseReport.forGraph(ExplicationListener.Phase.COPY_PROPAGATION, 0, 0, 0, semantics.node).temporaries;
+	}
+
+	@Test
+	public void testPropagatesIntoNextStatement() throws Exception {
+		// t = f(); throw t;  =>  throw f();
+		TemporaryReference t = new TemporaryReference();
+		Semantics propagated = CopyPropagator.reduce(withTemporaries(new Block(ImmutableList.of(
+			new VariableAssignment(t, call("f"), false),
+			new Throw(t)
+		)), t));
+		assertTrue(EqualityChecker.nodesAreEqual(new Block(new Throw(call("f"))), propagated.node));
+		assertEquals(0, propagated.locals.length);
+
+		// t = f(); u = t; u('a');  =>  f()('a');
+		TemporaryReference u = new TemporaryReference();
+		Semantics chained = CopyPropagator.reduce(withTemporaries(new Block(ImmutableList.of(
+			new VariableAssignment(t, call("f"), false),
+			new VariableAssignment(u, t, false),
+			new Call(u, ImmutableList.of(new LiteralString("a")))
+		)), t, u));
+		assertTrue(EqualityChecker.nodesAreEqual(new Block(new Call(call("f"), ImmutableList.of(new LiteralString("a")))), chained.node));
+		assertEquals(0, chained.locals.length);
+
+		// the shape letWithValue leaves, and constants may be passed: {t = f();} 'a' + t  =>  'a' + f()
+		Semantics withValue = CopyPropagator.reduce(withTemporaries(new Block(new BlockWithValue(
+			new Block(new VariableAssignment(t, call("f"), false)),
+			new FloatMath(FloatMath.Operator.Plus, new LiteralString("a"), t)
+		)), t));
+		assertTrue(EqualityChecker.nodesAreEqual(new Block(new FloatMath(FloatMath.Operator.Plus, new LiteralString("a"), call("f"))), withValue.node));
+	}
+
+	@Test
+	public void testKeepsEvaluationOrder() throws Exception {
+		// h() would run after f() instead of before it, and so would the lookup of g, which f() might assign
+		TemporaryReference t = new TemporaryReference();
+		assertUnchanged(new Block(ImmutableList.of(new VariableAssignment(t, call("f"), false), new Call(t, ImmutableList.of(call("h"), t)))), t);
+		assertUnchanged(new Block(ImmutableList.of(new VariableAssignment(t, call("f"), false), call("g", t))), t);
+		// f() would run again on every iteration
+		assertUnchanged(new Block(ImmutableList.of(new VariableAssignment(t, call("f"), false), new Loop(new Block(call("g", t))))), t);
+		// f() would only run when x holds
+		assertUnchanged(new Block(ImmutableList.of(
+			new VariableAssignment(t, call("f"), false),
+			new IfElse(new GlobalReference("x"), new Block(call("g", t)), new Block(ImmutableList.empty()))
+		)), t);
+		// read twice
+		assertUnchanged(new Block(ImmutableList.of(new VariableAssignment(t, call("f"), false), new Throw(new FloatMath(FloatMath.Operator.Plus, t, t)))), t);
+	}
+
+	@Test
+	public void testExplicatedTemporaries() throws Exception {
+		// the temporary holding String(b()) goes into the member assignment; b() itself cannot pass the check that `a` is an object
+		Semantics semantics = Explicator.deriveSemantics(Parser.parseScript("a[b()] = c();"));
+		Semantics propagated = CopyPropagator.reduce(semantics);
+		assertEquals(3, temporaries(semantics));
+		assertEquals(2, temporaries(propagated));
+		assertEquals(2, propagated.locals.length);
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics semantics = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			Semantics propagated = CopyPropagator.reduce(semantics);
+			assertTrue(name, temporaries(propagated) < temporaries(semantics));
+			assertTrue(name, NodeCounter.count(propagated.node) < NodeCounter.count(semantics.node));
+		}
+	}
+}
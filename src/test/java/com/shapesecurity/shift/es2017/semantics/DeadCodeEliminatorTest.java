@@ -0,0 +1,89 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.DeadCodeEliminator;
+import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeCounter;
+import com.shapesecurity.shift.es2017.semantics.visitor.Query;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DeadCodeEliminatorTest {
+	@Nonnull
+	private static Node eliminate(@Nonnull String programText) throws Exception {
+		return DeadCodeEliminator.reduce(Explicator.deriveSemantics(Parser.parseScript(programText))).node;
+	}
+
+	private static boolean references(@Nonnull Node node, @Nonnull String global) {
+		return Query.exists(node, n -> n instanceof GlobalReference && ((GlobalReference) n).name.equals(global));
+	}
+
+	// Only for programs left without break targets, which are compared by identity.
+	private static void assertSameAfterElimination(@Nonnull String programText, @Nonnull String expected) throws Exception {
+		Semantics eliminated = DeadCodeEliminator.reduce(Explicator.deriveSemantics(Parser.parseScript(programText)));
+		Semantics eliminatedExpected = DeadCodeEliminator.reduce(Explicator.deriveSemantics(Parser.parseScript(expected)));
+		assertTrue(programText, EqualityChecker.nodesAreEqual(BlockSquasher.reduce(eliminatedExpected).node, BlockSquasher.reduce(eliminated).node));
+	}
+
+	@Test
+	public void testRemovesCodeAfterJumps() throws Exception {
+		assertSameAfterElimination("a(); throw b; c(); d();", "a(); throw b;");
+		Node loop = eliminate("while (a) { b(); break; c(); } d();");
+		assertFalse(references(loop, "c"));
+		assertTrue(references(loop, "d"));
+		Node labelled = eliminate("x: { a(); break x; b(); } c();");
+		assertFalse(references(labelled, "b"));
+		assertTrue(references(labelled, "c"));
+		assertSameAfterElimination("if (a) throw b; else throw c; d();", "if (a) throw b; else throw c;");
+		assertSameAfterElimination("try { throw a; } finally { b(); } c();", "try { throw a; } finally { b(); }");
+		assertTrue(references(eliminate("try { throw a; } catch (e) { b(); } c();"), "c"));
+		assertSameAfterElimination("for (;;) { a(); } b();", "for (;;) { a(); }");
+
+		Node function = eliminate("f = function () { a(); return 1; b(); };");
+		assertTrue(references(function, "a"));
+		assertFalse(references(function, "b"));
+
+		Node switched = eliminate("switch (a) { case 1: throw b; default: throw c; } d();");
+		assertTrue(references(switched, "c"));
+		assertFalse(references(switched, "d"));
+		assertTrue(references(eliminate("switch (a) { case 1: throw b; } d();"), "d"));
+		assertTrue(references(eliminate("switch (a) { case 1: break; default: throw c; } d();"), "d"));
+	}
+
+	@Test
+	public void testRemovesUnusedTargets() throws Exception {
+		// the break to x is unreachable, so nothing jumps past the throw
+		assertSameAfterElimination("x: { throw a; break x; } b(); c();", "throw a;");
+		// the target of continue goes when nothing continues, the one after the loop stays; each is reached both from its block and its breaks
+		assertEquals(2, Query.countUpTo(eliminate("do { a(); } while (b);"), n -> n instanceof BreakTarget, Integer.MAX_VALUE));
+		assertEquals(4, Query.countUpTo(eliminate("do { if (a) continue; } while (b);"), n -> n instanceof BreakTarget, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testRemovesNoOps() throws Exception {
+		assertSameAfterElimination("a(); 1; ; 'b'; { ; } c();", "a(); c();");
+		assertSameAfterElimination("a(); debugger; b();", "a(); b();");
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics asg = ConstantFolder.reduce(Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name))));
+			Semantics eliminated = DeadCodeEliminator.reduce(asg);
+			assertTrue(name, NodeCounter.count(eliminated.node) < NodeCounter.count(asg.node));
+			// nothing is left to remove
+			assertSame(name, eliminated.node, DeadCodeEliminator.reduce(eliminated).node);
+		}
+	}
+}
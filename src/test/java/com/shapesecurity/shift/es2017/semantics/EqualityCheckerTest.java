@@ -0,0 +1,166 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Monoid;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralRegExp;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.binary.SemanticsReader;
+import com.shapesecurity.shift.es2017.semantics.binary.SemanticsWriter;
+import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.MonoidalReducer;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EqualityCheckerTest {
+	@Test
+	public void testEqualGraphs() throws Exception {
+		// only globals, since locals are equal only to themselves
+		String programText = "a = 1 + b; c(d, 'e', -0); f.g = typeof h + !i; if (m) n(); else o = p < 3;";
+		Semantics asg1 = Explicator.deriveSemantics(Parser.parseScript(programText));
+		Semantics asg2 = Explicator.deriveSemantics(Parser.parseScript(programText));
+		Semantics asg3 = SemanticsReader.read(SemanticsWriter.write(asg1));
+		assertTrue(EqualityChecker.nodesAreEqual(asg1.node, asg2.node));
+		assertTrue(EqualityChecker.nodesAreEqual(asg1.node, asg3.node));
+		assertEquals(EqualityChecker.structuralHash(asg1.node), EqualityChecker.structuralHash(asg2.node));
+		assertEquals(EqualityChecker.structuralHash(asg1.node), EqualityChecker.structuralHash(asg3.node));
+
+		Map<Semantics, String> cache = new HashMap<>();
+		cache.put(asg1, programText);
+		assertEquals(programText, cache.get(asg2));
+		assertEquals(programText, cache.get(asg3));
+
+		Semantics different = Explicator.deriveSemantics(Parser.parseScript("a = 2 + b; c(d, 'e', -0); f.g = typeof h + !i; if (m) n(); else o = p < 3;"));
+		assertFalse(EqualityChecker.nodesAreEqual(asg1.node, different.node));
+		assertNotEquals(asg1.hashCode(), different.hashCode());
+		assertFalse(cache.containsKey(different));
+	}
+
+	@Test
+	public void testNumbers() {
+		// the same value, as the interner keys them
+		assertFalse(EqualityChecker.nodesAreEqual(new LiteralNumber(0), new LiteralNumber(-0.0)));
+		assertFalse(EqualityChecker.nodesAreEqual(new Not(new LiteralNumber(0)), new Not(new LiteralNumber(-0.0))));
+		assertTrue(EqualityChecker.nodesAreEqual(new LiteralNumber(Double.NaN), new LiteralNumber(0.0 / 0.0)));
+		assertEquals(EqualityChecker.structuralHash(new LiteralNumber(Double.NaN)), EqualityChecker.structuralHash(new LiteralNumber(0.0 / 0.0)));
+		assertTrue(EqualityChecker.nodesAreEqual(new LiteralNumber(-0.0), new LiteralNumber(-0.0)));
+		assertEquals(EqualityChecker.structuralHash(new LiteralNumber(-0.0)), EqualityChecker.structuralHash(new LiteralNumber(-0.0)));
+	}
+
+	@Test
+	public void testRegExpFlags() {
+		// each flag is compared with the same flag of the other literal
+		assertTrue(EqualityChecker.nodesAreEqual(new LiteralRegExp("a", false, false, true, false, false), new LiteralRegExp("a", false, false, true, false, false)));
+		assertTrue(EqualityChecker.nodesAreEqual(new LiteralRegExp("a", false, true, false, false, false), new LiteralRegExp("a", false, true, false, false, false)));
+		assertFalse(EqualityChecker.nodesAreEqual(new LiteralRegExp("a", false, true, false, false, false), new LiteralRegExp("a", false, false, true, false, false)));
+	}
+
+	@Test
+	public void testRoundTrips() throws Exception {
+		// programs without locals, temporaries, functions, catch clauses or break targets, whose variables and targets are equal only to themselves
+		String[] programs = {
+			"a = 1 + b * c - d / 2 % e;",
+			"if (a) b(); else if (c) d.e = f; else g.h = 'i';",
+			"i(j, 'k', 0, -0, 0 / 0, null, void 0, true, 1 / 0);",
+			"l = typeof m + typeof n.o; p = !q || r && s;",
+			"t = u instanceof v; w = 'x' in y; z = ~a >>> 2 << 1 >> 3 | 4 & 5 ^ 6;",
+			"b.c.d(e.f); new G(h, i.j);",
+			"k = l == m != n === o !== p < q <= r > s >= t;",
+		};
+		for (String program : programs) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(program));
+			Semantics read = SemanticsReader.read(SemanticsWriter.write(asg));
+			assertTrue(program, EqualityChecker.nodesAreEqual(asg.node, read.node));
+			assertEquals(program, EqualityChecker.structuralHash(asg.node), EqualityChecker.structuralHash(read.node));
+			assertEquals(program, asg, read);
+		}
+	}
+
+	@Test
+	public void testComparedByIdentity() throws Exception {
+		String programText = "x: while (a) { if (b) break x; c[d] = function (e) { return e; }; }";
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript(programText));
+		// the same graph is equal to itself without being walked, break targets and all
+		assertTrue(EqualityChecker.nodesAreEqual(asg.node, asg.node));
+		assertEquals(EqualityChecker.structuralHash(asg.node), EqualityChecker.structuralHash(asg.node));
+		// but the break target and the variables of another explication, or of one read back, are other objects
+		assertFalse(EqualityChecker.nodesAreEqual(asg.node, Explicator.deriveSemantics(Parser.parseScript(programText)).node));
+		assertFalse(EqualityChecker.nodesAreEqual(asg.node, SemanticsReader.read(SemanticsWriter.write(asg)).node));
+		BreakTarget target = new BreakTarget();
+		assertTrue(EqualityChecker.nodesAreEqual(target, target));
+		assertFalse(EqualityChecker.nodesAreEqual(target, new BreakTarget()));
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			Semantics read = SemanticsReader.read(SemanticsWriter.write(asg));
+			assertTrue(EqualityChecker.nodesAreEqual(asg.node, asg.node));
+			assertEquals(asg.hashCode(), asg.hashCode());
+			// every subgraph of the original which compares nothing by identity is equal to its counterpart read back
+			IdentityHashMap<Node, Boolean> byIdentity = comparedByIdentity(asg.node);
+			ImmutableList<Node> original = GetDescendents.getDescendants(asg.node);
+			ImmutableList<Node> readBack = GetDescendents.getDescendants(read.node);
+			assertEquals(name, original.length, readBack.length);
+			int compared = 0;
+			for (; original.isNotEmpty(); original = original.maybeTail().fromJust(), readBack = readBack.maybeTail().fromJust()) {
+				Node node = original.maybeHead().fromJust();
+				if (!byIdentity.get(node)) {
+					assertTrue(name, EqualityChecker.nodesAreEqual(node, readBack.maybeHead().fromJust()));
+					assertEquals(name, EqualityChecker.structuralHash(node), EqualityChecker.structuralHash(readBack.maybeHead().fromJust()));
+					++compared;
+				}
+			}
+			assertTrue(name, compared > 0);
+		}
+	}
+
+	// whether each node of the graph is or contains a node equal only to itself, or to nodes of the same variables
+	@Nonnull
+	private static IdentityHashMap<Node, Boolean> comparedByIdentity(@Nonnull Node root) {
+		IdentityHashMap<Node, Boolean> byIdentity = new IdentityHashMap<>();
+		new Director<>(new MonoidalReducer<Boolean>(Monoid.BOOLEAN_OR) {
+			@Nonnull
+			@Override
+			public Boolean reduceAll(@Nonnull Node node, @Nonnull Boolean reduced) {
+				boolean result = reduced || node instanceof BreakTarget || node instanceof LocalReference || node instanceof LiteralFunction || node instanceof TryCatch;
+				byIdentity.put(node, result);
+				return result;
+			}
+		}).reduceNode(root);
+		return byIdentity;
+	}
+
+	@Test
+	public void testDeepGraph() {
+		NodeWithValue node1 = LiteralNull.INSTANCE;
+		NodeWithValue node2 = LiteralNull.INSTANCE;
+		for (int i = 0; i < 200000; ++i) {
+			node1 = new Not(node1);
+			node2 = new Not(node2);
+		}
+		assertTrue(EqualityChecker.nodesAreEqual(node1, node2));
+		assertEquals(EqualityChecker.structuralHash(node1), EqualityChecker.structuralHash(node2));
+		assertFalse(EqualityChecker.nodesAreEqual(node1, new Not(node2)));
+	}
+}
@@ -5,7 +5,28 @@ import com.shapesecurity.shift.es2017.parser.JsError;
 import com.shapesecurity.shift.es2017.parser.Parser;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 public class ExplicationSucceedsTest {
+	// minified library bundles shared with BenchmarkTest
+	static final String[] CORPUS = {
+		"underscore-1.8.3.min.js",
+		"moment-2.10.6.min.js",
+		"jquery-1.12.4.min.js",
+	};
+
+	static String readCorpusFile(String name) throws IOException {
+		try {
+			return new String(Files.readAllBytes(Paths.get(ExplicationSucceedsTest.class.getResource("/corpus/" + name).toURI())), StandardCharsets.UTF_8);
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+
 	private void assertSucceeds(String source) {
 		try {
 			Script tree = Parser.parseScript(source);
@@ -19,4 +40,27 @@ public class ExplicationSucceedsTest {
 	public void testReturnReturn() {
 		assertSucceeds("function f(){ return function g(){ return 0; } }");
 	}
+
+	@Test
+	public void testNestedWith() {
+		assertSucceeds("with(a){ x; with(b) { x = y; function f(){ with(c) { for(;;) { try { break; } finally { continue; } } } return x(); } } }");
+	}
+
+	@Test
+	public void testCorpus() throws IOException {
+		for (String name : CORPUS) {
+			assertSucceeds(readCorpusFile(name));
+		}
+	}
+
+	@Test
+	public void testCorpusAsModule() throws IOException {
+		for (String name : CORPUS) {
+			try {
+				Explicator.deriveSemantics(Parser.parseModule(readCorpusFile(name)));
+			} catch (JsError e) {
+				throw new RuntimeException("Parse failed!");
+			}
+		}
+	}
 }
@@ -1,21 +1,34 @@
 package com.shapesecurity.shift.es2017.semantics;
 
 import com.shapesecurity.functional.data.NonEmptyImmutableList;
+import com.shapesecurity.shift.es2017.ast.Script;
 import com.shapesecurity.shift.es2017.parser.Parser;
 import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralNumber;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeInterner;
 import com.shapesecurity.shift.es2017.semantics.asg.Block;
 import com.shapesecurity.shift.es2017.semantics.asg.Call;
 import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
 import com.shapesecurity.shift.es2017.semantics.asg.TryFinally;
 import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
+import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeCounter;
+import com.shapesecurity.shift.es2017.semantics.visitor.TemporaryCoalescer;
 import org.junit.Test;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -124,4 +137,147 @@ public class ExplicatorTest {
 	public void testCoverage() throws Exception {
 		Explicator.deriveSemantics(Parser.parseScript(COVERAGE_PROGRAM));
 	}
+
+	private static void assertSameSemantics(@Nonnull Semantics expected, @Nonnull Semantics actual) {
+		assertTrue(Util.isomorphic(expected, actual));
+		assertEquals(expected.functionScopes.size(), actual.functionScopes.size());
+	}
+
+	@Test
+	public void testParallelMatchesSequential() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			String nested = "function f(a) { function g() { return a; } function h() { with (a) { b; } } return g() + h(); } function k() { f(0); }";
+			assertSameSemantics(Explicator.deriveSemantics(Parser.parseScript(nested)), Explicator.deriveSemantics(Parser.parseScript(nested), pool));
+			assertSameSemantics(Explicator.deriveSemantics(Parser.parseScript(COVERAGE_PROGRAM)), Explicator.deriveSemantics(Parser.parseScript(COVERAGE_PROGRAM), pool));
+			for (String name : ExplicationSucceedsTest.CORPUS) {
+				Script script = Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name));
+				assertSameSemantics(Explicator.deriveSemantics(script), Explicator.deriveSemantics(script, pool));
+				assertEquals(
+					ExplicatorWithLocation.deriveSemanticsWithLocation(script).right.size(),
+					ExplicatorWithLocation.deriveSemanticsWithLocation(script, pool).right.size()
+				);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testDeferredBodiesMatchEager() throws Exception {
+		String nested = "function f(a) { function g() { return a; } function h() { with (a) { return function() { b; }; } } return g() + h(); } f(0);";
+		Semantics deferred = Explicator.deriveSemanticsDeferringBodies(Parser.parseScript(nested));
+		LiteralFunction f = (LiteralFunction) ((VariableAssignment) ((Block) deferred.node).children.maybeHead().fromJust()).value;
+		assertTrue(!f.isBodyExplicated());
+		assertEquals(1, deferred.functionScopes.size());
+		f.body();
+		assertTrue(f.isBodyExplicated());
+		assertEquals(3, deferred.functionScopes.size());
+		assertSameSemantics(Explicator.deriveSemantics(Parser.parseScript(nested)), deferred);
+		// the fields are kept for eagerly explicated functions only
+		assertNull(f.body);
+		assertNull(f.locals);
+		LiteralFunction eager = (LiteralFunction) ((VariableAssignment) ((Block) Explicator.deriveSemantics(Parser.parseScript(nested)).node).children.maybeHead().fromJust()).value;
+		assertSame(eager.body(), eager.body);
+		assertSame(eager.locals(), eager.locals);
+
+		// a body is explicated holding the lock of functionScopes, which readers racing with it can take
+		Semantics racing = Explicator.deriveSemanticsDeferringBodies(Parser.parseScript(nested));
+		LiteralFunction racingF = (LiteralFunction) ((VariableAssignment) ((Block) racing.node).children.maybeHead().fromJust()).value;
+		Thread forcing = new Thread(racingF::body);
+		synchronized (racing.functionScopes) {
+			forcing.start();
+			forcing.join(100);
+			assertFalse(racingF.isBodyExplicated());
+			assertEquals(1, racing.functionScopes.size());
+		}
+		forcing.join();
+		assertEquals(3, racing.functionScopes.size());
+
+		assertSameSemantics(Explicator.deriveSemantics(Parser.parseScript(COVERAGE_PROGRAM)), Explicator.deriveSemanticsDeferringBodies(Parser.parseScript(COVERAGE_PROGRAM)));
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Script script = Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name));
+			assertSameSemantics(Explicator.deriveSemantics(script), Explicator.deriveSemanticsDeferringBodies(script));
+		}
+	}
+
+
+	@Test(timeout = 10000)
+	public void testDeferredBodyForcedWhileHoldingFunctionScopes() throws Exception {
+		// a reader holding the lock of functionScopes may force a body which another thread is waiting to force, without deadlocking
+		String nested = "function f(a) { function g() { return a; } return g(); } f(0);";
+		Semantics semantics = Explicator.deriveSemanticsDeferringBodies(Parser.parseScript(nested));
+		LiteralFunction f = (LiteralFunction) ((VariableAssignment) ((Block) semantics.node).children.maybeHead().fromJust()).value;
+		Thread forcing = new Thread(f::body);
+		synchronized (semantics.functionScopes) {
+			forcing.start();
+			while (forcing.getState() != Thread.State.BLOCKED) {
+				Thread.yield();
+			}
+			f.body();
+			assertTrue(f.isBodyExplicated());
+			assertEquals(2, semantics.functionScopes.size());
+		}
+		forcing.join();
+		assertEquals(2, semantics.functionScopes.size());
+	}
+
+	@Test
+	public void testListenerReportsEachPhase() throws Exception {
+		ArrayList<ExplicationListener.PhaseReport> reports = new ArrayList<>();
+		Semantics s = Explicator.deriveSemantics(Parser.parseScript("a = 1 + 2; b = a++;"), reports::add);
+		s = BlockSquasher.reduce(ConstantFolder.reduce(s, reports::add), reports::add);
+
+		assertEquals(5, reports.size());
+		assertEquals(ExplicationListener.Phase.SCOPE_ANALYSIS, reports.get(0).phase);
+		assertEquals(ExplicationListener.Phase.PRE_ANALYSIS, reports.get(1).phase);
+		assertEquals(ExplicationListener.Phase.EXPLICATION, reports.get(2).phase);
+		assertEquals(ExplicationListener.Phase.CONSTANT_FOLDING, reports.get(3).phase);
+		assertEquals(ExplicationListener.Phase.BLOCK_SQUASHING, reports.get(4).phase);
+		for (ExplicationListener.PhaseReport report : reports) {
+			assertTrue(report.durationNanos() >= 0);
+		}
+		assertTrue(reports.get(0).astNodes > 0);
+		assertEquals(reports.get(0).astNodes, reports.get(2).astNodes);
+		assertEquals(NodeCounter.count(s.node), reports.get(4).asgNodes);
+		// the postfix increment keeps the old value of `a` in a temporary
+		assertEquals(1, reports.get(2).temporaries);
+		assertEquals(1, reports.get(2).temporariesCreated);
+		// the phases of explication follow one another, so their durations add up to the whole
+		assertEquals(reports.get(0).endNanos, reports.get(1).startNanos);
+		assertTrue(reports.get(1).endNanos <= reports.get(2).startNanos);
+
+		// temporaries are counted in every function, and as created even when they are merged later on
+		reports.clear();
+		s = Explicator.deriveSemantics(Parser.parseScript("x = a++; y = b++; function f() { z = c++; }"), reports::add);
+		TemporaryCoalescer.reduce(s, reports::add);
+		assertEquals(3, reports.get(2).temporariesCreated);
+		assertEquals(3, reports.get(2).temporaries);
+		assertEquals(0, reports.get(3).temporariesCreated);
+		assertEquals(2, reports.get(3).temporaries);
+	}
+
+	@Test
+	public void testLeavesAreShared() throws Exception {
+		Semantics s = Explicator.deriveSemantics(Parser.parseScript("a(0, 'x'); (function () { a(0, 'x'); })(); a(1);"));
+		ArrayList<Call> calls = new ArrayList<>();
+		for (Node node : GetDescendents.getDescendants(s.node)) {
+			if (node instanceof Call && ((Call) node).callee instanceof GlobalReference) {
+				calls.add((Call) node);
+			}
+		}
+		assertEquals(3, calls.size());
+		Call first = calls.get(0);
+		Call second = calls.get(1);
+		assertSame(first.callee, second.callee);
+		assertSame(first.arguments.index(0).fromJust(), second.arguments.index(0).fromJust());
+		assertSame(first.arguments.index(1).fromJust(), second.arguments.index(1).fromJust());
+		assertNotSame(first.arguments.index(0).fromJust(), calls.get(2).arguments.index(0).fromJust());
+
+		NodeInterner interner = new NodeInterner();
+		// -0 is not 0
+		assertNotSame(interner.literalNumber(0), interner.literalNumber(-0.0));
+		assertSame(interner.literalNumber(-0.0), interner.literalNumber(-0.0));
+	}
 }
@@ -3,6 +3,7 @@ package com.shapesecurity.shift.es2017.semantics;
 import com.shapesecurity.functional.Pair;
 import com.shapesecurity.functional.data.NonEmptyImmutableList;
 import com.shapesecurity.shift.es2017.ast.AssignmentExpression;
+import com.shapesecurity.shift.es2017.ast.CallExpression;
 import com.shapesecurity.shift.es2017.ast.ExpressionStatement;
 import com.shapesecurity.shift.es2017.ast.FunctionBody;
 import com.shapesecurity.shift.es2017.ast.FunctionDeclaration;
@@ -15,11 +16,17 @@ import com.shapesecurity.shift.es2017.semantics.asg.Block;
 import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
 import com.shapesecurity.shift.es2017.semantics.asg.VariableAssignment;
+import com.shapesecurity.shift.es2017.scope.Variable;
 import org.junit.Test;
 
 import java.util.WeakHashMap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class ExplicatorWithLocationTest {
 	@Test
@@ -47,4 +54,68 @@ public class ExplicatorWithLocationTest {
 
 		assertEquals(astFunction.body, res.right().get(asgFunction));
 	}
+
+	@Test
+	public void testRederiveReusesUnchangedFunctions() throws Exception {
+		String unchanged = "function f(a){ var b = function(){ return 1; }; return a + b(); }";
+		Script before = Parser.parseScript(unchanged + " function g(){ return x; } x = 1;");
+		Script after = Parser.parseScript(unchanged + " function g(){ return x + 1; } x = 2;");
+		Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> previous = ExplicatorWithLocation.deriveSemanticsWithLocation(before);
+		Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> res = ExplicatorWithLocation.rederiveSemanticsWithLocation(previous, after);
+
+		NonEmptyImmutableList<Node> previousChildren = (NonEmptyImmutableList<Node>) ((Block) previous.left.node).children;
+		NonEmptyImmutableList<Node> children = (NonEmptyImmutableList<Node>) ((Block) res.left.node).children;
+		LiteralFunction f = (LiteralFunction) ((VariableAssignment) children.head).value;
+		LiteralFunction g = (LiteralFunction) ((VariableAssignment) children.tail.maybeHead().fromJust()).value;
+		assertSame(((VariableAssignment) previousChildren.head).value, f);
+		assertNotSame(((VariableAssignment) previousChildren.tail.maybeHead().fromJust()).value, g);
+
+		// locations and scopes refer to the new tree, including for the function nested in the reused one
+		assertSame(((FunctionDeclaration) after.statements.maybeHead().fromJust()).body, res.right.get(f));
+		assertEquals(ExplicatorWithLocation.deriveSemanticsWithLocation(after).left.functionScopes.size(), res.left.functionScopes.size());
+		for (LiteralFunction function : res.left.functionScopes.keySet()) {
+			assertSame(res.right.get(function), res.left.functionScopes.get(function).astNode instanceof FunctionDeclaration ?
+				((FunctionDeclaration) res.left.functionScopes.get(function).astNode).body :
+				((FunctionExpression) res.left.functionScopes.get(function).astNode).body);
+		}
+
+		assertTrue(Util.isomorphic(ExplicatorWithLocation.deriveSemanticsWithLocation(after).left, res.left));
+	}
+
+	@Test
+	public void testRederiveReusesCapturingFunctions() throws Exception {
+		String unchanged = "function f(a){ var b = function(){ return a + c; }; return b() + c; }";
+		Script before = Parser.parseScript("(function(){ var c = 1; " + unchanged + " with(c){ (function(){ return c + d; }); } c = 2; }());");
+		Script after = Parser.parseScript("(function(){ var c = 1; " + unchanged + " with(c){ (function(){ return c + d; }); } c = 3; }());");
+		Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> previous = ExplicatorWithLocation.deriveSemanticsWithLocation(before);
+		Pair<Semantics, WeakHashMap<LiteralFunction, FunctionBody>> res = ExplicatorWithLocation.rederiveSemanticsWithLocation(previous, after);
+
+		// the wrapper changed, but f, the function nested in it and the function inside the with statement capture the wrapper's new variables
+		FunctionExpression wrapper = (FunctionExpression) ((CallExpression) ((ExpressionStatement) after.statements.maybeHead().fromJust()).expression).callee;
+		LiteralFunction newWrapper = null;
+		for (LiteralFunction function : res.right.keySet()) {
+			if (res.right.get(function) == wrapper.body) {
+				newWrapper = function;
+			}
+		}
+		assertNotNull(newWrapper);
+		assertFalse(previous.right.containsKey(newWrapper));
+		assertEquals(4, res.right.size());
+		for (LiteralFunction function : res.right.keySet()) {
+			if (function != newWrapper) {
+				assertTrue(function.captured.isNotEmpty());
+				for (Variable captured : function.captured) {
+					assertTrue(captured.name.equals("a") || newWrapper.locals().exists(local -> local == captured));
+				}
+			}
+		}
+
+		// f was reused rather than explicated again, so it keeps its own variables
+		LiteralFunction previousF = previous.right.keySet().stream().filter(function -> function.parameters.length == 1).findFirst().get();
+		LiteralFunction f = res.right.keySet().stream().filter(function -> function.parameters.length == 1).findFirst().get();
+		assertNotSame(previousF, f);
+		assertSame(previousF.parameters.maybeHead().fromJust(), f.parameters.maybeHead().fromJust());
+
+		assertTrue(Util.isomorphic(ExplicatorWithLocation.deriveSemanticsWithLocation(after).left, res.left));
+	}
 }
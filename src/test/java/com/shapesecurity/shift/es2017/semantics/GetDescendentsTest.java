@@ -2,8 +2,15 @@ package com.shapesecurity.shift.es2017.semantics;
 
 import com.shapesecurity.functional.data.ImmutableList;
 import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
+import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
 import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeAdaptingReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.ReconstructingReducer;
 import org.junit.Test;
 
 import javax.annotation.Nonnull;
@@ -12,6 +19,7 @@ import java.util.IdentityHashMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class GetDescendentsTest {
@@ -87,10 +95,21 @@ public class GetDescendentsTest {
 		Semantics asg = Explicator.deriveSemantics(Parser.parseScript(programText));
 		ImmutableList<Node> asgNodes = GetDescendents.getDescendants(asg.node);
 
-		Semantics asgRebuilt = Util.rebuildSemantics(asg);
+		// an unchanged graph is not rebuilt at all
+		assertSame(asg.node, Util.rebuildSemantics(asg).node);
+
+		// replacing the break target forces every Break and everything enclosing them to be rebuilt
+		Node rebuiltNode = new Director<>(new NodeAdaptingReducer(new ReconstructingReducer() {
+			@Nonnull
+			@Override
+			public BreakTarget reduceBreakTarget(@Nonnull BreakTarget breakTarget) {
+				return new BreakTarget();
+			}
+		})).reduceNode(asg.node);
+		Semantics asgRebuilt = new Semantics(rebuiltNode, asg.locals, asg.scriptVarDecls, asg.scopeLookup, asg.functionScopes);
 		ImmutableList<Node> asgRebuiltNodes = GetDescendents.getDescendants(asgRebuilt.node);
 
-		assertEquals(asg, asgRebuilt);
+		assertTrue(Util.isomorphic(asg, asgRebuilt));
 		assertNotEquals(asgNodes, asgRebuiltNodes); // identity equals as Node doesn't implement equals
 
 		ImmutableList<Integer> asgNodeLocations = getNodeLocations(asgNodes);
@@ -104,4 +123,25 @@ public class GetDescendentsTest {
 
 		assertNotEquals(asgRebuilt, monotonicExample);
 	}
+
+	@Test
+	public void testSharedNodesMemoizationMatchesAllNodes() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			ImmutableList<Node> all = GetDescendents.getDescendants(asg.node, Director.Memoization.ALL_NODES);
+			ImmutableList<Node> shared = GetDescendents.getDescendants(asg.node, Director.Memoization.SHARED_NODES);
+			assertEquals(all.length, shared.length);
+			assertTrue(all.zipWith((a, b) -> a == b, shared).foldLeft((acc, same) -> acc && same, true));
+			assertTrue(EqualityChecker.nodesAreEqual(
+				new Director<>(BlockSquasher.create(), Director.Memoization.ALL_NODES).reduceNode(asg.node),
+				new Director<>(BlockSquasher.create(), Director.Memoization.SHARED_NODES).reduceNode(asg.node)
+			));
+		}
+
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript("a: { b = 1 + 2; if (b) break a; c = void 0 + null; } for (d in {}) { e = d++; continue; }"));
+		Node folded = new Director<>(ConstantFolder.create(), Director.Memoization.ALL_NODES).reduceNode(asg.node);
+		Node foldedSharingOnly = new Director<>(ConstantFolder.create(), Director.Memoization.SHARED_NODES).reduceNode(asg.node);
+		assertTrue(EqualityChecker.nodesAreEqual(folded, foldedSharingOnly));
+		assertEquals(getNodeLocations(GetDescendents.getDescendants(folded)), getNodeLocations(GetDescendents.getDescendants(foldedSharingOnly)));
+	}
 }
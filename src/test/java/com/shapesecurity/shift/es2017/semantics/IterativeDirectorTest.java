@@ -0,0 +1,117 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.data.Monoid;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
+import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
+import com.shapesecurity.shift.es2017.semantics.visitor.IterativeDirector;
+import com.shapesecurity.shift.es2017.semantics.visitor.MonoidalReducer;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IterativeDirectorTest {
+
+	// records the order in which nodes are reduced
+	private static final class Recorder extends MonoidalReducer<Integer> {
+		@Nonnull
+		final List<Node> reduced = new ArrayList<>();
+
+		Recorder() {
+			super(Monoid.INTEGER_ADDITIVE);
+		}
+
+		@Nonnull
+		@Override
+		public Integer reduceAll(@Nonnull Node node, @Nonnull Integer reduced) {
+			this.reduced.add(node);
+			return reduced + 1;
+		}
+	}
+
+	private static void assertSameReductions(@Nonnull Node node, @Nonnull Director.Memoization memoization) {
+		Recorder recursive = new Recorder();
+		Recorder iterative = new Recorder();
+		assertEquals(new Director<>(recursive, memoization).reduceNode(node), new IterativeDirector<>(iterative, memoization).reduceNode(node));
+		assertEquals(recursive.reduced.size(), iterative.reduced.size());
+		for (int i = 0; i < recursive.reduced.size(); ++i) {
+			assertSame(recursive.reduced.get(i), iterative.reduced.get(i));
+		}
+	}
+
+	@Test
+	public void testMatchesDirector() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			assertSameReductions(asg.node, Director.Memoization.ALL_NODES);
+			assertSameReductions(asg.node, Director.Memoization.SHARED_NODES);
+			assertTrue(EqualityChecker.nodesAreEqual(
+				new Director<>(BlockSquasher.create()).reduceNode(asg.node),
+				new IterativeDirector<>(BlockSquasher.create()).reduceNode(asg.node)
+			));
+		}
+
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript(
+			"a: { b = 1 + 2; if (b) break a; c = void 0 + null; } for (d in {}) { e = d++; continue; }" +
+				"switch (f) { case 1: g(); default: h(); case 2: break; }" +
+				"o = { get x() { return 1; }, set x(v) {}, y: 2 }; o.z = new F(1, 2); delete o.y; o.m(3);" +
+				"(function () { try { return i; } finally { j(); } })(); try { throw k; } catch (e) { typeof e; }"
+		));
+		assertSameReductions(asg.node, Director.Memoization.ALL_NODES);
+		assertTrue(EqualityChecker.nodesAreEqual(
+			new Director<>(ConstantFolder.create()).reduceNode(asg.node),
+			new IterativeDirector<>(ConstantFolder.create()).reduceNode(asg.node)
+		));
+	}
+
+	@Test
+	public void testDeepGraph() {
+		int depth = 200000;
+		NodeWithValue node = LiteralNull.INSTANCE;
+		for (int i = 0; i < depth; ++i) {
+			node = new Not(node);
+		}
+
+		Recorder recorder = new Recorder();
+		assertEquals(depth + 1, (int) new IterativeDirector<>(recorder).reduceNode(node));
+		assertSame(node, recorder.reduced.get(depth));
+
+		Node rebuilt = new IterativeDirector<>(BlockSquasher.create()).reduceNode(node);
+		for (int i = 0; i < depth; ++i) {
+			assertTrue(rebuilt instanceof Not);
+			rebuilt = ((Not) rebuilt).expression;
+		}
+		assertSame(LiteralNull.INSTANCE, rebuilt);
+	}
+
+	@Test
+	public void testUnknownNode() {
+		// a node class defined outside the library still compiles, and is rejected when visited
+		Node unknown = new Node() {};
+		assertEquals(Node.Kind.OTHER, Node.Kind.of(unknown));
+		assertThrows(() -> new Director<>(new Recorder()).reduceNode(unknown));
+		assertThrows(() -> new IterativeDirector<>(new Recorder()).reduceNode(unknown));
+	}
+
+	private static void assertThrows(@Nonnull Runnable runnable) {
+		try {
+			runnable.run();
+		} catch (RuntimeException e) {
+			return;
+		}
+		fail();
+	}
+}
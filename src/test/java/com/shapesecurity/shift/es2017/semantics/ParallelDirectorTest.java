@@ -0,0 +1,92 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.data.ConcatList;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.functional.data.Monoid;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralNull;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.UnaryOperation.Not;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.MonoidalReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.NodeCounter;
+import com.shapesecurity.shift.es2017.semantics.visitor.ParallelDirector;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ParallelDirectorTest {
+
+	// lists nodes as GetDescendents does
+	private static final class Listing extends MonoidalReducer<ConcatList<Node>> {
+		Listing() {
+			super(new Monoid.ConcatListAppend<>());
+		}
+
+		@Nonnull
+		@Override
+		public ConcatList<Node> reduceAll(@Nonnull Node node, @Nonnull ConcatList<Node> reduced) {
+			return reduced.append1(node);
+		}
+	}
+
+	@Test
+	public void testMatchesDirector() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			assertEquals(NodeCounter.count(asg.node), NodeCounter.countInParallel(asg.node));
+
+			ImmutableList<Node> sequential = GetDescendents.getDescendants(asg.node);
+			ImmutableList<Node> parallel = GetDescendents.getDescendantsInParallel(asg.node);
+			assertEquals(sequential.length, parallel.length);
+			for (; sequential.isNotEmpty(); sequential = sequential.maybeTail().fromJust(), parallel = parallel.maybeTail().fromJust()) {
+				assertSame(sequential.maybeHead().fromJust(), parallel.maybeHead().fromJust());
+			}
+		}
+	}
+
+	@Test
+	public void testSplitting() throws Exception {
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript(
+			"a(); b = function () { c(); d(); e(); }; f(function () { return g; }, function () {}); x: { h(); break x; i(); } j = k + 1; l();"
+		));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ImmutableList<Node> sequential = GetDescendents.getDescendants(asg.node);
+			// down to single statements, and to runs of a few
+			for (int splitThreshold : new int[]{ 2, 3, 4 }) {
+				assertEquals(
+					sequential,
+					new ParallelDirector<>(new Listing(), pool, splitThreshold).reduceNode(asg.node).toList()
+				);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testDeepGraph() {
+		// deep enough to overflow the default stacks of the pool's threads if every level of the graph took a call
+		int depth = 200000;
+		NodeWithValue deep = LiteralNull.INSTANCE;
+		NodeWithValue deepInFunction = LiteralNull.INSTANCE;
+		for (int i = 0; i < depth; ++i) {
+			deep = new Not(deep);
+			deepInFunction = new Not(deepInFunction);
+		}
+		LiteralFunction function = new LiteralFunction(
+			Maybe.empty(), Maybe.empty(), ImmutableList.empty(), ImmutableList.empty(), ImmutableList.empty(), new Block(deepInFunction), false
+		);
+		Node node = new Block(ImmutableList.of(deep, function));
+		assertEquals(2 * (depth + 1) + 3, NodeCounter.countInParallel(node));
+	}
+}
@@ -0,0 +1,96 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
+import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.PassManager;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PassManagerTest {
+	@Nonnull
+	private static final ImmutableList<PassManager.Pass> PASSES = ImmutableList.of(
+		new PassManager.Pass("constant folding", ConstantFolder.create()),
+		new PassManager.Pass("block squashing", BlockSquasher.create())
+	);
+
+	@Nonnull
+	private static List<LiteralFunction> functions(@Nonnull Node node) {
+		List<LiteralFunction> functions = new ArrayList<>();
+		for (Node descendant : GetDescendents.getDescendants(node)) {
+			if (descendant instanceof LiteralFunction) {
+				functions.add((LiteralFunction) descendant);
+			}
+		}
+		return functions;
+	}
+
+	@Test
+	public void testRevisitsOnlyChangedFunctions() throws Exception {
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript(
+			"function f() { return 1 + 2; } function g() { return h(); } function k() { { l(); } }"
+		));
+		PassManager.Result result = new PassManager(PASSES).run(asg);
+
+		assertTrue(result.reachedFixpoint);
+		assertEquals(2, result.iterations);
+		assertTrue(EqualityChecker.nodesAreEqual(BlockSquasher.reduce(ConstantFolder.reduce(asg)).node, result.semantics.node));
+		// g is rewritten by neither pass, and so is neither rebuilt nor visited after the first iteration
+		List<LiteralFunction> before = functions(asg.node);
+		List<LiteralFunction> after = functions(result.semantics.node);
+		assertEquals(3, after.size());
+		assertSame(before.get(1), after.get(1));
+
+		assertEquals(4, result.reports.length);
+		PassManager.PassReport folding = result.reports.index(0).fromJust();
+		assertEquals("constant folding", folding.pass);
+		assertEquals(3, folding.functionsVisited);
+		assertEquals(1, folding.functionsChanged);
+		PassManager.PassReport squashing = result.reports.index(1).fromJust();
+		assertEquals(3, squashing.functionsVisited);
+		assertEquals(1, squashing.functionsChanged);
+		for (PassManager.PassReport report : result.reports.drop(2)) {
+			assertEquals(2, report.iteration);
+			assertEquals(2, report.functionsVisited);
+			assertEquals(0, report.functionsChanged);
+			assertFalse(report.changed);
+		}
+	}
+
+	@Test
+	public void testLimits() throws Exception {
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript("function f() { return 1 + 2; } { a(); }"));
+
+		PassManager.Result timed = new PassManager(PASSES, Integer.MAX_VALUE, 0).run(asg);
+		assertFalse(timed.reachedFixpoint);
+		assertEquals(1, timed.reports.length);
+		assertTrue(timed.reports.maybeHead().fromJust().changed);
+
+		PassManager.Result once = new PassManager(PASSES, 1, Long.MAX_VALUE).run(asg);
+		assertFalse(once.reachedFixpoint);
+		assertEquals(1, once.iterations);
+		assertEquals(2, once.reports.length);
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		String name = ExplicationSucceedsTest.CORPUS[0];
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+		PassManager.Result result = new PassManager(ImmutableList.of(new PassManager.Pass("block squashing", BlockSquasher.create()))).run(asg);
+		assertTrue(result.reachedFixpoint);
+		assertTrue(EqualityChecker.nodesAreEqual(BlockSquasher.reduce(asg).node, result.semantics.node));
+	}
+}
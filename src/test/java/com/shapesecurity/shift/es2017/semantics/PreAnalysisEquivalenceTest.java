@@ -0,0 +1,162 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.HashTable;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.functional.data.MultiHashTable;
+import com.shapesecurity.shift.es2017.ast.AssignmentTargetIdentifier;
+import com.shapesecurity.shift.es2017.ast.BindingIdentifier;
+import com.shapesecurity.shift.es2017.ast.FunctionBody;
+import com.shapesecurity.shift.es2017.ast.IdentifierExpression;
+import com.shapesecurity.shift.es2017.ast.Module;
+import com.shapesecurity.shift.es2017.ast.Node;
+import com.shapesecurity.shift.es2017.ast.Program;
+import com.shapesecurity.shift.es2017.ast.Script;
+import com.shapesecurity.shift.es2017.ast.VariableReference;
+import com.shapesecurity.shift.es2017.ast.WithStatement;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.scope.Reference;
+import com.shapesecurity.shift.es2017.scope.Scope;
+import com.shapesecurity.shift.es2017.scope.ScopeLookup;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.visitor.FinallyJumpReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.FindWithsReducer;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+// Checks the tables the Explicator builds up front against the separate passes they replaced.
+public class PreAnalysisEquivalenceTest {
+	private static final String[] PROGRAMS = {
+		"with(a){ x; with(b) { x = y; function f(){ with(c) { for(;;) { try { break; } finally { continue; } } } return x(); } } }",
+		"a: for(;;) { b: while(x) { try { try { break a; } finally { continue b; } } catch (e) { with(e) { break; } } } }",
+		"function f(){ with(o) { return function(){ with(p) { q = r; } return s; }; } } with(t) { switch(u) { case 0: try { break; } finally { v; } } }",
+		"do { try { continue; } finally { with(w) { x++; delete y; } } } while(z);",
+		"{ function f(){} } f(); if (x) function g(){ var g; return g; } try {} catch (f) { f = function f(){ return f; }; } var x;",
+	};
+
+	private static List<Program> programs() throws Exception {
+		List<Program> programs = new ArrayList<>();
+		for (String source : PROGRAMS) {
+			programs.add(Parser.parseScript(source));
+		}
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			programs.add(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+		}
+		programs.add(Parser.parseModule(ExplicationSucceedsTest.readCorpusFile(ExplicationSucceedsTest.CORPUS[0])));
+		return programs;
+	}
+
+	private static Explicator explicator(Program program) {
+		return new Explicator(program, directives -> false, () -> null);
+	}
+
+	// The with-reference table as it was built before the pre-passes were fused, by walking the whole scope tree.
+	private static MultiHashTable<Reference, WithStatement> findWithReferences(Scope scope) {
+		MultiHashTable<Reference, WithStatement> table = MultiHashTable.emptyUsingIdentity();
+		if (scope.type == Scope.Type.With) {
+			table = scope.through.foldLeft(
+					(acc, p) -> p.right.foldLeft(
+							(innerAcc, r) -> innerAcc.put(r, (WithStatement) scope.astNode),
+							acc
+					),
+					table
+			);
+		}
+		return scope.children.foldLeft((acc, s) -> acc.merge(findWithReferences(s)), table);
+	}
+
+	// The reference lookup as it was before references were indexed, by scanning the references of the variable the node resolves to.
+	@Nullable
+	private static Pair<Variable, Reference> findScopeInfo(ScopeLookup scopeLookup, VariableReference node) {
+		Maybe<Variable> var = node instanceof AssignmentTargetIdentifier
+			? Maybe.fromNullable(scopeLookup.findVariableReferencedBy((AssignmentTargetIdentifier) node))
+			: node instanceof BindingIdentifier
+			? scopeLookup.findVariableReferencedBy((BindingIdentifier) node)
+			: Maybe.fromNullable(scopeLookup.findVariableReferencedBy((IdentifierExpression) node));
+		return var.map(v -> Pair.of(v, v.references.find(r -> r.node == node).fromJust())).orJust(null);
+	}
+
+	private static void collectReferenceNodes(Scope scope, IdentityHashMap<VariableReference, Boolean> nodes) {
+		for (Variable variable : scope.variables()) {
+			for (Reference reference : variable.references) {
+				nodes.put(reference.node, true);
+			}
+		}
+		scope.children.forEach(child -> collectReferenceNodes(child, nodes));
+	}
+
+	private static <K, V> void assertSameEntries(MultiHashTable<K, V> expected, MultiHashTable<K, V> actual) {
+		assertEquals(expected.entries().length, actual.entries().length);
+		for (Pair<K, ImmutableList<V>> entry : expected.entries()) {
+			assertSameElements(entry.right, actual.get(entry.left));
+		}
+	}
+
+	private static <T> void assertSameElements(ImmutableList<T> expected, ImmutableList<T> actual) {
+		assertEquals(expected.length, actual.length);
+		for (Pair<T, T> pair : expected.zipWith(Pair::of, actual)) {
+			assertSame(pair.left, pair.right);
+		}
+	}
+
+	@Test
+	public void testJumpMap() throws Exception {
+		for (Program program : programs()) {
+			HashTable<Node, Pair<Node, ImmutableList<BrokenThrough>>> expected = program instanceof Script
+				? FinallyJumpReducer.analyze((Script) program)
+				: FinallyJumpReducer.analyze((Module) program);
+			HashTable<Node, Pair<Node, ImmutableList<BrokenThrough>>> actual = explicator(program).jumpMap;
+			assertEquals(expected.length, actual.length);
+			for (Pair<Node, Pair<Node, ImmutableList<BrokenThrough>>> entry : expected.entries()) {
+				Pair<Node, ImmutableList<BrokenThrough>> jump = actual.get(entry.left).fromJust();
+				assertSame(entry.right.left, jump.left);
+				assertEquals(entry.right.right, jump.right);
+			}
+		}
+	}
+
+	@Test
+	public void testWithTables() throws Exception {
+		boolean sawWith = false;
+		for (Program program : programs()) {
+			Explicator explicator = explicator(program);
+			MultiHashTable<FunctionBody, WithStatement> withStatementsInFunctions = FindWithsReducer.reduce(program).right;
+			sawWith |= withStatementsInFunctions.entries().isNotEmpty();
+			assertSameEntries(withStatementsInFunctions, explicator.withStatementsInFunctions);
+			assertSameEntries(findWithReferences(explicator.scope), explicator.withReferences);
+		}
+		assertTrue(sawWith);
+	}
+
+	@Test
+	public void testReferenceIndex() throws Exception {
+		for (Program program : programs()) {
+			Explicator explicator = explicator(program);
+			IdentityHashMap<VariableReference, Boolean> nodes = new IdentityHashMap<>();
+			collectReferenceNodes(explicator.scope, nodes);
+			int resolved = 0;
+			for (VariableReference node : nodes.keySet()) {
+				Pair<Variable, Reference> expected = findScopeInfo(explicator.scopeLookup, node);
+				Pair<Variable, Reference> actual = explicator.referenceIndex.get(node);
+				if (expected == null) {
+					assertNull(actual);
+				} else {
+					++resolved;
+					assertSame(expected.left, actual.left);
+					assertSame(expected.right, actual.right);
+				}
+			}
+			assertEquals(resolved, explicator.referenceIndex.size());
+		}
+	}
+}
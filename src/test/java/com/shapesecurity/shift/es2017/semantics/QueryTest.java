@@ -0,0 +1,52 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.GlobalReference;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.Query;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueryTest {
+	@Test
+	public void testPruning() throws Exception {
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript("a(); (function () { return this; })(); b = function () { c(); };"));
+		assertTrue(Query.exists(asg.node, Query.kind(Node.Kind.THIS)));
+		assertFalse(Query.exists(asg.node, Query.kind(Node.Kind.THIS), Query.OUTSIDE_FUNCTIONS));
+		assertEquals(2, Query.countUpTo(asg.node, Query.kind(Node.Kind.LITERAL_FUNCTION), Integer.MAX_VALUE, Query.OUTSIDE_FUNCTIONS));
+
+		LiteralFunction first = (LiteralFunction) Query.find(asg.node, Query.kind(Node.Kind.LITERAL_FUNCTION)).fromJust();
+		assertTrue(Query.exists(first.body(), Query.kind(Node.Kind.THIS), Query.OUTSIDE_FUNCTIONS));
+		assertFalse(Query.find(asg.node, Query.kind(Node.Kind.TRY_CATCH)).isJust());
+	}
+
+	@Test
+	public void testStopsEarly() throws Exception {
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript("a(); b(); c(); d(); e();"));
+		AtomicInteger tested = new AtomicInteger();
+		assertEquals(2, Query.countUpTo(asg.node, node -> {
+			tested.incrementAndGet();
+			return node instanceof GlobalReference;
+		}, 2));
+		assertTrue(tested.get() < GetDescendents.getDescendants(asg.node).length);
+
+		// pre-order, children in order
+		assertEquals("a", ((GlobalReference) Query.find(asg.node, node -> node instanceof GlobalReference).fromJust()).name);
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		String name = ExplicationSucceedsTest.CORPUS[0];
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+		int functions = GetDescendents.getDescendants(asg.node).filter(node -> node instanceof LiteralFunction).length;
+		assertEquals(functions, Query.countUpTo(asg.node, Query.kind(Node.Kind.LITERAL_FUNCTION), Integer.MAX_VALUE));
+		assertEquals(Math.min(functions, 3), Query.countUpTo(asg.node, Query.kind(Node.Kind.LITERAL_FUNCTION), 3));
+	}
+}
@@ -1,10 +1,21 @@
 package com.shapesecurity.shift.es2017.semantics;
 
+import com.shapesecurity.functional.data.ImmutableList;
 import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class ReconstructingReducerTest {
 
@@ -55,4 +66,22 @@ public class ReconstructingReducerTest {
 
 		assertNotEquals(reconstructedAsg, reconstructedAsg2);
 	}
+
+	@Test
+	public void testUnchangedNodesAreKept() throws Exception {
+		Semantics asg = Explicator.deriveSemantics(Parser.parseScript("a = 1 + 2; (function () { b(c); })(); d = [e];"));
+		assertSame(asg.node, Util.rebuildSemantics(asg).node);
+
+		Semantics folded = ConstantFolder.reduce(asg);
+		assertNotSame(asg.node, folded.node);
+		ImmutableList<Node> before = GetDescendents.getDescendants(asg.node);
+		ImmutableList<Node> after = GetDescendents.getDescendants(folded.node);
+		// the function does not contain the folded addition
+		assertSame(before.find(node -> node instanceof LiteralFunction).fromJust(), after.find(node -> node instanceof LiteralFunction).fromJust());
+		// only the folded sum, the assignment holding it and the enclosing block are new
+		Set<Node> old = Collections.newSetFromMap(new IdentityHashMap<>());
+		before.forEach(old::add);
+		assertEquals(3, after.filter(node -> !old.contains(node)).length);
+		assertEquals(before.length - 2, after.length);
+	}
 }
@@ -0,0 +1,39 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.asgvisitor.BlockSquasher;
+import com.shapesecurity.shift.es2017.semantics.visitor.ConstantFolder;
+import com.shapesecurity.shift.es2017.semantics.visitor.EqualityChecker;
+import com.shapesecurity.shift.es2017.semantics.visitor.ReconstructingReducer;
+import com.shapesecurity.shift.es2017.semantics.visitor.ReducerPipeline;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class ReducerPipelineTest {
+	@Test
+	public void testMatchesSequentialPasses() throws Exception {
+		String[] programs = {
+			"if (true) { a(); { b(); } } x = 1 + 2; y = !!!z; w = f() + 1;",
+			"f('1' + 2 * 3); { { g(); } h(void 0 === null); }",
+			"a: { b = 1 + 2; if (b) break a; c = void 0 + null; } for (d in {}) { e = d++; continue; }",
+			"switch (f) { case 1: { g(); } default: h(); case 2: break; } try { throw k; } catch (e) { typeof e; }",
+			"(function () { try { return i; } finally { { j(2 - 1); } } })(); o = { get x() { return 1; }, y: 2 };",
+		};
+		for (String program : programs) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(program));
+			assertTrue(EqualityChecker.nodesAreEqual(
+				BlockSquasher.reduce(ConstantFolder.reduce(asg)).node,
+				ReducerPipeline.reduce(asg, ConstantFolder.create(), BlockSquasher.create()).node
+			));
+		}
+
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics asg = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			assertTrue(EqualityChecker.nodesAreEqual(
+				BlockSquasher.reduce(asg).node,
+				ReducerPipeline.reduce(asg, ReconstructingReducer.create(), BlockSquasher.create()).node
+			));
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.ast.Directive;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SemanticsCacheTest {
+	@Test
+	public void testHitsAndMisses() throws Exception {
+		SemanticsCache cache = SemanticsCache.boundedByEntries(2);
+		Semantics a = cache.deriveScriptSemantics("a = 0");
+		assertSame(a, cache.deriveScriptSemantics(new String("a = 0")));
+		assertTrue(Util.isomorphic(Explicator.deriveSemantics(Parser.parseScript("a = 0")), a));
+
+		// the goal and the options are part of the key
+		assertNotSame(a, cache.deriveModuleSemantics("a = 0"));
+		F<ImmutableList<Directive>, Boolean> inlineEverything = list -> true;
+		assertNotSame(a, cache.deriveScriptSemantics("a = 0", inlineEverything, SemanticsCache.HALT_ON_DIRECT_EVAL));
+
+		SemanticsCache.Stats stats = cache.stats();
+		assertEquals(1, stats.hits);
+		assertEquals(3, stats.misses);
+		assertEquals(1, stats.evictions);
+		assertEquals(2, stats.entries);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() throws Exception {
+		SemanticsCache cache = SemanticsCache.boundedByEntries(2);
+		Semantics a = cache.deriveScriptSemantics("a");
+		Semantics b = cache.deriveScriptSemantics("b");
+		cache.deriveScriptSemantics("a");
+		cache.deriveScriptSemantics("c");
+		assertSame(a, cache.deriveScriptSemantics("a"));
+		assertNotSame(b, cache.deriveScriptSemantics("b"));
+	}
+
+	@Test
+	public void testEstimatedBytesBound() throws Exception {
+		Semantics small = Explicator.deriveSemantics(Parser.parseScript("a"));
+		long bytes = SemanticsCache.estimateBytes(small);
+		assertTrue(bytes > 0);
+
+		SemanticsCache cache = SemanticsCache.boundedByEstimatedBytes(2 * bytes);
+		cache.deriveScriptSemantics("a");
+		cache.deriveScriptSemantics("b");
+		assertEquals(2 * bytes, cache.stats().estimatedBytes);
+		cache.deriveScriptSemantics("c");
+		assertEquals(1, cache.stats().evictions);
+
+		// too large to cache at all
+		cache.deriveScriptSemantics("function f(a, b) { return a + b * 2; }");
+		assertEquals(2, cache.stats().entries);
+		assertEquals(1, cache.stats().evictions);
+	}
+}
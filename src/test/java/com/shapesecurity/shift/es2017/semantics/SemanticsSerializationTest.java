@@ -0,0 +1,77 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.semantics.binary.SemanticsReader;
+import com.shapesecurity.shift.es2017.semantics.binary.SemanticsWriter;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SemanticsSerializationTest {
+	private static void assertRoundTrips(Semantics semantics) {
+		ByteBuffer buffer = SemanticsWriter.write(semantics);
+		Semantics read = SemanticsReader.read(buffer);
+		assertFalse(buffer.hasRemaining());
+		assertTrue(Util.isomorphic(semantics, read));
+	}
+
+	@Test
+	public void testNodeTypes() throws Exception {
+		assertRoundTrips(Explicator.deriveSemantics(Parser.parseScript(
+			"'use strict'; var a = [1, -0, 0.5, 1e300, NaN, -Infinity, 4294967296], o = { x: 1, get y() { return 2; }, set y(v) {} };" +
+			"function f(b, c) { 'use strict'; return typeof b === 'string' && !(c in o) || c instanceof f ? void b : ~-b; }" +
+			"label: for (var k in o) { if (k) continue label; else break label; }" +
+			"switch (a.length) { case 1: a[0] = 'x\\uD800'; break; default: delete o.x; case 2: throw new f(this, /a.b/gimuy); }" +
+			"try { f(a, o); } catch (e) { a += e; } finally { while (a < 10) { do a++; while (a % 3); } }" +
+			"function g() { try { return 1; } finally { a = typeof zz; } }" +
+			"var s = Symbol.iterator, x = a ? f : g, y = x >>> 2 | 1 & 3, z = (a, y = z + '' - y * y / y % 2);"
+		)));
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			String source = ExplicationSucceedsTest.readCorpusFile(name);
+			assertRoundTrips(Explicator.deriveSemantics(Parser.parseScript(source)));
+			assertRoundTrips(Explicator.deriveSemantics(Parser.parseModule(source)));
+		}
+	}
+
+	@Test
+	public void testScopeInformationNotPersisted() throws Exception {
+		Semantics semantics = SemanticsReader.read(SemanticsWriter.write(Explicator.deriveSemantics(Parser.parseScript("function f(a) { a = a + 1; }"))));
+		assertEquals(0, semantics.functionScopes.size());
+	}
+
+	@Test
+	public void testFixedBuffer() throws Exception {
+		Semantics semantics = Explicator.deriveSemantics(Parser.parseScript("var a = 1; a = a + 1;"));
+		int size = SemanticsWriter.write(semantics).remaining();
+
+		ByteBuffer exact = ByteBuffer.allocateDirect(size);
+		SemanticsWriter.write(semantics, exact);
+		assertFalse(exact.hasRemaining());
+		exact.flip();
+		assertTrue(Util.isomorphic(semantics, SemanticsReader.read(exact)));
+
+		try {
+			SemanticsWriter.write(semantics, ByteBuffer.allocate(size - 1));
+			fail("expected overflow");
+		} catch (BufferOverflowException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testVersionMismatch() throws Exception {
+		ByteBuffer buffer = SemanticsWriter.write(Explicator.deriveSemantics(Parser.parseScript("a")));
+		buffer.put(4, (byte) 0x7F);
+		SemanticsReader.read(buffer);
+	}
+}
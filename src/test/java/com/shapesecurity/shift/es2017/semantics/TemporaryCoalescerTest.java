@@ -0,0 +1,106 @@
+package com.shapesecurity.shift.es2017.semantics;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.shift.es2017.parser.Parser;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.asg.Block;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.NodeWithValue;
+import com.shapesecurity.shift.es2017.semantics.asg.SwitchStatement;
+import com.shapesecurity.shift.es2017.semantics.asg.TemporaryReference;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
+import com.shapesecurity.shift.es2017.semantics.visitor.Query;
+import com.shapesecurity.shift.es2017.semantics.visitor.TemporaryCoalescer;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TemporaryCoalescerTest {
+	private static int temporaries(@Nonnull Semantics semantics) {
+		return ExplicationListener.PhaseReport.forGraph(ExplicationListener.Phase.TEMPORARY_COALESCING, 0, 0, 0, semantics.node).temporaries;
+	}
+
+	private static void assertCoalesced(@Nonnull String programText, int before, int after) throws Exception {
+		Semantics semantics = Explicator.deriveSemantics(Parser.parseScript(programText));
+		Semantics coalesced = TemporaryCoalescer.reduce(semantics);
+		assertEquals(programText, before, temporaries(semantics));
+		assertEquals(programText, after, temporaries(coalesced));
+		assertEquals(programText, semantics.locals.length - (before - after), coalesced.locals.length);
+		assertLocalsDeclared(coalesced);
+	}
+
+	// every temporary a function (or the script) refers to is still one of its locals
+	private static void assertLocalsDeclared(@Nonnull Semantics semantics) {
+		assertDeclared(semantics.node, semantics.locals);
+		for (Node node : GetDescendents.getDescendants(semantics.node)) {
+			if (node instanceof LiteralFunction) {
+				assertDeclared(((LiteralFunction) node).body(), ((LiteralFunction) node).locals());
+			}
+		}
+	}
+
+	private static void assertDeclared(@Nonnull Node body, @Nonnull ImmutableList<Variable> locals) {
+		assertFalse(Query.exists(body, n -> n instanceof TemporaryReference && !locals.exists(v -> v == ((TemporaryReference) n).variable), Query.OUTSIDE_FUNCTIONS));
+	}
+
+	@Test
+	public void testSharesDisjointLifetimes() throws Exception {
+		assertCoalesced("a = [1]; b = [2]; c = [3];", 3, 1);
+		// the temporaries of the two branches share, and the one after the conditional takes the same variable again
+		assertCoalesced("a = x ? [1] : [2]; b = [3];", 4, 2);
+		// the discriminant lives through the tests, which it is compared with, but not into the cases
+		assertCoalesced("switch (x) { case [1]: a = [2]; default: b = [3]; }", 4, 2);
+		// within a single iteration
+		assertCoalesced("while (x) { a = [1]; b = [2]; }", 2, 1);
+	}
+
+	@Test
+	public void testKeepsOverlappingLifetimesApart() throws Exception {
+		assertCoalesced("a = [1, [2]];", 2, 2);
+		// the for-in temporaries live across every iteration, so the array in the body cannot take their place
+		assertCoalesced("for (k in o) { a = [k]; }", 4, 4);
+		Semantics semantics = Explicator.deriveSemantics(Parser.parseScript("a = b;"));
+		assertSame(semantics, TemporaryCoalescer.reduce(semantics));
+	}
+
+	@Test
+	public void testKeepsDiscriminantApartFromTests() throws Exception {
+		Semantics coalesced = TemporaryCoalescer.reduce(Explicator.deriveSemantics(Parser.parseScript(
+			"switch (x) { case [1]: a = [2]; case [3]: b = [4]; default: c = [5]; case [6]: d = [7]; }"
+		)));
+		SwitchStatement switchStatement = (SwitchStatement) Query.find(coalesced.node, n -> n instanceof SwitchStatement).fromJust();
+		Variable discriminant = switchStatement.discriminant.variable;
+		for (Pair<NodeWithValue, Block> pair : switchStatement.preDefaultCases.append(switchStatement.postDefaultCases)) {
+			assertFalse(Query.exists(pair.left, n -> n instanceof TemporaryReference && ((TemporaryReference) n).variable == discriminant));
+		}
+		assertLocalsDeclared(coalesced);
+	}
+
+	@Test
+	public void testCoalescesWithinFunctions() throws Exception {
+		Semantics semantics = Explicator.deriveSemantics(Parser.parseScript("f = function () { a = [1]; b = [2]; };"));
+		Semantics coalesced = TemporaryCoalescer.reduce(semantics);
+		LiteralFunction original = (LiteralFunction) Query.find(semantics.node, n -> n instanceof LiteralFunction).fromJust();
+		LiteralFunction function = (LiteralFunction) Query.find(coalesced.node, n -> n instanceof LiteralFunction).fromJust();
+		assertEquals(1, temporaries(coalesced));
+		assertEquals(original.locals().length - 1, function.locals().length);
+		assertLocalsDeclared(coalesced);
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		for (String name : ExplicationSucceedsTest.CORPUS) {
+			Semantics semantics = Explicator.deriveSemantics(Parser.parseScript(ExplicationSucceedsTest.readCorpusFile(name)));
+			Semantics coalesced = TemporaryCoalescer.reduce(semantics);
+			assertTrue(name, temporaries(coalesced) < temporaries(semantics));
+			assertLocalsDeclared(coalesced);
+		}
+	}
+}
@@ -1,10 +1,21 @@
 package com.shapesecurity.shift.es2017.semantics;
 
+import com.shapesecurity.functional.data.ImmutableList;
+import com.shapesecurity.functional.data.Maybe;
+import com.shapesecurity.shift.es2017.scope.Variable;
+import com.shapesecurity.shift.es2017.semantics.asg.Break;
+import com.shapesecurity.shift.es2017.semantics.asg.BreakTarget;
+import com.shapesecurity.shift.es2017.semantics.asg.LiteralFunction;
+import com.shapesecurity.shift.es2017.semantics.asg.LocalReference;
 import com.shapesecurity.shift.es2017.semantics.asg.Node;
+import com.shapesecurity.shift.es2017.semantics.asg.TryCatch;
 import com.shapesecurity.shift.es2017.semantics.visitor.Director;
+import com.shapesecurity.shift.es2017.semantics.visitor.GetDescendents;
 import com.shapesecurity.shift.es2017.semantics.visitor.ReconstructingReducer;
 
 import javax.annotation.Nonnull;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 
 final class Util {
 
@@ -17,4 +28,74 @@ final class Util {
 		Node reducedNode = new Director<>(ReconstructingReducer.create()).reduceNode(asg.node);
 		return new Semantics(reducedNode, asg.locals, asg.scriptVarDecls, asg.scopeLookup, asg.functionScopes);
 	}
+
+	// Semantics.equals compares variables and break targets by identity, so two separate explications of the same program are never equal.
+	// This instead checks that the graphs are the same up to a consistent renaming of variables and break targets.
+	static boolean isomorphic(@Nonnull Semantics a, @Nonnull Semantics b) {
+		Isomorphism iso = new Isomorphism();
+		if (!a.scriptVarDecls.equals(b.scriptVarDecls) || !iso.variables(a.locals, b.locals)) {
+			return false;
+		}
+		ImmutableList<Node> nodesA = GetDescendents.getDescendants(a.node);
+		ImmutableList<Node> nodesB = GetDescendents.getDescendants(b.node);
+		if (nodesA.length != nodesB.length) {
+			return false;
+		}
+		Iterator<Node> iteratorB = nodesB.iterator();
+		for (Node nodeA : nodesA) {
+			if (!iso.nodes(nodeA, iteratorB.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static final class Isomorphism {
+		private final IdentityHashMap<Object, Object> forward = new IdentityHashMap<>();
+		private final IdentityHashMap<Object, Object> backward = new IdentityHashMap<>();
+
+		private boolean match(@Nonnull Object a, @Nonnull Object b) {
+			Object mappedA = this.forward.get(a);
+			Object mappedB = this.backward.get(b);
+			if (mappedA == null && mappedB == null) {
+				this.forward.put(a, b);
+				this.backward.put(b, a);
+				return true;
+			}
+			return mappedA == b && mappedB == a;
+		}
+
+		private boolean variables(@Nonnull Maybe<Variable> a, @Nonnull Maybe<Variable> b) {
+			return a.isJust() == b.isJust() && (a.isNothing() || this.match(a.fromJust(), b.fromJust()));
+		}
+
+		private boolean variables(@Nonnull ImmutableList<Variable> a, @Nonnull ImmutableList<Variable> b) {
+			return a.length == b.length && a.zipWith(this::match, b).foldLeft((acc, x) -> acc && x, true);
+		}
+
+		private boolean nodes(@Nonnull Node a, @Nonnull Node b) {
+			if (a.getClass() != b.getClass()) {
+				return false;
+			}
+			if (a instanceof LocalReference) {
+				return this.match(((LocalReference) a).variable, ((LocalReference) b).variable);
+			} else if (a instanceof BreakTarget) {
+				return this.match(a, b);
+			} else if (a instanceof Break) {
+				return a.equalsIgnoringChildren(b) && this.match(((Break) a).target, ((Break) b).target);
+			} else if (a instanceof TryCatch) {
+				return this.match(((TryCatch) a).catchBody.left, ((TryCatch) b).catchBody.left);
+			} else if (a instanceof LiteralFunction) {
+				LiteralFunction functionA = (LiteralFunction) a;
+				LiteralFunction functionB = (LiteralFunction) b;
+				return functionA.isStrict == functionB.isStrict &&
+					this.variables(functionA.name, functionB.name) &&
+					this.variables(functionA.arguments, functionB.arguments) &&
+					this.variables(functionA.parameters, functionB.parameters) &&
+					this.variables(functionA.locals(), functionB.locals()) &&
+					this.variables(functionA.captured, functionB.captured);
+			}
+			return a.equalsIgnoringChildren(b);
+		}
+	}
 }